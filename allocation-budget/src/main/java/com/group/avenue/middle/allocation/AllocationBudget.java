@@ -0,0 +1,91 @@
+package com.group.avenue.middle.allocation;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Проверка бюджета аллокаций горячего пути через ThreadMXBean.getCurrentThreadAllocatedBytes.
+ * <p>
+ * Путь прогревается (чтобы отработал JIT и escape analysis), затем каждый вызов
+ * замеряется отдельно. Байты, выделенные в reset (подготовка к следующему вызову),
+ * в результат не попадают. Замер повторяется несколькими раундами и берется лучший:
+ * разовые выделения (докомпиляция, деоптимизация и повторный прогрев, рост внутреннего
+ * буфера) попадают в один раунд, а аллокация на каждом вызове - во все.
+ * Если лучшее среднее на вызов больше бюджета, finish() вернет 1.
+ * <p>
+ * Общий для проверок аллокаций всех модулей (их source set allocation зависит от этого модуля).
+ */
+public final class AllocationBudget {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int WARMUP_CALLS = 50_000;
+    private static final int ROUNDS = 5;
+    private static final Runnable NOTHING = () -> {
+    };
+
+    private final long overhead; // сколько выделяет сам замер
+    private final List<String> failures = new ArrayList<>();
+
+    public AllocationBudget() {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("JVM не поддерживает подсчет аллокаций потока");
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        this.overhead = calibrate(); // только после включения подсчета
+    }
+
+    public void check(String name, double budgetBytesPerCall, int calls, Runnable hotPath) {
+        check(name, budgetBytesPerCall, calls, hotPath, NOTHING);
+    }
+
+    public void check(String name, double budgetBytesPerCall, int calls, Runnable hotPath, Runnable reset) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            hotPath.run();
+            reset.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocated = 0;
+            for (int i = 0; i < calls; i++) {
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                hotPath.run();
+                allocated += THREADS.getCurrentThreadAllocatedBytes() - before - overhead;
+                reset.run();
+            }
+            best = Math.min(best, allocated);
+        }
+
+        double perCall = Math.max(0, (double) best / calls);
+        boolean passed = perCall <= budgetBytesPerCall;
+        System.out.printf(Locale.ROOT, "%-45s %10.1f B/call (budget %7.1f) %s%n",
+                name, perCall, budgetBytesPerCall, passed ? "OK" : "FAIL");
+        if (!passed) {
+            failures.add(name);
+        }
+    }
+
+    /**
+     * @return код выхода для JVM: 0 - все в бюджете, 1 - есть превышения
+     */
+    public int finish() {
+        if (failures.isEmpty()) {
+            System.out.println("Все горячие пути в бюджете аллокаций");
+            return 0;
+        }
+        System.out.println("Превышен бюджет аллокаций: " + failures);
+        return 1;
+    }
+
+    private static long calibrate() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 10_000; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            NOTHING.run();
+            min = Math.min(min, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        return min;
+    }
+}
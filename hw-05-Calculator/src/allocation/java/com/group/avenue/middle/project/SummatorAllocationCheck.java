@@ -0,0 +1,63 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.allocation.AllocationBudget;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Бюджеты аллокаций для Summator. Запускается задачей allocationBudget (входит в check).
+ */
+public class SummatorAllocationCheck {
+    private static final int CALLS = 1_000_000;
+
+    public static void main(String[] args) {
+        var budget = new AllocationBudget();
+
+        var summator = new Summator();
+        Data[] data = new Data[1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new Data(i * 7919 + 1);
+        }
+        // Окно заранее заполняется до WINDOW_LIMIT: замеряется и вытеснение старых значений
+        for (int i = 0; i <= Summator.WINDOW_LIMIT; i++) {
+            summator.calc(data[i & 1023]);
+        }
+        int[] next = {0};
+        budget.check("Summator.calc(Data)", 0, CALLS,
+                () -> summator.calc(data[next[0]++ & 1023]));
+
+        int[] values = new int[Summator.BATCH_BLOCK];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 31 + 7;
+        }
+        var batchSummator = new Summator();
+        for (int filled = 0; filled <= Summator.WINDOW_LIMIT; filled += values.length) {
+            batchSummator.calcBatch(values, 0, values.length);
+        }
+        budget.check("Summator.calcBatch(" + values.length + " values)", 0, CALLS / values.length * 16,
+                () -> batchSummator.calcBatch(values, 0, values.length));
+
+        // Окна ключей заранее дорастают до полной длины, дальше calc(key, value) не аллоцирует
+        var engine = new KeyedSummatorEngine(64, 1024);
+        for (int i = 0; i < 1024 * 64; i++) {
+            engine.calc(i & 1023, i);
+        }
+        int[] nextKey = {0};
+        budget.check("KeyedSummatorEngine.calc(key, value)", 0, CALLS,
+                () -> engine.calc(nextKey[0] & 1023, nextKey[0]++));
+
+        // Тень окна догоняется копированием в готовый direct-буфер, без аллокаций
+        try (var checkpoint = new SummatorCheckpoint(Path.of("summator-allocation.ckpt"))) {
+            budget.check("SummatorCheckpoint.track", 0, CALLS / values.length * 16, () -> {
+                batchSummator.calcBatch(values, 0, values.length);
+                checkpoint.track(batchSummator);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.exit(budget.finish());
+    }
+}
@@ -0,0 +1,31 @@
+package com.group.avenue.middle.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный цикл CalcDemo на 100 млн итераций (без печати прогресса).
+ * Результат нормирован на один вызов calc, чтобы сравнивать с {@link SummatorCalcBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CalcDemoLoopBenchmark {
+    private static final int COUNTER = 100_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(COUNTER)
+    public int fullLoop() {
+        var summator = new Summator();
+        CalcDemo.calcRange(summator, 0, COUNTER);
+        return summator.getSomeValue();
+    }
+}
@@ -0,0 +1,60 @@
+package com.group.avenue.middle.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParallelSummator на 100 млн значений при разном размере пула.
+ * Для сравнения с одним потоком - SummatorBatchBenchmark.calcBatch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelSummatorBenchmark {
+    private static final int SIZE = 100_000_000;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int parallelism;
+
+    private final int[] values = new int[SIZE];
+    private ForkJoinPool pool;
+    private ParallelSummator parallelSummator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < SIZE; i++) {
+            values[i] = i;
+        }
+        pool = new ForkJoinPool(parallelism);
+        parallelSummator = new ParallelSummator(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int calc() {
+        var summator = new Summator();
+        parallelSummator.calc(summator, values, 0, SIZE);
+        return summator.getSomeValue();
+    }
+}
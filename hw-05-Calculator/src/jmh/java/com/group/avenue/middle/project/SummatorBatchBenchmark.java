@@ -0,0 +1,59 @@
+package com.group.avenue.middle.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поштучный calc против calcBatch на одном и том же массиве значений.
+ * Результат нормирован на одно значение.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SummatorBatchBenchmark {
+    private static final int SIZE = 1 << 20;
+
+    private final int[] values = new int[SIZE];
+    private Summator summator;
+
+    @Setup(Level.Trial)
+    public void prepareValues() {
+        for (int i = 0; i < SIZE; i++) {
+            values[i] = i * 31 + 7;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSummator() {
+        summator = new Summator();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int calcEach() {
+        for (int value : values) {
+            summator.calc(new Data(value));
+        }
+        return summator.getSomeValue();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int calcBatch() {
+        summator.calcBatch(values, 0, SIZE);
+        return summator.getSomeValue();
+    }
+}
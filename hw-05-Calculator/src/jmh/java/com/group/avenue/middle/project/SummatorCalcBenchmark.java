@@ -0,0 +1,83 @@
+package com.group.avenue.middle.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одиночный вызов {@link Summator#calc(Data)}.
+ * <p>
+ * {@code calc} начинает каждую итерацию с пустого окна (как CalcDemo),
+ * {@code calcEvicting} - с окна, заполненного до предела, поэтому каждый вызов
+ * идет по пути вытеснения старого значения.
+ * Аллокации на вызов смотреть в gc.alloc.rate.norm (профайлер gc включен в build.gradle).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SummatorCalcBenchmark {
+    private static final int DATA_MASK = 1023;
+
+    @State(Scope.Thread)
+    public static class Input {
+        final Data[] data = new Data[DATA_MASK + 1];
+        int idx;
+
+        @Setup(Level.Trial)
+        public void prepareData() {
+            // Готовые объекты, чтобы мерить calc, а не new Data(...)
+            for (int i = 0; i < data.length; i++) {
+                data[i] = new Data(i * 7919 + 1);
+            }
+        }
+
+        Data next() {
+            return data[idx++ & DATA_MASK];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyWindow {
+        Summator summator;
+
+        @Setup(Level.Iteration)
+        public void resetSummator() {
+            summator = new Summator();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FullWindow {
+        Summator summator;
+
+        @Setup(Level.Trial)
+        public void fillWindow() {
+            summator = new Summator();
+            for (int i = 0; i < Summator.WINDOW_LIMIT; i++) {
+                summator.calc(new Data(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public int calc(EmptyWindow state, Input input) {
+        state.summator.calc(input.next());
+        return state.summator.getSomeValue();
+    }
+
+    @Benchmark
+    public int calcEvicting(FullWindow state, Input input) {
+        state.summator.calc(input.next());
+        return state.summator.getSomeValue();
+    }
+}
@@ -0,0 +1,122 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.util.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Пропускная способность приема из нескольких потоков в один Summator.
+ * <p>
+ * За вызов producers потоков вместе кладут VALUES значений и ждут, пока все посчитано.
+ * mode: synchronized - calc под общей блокировкой (как сейчас), spin/park - SummatorIngestor
+ * с соответствующей стратегией ожидания. BUSY_SPIN честен только при числе ядер
+ * не меньше producers + 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SummatorIngestorBenchmark {
+    private static final int VALUES = 4_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int producers;
+
+    @Param({"synchronized", "spin", "park"})
+    public String mode;
+
+    private ExecutorService executor;
+    private CyclicBarrier start;
+    private Summator summator;
+    private SummatorIngestor ingestor;
+    private IntConsumer sink;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        executor = Executors.newFixedThreadPool(producers);
+        start = new CyclicBarrier(producers);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        summator = new Summator();
+        switch (mode) {
+            case "synchronized" -> {
+                ingestor = null;
+                Summator target = summator;
+                sink = value -> {
+                    synchronized (target) {
+                        target.calc(new Data(value));
+                    }
+                };
+            }
+            case "spin" -> {
+                ingestor = new SummatorIngestor(summator, WaitStrategy.BUSY_SPIN);
+                sink = ingestor::put;
+            }
+            case "park" -> {
+                ingestor = new SummatorIngestor(summator, WaitStrategy.PARK);
+                sink = ingestor::put;
+            }
+            default -> throw new IllegalArgumentException("Неизвестный режим: " + mode);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        if (ingestor != null) {
+            ingestor.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int ingest() throws Exception {
+        int perProducer = VALUES / producers;
+        Future<?>[] futures = new Future<?>[producers];
+        for (int p = 0; p < producers; p++) {
+            int from = p * perProducer;
+            IntConsumer target = sink;
+            futures[p] = executor.submit(() -> {
+                start.await();
+                for (int i = from, to = from + perProducer; i < to; i++) {
+                    target.accept(i);
+                }
+                return null;
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        if (ingestor != null) {
+            ingestor.flush();
+        }
+        synchronized (summator) {
+            return summator.getSomeValue();
+        }
+    }
+}
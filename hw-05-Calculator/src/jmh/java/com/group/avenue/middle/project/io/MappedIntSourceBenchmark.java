@@ -0,0 +1,60 @@
+package com.group.avenue.middle.project.io;
+
+import com.group.avenue.middle.project.Summator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение 100 млн значений (400 МБ) из отображенного файла в Summator.
+ * После первого прохода файл лежит в page cache, так что меряется путь
+ * page cache -> int[] -> calcBatch. Результат нормирован на одно значение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MappedIntSourceBenchmark {
+    private static final int COUNT = 100_000_000;
+
+    private Path file;
+    private MappedIntSource source;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("summator-values", ".bin");
+        try (var writer = new IntFileWriter(file)) {
+            writer.writeRange(0, COUNT);
+        }
+        source = new MappedIntSource(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        source.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int feed() {
+        var summator = new Summator();
+        source.feed(summator);
+        return summator.getSomeValue();
+    }
+}
@@ -8,21 +8,62 @@ package com.group.avenue.middle.project;
 -XX:+UseG1GC
 */
 
+import com.group.avenue.middle.project.metrics.CalcMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
+/*
+Необязательный аргумент - файл контрольной точки: CalcDemo ./logs/calc.checkpoint
+Точка сохраняется каждые 10 млн значений, при перезапуске расчет продолжается с сохраненного idx.
+
+Прогресс раз в секунду печатает фоновый поток CalcMetrics, он же публикует MBean
+com.group.avenue.middle.project:type=CalcMetrics,name="CalcDemo" и JFR-события CalcProgress
+(-XX:StartFlightRecording=filename=calc.jfr).
+*/
 public class CalcDemo {
-    public static void main(String[] args) {
+    static final int METRICS_STEP = 1_000_000; // как часто цикл публикует счетчик обработанных значений
+    static final int CHECKPOINT_STEP = 10_000_000; // как часто сохраняем контрольную точку
+
+    public static void main(String[] args) throws IOException {
         long counter = 100_000_000;
         var summator = new Summator();
+        Path checkpointFile = args.length > 0 ? Path.of(args[0]) : null;
+        int startIdx = checkpointFile == null ? 0 : (int) SummatorCheckpoint.restore(checkpointFile, summator);
+        if (startIdx > 0) {
+            System.out.println("Продолжаем с контрольной точки, idx:" + startIdx);
+        }
         long startTime = System.currentTimeMillis();
 
-        for (var idx = 0; idx < counter; idx++) {
-//          Data data = new Data(idx);
-            summator.calc(new Data(idx));   // Передадим объект в качестве аргумента вместо создания объекта внутри метода
-            if (idx % 10_000_000 == 0) {
-                System.out.println(LocalDateTime.now() + " current idx:" + idx);
+        try (var metrics = new CalcMetrics("CalcDemo", Duration.ofSeconds(1), startIdx);
+             var checkpoint = checkpointFile == null ? null : new SummatorCheckpoint(checkpointFile)) {
+            metrics.onSample(sample -> System.out.println(LocalDateTime.now()
+                    + " current idx:" + sample.getProcessed()
+                    + ", ops/sec:" + (long) sample.getOpsPerSecond()
+                    + ", gc:" + sample.getGcCount() + "/" + sample.getGcTimeMillis() + "ms"
+                    + ", heap:" + (sample.getHeapUsed() >> 20) + "MB"));
+
+            int blocks = 0;
+            for (var from = startIdx; from < counter; from += METRICS_STEP) {
+                int to = (int) Math.min(counter, from + METRICS_STEP);
+                calcRange(summator, from, to);
+                metrics.processed(to);
+                if (checkpoint == null) {
+                    continue;
+                }
+                if (++blocks % (CHECKPOINT_STEP / METRICS_STEP) == 0) {
+                    checkpoint.checkpoint(summator, to);
+                } else {
+                    checkpoint.track(summator); // окно уходит в тень по блоку, точка досылает только хвост
+                }
             }
         }
+        if (checkpointFile != null) {
+            Files.deleteIfExists(checkpointFile); // расчет завершен, следующий запуск начнется с нуля
+        }
 
         long delta = System.currentTimeMillis() - startTime;
         System.out.println(summator.getPrevValue());
@@ -33,4 +74,12 @@ public class CalcDemo {
         System.out.println("spend msec:" + delta + ", sec:" + (delta / 1000));
 
     }
+
+    // Горячий цикл без вывода в консоль, его же гоняет CalcDemoLoopBenchmark
+    static void calcRange(Summator summator, int from, int to) {
+        for (var idx = from; idx < to; idx++) {
+//          Data data = new Data(idx);
+            summator.calc(new Data(idx));   // Передадим объект в качестве аргумента вместо создания объекта внутри метода
+        }
+    }
 }
\ No newline at end of file
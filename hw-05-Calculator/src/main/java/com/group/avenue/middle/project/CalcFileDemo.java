@@ -0,0 +1,45 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.io.IntFileWriter;
+import com.group.avenue.middle.project.io.MappedIntSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+Запуск: CalcFileDemo <файл> [количество]
+Если файла нет, он создается со значениями 0..количество-1 (по умолчанию 100 млн, как в CalcDemo).
+*/
+public class CalcFileDemo {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Использование: CalcFileDemo <файл> [количество]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        int counter = args.length > 1 ? Integer.parseInt(args[1]) : 100_000_000;
+
+        if (Files.notExists(file)) {
+            try (var writer = new IntFileWriter(file)) {
+                writer.writeRange(0, counter);
+            }
+            System.out.println("Создан файл " + file + ", значений: " + counter);
+        }
+
+        var summator = new Summator();
+        long startTime = System.currentTimeMillis();
+        long processed;
+        try (var source = new MappedIntSource(file)) {
+            processed = source.feed(summator);
+        }
+
+        long delta = System.currentTimeMillis() - startTime;
+        System.out.println(summator.getPrevValue());
+        System.out.println(summator.getPrevPrevValue());
+        System.out.println(summator.getSumLastThreeValues());
+        System.out.println(summator.getSomeValue());
+        System.out.println(summator.getSum());
+        System.out.println("values:" + processed + ", spend msec:" + delta + ", sec:" + (delta / 1000));
+    }
+}
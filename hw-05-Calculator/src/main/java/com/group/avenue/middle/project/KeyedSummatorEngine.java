@@ -0,0 +1,221 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Состояние Summator для многих независимых ключей (датчиков) без объекта на ключ.
+ * <p>
+ * Ключ переводится в плотный номер хеш-таблицей {@link LongIntHashMap}, а поля
+ * (sum, prevValue, prevPrevValue, sumLastThreeValues, someValue, окно) лежат
+ * колонками - по примитивному массиву на поле, номер ключа - индекс в массиве.
+ * calc(key, value) для известного ключа не аллоцирует.
+ * <p>
+ * У каждого ключа свое окно: кольцо из последних windowLength значений. Формула та же,
+ * что у Summator, с размером окна этого ключа; Summator соответствует
+ * windowLength = WINDOW_LIMIT - 1. Массив окна растет удвоением по мере прихода значений
+ * и не превышает windowLength, так что память ключа ограничена:
+ * 4 * windowLength байт окна плюс порядка 100 байт на колонки, заголовок массива окна
+ * и ячейки хеш-таблицы.
+ * <p>
+ * Не потокобезопасен, как и Summator.
+ */
+public class KeyedSummatorEngine {
+    private static final int MIN_KEYS = 16;
+    private static final int MIN_WINDOW = 16;
+
+    private final int defaultWindowLength;
+    private final LongIntHashMap ids;
+    private int count;
+
+    // Колонки по номеру ключа
+    private int[] sum;
+    private int[] prevValue;
+    private int[] prevPrevValue;
+    private int[] sumLastThreeValues;
+    private int[] someValue;
+    private int[] windowLength;
+    private int[] windowHead; // индекс самого старого значения в окне
+    private int[] windowSize;
+    private int[][] windows;
+
+    /**
+     * @param defaultWindowLength длина окна ключей, которые появляются через calc без register
+     */
+    public KeyedSummatorEngine(int defaultWindowLength) {
+        this(defaultWindowLength, MIN_KEYS);
+    }
+
+    /**
+     * @param expectedKeys сколько ключей ожидается, чтобы колонки и таблица не росли по дороге
+     */
+    public KeyedSummatorEngine(int defaultWindowLength, int expectedKeys) {
+        checkWindowLength(defaultWindowLength);
+        this.defaultWindowLength = defaultWindowLength;
+        this.ids = new LongIntHashMap(expectedKeys);
+        allocate(Math.max(MIN_KEYS, expectedKeys));
+    }
+
+    /**
+     * Завести ключ с собственной длиной окна
+     * @throws IllegalStateException если ключ уже есть
+     */
+    public void register(long key, int windowLength) {
+        checkWindowLength(windowLength);
+        if (ids.containsKey(key)) {
+            throw new IllegalStateException("Ключ " + key + " уже зарегистрирован");
+        }
+        add(key, windowLength);
+    }
+
+    /**
+     * То же, что summator.calc(new Data(value)) для Summator этого ключа.
+     * Неизвестный ключ заводится с длиной окна по умолчанию.
+     */
+    public void calc(long key, int value) {
+        int id = ids.get(key);
+        if (id == LongIntHashMap.MISSING) {
+            id = add(key, defaultWindowLength);
+        }
+
+        int size = offer(id, value);
+
+        int total = sum[id] + value;
+        sum[id] = total;
+        sumLastThreeValues[id] = value + prevValue[id] + prevPrevValue[id];
+        prevPrevValue[id] = prevValue[id];
+        prevValue[id] = value;
+
+        int t = value + prevValue[id] + prevPrevValue[id];
+        int result = someValue[id];
+        for (int i = 0; i < 3; i++) {
+            result += (t * t) / (value + 1) - total;
+            result = Math.abs(result) + size;
+        }
+        someValue[id] = result;
+    }
+
+    public boolean contains(long key) {
+        return ids.containsKey(key);
+    }
+
+    public int keyCount() {
+        return count;
+    }
+
+    public int getSum(long key) {
+        return sum[id(key)];
+    }
+
+    public int getPrevValue(long key) {
+        return prevValue[id(key)];
+    }
+
+    public int getPrevPrevValue(long key) {
+        return prevPrevValue[id(key)];
+    }
+
+    public int getSumLastThreeValues(long key) {
+        return sumLastThreeValues[id(key)];
+    }
+
+    public int getSomeValue(long key) {
+        return someValue[id(key)];
+    }
+
+    public int getWindowLength(long key) {
+        return windowLength[id(key)];
+    }
+
+    public int getWindowSize(long key) {
+        return windowSize[id(key)];
+    }
+
+    /**
+     * Значение окна ключа: 0 - самое старое, getWindowSize(key) - 1 - последнее
+     */
+    public int getWindowValue(long key, int index) {
+        int id = id(key);
+        if (index < 0 || index >= windowSize[id]) {
+            throw new IndexOutOfBoundsException("Индекс " + index + ", размер " + windowSize[id]);
+        }
+        int[] window = windows[id];
+        int pos = windowHead[id] + index;
+        return window[pos < window.length ? pos : pos - window.length];
+    }
+
+    /**
+     * Добавить значение в окно ключа, вытеснив самое старое при заполнении
+     * @return размер окна после добавления
+     */
+    private int offer(int id, int value) {
+        int[] window = windows[id];
+        int size = windowSize[id];
+        int length = windowLength[id];
+        if (size < length) {
+            // Окно еще не заполнено: вытеснений не было, значения лежат с нуля
+            if (size == window.length) {
+                window = Arrays.copyOf(window, (int) Math.min(length, 2L * window.length));
+                windows[id] = window;
+            }
+            window[size] = value;
+            windowSize[id] = ++size;
+            return size;
+        }
+        int head = windowHead[id];
+        window[head] = value;
+        windowHead[id] = head + 1 == length ? 0 : head + 1;
+        return size;
+    }
+
+    private int add(long key, int length) {
+        if (count == sum.length) {
+            allocate(sum.length * 2);
+        }
+        int id = count++;
+        ids.put(key, id);
+        windowLength[id] = length;
+        windows[id] = new int[Math.min(length, MIN_WINDOW)];
+        return id;
+    }
+
+    private int id(long key) {
+        int id = ids.get(key);
+        if (id == LongIntHashMap.MISSING) {
+            throw new NoSuchElementException("Нет ключа " + key);
+        }
+        return id;
+    }
+
+    private void allocate(int capacity) {
+        if (sum == null) {
+            sum = new int[capacity];
+            prevValue = new int[capacity];
+            prevPrevValue = new int[capacity];
+            sumLastThreeValues = new int[capacity];
+            someValue = new int[capacity];
+            windowLength = new int[capacity];
+            windowHead = new int[capacity];
+            windowSize = new int[capacity];
+            windows = new int[capacity][];
+            return;
+        }
+        sum = Arrays.copyOf(sum, capacity);
+        prevValue = Arrays.copyOf(prevValue, capacity);
+        prevPrevValue = Arrays.copyOf(prevPrevValue, capacity);
+        sumLastThreeValues = Arrays.copyOf(sumLastThreeValues, capacity);
+        someValue = Arrays.copyOf(someValue, capacity);
+        windowLength = Arrays.copyOf(windowLength, capacity);
+        windowHead = Arrays.copyOf(windowHead, capacity);
+        windowSize = Arrays.copyOf(windowSize, capacity);
+        windows = Arrays.copyOf(windows, capacity);
+    }
+
+    private static void checkWindowLength(int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Длина окна должна быть положительной: " + length);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.group.avenue.middle.project;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельный вариант {@link Summator#calcBatch}: результат совпадает с поштучным calc бит в бит.
+ * <p>
+ * Вход режется на блоки по chunkSize * parallelism значений, блок - на куски по chunkSize.
+ * Куски считаются в ForkJoinPool независимо друг от друга: частное (t * t) / (v + 1)
+ * и сумма значений куска. Суммы кусков складываются (сложение ассоциативно) в префикс,
+ * с которого начинается каждый следующий кусок. Рекуррентная формула someValue
+ * с Math.abs не ассоциативна, поэтому ее досчитывает вызывающий поток одним
+ * последовательным проходом - и делает это параллельно с подготовкой следующего блока.
+ * Окно и prevValue/prevPrevValue/sumLastThreeValues зависят только от хвоста входа
+ * и обновляются один раз в конце.
+ * <p>
+ * Экземпляр держит буферы на два блока и не рассчитан на одновременные вызовы calc.
+ */
+public class ParallelSummator {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int blockSize;
+    // Двойная буферизация: пока один блок досчитывается, следующий готовится в пуле
+    private final int[][] deltas = new int[2][]; // q - сумма куска до значения включительно
+    private final int[][] chunkSums = new int[2][];
+
+    public ParallelSummator(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelSummator(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер куска должен быть положительным");
+        }
+        this.pool = Objects.requireNonNull(pool);
+        this.chunkSize = chunkSize;
+        this.blockSize = (int) Math.min(Integer.MAX_VALUE - 8, (long) chunkSize * pool.getParallelism());
+    }
+
+    /**
+     * То же, что summator.calcBatch(values, off, len), но с подготовкой на всех потоках пула
+     */
+    public void calc(Summator summator, int[] values, int off, int len) {
+        Objects.checkFromIndexSize(off, len, values.length);
+
+        int zeroDivisor = SummatorKernels.indexOf(values, off, len, -1);
+        int end = zeroDivisor >= 0 ? zeroDivisor : off + len;
+        if (end > off) {
+            calcParallel(summator, values, off, end);
+        }
+        if (zeroDivisor >= 0) {
+            // calcBatch передаст -1 в calc, и тот упадет на том же значении
+            summator.calcBatch(values, zeroDivisor, off + len - zeroDivisor);
+        }
+    }
+
+    private void calcParallel(Summator summator, int[] values, int from, int to) {
+        int firstBlockEnd = (int) Math.min(to, (long) from + blockSize);
+        ForkJoinTask<?> pending = pool.submit(prepare(values, from, firstBlockEnd, summator.getPrevValue(), 0));
+
+        int sum = summator.getSum();
+        int someValue = summator.getSomeValue();
+        int size = summator.windowSize();
+
+        for (int start = from, buf = 0; start < to; buf ^= 1) {
+            int end = (int) Math.min(to, (long) start + blockSize);
+            pending.join();
+            if (end < to) {
+                int nextEnd = (int) Math.min(to, (long) end + blockSize);
+                pending = pool.submit(prepare(values, end, nextEnd, values[end - 1], buf ^ 1));
+            }
+
+            int[] delta = deltas[buf];
+            int[] sums = chunkSums[buf];
+            for (int chunk = 0, chunkStart = 0, blockLen = end - start; chunkStart < blockLen; chunk++) {
+                int chunkEnd = Math.min(blockLen, chunkStart + chunkSize);
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    if (size < Summator.WINDOW_LIMIT - 1) {
+                        size++;
+                    }
+                    int d = delta[i] - sum; // = q - (сумма до куска + сумма куска до значения)
+                    someValue = Math.abs(someValue + d) + size;
+                    someValue = Math.abs(someValue + d) + size;
+                    someValue = Math.abs(someValue + d) + size;
+                }
+                sum += sums[chunk];
+                chunkStart = chunkEnd;
+            }
+            start = end;
+        }
+
+        summator.completeBatch(values, from, to - from, sum, someValue);
+    }
+
+    private PrepareChunks prepare(int[] values, int start, int end, int prev, int buf) {
+        if (deltas[buf] == null) {
+            deltas[buf] = new int[blockSize];
+            chunkSums[buf] = new int[(blockSize + chunkSize - 1) / chunkSize];
+        }
+        int chunks = (end - start + chunkSize - 1) / chunkSize;
+        return new PrepareChunks(values, start, end, prev, deltas[buf], chunkSums[buf], 0, chunks);
+    }
+
+    /**
+     * Подготовка кусков [fromChunk, toChunk) одного блока, делится пополам до одного куска.
+     * ForkJoinTask формально Serializable, но задача живет только внутри пула и не сериализуется.
+     */
+    @SuppressWarnings("serial")
+    private final class PrepareChunks extends RecursiveAction {
+        private final int[] values;
+        private final int blockStart;
+        private final int blockEnd;
+        private final int blockPrev; // значение перед blockStart
+        private final int[] delta;
+        private final int[] sums;
+        private final int fromChunk;
+        private final int toChunk;
+
+        PrepareChunks(int[] values, int blockStart, int blockEnd, int blockPrev,
+                      int[] delta, int[] sums, int fromChunk, int toChunk) {
+            this.values = values;
+            this.blockStart = blockStart;
+            this.blockEnd = blockEnd;
+            this.blockPrev = blockPrev;
+            this.delta = delta;
+            this.sums = sums;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                prepareChunk(fromChunk);
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new PrepareChunks(values, blockStart, blockEnd, blockPrev, delta, sums, fromChunk, middle),
+                    new PrepareChunks(values, blockStart, blockEnd, blockPrev, delta, sums, middle, toChunk));
+        }
+
+        private void prepareChunk(int chunk) {
+            int base = chunk * chunkSize;
+            int start = blockStart + base;
+            int len = Math.min(blockEnd - start, chunkSize);
+            int prev = start == blockStart ? blockPrev : values[start - 1];
+
+            SummatorKernels.quotients(values, start, len, prev, delta, base);
+            int chunkSum = 0;
+            for (int i = 0; i < len; i++) {
+                chunkSum += values[start + i];
+                delta[base + i] -= chunkSum;
+            }
+            sums[chunk] = chunkSum;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.group.avenue.middle.project;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import com.group.avenue.middle.project.util.IntRingBuffer;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
 
 public class Summator {
+    static final int WINDOW_LIMIT = 6_600_000; // предел размера очереди значений
+    static final int BATCH_BLOCK = 4096; // по сколько значений calcBatch обрабатывает за проход
+
     private int sum = 0;
     private int prevValue = 0;
     private int prevPrevValue = 0;
     private int sumLastThreeValues = 0;
     private int someValue = 0;
-    private final Deque<Integer> listValues = new ArrayDeque<>(6_600_000); // Ограничиваем емкость очереди
+    private final IntRingBuffer listValues = new IntRingBuffer(WINDOW_LIMIT); // int[] вместо Deque<Integer>: без упаковки значений
+    private int[] quotients; // буфер calcBatch, создается при первом вызове
+    private WindowAggregates[] aggregates = new WindowAggregates[0]; // окна, включенные через trackWindow
 
 
     //!!! сигнатуру метода менять нельзя
@@ -18,8 +26,11 @@ public class Summator {
 
         // Добавляем в очередь, лимитируем размеры
         listValues.offer(val);
-        if (listValues.size() >= 6_600_000) { // очистим старые элементы автоматически
-            listValues.pollFirst();
+        if (aggregates.length > 0) {
+            pushAggregates(val);
+        }
+        if (listValues.size() >= WINDOW_LIMIT) { // очистим старые элементы автоматически
+            listValues.evict();
         }
 
         sum += val;
@@ -37,6 +48,165 @@ public class Summator {
         }
     }
 
+    /**
+     * Пакетный вариант calc: результат тот же, что у calc(new Data(values[i])) для всех
+     * значений по порядку. Деление для someValue считается векторно (SummatorKernels),
+     * окно пополняется копированием массива, а скалярным остается только сама
+     * рекуррентная формула someValue.
+     */
+    public void calcBatch(int[] values, int off, int len) {
+        Objects.checkFromIndexSize(off, len, values.length);
+
+        int zeroDivisor = SummatorKernels.indexOf(values, off, len, -1);
+        if (zeroDivisor >= 0) {
+            // val + 1 == 0: доходим до этого значения пакетом, дальше calc упадет там же, где и при поштучной обработке
+            calcBatch(values, off, zeroDivisor - off);
+            for (int i = zeroDivisor; i < off + len; i++) {
+                calc(new Data(values[i]));
+            }
+            return;
+        }
+
+        if (quotients == null) {
+            quotients = new int[BATCH_BLOCK];
+        }
+        for (int from = off, end = off + len; from < end; from += BATCH_BLOCK) {
+            calcBlock(values, from, Math.min(BATCH_BLOCK, end - from));
+        }
+    }
+
+    private void calcBlock(int[] values, int off, int len) {
+        SummatorKernels.quotients(values, off, len, prevValue, quotients, 0);
+
+        // Размер окна после добавления каждого значения растет до WINDOW_LIMIT - 1
+        int size = listValues.size();
+        int runningSum = sum;
+        int value = someValue;
+        for (int i = 0; i < len; i++) {
+            runningSum += values[off + i];
+            if (size < WINDOW_LIMIT - 1) {
+                size++;
+            }
+            int delta = quotients[i] - runningSum;
+            value = Math.abs(value + delta) + size;
+            value = Math.abs(value + delta) + size;
+            value = Math.abs(value + delta) + size;
+        }
+        completeBatch(values, off, len, runningSum, value);
+    }
+
+    /**
+     * Завершить пакет, для которого sum и someValue уже посчитаны (calcBlock, ParallelSummator):
+     * пополнить окно и сдвинуть prevValue/prevPrevValue/sumLastThreeValues по последним значениям
+     */
+    void completeBatch(int[] values, int off, int len, int newSum, int newSomeValue) {
+        sum = newSum;
+        someValue = newSomeValue;
+        if (len == 0) {
+            return;
+        }
+
+        for (WindowAggregates window : aggregates) {
+            window.feed(values, off, len, listValues);
+        }
+        listValues.offerAll(values, off, len);
+        if (listValues.size() >= WINDOW_LIMIT) {
+            listValues.evict();
+        }
+
+        int last = off + len - 1;
+        if (len == 1) {
+            sumLastThreeValues = values[last] + prevValue + prevPrevValue;
+            prevPrevValue = prevValue;
+        } else {
+            sumLastThreeValues = values[last] + values[last - 1] + (len == 2 ? prevValue : values[last - 2]);
+            prevPrevValue = values[last - 1];
+        }
+        prevValue = values[last];
+    }
+
+    int windowSize() {
+        return listValues.size();
+    }
+
+    // Для SummatorCheckpoint: окно от старых значений к новым
+    void copyWindowTo(IntBuffer dst) {
+        listValues.copyTo(dst);
+    }
+
+    // Для SummatorCheckpoint: count значений окна начиная с from-го
+    void copyWindowTo(int from, int count, IntBuffer dst) {
+        listValues.copyTo(from, count, dst);
+    }
+
+    // Для SummatorCheckpoint: сколько значений добавлено в окно за все время, растет и при restore
+    long windowAdded() {
+        return listValues.totalAdded();
+    }
+
+    // Для SummatorCheckpoint: восстановить состояние из контрольной точки
+    void restore(int sum, int prevValue, int prevPrevValue, int sumLastThreeValues, int someValue,
+                 int[] window, int windowSize) {
+        if (windowSize >= WINDOW_LIMIT) {
+            throw new IllegalArgumentException("Окно из " + windowSize + " значений больше предела " + WINDOW_LIMIT);
+        }
+        this.sum = sum;
+        this.prevValue = prevValue;
+        this.prevPrevValue = prevPrevValue;
+        this.sumLastThreeValues = sumLastThreeValues;
+        this.someValue = someValue;
+        listValues.clear();
+        listValues.offerAll(window, 0, windowSize);
+        for (WindowAggregates aggregate : aggregates) {
+            aggregate.rebuild(listValues);
+        }
+    }
+
+    /**
+     * Включить минимум/максимум/сумму/среднее по последним length значениям (length до WINDOW_LIMIT - 1).
+     * Агрегаты сразу строятся по текущему окну и дальше обновляются за амортизированное O(1) на значение.
+     * Можно включить несколько длин одновременно.
+     */
+    public WindowAggregates trackWindow(int length) {
+        if (length <= 0 || length > WINDOW_LIMIT - 1) {
+            throw new IllegalArgumentException("Длина окна должна быть от 1 до " + (WINDOW_LIMIT - 1));
+        }
+        for (WindowAggregates aggregate : aggregates) {
+            if (aggregate.length() == length) {
+                return aggregate;
+            }
+        }
+        var aggregate = new WindowAggregates(length);
+        aggregate.rebuild(listValues);
+        aggregates = Arrays.copyOf(aggregates, aggregates.length + 1);
+        aggregates[aggregates.length - 1] = aggregate;
+        return aggregate;
+    }
+
+    /**
+     * Агрегаты по всему окну Summator (последние WINDOW_LIMIT - 1 значений)
+     */
+    public WindowAggregates trackWindow() {
+        return trackWindow(WINDOW_LIMIT - 1);
+    }
+
+    private void pushAggregates(int val) {
+        // val уже в окне; для окна длины length выходит значение, добавленное length шагов назад
+        int newest = listValues.size() - 1;
+        for (WindowAggregates aggregate : aggregates) {
+            aggregate.push(val, aggregate.isFull() ? listValues.get(newest - aggregate.length()) : 0);
+        }
+    }
+
+    private WindowAggregates fullWindow() {
+        for (WindowAggregates aggregate : aggregates) {
+            if (aggregate.length() == WINDOW_LIMIT - 1) {
+                return aggregate;
+            }
+        }
+        throw new IllegalStateException("Агрегаты окна не включены, вызовите trackWindow()");
+    }
+
     public int getSum() {
         return sum;
     }
@@ -57,4 +227,22 @@ public class Summator {
         return someValue;
     }
 
+    // --- Агрегаты по окну, требуют trackWindow() ---
+
+    public int getWindowMin() {
+        return fullWindow().min();
+    }
+
+    public int getWindowMax() {
+        return fullWindow().max();
+    }
+
+    public long getWindowSum() {
+        return fullWindow().sum();
+    }
+
+    public double getWindowAverage() {
+        return fullWindow().average();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.group.avenue.middle.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Контрольные точки Summator в компактном двоичном файле, чтобы длинный прогон
+ * можно было продолжить с сохраненного индекса, а не с нуля.
+ * <p>
+ * Формат (little-endian): заголовок 48 байт - магическое число, версия, следующий индекс,
+ * пять полей Summator, размер окна, CRC32 окна - и затем значения окна от старых к новым.
+ * Файл пишется одной gather-записью (заголовок + окно) во временный файл и атомарно
+ * переименовывается, так что на диске всегда лежит целая последняя точка.
+ * <p>
+ * Окно передается фоновому потоку не целиком в момент точки, а по частям: теневое кольцо
+ * в заранее выделенном direct-буфере догоняет окно Summator в {@link #track} после каждого
+ * блока значений (копируются только значения, добавленные с прошлого раза), а
+ * {@link #checkpoint} досылает остаток и записывает скаляры - без аллокаций и без копии
+ * всего окна на вызывающем потоке. CRC, запись и fsync делает фоновый поток, пока он пишет,
+ * кольцо не трогается, а track откладывает догонялку до следующего вызова.
+ * Если предыдущая точка еще пишется, новая пропускается, цикл не ждет.
+ */
+public class SummatorCheckpoint implements AutoCloseable {
+    private static final int MAGIC = 0x534D4350; // "SMCP"
+    private static final int VERSION = 1;
+    static final int HEADER_BYTES = 48;
+    private static final int CRC_OFFSET = 40;
+
+    private final Path file;
+    private final Path tmpFile;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    // Теневое кольцо окна: последние shadowSize значений заканчиваются перед shadowTail
+    private final ByteBuffer shadow = ByteBuffer.allocateDirect(Summator.WINDOW_LIMIT * Integer.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final IntBuffer shadowInts = shadow.asIntBuffer();
+    private final ByteBuffer first = shadow.duplicate(); // окно от старых значений: до конца кольца
+    private final ByteBuffer second = shadow.duplicate(); // и с начала кольца
+    private final ByteBuffer[] parts = {header, first, second};
+    private final CRC32 crc = new CRC32(); // только фоновому потоку
+    private Summator tracked; // чье окно в тени
+    private long trackedAdded; // Summator.windowAdded() на момент последней догонялки
+    private int shadowTail;
+    private int shadowSize;
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "summator-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile IOException failure;
+
+    public SummatorCheckpoint(Path file) {
+        this.file = file;
+        this.tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Догнать окно summator в теневом кольце: скопировать значения, добавленные с прошлого раза.
+     * Вызывать после каждого блока значений, чтобы {@link #checkpoint} досылал только хвост.
+     * Пока предыдущая точка пишется, ничего не делает - значения догонятся в следующий раз.
+     */
+    public void track(Summator summator) {
+        if (writing.compareAndSet(false, true)) {
+            try {
+                catchUp(summator);
+            } finally {
+                writing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Вызывается, только когда фоновый поток не пишет (writing взят этим потоком)
+     */
+    private void catchUp(Summator summator) {
+        long added = summator.windowAdded();
+        int size = summator.windowSize();
+        // Новых значений не больше окна; другой Summator или restore - все окно заново
+        int fresh = summator != tracked || added - trackedAdded >= size ? size : (int) (added - trackedAdded);
+        int from = size - fresh;
+        int capacity = shadowInts.capacity();
+        int firstPart = Math.min(fresh, capacity - shadowTail);
+        shadowInts.position(shadowTail);
+        summator.copyWindowTo(from, firstPart, shadowInts);
+        shadowInts.position(0);
+        summator.copyWindowTo(from + firstPart, fresh - firstPart, shadowInts);
+        shadowTail = fresh - firstPart > 0 ? fresh - firstPart : shadowTail + firstPart;
+        if (shadowTail == capacity) {
+            shadowTail = 0;
+        }
+        shadowSize = size;
+        tracked = summator;
+        trackedAdded = added;
+    }
+
+    /**
+     * Снять контрольную точку: следующий необработанный индекс - nextIndex
+     * @return false, если предыдущая точка еще записывается и эта пропущена
+     * @throws UncheckedIOException если не удалось записать предыдущую точку
+     */
+    public boolean checkpoint(Summator summator, long nextIndex) {
+        IOException error = failure;
+        if (error != null) {
+            throw new UncheckedIOException("Не удалось записать контрольную точку " + file, error);
+        }
+        if (!writing.compareAndSet(false, true)) {
+            return false;
+        }
+
+        header.clear();
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(nextIndex)
+                .putInt(summator.getSum())
+                .putInt(summator.getPrevValue())
+                .putInt(summator.getPrevPrevValue())
+                .putInt(summator.getSumLastThreeValues())
+                .putInt(summator.getSomeValue())
+                .putInt(summator.windowSize())
+                .putInt(0) // CRC32 окна, допишет фоновый поток
+                .putInt(0)
+                .flip();
+
+        catchUp(summator);
+        // Окно от старых к новым: от shadowTail - shadowSize до конца кольца и с начала кольца
+        int start = shadowTail - shadowSize;
+        if (start < 0) {
+            start += shadowInts.capacity();
+        }
+        int firstPart = Math.min(shadowSize, shadowInts.capacity() - start);
+        first.limit((start + firstPart) * Integer.BYTES).position(start * Integer.BYTES);
+        second.limit((shadowSize - firstPart) * Integer.BYTES).position(0);
+
+        writer.execute(this::write);
+        return true;
+    }
+
+    private void write() {
+        try {
+            crc.reset();
+            crc.update(first.duplicate());
+            crc.update(second.duplicate());
+            header.putInt(CRC_OFFSET, (int) crc.getValue());
+
+            try (FileChannel channel = FileChannel.open(tmpFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining() || first.hasRemaining() || second.hasRemaining()) {
+                    channel.write(parts);
+                }
+                channel.force(false);
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            writing.set(false);
+        }
+    }
+
+    /**
+     * Восстановить summator из контрольной точки
+     * @return индекс, с которого нужно продолжить, или 0 если файла нет
+     * @throws IOException если файл поврежден или не читается
+     */
+    public static long restore(Path file, Summator summator) throws IOException {
+        if (Files.notExists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Файл " + file + " не является контрольной точкой Summator");
+            }
+            long nextIndex = header.getLong();
+            int sum = header.getInt();
+            int prevValue = header.getInt();
+            int prevPrevValue = header.getInt();
+            int sumLastThreeValues = header.getInt();
+            int someValue = header.getInt();
+            int windowSize = header.getInt();
+            int expectedCrc = header.getInt();
+            if (windowSize < 0 || windowSize >= Summator.WINDOW_LIMIT) {
+                throw new IOException("Некорректный размер окна в " + file + ": " + windowSize);
+            }
+
+            ByteBuffer windowBytes = ByteBuffer.allocate(windowSize * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, windowBytes);
+            windowBytes.flip();
+            var crc = new CRC32();
+            crc.update(windowBytes.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Контрольная сумма окна в " + file + " не совпадает");
+            }
+
+            int[] window = new int[windowSize];
+            windowBytes.asIntBuffer().get(window);
+            summator.restore(sum, prevValue, prevPrevValue, sumLastThreeValues, someValue, window, windowSize);
+            return nextIndex;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Контрольная точка обрезана");
+            }
+        }
+    }
+
+    /**
+     * Дождаться записи последней точки
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("Контрольная точка не записалась за минуту");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Прервано ожидание записи контрольной точки", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.util.MpscIntRing;
+import com.group.avenue.middle.project.util.WaitStrategy;
+
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Прием значений из многих потоков в один Summator.
+ * <p>
+ * Писатели кладут значения в ограниченную lock-free очередь {@link MpscIntRing},
+ * единственный поток-читатель забирает их пачками до batchSize и отдает в
+ * {@link Summator#calcBatch}. Summator по-прежнему меняет только один поток,
+ * синхронизация ему не нужна. Если очередь заполнена, {@link #put} ждет по
+ * {@link WaitStrategy} (обратное давление), {@link #offer} сразу возвращает false.
+ * <p>
+ * Порядок значений разных писателей не определен, значения одного писателя идут по порядку.
+ * Читать Summator можно после {@link #flush()} или {@link #close()}.
+ * Если calc падает (значение -1), читатель останавливается, оставшиеся в очереди
+ * значения не считаются, а put/flush/close бросают IllegalStateException с причиной.
+ */
+public class SummatorIngestor implements AutoCloseable {
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private final Summator summator;
+    private final MpscIntRing ring;
+    private final WaitStrategy waitStrategy;
+    private final int[] batch;
+    private final Thread consumer;
+
+    private volatile boolean closed;
+    private volatile long processed; // пишет только читатель
+    private volatile RuntimeException failure;
+
+    public SummatorIngestor(Summator summator, WaitStrategy waitStrategy) {
+        this(summator, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, waitStrategy);
+    }
+
+    /**
+     * @param capacity емкость очереди, степень двойки
+     * @param batchSize сколько значений читатель отдает в calcBatch за раз
+     */
+    public SummatorIngestor(Summator summator, int capacity, int batchSize, WaitStrategy waitStrategy) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.summator = Objects.requireNonNull(summator);
+        this.ring = new MpscIntRing(capacity);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.batch = new int[batchSize];
+        this.consumer = new Thread(this::drainLoop, "summator-ingestor");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Добавить значение, при заполненной очереди ждать места
+     * @throws IllegalStateException если приемник закрыт или остановлен ошибкой
+     */
+    public void put(int value) {
+        checkRunning();
+        for (int attempt = 0; !ring.offer(value); attempt++) {
+            checkRunning();
+            waitStrategy.idle(attempt);
+        }
+    }
+
+    public void put(Data data) {
+        put(data.value());
+    }
+
+    /**
+     * Добавить значение без ожидания
+     * @return false, если очередь заполнена
+     * @throws IllegalStateException если приемник закрыт или остановлен ошибкой
+     */
+    public boolean offer(int value) {
+        checkRunning();
+        return ring.offer(value);
+    }
+
+    /**
+     * Дождаться, пока будут посчитаны все значения, добавленные до вызова
+     * @throws IllegalStateException если читатель остановлен ошибкой
+     */
+    public void flush() {
+        long target = ring.offered();
+        for (int attempt = 0; processed < target; attempt++) {
+            throwIfFailed();
+            if (!consumer.isAlive()) {
+                break;
+            }
+            waitStrategy.idle(attempt);
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Сколько значений уже отдано в Summator
+     */
+    public long processed() {
+        return processed;
+    }
+
+    /**
+     * Досчитать очередь и остановить читателя. Вызывать после того, как писатели закончили:
+     * значение, добавленное одновременно с close, может не попасть в Summator.
+     * @throws IllegalStateException если читатель остановлен ошибкой
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        boolean interrupted = false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        throwIfFailed();
+    }
+
+    private void drainLoop() {
+        try {
+            int idle = 0;
+            while (true) {
+                int count = ring.drain(batch, 0, batch.length);
+                if (count > 0) {
+                    summator.calcBatch(batch, 0, count);
+                    processed += count;
+                    idle = 0;
+                } else if (closed && processed == ring.offered()) {
+                    return;
+                } else {
+                    waitStrategy.idle(idle++);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    private void checkRunning() {
+        throwIfFailed();
+        if (closed) {
+            throw new IllegalStateException("Приемник закрыт");
+        }
+    }
+
+    private void throwIfFailed() {
+        RuntimeException error = failure;
+        if (error != null) {
+            throw new IllegalStateException("Подсчет остановлен: " + error.getMessage(), error);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.group.avenue.middle.project;
+
+/**
+ * Независимые от порядка части пакетного расчета Summator.
+ * Если модуль jdk.incubator.vector подключен (--add-modules jdk.incubator.vector),
+ * основная часть массива считается в {@link VectorKernels}, остаток и все
+ * остальные случаи - скалярным кодом.
+ */
+final class SummatorKernels {
+    static final boolean VECTORIZED = vectorSupported();
+
+    private SummatorKernels() {
+    }
+
+    /**
+     * Индекс первого вхождения value в values[off, off + len) или -1
+     */
+    static int indexOf(int[] values, int off, int len, int value) {
+        int i = VECTORIZED ? VectorKernels.skipNotEqual(values, off, len, value) : 0;
+        for (; i < len; i++) {
+            if (values[off + i] == value) {
+                return off + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * out[outOff + i] = (t * t) / (v + 1), где v = values[off + i], t = v + v + предыдущее значение.
+     * Это то слагаемое someValue, которое calc считает после сдвига prevValue/prevPrevValue.
+     * Значений -1 во входе быть не должно (деление на ноль проверяет вызывающий код).
+     *
+     * @param prev   значение перед values[off] (prevValue до пакета)
+     * @param outOff куда в out писать результат для values[off]
+     */
+    static void quotients(int[] values, int off, int len, int prev, int[] out, int outOff) {
+        if (len == 0) {
+            return;
+        }
+        out[outOff] = quotient(values[off], prev);
+
+        int i = VECTORIZED ? VectorKernels.quotients(values, off, len, out, outOff) : 1;
+        for (; i < len; i++) {
+            out[outOff + i] = quotient(values[off + i], values[off + i - 1]);
+        }
+    }
+
+    private static int quotient(int val, int prev) {
+        int t = val + val + prev;
+        return (t * t) / (val + 1);
+    }
+
+    private static boolean vectorSupported() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorKernels.isUsable();
+        } catch (LinkageError | RuntimeException e) {
+            return false;
+        }
+    }
+}
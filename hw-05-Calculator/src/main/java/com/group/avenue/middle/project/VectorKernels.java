@@ -0,0 +1,68 @@
+package com.group.avenue.middle.project;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD-реализация {@link SummatorKernels}. Загружается только при подключенном
+ * модуле jdk.incubator.vector.
+ * <p>
+ * Целочисленного векторного деления в железе нет, поэтому делим в double:
+ * делимое и делитель по модулю меньше 2^31, ошибка округления частного меньше
+ * расстояния до ближайшего целого, и приведение (int) дает тот же результат,
+ * что и целочисленное деление Java. Случай MIN_VALUE / -1 недостижим:
+ * t * t не может быть равно 2^31 по модулю 2^32.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // int-вектор с тем же числом дорожек, что и double-вектор
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    private VectorKernels() {
+    }
+
+    static boolean isUsable() {
+        return INTS.length() == DOUBLES.length() && INTS.length() > 1;
+    }
+
+    /**
+     * Пропускает целые векторы без value
+     * @return смещение от off, с которого нужно продолжить скалярный поиск
+     */
+    static int skipNotEqual(int[] values, int off, int len, int value) {
+        int lanes = INTS.length();
+        int i = 0;
+        for (; i <= len - lanes; i += lanes) {
+            if (IntVector.fromArray(INTS, values, off + i).eq(value).anyTrue()) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Векторная часть {@link SummatorKernels#quotients}, начиная с out[outOff + 1]
+     * @return индекс, с которого нужно досчитать остаток скалярно
+     */
+    static int quotients(int[] values, int off, int len, int[] out, int outOff) {
+        int lanes = INTS.length();
+        int i = 1;
+        for (; i <= len - lanes; i += lanes) {
+            IntVector val = IntVector.fromArray(INTS, values, off + i);
+            IntVector prev = IntVector.fromArray(INTS, values, off + i - 1);
+            IntVector t = val.add(val).add(prev);
+
+            DoubleVector dividend = (DoubleVector) t.mul(t).convertShape(VectorOperators.I2D, DOUBLES, 0);
+            DoubleVector divisor = (DoubleVector) val.add(1).convertShape(VectorOperators.I2D, DOUBLES, 0);
+            dividend.div(divisor)
+                    .convertShape(VectorOperators.D2I, INTS, 0)
+                    .reinterpretAsInts()
+                    .intoArray(out, outOff + i);
+        }
+        return i;
+    }
+}
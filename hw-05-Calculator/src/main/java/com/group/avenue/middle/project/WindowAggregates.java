@@ -0,0 +1,129 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.util.IntMonotonicDeque;
+import com.group.avenue.middle.project.util.IntRingBuffer;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Минимум, максимум, сумма и среднее последних length значений Summator.
+ * <p>
+ * Обновляется на каждом значении за амортизированное O(1): минимум и максимум - монотонными
+ * очередями, сумма - прибавлением нового и вычитанием вышедшего значения. Вышедшее значение
+ * берется из окна самого Summator, поэтому своих копий значений здесь нет.
+ * Создается через {@link Summator#trackWindow(int)}.
+ */
+public final class WindowAggregates {
+    private final int length;
+    private final IntMonotonicDeque minimums = new IntMonotonicDeque(false);
+    private final IntMonotonicDeque maximums = new IntMonotonicDeque(true);
+    private long sum;
+    private int size; // сколько значений сейчас в окне, не больше length
+    private int position; // позиция следующего значения в потоке (с переполнением)
+
+    WindowAggregates(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Добавить значение
+     * @param evicted значение, выходящее из окна (используется, только если окно заполнено)
+     */
+    void push(int value, int evicted) {
+        if (size == length) {
+            sum -= evicted;
+        } else {
+            size++;
+        }
+        sum += value;
+        minimums.push(position, value);
+        maximums.push(position, value);
+        minimums.expire(position, length);
+        maximums.expire(position, length);
+        position++;
+    }
+
+    /**
+     * Добавить пакет значений. window - окно Summator до добавления пакета,
+     * из него берутся значения, выходящие из этого окна в начале пакета.
+     */
+    void feed(int[] values, int off, int len, IntRingBuffer window) {
+        int start = 0;
+        if (len > length) {
+            // Из окна уйдет все, что было до последних length значений пакета
+            start = len - length;
+            clear(position + start);
+        }
+        int windowSize = window.size();
+        for (int i = start; i < len; i++) {
+            int evictedAt = i - length; // позиция вышедшего значения относительно начала пакета
+            int evicted = size < length ? 0
+                    : evictedAt >= 0 ? values[off + evictedAt] : window.get(windowSize + evictedAt);
+            push(values[off + i], evicted);
+        }
+    }
+
+    /**
+     * Пересобрать по текущему окну Summator (после trackWindow или восстановления из контрольной точки)
+     */
+    void rebuild(IntRingBuffer window) {
+        clear(0);
+        for (int i = Math.max(0, window.size() - length); i < window.size(); i++) {
+            push(window.get(i), 0);
+        }
+    }
+
+    boolean isFull() {
+        return size == length;
+    }
+
+    private void clear(int nextPosition) {
+        minimums.clear();
+        maximums.clear();
+        sum = 0;
+        size = 0;
+        position = nextPosition;
+    }
+
+    /**
+     * Длина окна, заданная в trackWindow
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Сколько значений сейчас в окне (меньше length, пока поток короче окна)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @throws NoSuchElementException если окно пусто
+     */
+    public int min() {
+        return minimums.first();
+    }
+
+    /**
+     * @throws NoSuchElementException если окно пусто
+     */
+    public int max() {
+        return maximums.first();
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    /**
+     * @throws NoSuchElementException если окно пусто
+     */
+    public double average() {
+        if (size == 0) {
+            throw new NoSuchElementException("Окно пусто");
+        }
+        return (double) sum / size;
+    }
+}
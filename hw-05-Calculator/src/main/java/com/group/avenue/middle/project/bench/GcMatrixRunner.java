@@ -0,0 +1,253 @@
+package com.group.avenue.middle.project.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Прогон матрицы "сборщик мусора x размер кучи" из report.txt в отдельных JVM.
+ * <p>
+ * Для каждой комбинации программа (по умолчанию CalcDemo) запускается несколько раз,
+ * собираются время работы, сумма пауз GC из unified GC log и пиковый RSS.
+ * Результаты пишутся в runs.csv, runs.json и summary.csv (медианы по комбинации).
+ * С --baseline предыдущий summary.csv сравнивается с новым, и при замедлении
+ * больше допуска процесс завершается с кодом 1 - так прогон можно ставить в CI.
+ * <p>
+ * Параметры (все необязательные):
+ * <pre>
+ * --main com.group.avenue.middle.project.CalcDemo
+ * --collectors G1,Parallel,Serial,Z
+ * --heaps 256m,512m,1024m,2048m
+ * --repeats 3
+ * --out build/gc-matrix
+ * --baseline build/gc-matrix-baseline/summary.csv
+ * --tolerance 0.10
+ * </pre>
+ */
+public class GcMatrixRunner {
+    private static final Map<String, String> COLLECTOR_FLAGS = new LinkedHashMap<>();
+    // Паузы: "Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 3.456ms", для ZGC "Pause Mark Start 0.012ms"
+    private static final Pattern PAUSE = Pattern.compile("\\[gc(?:,phases)?\\s*\\].*Pause.*?(\\d+[.,]\\d+)ms\\s*$");
+    private static final Pattern REPORTED = Pattern.compile("spend msec:(\\d+)");
+    private static final long RSS_POLL_MS = 20;
+
+    static {
+        COLLECTOR_FLAGS.put("G1", "-XX:+UseG1GC");
+        COLLECTOR_FLAGS.put("Parallel", "-XX:+UseParallelGC");
+        COLLECTOR_FLAGS.put("Serial", "-XX:+UseSerialGC");
+        COLLECTOR_FLAGS.put("Z", "-XX:+UseZGC");
+        COLLECTOR_FLAGS.put("Shenandoah", "-XX:+UseShenandoahGC");
+    }
+
+    private String mainClass = "com.group.avenue.middle.project.CalcDemo";
+    private List<String> collectors = List.of("G1", "Parallel", "Serial", "Z");
+    private List<String> heaps = List.of("256m", "512m", "1024m", "2048m");
+    private int repeats = 3;
+    private Path outDir = Path.of("build", "gc-matrix");
+    private Path baseline;
+    private double tolerance = 0.10;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var runner = new GcMatrixRunner();
+        runner.parseArgs(args);
+        System.exit(runner.run());
+    }
+
+    private void parseArgs(String[] args) {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Нет значения у параметра: " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--main" -> mainClass = value;
+                case "--collectors" -> collectors = List.of(value.split(","));
+                case "--heaps" -> heaps = List.of(value.split(","));
+                case "--repeats" -> repeats = Integer.parseInt(value);
+                case "--out" -> outDir = Path.of(value);
+                case "--baseline" -> baseline = Path.of(value);
+                case "--tolerance" -> tolerance = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+            }
+        }
+        for (String collector : collectors) {
+            if (!COLLECTOR_FLAGS.containsKey(collector)) {
+                throw new IllegalArgumentException("Неизвестный сборщик: " + collector
+                        + ", доступны: " + COLLECTOR_FLAGS.keySet());
+            }
+        }
+    }
+
+    /**
+     * @return код выхода: 0 - все хорошо, 1 - есть регрессии или упавшие запуски
+     */
+    int run() throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        List<GcRun> runs = new ArrayList<>();
+        for (String collector : collectors) {
+            for (String heap : heaps) {
+                for (int repeat = 1; repeat <= repeats; repeat++) {
+                    GcRun run = runOnce(collector, heap, repeat);
+                    System.out.printf(Locale.ROOT, "%-10s %-6s #%d wall=%dms gc=%.1fms/%d rss=%dKB exit=%d%n",
+                            collector, heap, repeat, run.wallMs(), run.gcPauseMs(), run.gcPauses(),
+                            run.peakRssKb(), run.exitCode());
+                    runs.add(run);
+                }
+            }
+        }
+
+        writeRuns(runs);
+        List<GcSummary> summary = GcSummary.summarize(runs);
+        Files.write(outDir.resolve("summary.csv"), GcSummary.toCsv(summary), StandardCharsets.UTF_8);
+        printSummary(summary);
+
+        int exitCode = runs.stream().anyMatch(run -> run.exitCode() != 0) ? 1 : 0;
+        if (baseline != null) {
+            List<String> regressions = GcSummary.compare(GcSummary.readCsv(baseline), summary, tolerance);
+            if (regressions.isEmpty()) {
+                System.out.println("Регрессий относительно " + baseline + " нет");
+            } else {
+                regressions.forEach(line -> System.out.println("РЕГРЕССИЯ: " + line));
+                exitCode = 1;
+            }
+        }
+        return exitCode;
+    }
+
+    private GcRun runOnce(String collector, String heap, int repeat) throws IOException, InterruptedException {
+        Path gcLog = outDir.resolve("gc-" + collector + "-" + heap + "-" + repeat + ".log");
+        Files.deleteIfExists(gcLog);
+
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        command.add("-Xms" + heap);
+        command.add("-Xmx" + heap);
+        command.add(COLLECTOR_FLAGS.get(collector));
+        command.add("-Xlog:gc,gc+phases:file=" + gcLog + ":uptime,tags");
+        command.add("--add-modules");
+        command.add("jdk.incubator.vector");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        long reportedMs = -1;
+        var rssSampler = new RssSampler(process.pid());
+        rssSampler.start();
+        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = REPORTED.matcher(line);
+                if (matcher.find()) {
+                    reportedMs = Long.parseLong(matcher.group(1));
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        rssSampler.interrupt();
+        rssSampler.join();
+
+        double pauseMs = 0;
+        int pauses = 0;
+        if (Files.exists(gcLog)) {
+            for (String line : Files.readAllLines(gcLog, StandardCharsets.UTF_8)) {
+                Matcher matcher = PAUSE.matcher(line);
+                if (matcher.find()) {
+                    pauseMs += Double.parseDouble(matcher.group(1).replace(',', '.'));
+                    pauses++;
+                }
+            }
+        }
+        return new GcRun(collector, heap, repeat, wallMs, reportedMs, pauseMs, pauses, rssSampler.peakKb, exitCode);
+    }
+
+    private void writeRuns(List<GcRun> runs) throws IOException {
+        List<String> csv = new ArrayList<>();
+        csv.add(GcRun.CSV_HEADER);
+        runs.forEach(run -> csv.add(run.toCsv()));
+        Files.write(outDir.resolve("runs.csv"), csv, StandardCharsets.UTF_8);
+
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < runs.size(); i++) {
+            json.append("  ").append(runs.get(i).toJson()).append(i + 1 < runs.size() ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Files.writeString(outDir.resolve("runs.json"), json, StandardCharsets.UTF_8);
+    }
+
+    private void printSummary(List<GcSummary> summary) {
+        long best = summary.stream().filter(row -> !row.failed()).mapToLong(GcSummary::medianWallMs).min().orElse(1);
+        System.out.println();
+        System.out.println("=== Медианы по успешным запускам (от быстрых к медленным) ===");
+        summary.stream()
+                .filter(row -> !row.failed())
+                .sorted(Comparator.comparingLong(GcSummary::medianWallMs))
+                .forEach(row -> System.out.printf(Locale.ROOT,
+                        "%-10s %-6s wall=%6dms (x%.2f) gc=%8.1fms rss=%8dKB%s%n",
+                        row.collector(), row.heap(), row.medianWallMs(), (double) row.medianWallMs() / Math.max(1, best),
+                        row.medianGcPauseMs(), row.maxPeakRssKb(),
+                        row.failedRuns() > 0 ? " упало " + row.failedRuns() : ""));
+        summary.stream()
+                .filter(GcSummary::failed)
+                .forEach(row -> System.out.printf(Locale.ROOT, "%-10s %-6s УПАЛИ ВСЕ %d запусков%n",
+                        row.collector(), row.heap(), row.failedRuns()));
+        System.out.println("Результаты: " + outDir.toAbsolutePath());
+    }
+
+    private static String javaExecutable() {
+        return ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    }
+
+    static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Опрос VmHWM из /proc/&lt;pid&gt;/status, пока процесс жив (только Linux)
+     */
+    private static final class RssSampler extends Thread {
+        private final Path status;
+        private volatile long peakKb = -1;
+
+        RssSampler(long pid) {
+            super("rss-sampler-" + pid);
+            setDaemon(true);
+            this.status = Path.of("/proc", String.valueOf(pid), "status");
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                try {
+                    for (String line : Files.readAllLines(status)) {
+                        if (line.startsWith("VmHWM:")) {
+                            long kb = Long.parseLong(line.replaceAll("\\D+", ""));
+                            peakKb = Math.max(peakKb, kb);
+                        }
+                    }
+                    Thread.sleep(RSS_POLL_MS);
+                } catch (IOException | RuntimeException e) {
+                    return; // процесс завершился или /proc недоступен
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
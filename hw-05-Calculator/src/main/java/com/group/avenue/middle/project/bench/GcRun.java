@@ -0,0 +1,28 @@
+package com.group.avenue.middle.project.bench;
+
+/**
+ * Результат одного запуска в отдельной JVM
+ *
+ * @param wallMs     время работы процесса от старта до выхода
+ * @param reportedMs время, которое напечатала сама программа ("spend msec:"), или -1
+ * @param gcPauseMs  сумма пауз из unified GC log
+ * @param peakRssKb  пиковый RSS процесса (VmHWM), или -1 если недоступен
+ */
+record GcRun(String collector, String heap, int repeat, long wallMs, long reportedMs,
+             double gcPauseMs, int gcPauses, long peakRssKb, int exitCode) {
+
+    static final String CSV_HEADER = "collector,heap,repeat,wall_ms,reported_ms,gc_pause_ms,gc_pauses,peak_rss_kb,exit_code";
+
+    String toCsv() {
+        return String.join(",", collector, heap, String.valueOf(repeat), String.valueOf(wallMs),
+                String.valueOf(reportedMs), GcMatrixRunner.decimal(gcPauseMs), String.valueOf(gcPauses),
+                String.valueOf(peakRssKb), String.valueOf(exitCode));
+    }
+
+    String toJson() {
+        return "{\"collector\":\"" + collector + "\",\"heap\":\"" + heap + "\",\"repeat\":" + repeat
+                + ",\"wallMs\":" + wallMs + ",\"reportedMs\":" + reportedMs
+                + ",\"gcPauseMs\":" + GcMatrixRunner.decimal(gcPauseMs) + ",\"gcPauses\":" + gcPauses
+                + ",\"peakRssKb\":" + peakRssKb + ",\"exitCode\":" + exitCode + "}";
+    }
+}
@@ -0,0 +1,97 @@
+package com.group.avenue.middle.project.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка по одной комбинации "сборщик x куча": медианы по успешным повторам.
+ * Упавшие запуски (exitCode != 0) в медианы не входят, их число - в failedRuns;
+ * если упали все повторы, медианы равны -1 и комбинация считается упавшей.
+ */
+record GcSummary(String collector, String heap, long medianWallMs, double medianGcPauseMs, long maxPeakRssKb,
+                 int failedRuns) {
+
+    static final String CSV_HEADER = "collector,heap,median_wall_ms,median_gc_pause_ms,max_peak_rss_kb,failed_runs";
+
+    static List<GcSummary> summarize(List<GcRun> runs) {
+        Map<String, List<GcRun>> byConfig = new LinkedHashMap<>();
+        for (GcRun run : runs) {
+            byConfig.computeIfAbsent(run.collector() + "/" + run.heap(), key -> new ArrayList<>()).add(run);
+        }
+
+        List<GcSummary> summary = new ArrayList<>();
+        for (List<GcRun> group : byConfig.values()) {
+            // Упавший запуск обычно короче и без пауз GC: в медиане он выдал бы ложное ускорение
+            List<GcRun> passed = group.stream().filter(run -> run.exitCode() == 0).toList();
+            int failed = group.size() - passed.size();
+            GcRun first = group.getFirst();
+            if (passed.isEmpty()) {
+                summary.add(new GcSummary(first.collector(), first.heap(), -1, -1, -1, failed));
+                continue;
+            }
+            long[] wall = passed.stream().mapToLong(GcRun::wallMs).sorted().toArray();
+            double[] pause = passed.stream().mapToDouble(GcRun::gcPauseMs).sorted().toArray();
+            long rss = passed.stream().mapToLong(GcRun::peakRssKb).max().orElse(-1);
+            summary.add(new GcSummary(first.collector(), first.heap(),
+                    wall[wall.length / 2], pause[pause.length / 2], rss, failed));
+        }
+        return summary;
+    }
+
+    /**
+     * Все повторы комбинации упали, медиан нет
+     */
+    boolean failed() {
+        return medianWallMs < 0;
+    }
+
+    /**
+     * Комбинации, где медиана времени выросла больше чем на tolerance (0.10 = 10%).
+     * Упавшие комбинации не сравниваются: их и так отмечает код выхода GcMatrixRunner.
+     */
+    static List<String> compare(List<GcSummary> baseline, List<GcSummary> current, double tolerance) {
+        Map<String, GcSummary> before = new LinkedHashMap<>();
+        baseline.forEach(row -> before.put(row.collector() + "/" + row.heap(), row));
+
+        List<String> regressions = new ArrayList<>();
+        for (GcSummary row : current) {
+            GcSummary old = before.get(row.collector() + "/" + row.heap());
+            if (old != null && !old.failed() && !row.failed()
+                    && row.medianWallMs() > old.medianWallMs() * (1 + tolerance)) {
+                regressions.add(row.collector() + " " + row.heap() + ": " + old.medianWallMs()
+                        + "ms -> " + row.medianWallMs() + "ms");
+            }
+        }
+        return regressions;
+    }
+
+    static List<String> toCsv(List<GcSummary> summary) {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (GcSummary row : summary) {
+            lines.add(String.join(",", row.collector(), row.heap(), String.valueOf(row.medianWallMs()),
+                    GcMatrixRunner.decimal(row.medianGcPauseMs()), String.valueOf(row.maxPeakRssKb()),
+                    String.valueOf(row.failedRuns())));
+        }
+        return lines;
+    }
+
+    static List<GcSummary> readCsv(Path file) throws IOException {
+        List<GcSummary> rows = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] cells = line.split(",");
+            // В summary.csv до появления failed_runs колонок пять, упавшие запуски там не учитывались
+            int failed = cells.length > 5 ? Integer.parseInt(cells[5]) : 0;
+            rows.add(new GcSummary(cells[0], cells[1], Long.parseLong(cells[2]),
+                    Double.parseDouble(cells[3]), Long.parseLong(cells[4]), failed));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,82 @@
+package com.group.avenue.middle.project.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись файла сырых int в формате {@link MappedIntSource} (little-endian, 4 байта на значение).
+ * Пишет через один direct-буфер, файл перезаписывается.
+ */
+public class IntFileWriter implements AutoCloseable {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final IntBuffer ints = buffer.asIntBuffer(); // тот же буфер, видимый как int
+    private long written;
+
+    public IntFileWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void write(int value) throws IOException {
+        if (!ints.hasRemaining()) {
+            flush();
+        }
+        ints.put(value);
+        written++;
+    }
+
+    public void write(int[] values, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!ints.hasRemaining()) {
+                flush();
+            }
+            int part = Math.min(len, ints.remaining());
+            ints.put(values, off, part);
+            off += part;
+            len -= part;
+            written += part;
+        }
+    }
+
+    /**
+     * Записать значения from, from + 1, ..., to - 1 (как CalcDemo: new Data(idx))
+     */
+    public void writeRange(int from, int to) throws IOException {
+        for (int value = from; value < to; value++) {
+            write(value);
+        }
+    }
+
+    /**
+     * Количество записанных значений
+     */
+    public long written() {
+        return written;
+    }
+
+    public void flush() throws IOException {
+        buffer.limit(ints.position() * Integer.BYTES).position(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        ints.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
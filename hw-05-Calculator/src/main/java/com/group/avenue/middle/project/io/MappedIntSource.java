@@ -0,0 +1,97 @@
+package com.group.avenue.middle.project.io;
+
+import com.group.avenue.middle.project.Summator;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Источник значений для Summator из файла сырых int (little-endian, 4 байта на значение).
+ * <p>
+ * Файл отображается в память целиком одним MemorySegment, поэтому размер не ограничен 2 ГБ,
+ * а чтение не делает системных вызовов. Значения переносятся кусками в один переиспользуемый
+ * int[] (помещается в кэш процессора) и отдаются в {@link Summator#calcBatch}: на значение
+ * нет ни аллокаций, ни объектов Data.
+ */
+public class MappedIntSource implements AutoCloseable {
+    static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final int DEFAULT_BATCH = 64 * 1024;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long count;
+    private final int[] batch;
+
+    public MappedIntSource(Path file) throws IOException {
+        this(file, DEFAULT_BATCH);
+    }
+
+    public MappedIntSource(Path file, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным");
+        }
+        this.arena = Arena.ofShared(); // читать можно из любого потока
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % Integer.BYTES != 0) {
+                throw new IllegalArgumentException("Размер файла " + file + " не кратен " + Integer.BYTES + " байтам");
+            }
+            this.segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            this.count = size / Integer.BYTES;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+        this.batch = new int[batchSize];
+    }
+
+    /**
+     * Количество значений в файле
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Значение по индексу (для выборочной проверки, в цикле используйте feed)
+     */
+    public int get(long index) {
+        return segment.getAtIndex(INT_LE, index);
+    }
+
+    /**
+     * Передать в summator все значения файла по порядку
+     * @return количество переданных значений
+     */
+    public long feed(Summator summator) {
+        return feed(summator, 0);
+    }
+
+    /**
+     * Передать в summator значения начиная с fromIndex
+     * @return количество переданных значений
+     */
+    public long feed(Summator summator, long fromIndex) {
+        if (fromIndex < 0 || fromIndex > count) {
+            throw new IndexOutOfBoundsException("Индекс " + fromIndex + ", значений " + count);
+        }
+        for (long idx = fromIndex; idx < count; ) {
+            int len = (int) Math.min(batch.length, count - idx);
+            MemorySegment.copy(segment, INT_LE, idx * Integer.BYTES, batch, 0, len);
+            summator.calcBatch(batch, 0, len);
+            idx += len;
+        }
+        return count - fromIndex;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,177 @@
+package com.group.avenue.middle.project.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Метрики долгого прогона без работы в горячем цикле.
+ * <p>
+ * Цикл только сообщает, сколько значений обработано ({@link #processed(long)} - одна
+ * lazySet-запись, без строк и без синхронизации). Раз в интервал фоновый поток снимает
+ * счетчик, считает ops/sec, берет число и время сборок из GarbageCollectorMXBean и
+ * занятость кучи, публикует все это через JMX (MBean CalcMetrics), JFR-событие
+ * {@link CalcProgressEvent} и необязательный слушатель (например, печать в консоль).
+ */
+public class CalcMetrics implements CalcMetricsMBean, AutoCloseable {
+    private static final String DOMAIN = "com.group.avenue.middle.project";
+
+    private final AtomicLong processed = new AtomicLong(); // пишет только горячий цикл
+    private final ObjectName objectName;
+    private final ScheduledExecutorService sampler;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final long startNanos = System.nanoTime();
+    private Consumer<CalcMetrics> listener = metrics -> {
+    };
+
+    // Последний снимок, пишет сэмплер, читают JMX и слушатель
+    private volatile long sampledProcessed;
+    private volatile double opsPerSecond;
+    private volatile long elapsedMillis;
+    private volatile long gcCount;
+    private volatile long gcTimeMillis;
+    private volatile long heapUsed;
+    private volatile long heapCommitted;
+
+    private long lastProcessed;
+    private long lastNanos = startNanos;
+
+    public CalcMetrics(String name, Duration interval) {
+        this(name, interval, 0);
+    }
+
+    /**
+     * @param startFrom сколько значений уже обработано (прогон продолжен с контрольной точки)
+     */
+    public CalcMetrics(String name, Duration interval, long startFrom) {
+        this.processed.set(startFrom);
+        this.lastProcessed = startFrom;
+        try {
+            this.objectName = new ObjectName(DOMAIN + ":type=CalcMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать MBean " + name, e);
+        }
+        this.sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "calc-metrics-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = interval.toMillis();
+        sampler.scheduleAtFixedRate(this::sample, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Слушатель снимков, вызывается в потоке сэмплера. Исключение слушателя печатается
+     * в System.err, снимки продолжаются.
+     */
+    public CalcMetrics onSample(Consumer<CalcMetrics> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Сколько значений обработано всего. Вызывается из горячего цикла, не чаще раза на блок.
+     */
+    public void processed(long total) {
+        processed.lazySet(total);
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        long total = processed.get();
+        opsPerSecond = (total - lastProcessed) * 1e9 / Math.max(1, now - lastNanos);
+        lastProcessed = total;
+        lastNanos = now;
+        sampledProcessed = total;
+        elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        gcCount = count;
+        gcTimeMillis = time;
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        heapUsed = heap.getUsed();
+        heapCommitted = heap.getCommitted();
+
+        var event = new CalcProgressEvent();
+        if (event.shouldCommit()) {
+            event.processed = total;
+            event.opsPerSecond = opsPerSecond;
+            event.gcCount = count;
+            event.gcTimeMillis = time;
+            event.heapUsed = heapUsed;
+            event.commit();
+        }
+
+        try {
+            listener.accept(this);
+        } catch (RuntimeException e) {
+            // Исключение из задачи scheduleAtFixedRate молча отменило бы все следующие снимки
+            System.err.println("Ошибка слушателя метрик " + objectName + ": " + e);
+        }
+    }
+
+    @Override
+    public long getProcessed() {
+        return sampledProcessed;
+    }
+
+    @Override
+    public double getOpsPerSecond() {
+        return opsPerSecond;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    @Override
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+
+    @Override
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    @Override
+    public long getHeapCommitted() {
+        return heapCommitted;
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // MBean уже снят, ничего не делаем
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.group.avenue.middle.project.metrics;
+
+/**
+ * JMX-интерфейс метрик прогона (jconsole / VisualVM: com.group.avenue.middle.project:type=CalcMetrics)
+ */
+public interface CalcMetricsMBean {
+    long getProcessed();
+
+    double getOpsPerSecond();
+
+    long getElapsedMillis();
+
+    long getGcCount();
+
+    long getGcTimeMillis();
+
+    long getHeapUsed();
+
+    long getHeapCommitted();
+}
@@ -0,0 +1,37 @@
+package com.group.avenue.middle.project.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR-событие с метриками прогона, пишется сэмплером раз в интервал.
+ * Запись: -XX:StartFlightRecording=filename=calc.jfr
+ */
+@Name("com.group.avenue.middle.project.CalcProgress")
+@Label("Calc Progress")
+@Category({"Group Avenue", "Calculator"})
+@Description("Прогресс и пропускная способность расчета Summator")
+@StackTrace(false)
+class CalcProgressEvent extends jdk.jfr.Event {
+    @Label("Processed")
+    long processed;
+
+    @Label("Ops Per Second")
+    double opsPerSecond;
+
+    @Label("GC Count")
+    long gcCount;
+
+    @Label("GC Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long gcTimeMillis;
+
+    @Label("Heap Used")
+    @DataAmount
+    long heapUsed;
+}
@@ -0,0 +1,106 @@
+package com.group.avenue.middle.project.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Монотонная очередь для минимума или максимума скользящего окна.
+ * <p>
+ * Хранит пары (позиция, значение) в примитивных кольцевых массивах. Значения от начала
+ * к концу возрастают (очередь минимумов) или убывают (очередь максимумов), поэтому ответ
+ * всегда в начале. Каждое значение добавляется и удаляется не больше одного раза -
+ * амортизированно O(1) на значение. Позиции - int с переполнением: сравниваются
+ * только разности, что верно для окон короче 2^31.
+ * <p>
+ * Массивы растут удвоением по мере надобности (в худшем случае - монотонный вход -
+ * до длины окна), после этого аллокаций нет.
+ */
+public class IntMonotonicDeque {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean keepMax;
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+
+    /**
+     * @param keepMax true - очередь максимумов, false - минимумов
+     */
+    public IntMonotonicDeque(boolean keepMax) {
+        this.keepMax = keepMax;
+    }
+
+    /**
+     * Добавить значение в конец, выбросив значения, которые уже никогда не станут ответом
+     */
+    public void push(int position, int value) {
+        while (size > 0) {
+            int last = values[index(size - 1)];
+            if (keepMax ? last > value : last < value) {
+                break;
+            }
+            size--;
+        }
+        if (size == values.length) {
+            grow();
+        }
+        int tail = index(size);
+        positions[tail] = position;
+        values[tail] = value;
+        size++;
+    }
+
+    /**
+     * Убрать из начала значения, вышедшие из окна [position - length + 1, position]
+     */
+    public void expire(int position, int length) {
+        while (size > 0 && position - positions[head] >= length) {
+            if (++head == values.length) {
+                head = 0;
+            }
+            size--;
+        }
+    }
+
+    /**
+     * Минимум (максимум) окна
+     * @throws NoSuchElementException если очередь пуста
+     */
+    public int first() {
+        if (size == 0) {
+            throw new NoSuchElementException("Окно пусто");
+        }
+        return values[head];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private int index(int offset) {
+        int pos = head + offset;
+        return pos < values.length ? pos : pos - values.length;
+    }
+
+    private void grow() {
+        int[] newPositions = new int[values.length * 2];
+        int[] newValues = new int[values.length * 2];
+        for (int i = 0; i < size; i++) {
+            int from = index(i);
+            newPositions[i] = positions[from];
+            newValues[i] = values[from];
+        }
+        positions = newPositions;
+        values = newValues;
+        head = 0;
+    }
+}
@@ -0,0 +1,157 @@
+package com.group.avenue.middle.project.util;
+
+import java.nio.IntBuffer;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Кольцевой буфер примитивных int фиксированной емкости.
+ * Замена {@code Deque<Integer>}: 4 байта на элемент, без упаковки в Integer
+ * и без аллокаций после создания. Все операции - O(1).
+ */
+public class IntRingBuffer {
+    private final int[] values;
+    private int head; // индекс самого старого элемента
+    private int tail; // индекс, куда запишем следующий элемент
+    private int size;
+    private long added; // сколько значений добавлено за все время, clear не сбрасывает
+
+    public IntRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость должна быть положительной");
+        }
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Добавить значение в конец буфера
+     * @return false, если буфер заполнен и значение не добавлено
+     */
+    public boolean offer(int value) {
+        if (size == values.length) {
+            return false;
+        }
+        values[tail] = value;
+        if (++tail == values.length) {
+            tail = 0;
+        }
+        size++;
+        added++;
+        return true;
+    }
+
+    /**
+     * Добавить значения массивом. Если места не хватает, самые старые значения
+     * вытесняются: в буфере остаются последние capacity() значений.
+     */
+    public void offerAll(int[] src, int off, int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        added += len;
+        int capacity = values.length;
+        if (len >= capacity) {
+            // Старое содержимое вытесняется целиком
+            System.arraycopy(src, off + len - capacity, values, 0, capacity);
+            head = 0;
+            tail = 0;
+            size = capacity;
+            return;
+        }
+
+        int overflow = size + len - capacity;
+        if (overflow > 0) {
+            head += overflow;
+            if (head >= capacity) {
+                head -= capacity;
+            }
+            size -= overflow;
+        }
+
+        int firstPart = Math.min(len, capacity - tail);
+        System.arraycopy(src, off, values, tail, firstPart);
+        System.arraycopy(src, off + firstPart, values, 0, len - firstPart);
+        tail += len;
+        if (tail >= capacity) {
+            tail -= capacity;
+        }
+        size += len;
+    }
+
+    /**
+     * Удалить самое старое значение
+     * @return удаленное значение
+     * @throws NoSuchElementException если буфер пуст
+     */
+    public int evict() {
+        if (size == 0) {
+            throw new NoSuchElementException("Буфер пуст");
+        }
+        int value = values[head];
+        if (++head == values.length) {
+            head = 0;
+        }
+        size--;
+        return value;
+    }
+
+    /**
+     * Значение по порядку добавления: 0 - самое старое, size() - 1 - последнее
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс " + index + ", размер " + size);
+        }
+        int pos = head + index;
+        return values[pos < values.length ? pos : pos - values.length];
+    }
+
+    /**
+     * Скопировать содержимое (от старых к новым) в dst, не меняя буфер
+     */
+    public void copyTo(IntBuffer dst) {
+        copyTo(0, size, dst);
+    }
+
+    /**
+     * Скопировать count значений начиная с from-го по порядку добавления в dst, не меняя буфер
+     */
+    public void copyTo(int from, int count, IntBuffer dst) {
+        Objects.checkFromIndexSize(from, count, size);
+        int start = head + from;
+        if (start >= values.length) {
+            start -= values.length;
+        }
+        int firstPart = Math.min(count, values.length - start);
+        dst.put(values, start, firstPart);
+        dst.put(values, 0, count - firstPart);
+    }
+
+    public void clear() {
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Сколько значений добавлено за все время жизни буфера, включая вытесненные;
+     * по разнице двух отсчетов видно, сколько последних значений новые
+     */
+    public long totalAdded() {
+        return added;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+}
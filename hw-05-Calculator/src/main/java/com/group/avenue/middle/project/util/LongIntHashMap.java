@@ -0,0 +1,123 @@
+package com.group.avenue.middle.project.util;
+
+/**
+ * Хеш-таблица long -> int с открытой адресацией и линейным пробированием.
+ * <p>
+ * Ключи и значения лежат в двух примитивных массивах, без Entry и без упаковки:
+ * get и put существующего ключа не аллоцируют. Заполнение не выше половины,
+ * при превышении таблица удваивается. Ключ 0 служит меткой пустой ячейки,
+ * поэтому хранится отдельно. Удаления нет - она не нужна реестрам, которые растут.
+ */
+public class LongIntHashMap {
+    public static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size; // без ключа 0
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize сколько ключей ожидается, чтобы не расти по дороге
+     */
+    public LongIntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Ожидаемый размер не может быть отрицательным");
+        }
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1);
+        allocate(capacity);
+    }
+
+    /**
+     * @return значение ключа или {@link #MISSING}
+     */
+    public int get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : MISSING;
+        }
+        for (int index = slot(key); ; index = (index + 1) & mask) {
+            long current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Записать значение ключа
+     * @return прежнее значение или {@link #MISSING}
+     */
+    public int put(long key, int value) {
+        if (key == 0) {
+            int previous = hasZeroKey ? zeroValue : MISSING;
+            hasZeroKey = true;
+            zeroValue = value;
+            return previous;
+        }
+        for (int index = slot(key); ; index = (index + 1) & mask) {
+            long current = keys[index];
+            if (current == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            if (current == 0) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > keys.length / 2) {
+                    rehash(keys.length * 2);
+                }
+                return MISSING;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : get(key) != MISSING;
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // перемешивание Фибоначчи: соседние ключи расходятся по таблице
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("Таблица переполнена");
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int index = slot(key);
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
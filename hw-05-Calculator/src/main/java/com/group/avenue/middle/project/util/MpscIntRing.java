@@ -0,0 +1,100 @@
+package com.group.avenue.middle.project.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченная lock-free очередь примитивных int: много писателей, один читатель (MPSC).
+ * <p>
+ * Схема Вьюкова: у каждой ячейки есть номер последовательности. Писатель занимает позицию
+ * CAS-ом на общем хвосте, пишет значение и публикует ячейку (seq = pos + 1, release).
+ * Читатель забирает подряд опубликованные ячейки пачкой и возвращает их писателям
+ * (seq = pos + capacity). Блокировок и аллокаций нет, писатели спорят только за хвост.
+ * <p>
+ * {@link #drain} можно вызывать только из одного потока.
+ */
+public class MpscIntRing {
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int[] values;
+    private final long[] sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // следующая позиция для писателей, отдельный объект
+    private long head; // следующая позиция для читателя, меняет только он
+
+    /**
+     * @param capacity емкость, степень двойки
+     */
+    public MpscIntRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Емкость должна быть положительной степенью двойки: " + capacity);
+        }
+        this.values = new int[capacity];
+        this.sequences = new long[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    /**
+     * Добавить значение, из любого потока
+     * @return false, если очередь заполнена
+     */
+    public boolean offer(int value) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = (long) SEQUENCES.getAcquire(sequences, index) - pos;
+            if (diff == 0) {
+                long witness = tail.compareAndExchange(pos, pos + 1);
+                if (witness == pos) {
+                    values[index] = value;
+                    SEQUENCES.setRelease(sequences, index, pos + 1);
+                    return true;
+                }
+                pos = witness;
+            } else if (diff < 0) {
+                // Ячейка еще не прочитана с прошлого круга
+                return false;
+            } else {
+                // Позицию уже занял другой писатель
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Забрать до max опубликованных значений в dst. Только для потока-читателя.
+     * @return сколько значений забрано, 0 - очередь пуста
+     */
+    public int drain(int[] dst, int off, int max) {
+        Objects.checkFromIndexSize(off, max, dst.length);
+        long pos = head;
+        int count = 0;
+        while (count < max) {
+            int index = (int) pos & mask;
+            if ((long) SEQUENCES.getAcquire(sequences, index) != pos + 1) {
+                break;
+            }
+            dst[off + count++] = values[index];
+            SEQUENCES.setRelease(sequences, index, pos + values.length);
+            pos++;
+        }
+        head = pos;
+        return count;
+    }
+
+    /**
+     * Сколько позиций занято писателями за все время (включая еще не опубликованные)
+     */
+    public long offered() {
+        return tail.get();
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+}
@@ -0,0 +1,45 @@
+package com.group.avenue.middle.project.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Как ждать, пока в очереди появится место (писатель) или данные (читатель)
+ */
+public enum WaitStrategy {
+    /**
+     * Крутиться на Thread.onSpinWait: минимальная задержка, но поток занимает ядро целиком.
+     * Имеет смысл, только когда у каждого потока есть свое ядро.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    /**
+     * Недолго покрутиться, затем уступить ядро, затем засыпать на PARK_NANOS
+     */
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPINS) {
+                Thread.onSpinWait();
+            } else if (attempt < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final long PARK_NANOS = 50_000;
+
+    /**
+     * Одна итерация ожидания
+     * @param attempt номер неудачной попытки подряд, с 0
+     */
+    public abstract void idle(int attempt);
+}
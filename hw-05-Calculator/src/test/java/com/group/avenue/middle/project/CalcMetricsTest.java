@@ -0,0 +1,44 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.metrics.CalcMetrics;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CalcMetrics: MBean с именем прогона и снимки после исключения слушателя.
+ */
+class CalcMetricsTest {
+    private static final int SAMPLES = 3;
+
+    @Test
+    void listenerFailureDoesNotStopSampling() throws InterruptedException, JMException {
+        var objectName = new ObjectName("com.group.avenue.middle.project:type=CalcMetrics,name=\"CalcMetricsTest\"");
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var calls = new AtomicInteger();
+        var sampled = new CountDownLatch(SAMPLES);
+        try (var metrics = new CalcMetrics("CalcMetricsTest", Duration.ofMillis(5), 10)) {
+            assertTrue(server.isRegistered(objectName), "MBean " + objectName + " не зарегистрирован");
+            metrics.processed(42);
+            metrics.onSample(sample -> {
+                sampled.countDown();
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("первый снимок");
+                }
+            });
+            assertTrue(sampled.await(10, TimeUnit.SECONDS), "Снимки остановились после исключения слушателя");
+            assertEquals(42L, server.getAttribute(objectName, "Processed"), "Processed через JMX");
+        }
+        assertFalse(server.isRegistered(objectName), "MBean остался после close");
+    }
+}
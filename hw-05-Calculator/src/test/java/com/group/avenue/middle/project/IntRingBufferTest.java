@@ -0,0 +1,141 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.util.IntRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * IntRingBuffer против очереди ArrayDeque, обрезанной до емкости.
+ * <ul>
+ *     <li>offerAll через стык кольца, ровно до заполнения, в заполненный буфер и пакетами
+ *     не короче емкости (вытесняется все старое содержимое);</li>
+ *     <li>случайные offer, offerAll, evict и clear на емкостях от 1; после каждого шага
+ *     совпадают размер, все значения по get и copyTo(from, count) со случайного места;</li>
+ *     <li>totalAdded считает и вытесненные значения, и значения до clear.</li>
+ * </ul>
+ */
+class IntRingBufferTest {
+    private static final int[] CAPACITIES = {1, 2, 3, 7, 16, 100};
+    private static final int STEPS = 20_000;
+
+    @Test
+    void offerAllAcrossWrapPoint() {
+        var buffer = new IntRingBuffer(5);
+        buffer.offerAll(new int[]{1, 2, 3}, 0, 3);
+        buffer.evict();
+        buffer.evict(); // head = 2, tail = 3
+        buffer.offerAll(new int[]{0, 4, 5, 6, 7, 0}, 1, 4); // стык кольца, ровно до заполнения
+        assertContent(buffer, 3, 4, 5, 6, 7);
+        assertFalse(buffer.offer(8), "offer в заполненный буфер");
+
+        buffer.offerAll(new int[]{8, 9}, 0, 2); // в заполненный: вытесняются два старых
+        assertContent(buffer, 5, 6, 7, 8, 9);
+        buffer.offerAll(new int[]{10, 11, 12, 13, 14}, 0, 5); // ровно емкость
+        assertContent(buffer, 10, 11, 12, 13, 14);
+        buffer.offerAll(new int[]{15, 16, 17, 18, 19, 20, 21}, 0, 7); // длиннее емкости
+        assertContent(buffer, 17, 18, 19, 20, 21);
+        buffer.offerAll(new int[0], 0, 0);
+        assertContent(buffer, 17, 18, 19, 20, 21);
+        assertEquals(21, buffer.totalAdded(), "Добавлено за все время");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.copyTo(3, 3, IntBuffer.allocate(5)),
+                "copyTo за концом");
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.offerAll(new int[3], 2, 2),
+                "offerAll за концом массива");
+    }
+
+    @Test
+    void matchesDeque() {
+        var random = new SplittableRandom(20_26_10_18L);
+        for (int capacity : CAPACITIES) {
+            var buffer = new IntRingBuffer(capacity);
+            var expected = new ArrayDeque<Integer>();
+            long added = 0;
+            int next = 0;
+            for (int step = 0; step < STEPS; step++) {
+                String where = "емкость " + capacity + ", шаг " + step;
+                switch (random.nextInt(10)) {
+                    case 0, 1, 2 -> {
+                        boolean accepted = expected.size() < capacity;
+                        assertEquals(accepted, buffer.offer(next), where + ": offer");
+                        if (accepted) {
+                            expected.addLast(next);
+                            added++;
+                        }
+                        next++;
+                    }
+                    case 3, 4, 5, 6 -> {
+                        int len = random.nextInt(2 * capacity + 2);
+                        int off = random.nextInt(4);
+                        int[] src = new int[off + len + random.nextInt(4)];
+                        for (int i = 0; i < len; i++) {
+                            src[off + i] = next++;
+                            expected.addLast(src[off + i]);
+                            if (expected.size() > capacity) {
+                                expected.removeFirst();
+                            }
+                        }
+                        buffer.offerAll(src, off, len);
+                        added += len;
+                    }
+                    case 7, 8 -> {
+                        if (expected.isEmpty()) {
+                            assertThrows(RuntimeException.class, buffer::evict, where + ": evict из пустого");
+                        } else {
+                            assertEquals((int) expected.removeFirst(), buffer.evict(), where + ": evict");
+                        }
+                    }
+                    default -> {
+                        if (random.nextInt(10) == 0) {
+                            buffer.clear();
+                            expected.clear();
+                        }
+                    }
+                }
+                assertSame(where, expected, buffer, added, random);
+            }
+        }
+    }
+
+    private static void assertSame(String where, ArrayDeque<Integer> expected, IntRingBuffer buffer, long added,
+                                   SplittableRandom random) {
+        assertEquals(expected.size(), buffer.size(), where + ": size");
+        assertEquals(expected.size() == buffer.capacity(), buffer.isFull(), where + ": isFull");
+        assertEquals(added, buffer.totalAdded(), where + ": totalAdded");
+        Iterator<Integer> values = expected.iterator();
+        for (int i = 0; values.hasNext(); i++) {
+            assertEquals((int) values.next(), buffer.get(i), where + ": get(" + i + ")");
+        }
+
+        int from = random.nextInt(expected.size() + 1);
+        int count = random.nextInt(expected.size() - from + 1);
+        IntBuffer dst = IntBuffer.allocate(count + 2);
+        dst.put(-5); // copyTo пишет с текущей позиции
+        buffer.copyTo(from, count, dst);
+        assertEquals(count + 1, dst.position(), where + ": позиция после copyTo");
+        int[] expectedRange = expected.stream().skip(from).limit(count).mapToInt(Integer::intValue).toArray();
+        int[] actualRange = new int[count];
+        dst.flip().position(1);
+        dst.get(actualRange);
+        assertArrayEquals(expectedRange, actualRange, where + ": copyTo(" + from + ", " + count + ")");
+    }
+
+    private static void assertContent(IntRingBuffer buffer, int... expected) {
+        IntBuffer dst = IntBuffer.allocate(buffer.size());
+        buffer.copyTo(dst);
+        assertArrayEquals(expected, dst.array(), "copyTo");
+        assertEquals(expected.length, buffer.size(), "size");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], buffer.get(i), "get(" + i + ")");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.group.avenue.middle.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * KeyedSummatorEngine.calc(key, value) против отдельного Summator на ключ.
+ * <ul>
+ *     <li>малые окна разной длины (1, 2, 3, степени двойки и рядом с ними): эталон - calc
+ *     Summator с пределом окна длина + 1, значения окна сверяются по порядку;</li>
+ *     <li>окно WINDOW_LIMIT - 1 - эталон сам Summator, поток длиннее окна, чтобы массив
+ *     ключа дорос до предела и кольцо завернулось;</li>
+ *     <li>весь диапазон int с переполнением суммы и квадрата, крайние значения;</li>
+ *     <li>значение -1 (деление на ноль) - оба падают на нем с одинаковым состоянием.</li>
+ * </ul>
+ * Ключи идут вперемешку в одном случайном потоке; после каждого значения поля ключа
+ * должны совпасть бит в бит.
+ */
+class KeyedSummatorEngineTest {
+    private static final int[] SMALL_LENGTHS = {1, 2, 3, 15, 16, 17, 100, 1_000};
+    private static final int SMALL_VALUES = 400_000;
+    private static final int FULL_KEYS = 2;
+
+    private final SplittableRandom random = new SplittableRandom(20_26_10_18L);
+
+    @Test
+    void smallWindows() {
+        var engine = new KeyedSummatorEngine(SMALL_LENGTHS[0]);
+        var expected = new WindowSummator[SMALL_LENGTHS.length];
+        for (int key = 0; key < SMALL_LENGTHS.length; key++) {
+            expected[key] = new WindowSummator(SMALL_LENGTHS[key]);
+            if (key > 0) {
+                engine.register(key, SMALL_LENGTHS[key]);
+            } // ключ 0 заводит сам calc с длиной по умолчанию
+        }
+
+        for (int i = 0; i < SMALL_VALUES; i++) {
+            int key = random.nextInt(SMALL_LENGTHS.length);
+            int value = nextValue(i % 2 == 0 ? 1_000 : 0);
+            expected[key].calc(value);
+            engine.calc(key, value);
+            assertSameState("ключ " + key + ", значение " + i, expected[key], engine, key);
+        }
+        assertEquals(SMALL_LENGTHS.length, engine.keyCount(), "Ключей");
+        for (int key = 0; key < SMALL_LENGTHS.length; key++) {
+            assertEquals(SMALL_LENGTHS[key], engine.getWindowLength(key), "Длина окна ключа " + key);
+            assertSameWindow("ключ " + key, expected[key], engine, key);
+        }
+    }
+
+    @Test
+    void fullWindowEviction() {
+        int length = Summator.WINDOW_LIMIT - 1;
+        var engine = new KeyedSummatorEngine(length, FULL_KEYS);
+        var expected = new Summator[FULL_KEYS];
+        for (int key = 0; key < FULL_KEYS; key++) {
+            expected[key] = new Summator();
+        }
+
+        // Каждому ключу - больше WINDOW_LIMIT значений: окно заполняется и вытесняет
+        long total = (long) FULL_KEYS * (Summator.WINDOW_LIMIT + 100_000);
+        for (long i = 0; i < total; i++) {
+            int key = random.nextInt(FULL_KEYS);
+            int value = nextValue(i % 3 == 0 ? 0 : 1_000);
+            expected[key].calc(new Data(value));
+            engine.calc(key, value);
+            if (i % 1_000 == 0) {
+                assertSameState("ключ " + key + ", значение " + i, expected[key], engine, key);
+            }
+        }
+        for (int key = 0; key < FULL_KEYS; key++) {
+            assertSameState("ключ " + key, expected[key], engine, key);
+            assertEquals(length, engine.getWindowSize(key), "Окно ключа " + key + " заполнено");
+            IntBuffer window = IntBuffer.allocate(expected[key].windowSize());
+            expected[key].copyWindowTo(window);
+            for (int index = 0; index < length; index++) {
+                if (window.get(index) != engine.getWindowValue(key, index)) {
+                    assertEquals(window.get(index), engine.getWindowValue(key, index),
+                            "Ключ " + key + ", значение окна " + index);
+                }
+            }
+        }
+    }
+
+    @Test
+    void overflowEdges() {
+        int[] edges = {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, 46_341, -46_341, -2, 0,
+                Integer.MIN_VALUE, Integer.MIN_VALUE, 1, Integer.MAX_VALUE - 1};
+        var engine = new KeyedSummatorEngine(4);
+        var expected = new WindowSummator(4);
+        var summator = new Summator();
+        var full = new KeyedSummatorEngine(Summator.WINDOW_LIMIT - 1);
+        for (int round = 0; round < 3; round++) {
+            for (int value : edges) {
+                expected.calc(value);
+                engine.calc(7, value);
+                summator.calc(new Data(value));
+                full.calc(7, value);
+                assertSameState("окно 4, значение " + value, expected, engine, 7);
+                assertSameState("полное окно, значение " + value, summator, full, 7);
+            }
+        }
+        assertSameWindow("окно 4", expected, engine, 7);
+    }
+
+    @Test
+    void zeroDivisor() {
+        var engine = new KeyedSummatorEngine(3);
+        var expected = new WindowSummator(3);
+        var summator = new Summator();
+        var full = new KeyedSummatorEngine(Summator.WINDOW_LIMIT - 1);
+        for (int i = 0; i < 10; i++) {
+            int value = nextValue(1_000);
+            expected.calc(value);
+            engine.calc(1, value);
+            summator.calc(new Data(value));
+            full.calc(1, value);
+        }
+
+        assertThrows(ArithmeticException.class, () -> expected.calc(-1), "Эталон на -1");
+        assertThrows(ArithmeticException.class, () -> engine.calc(1, -1), "calc на -1");
+        assertThrows(ArithmeticException.class, () -> summator.calc(new Data(-1)), "Summator на -1");
+        assertThrows(ArithmeticException.class, () -> full.calc(1, -1), "calc на -1, полное окно");
+        assertSameState("деление на ноль", expected, engine, 1);
+        assertSameWindow("деление на ноль", expected, engine, 1);
+        assertSameState("деление на ноль, полное окно", summator, full, 1);
+
+        // После ошибки ключ считает дальше так же
+        expected.calc(5);
+        engine.calc(1, 5);
+        assertSameState("после деления на ноль", expected, engine, 1);
+    }
+
+    private static void assertSameState(String name, Summator expected, KeyedSummatorEngine engine, long key) {
+        assertEquals(expected.getSum(), engine.getSum(key), () -> name + ": sum");
+        assertEquals(expected.getPrevValue(), engine.getPrevValue(key), () -> name + ": prevValue");
+        assertEquals(expected.getPrevPrevValue(), engine.getPrevPrevValue(key), () -> name + ": prevPrevValue");
+        assertEquals(expected.getSumLastThreeValues(), engine.getSumLastThreeValues(key),
+                () -> name + ": sumLastThreeValues");
+        assertEquals(expected.getSomeValue(), engine.getSomeValue(key), () -> name + ": someValue");
+        assertEquals(expected.windowSize(), engine.getWindowSize(key), () -> name + ": windowSize");
+    }
+
+    private static void assertSameState(String name, WindowSummator expected, KeyedSummatorEngine engine, long key) {
+        assertEquals(expected.sum, engine.getSum(key), () -> name + ": sum");
+        assertEquals(expected.prevValue, engine.getPrevValue(key), () -> name + ": prevValue");
+        assertEquals(expected.prevPrevValue, engine.getPrevPrevValue(key), () -> name + ": prevPrevValue");
+        assertEquals(expected.sumLastThreeValues, engine.getSumLastThreeValues(key),
+                () -> name + ": sumLastThreeValues");
+        assertEquals(expected.someValue, engine.getSomeValue(key), () -> name + ": someValue");
+        assertEquals(expected.values.size(), engine.getWindowSize(key), () -> name + ": windowSize");
+    }
+
+    private static void assertSameWindow(String name, WindowSummator expected, KeyedSummatorEngine engine, long key) {
+        Iterator<Integer> values = expected.values.iterator();
+        for (int index = 0; values.hasNext(); index++) {
+            int at = index;
+            assertEquals((int) values.next(), engine.getWindowValue(key, index), () -> name + ": значение окна " + at);
+        }
+    }
+
+    /**
+     * @param bound значения из [-bound, bound], 0 - любые int; кроме -1
+     */
+    private int nextValue(int bound) {
+        int value = bound == 0 ? random.nextInt() : random.nextInt(-bound, bound + 1);
+        return value == -1 ? 0 : value;
+    }
+
+    /**
+     * Summator.calc с пределом окна length + 1 вместо WINDOW_LIMIT
+     */
+    private static final class WindowSummator {
+        private final int limit;
+        private final ArrayDeque<Integer> values = new ArrayDeque<>();
+        private int sum;
+        private int prevValue;
+        private int prevPrevValue;
+        private int sumLastThreeValues;
+        private int someValue;
+
+        WindowSummator(int length) {
+            this.limit = length + 1;
+        }
+
+        void calc(int val) {
+            values.addLast(val);
+            if (values.size() >= limit) {
+                values.removeFirst();
+            }
+
+            sum += val;
+
+            sumLastThreeValues = val + prevValue + prevPrevValue;
+
+            prevPrevValue = prevValue;
+            prevValue = val;
+
+            for (int i = 0; i < 3; i++) {
+                someValue += ((val + prevValue + prevPrevValue) * (val + prevValue + prevPrevValue)) /
+                        (val + 1) - sum;
+                someValue = Math.abs(someValue) + values.size();
+            }
+        }
+    }
+}
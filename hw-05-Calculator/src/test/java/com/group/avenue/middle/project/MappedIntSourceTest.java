@@ -0,0 +1,131 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.io.IntFileWriter;
+import com.group.avenue.middle.project.io.MappedIntSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static com.group.avenue.middle.project.SummatorAssertions.assertSameWindow;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Файл IntFileWriter, прочитанный через MappedIntSource, против calc по тем же значениям.
+ * <ul>
+ *     <li>значения пишутся поштучно, массивами и диапазоном вперемешку, больше одного
+ *     буфера записи, так что файл собирается из нескольких сбросов;</li>
+ *     <li>feed с разными размерами пакета (1, некратный, по умолчанию) и с середины файла -
+ *     Summator совпадает с поштучным calc вместе с окном;</li>
+ *     <li>порядок байт little-endian, пустой файл и файл с размером не кратным 4.</li>
+ * </ul>
+ */
+class MappedIntSourceTest {
+    private static final int VALUES = 700_000; // больше буфера записи в 1 МБ
+    private static final int[] BATCH_SIZES = {1, 999, 64 * 1024};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void feedMatchesCalc() throws IOException {
+        var random = new SplittableRandom(20_26_10_18L);
+        Path file = directory.resolve("values.bin");
+        int[] values = new int[VALUES];
+        try (var writer = new IntFileWriter(file)) {
+            int count = 0;
+            while (count < VALUES) {
+                int len = Math.min(VALUES - count, random.nextInt(1, 50_000));
+                switch (random.nextInt(3)) {
+                    case 0 -> {
+                        for (int i = count; i < count + len; i++) {
+                            values[i] = nextValue(random);
+                            writer.write(values[i]);
+                        }
+                    }
+                    case 1 -> {
+                        for (int i = count; i < count + len; i++) {
+                            values[i] = nextValue(random);
+                        }
+                        writer.write(values, count, len);
+                    }
+                    default -> {
+                        int from = random.nextInt(-1_000_000, 1_000_000);
+                        from = from < 0 && from + len > -1 ? 0 : from; // без -1 в диапазоне
+                        for (int i = 0; i < len; i++) {
+                            values[count + i] = from + i;
+                        }
+                        writer.writeRange(from, from + len);
+                    }
+                }
+                count += len;
+            }
+            assertEquals(VALUES, writer.written(), "Записано значений");
+        }
+        assertEquals((long) VALUES * Integer.BYTES, Files.size(file), "Размер файла");
+
+        var expected = new Summator();
+        for (int value : values) {
+            expected.calc(new Data(value));
+        }
+        int fromIndex = VALUES / 3;
+        var expectedTail = new Summator();
+        for (int i = fromIndex; i < VALUES; i++) {
+            expectedTail.calc(new Data(values[i]));
+        }
+
+        for (int batchSize : BATCH_SIZES) {
+            try (var source = new MappedIntSource(file, batchSize)) {
+                assertEquals(VALUES, source.count(), "Значений в файле");
+                assertEquals(values[VALUES - 1], source.get(VALUES - 1), "Последнее значение");
+
+                var actual = new Summator();
+                assertEquals(VALUES, source.feed(actual), "Передано значений");
+                assertSameWindow("пакет " + batchSize, expected, actual);
+
+                var tail = new Summator();
+                assertEquals(VALUES - fromIndex, source.feed(tail, fromIndex), "Передано с середины");
+                assertSameWindow("пакет " + batchSize + " с " + fromIndex, expectedTail, tail);
+            }
+        }
+    }
+
+    @Test
+    void littleEndianAndEdges() throws IOException {
+        Path file = directory.resolve("edges.bin");
+        try (var writer = new IntFileWriter(file)) {
+            writer.write(0x01020304);
+            writer.write(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE}, 0, 2);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        assertArrayEquals(new byte[]{4, 3, 2, 1}, Arrays.copyOf(bytes, 4), "Порядок байт");
+        try (var source = new MappedIntSource(file)) {
+            assertEquals(Integer.MIN_VALUE, source.get(1), "MIN_VALUE");
+            assertEquals(Integer.MAX_VALUE, source.get(2), "MAX_VALUE");
+            assertThrows(IndexOutOfBoundsException.class, () -> source.feed(new Summator(), 4), "feed за концом");
+        }
+
+        Path empty = directory.resolve("empty.bin");
+        new IntFileWriter(empty).close();
+        try (var source = new MappedIntSource(empty)) {
+            var summator = new Summator();
+            assertEquals(0, source.feed(summator), "Пустой файл");
+            assertSameWindow("пустой файл", new Summator(), summator);
+        }
+
+        Path torn = directory.resolve("torn.bin");
+        Files.write(torn, new byte[]{1, 2, 3, 4, 5, 6});
+        assertThrows(IllegalArgumentException.class, () -> new MappedIntSource(torn), "Размер не кратен 4");
+    }
+
+    private static int nextValue(SplittableRandom random) {
+        int value = random.nextBoolean() ? random.nextInt() : random.nextInt(-1_000, 1_001);
+        return value == -1 ? 0 : value;
+    }
+}
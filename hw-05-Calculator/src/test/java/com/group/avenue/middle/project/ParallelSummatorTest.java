@@ -0,0 +1,101 @@
+package com.group.avenue.middle.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.group.avenue.middle.project.SummatorAssertions.assertSameState;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ParallelSummator против поштучного calc.
+ * <p>
+ * Разные размеры пула и кусков, вход на много блоков (двойная буферизация работает), старт
+ * с непустого состояния, значения на весь диапазон int, значение -1 посреди блока.
+ * После каждого вызова все поля должны совпасть с calc бит в бит.
+ */
+class ParallelSummatorTest {
+    private static final int[] CHUNK_SIZES = {1, 7, 1_000, ParallelSummator.DEFAULT_CHUNK_SIZE};
+    private static final int CALLS = 6;
+
+    private final SplittableRandom random = new SplittableRandom(4L);
+
+    @Test
+    void singleThreadPool() {
+        checkPool(1);
+    }
+
+    @Test
+    void smallPool() {
+        checkPool(3);
+    }
+
+    @Test
+    void largePool() {
+        checkPool(8);
+    }
+
+    private void checkPool(int parallelism) {
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            for (int chunkSize : CHUNK_SIZES) {
+                String name = "пул " + parallelism + ", кусок " + chunkSize;
+                // Кусок в 1 значение - много задач, вход поменьше
+                int maxLen = chunkSize == 1 ? 20_000 : 400_000;
+                checkStream(name, new ParallelSummator(pool, chunkSize), maxLen);
+            }
+            checkZeroDivisor("пул " + parallelism, new ParallelSummator(pool, 1_000));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void checkStream(String name, ParallelSummator parallel, int maxLen) {
+        var expected = new Summator();
+        var actual = new Summator();
+        // Непустое начальное состояние: prevValue, окно и someValue уже не нули
+        for (int i = 0; i < 10; i++) {
+            int value = nextValue(random);
+            expected.calc(new Data(value));
+            actual.calc(new Data(value));
+        }
+        for (int call = 1; call <= CALLS; call++) {
+            int len = random.nextInt(maxLen + 1);
+            int off = random.nextInt(100);
+            int[] values = new int[off + len + random.nextInt(100)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = nextValue(random);
+            }
+            for (int i = off; i < off + len; i++) {
+                expected.calc(new Data(values[i]));
+            }
+            parallel.calc(actual, values, off, len);
+            assertSameState(name + ", вызов " + call + " (" + len + " значений)", expected, actual);
+        }
+    }
+
+    private void checkZeroDivisor(String name, ParallelSummator parallel) {
+        int[] values = new int[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = nextValue(random);
+        }
+        values[31_337] = -1;
+
+        var expected = new Summator();
+        assertThrows(ArithmeticException.class, () -> {
+            for (int value : values) {
+                expected.calc(new Data(value));
+            }
+        }, name + ": calc на -1");
+        var actual = new Summator();
+        assertThrows(ArithmeticException.class, () -> parallel.calc(actual, values, 0, values.length),
+                name + ": ParallelSummator на -1");
+        assertSameState(name + ", деление на ноль", expected, actual);
+    }
+
+    private static int nextValue(SplittableRandom random) {
+        int value = random.nextInt();
+        return value == -1 ? 0 : value;
+    }
+}
@@ -0,0 +1,38 @@
+package com.group.avenue.middle.project;
+
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение состояния двух Summator: эталона, посчитанного поштучным calc, и проверяемого варианта
+ */
+final class SummatorAssertions {
+    private SummatorAssertions() {
+    }
+
+    /**
+     * Все поля и размер окна должны совпасть бит в бит
+     */
+    static void assertSameState(String name, Summator expected, Summator actual) {
+        assertEquals(expected.getSum(), actual.getSum(), name + ": sum");
+        assertEquals(expected.getPrevValue(), actual.getPrevValue(), name + ": prevValue");
+        assertEquals(expected.getPrevPrevValue(), actual.getPrevPrevValue(), name + ": prevPrevValue");
+        assertEquals(expected.getSumLastThreeValues(), actual.getSumLastThreeValues(), name + ": sumLastThreeValues");
+        assertEquals(expected.getSomeValue(), actual.getSomeValue(), name + ": someValue");
+        assertEquals(expected.windowSize(), actual.windowSize(), name + ": windowSize");
+    }
+
+    /**
+     * То же и значения окна по порядку
+     */
+    static void assertSameWindow(String name, Summator expected, Summator actual) {
+        assertSameState(name, expected, actual);
+        IntBuffer expectedWindow = IntBuffer.allocate(expected.windowSize());
+        IntBuffer actualWindow = IntBuffer.allocate(actual.windowSize());
+        expected.copyWindowTo(expectedWindow);
+        actual.copyWindowTo(actualWindow);
+        int mismatch = expectedWindow.flip().mismatch(actualWindow.flip());
+        assertEquals(-1, mismatch, () -> name + ": окно расходится с позиции " + mismatch);
+    }
+}
@@ -0,0 +1,98 @@
+package com.group.avenue.middle.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static com.group.avenue.middle.project.SummatorAssertions.assertSameState;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Summator.calcBatch против поштучного calc.
+ * <ul>
+ *     <li>пакеты случайной длины, в том числе пустые, короче и длиннее BATCH_BLOCK,
+ *     вперемешку с поштучными calc;</li>
+ *     <li>значения с переполнением int и отрицательные;</li>
+ *     <li>окно дорастает до WINDOW_LIMIT и начинает вытеснять старые значения;</li>
+ *     <li>значение -1 (деление на ноль) - оба варианта падают на нем с одинаковым состоянием.</li>
+ * </ul>
+ * После каждого пакета все поля должны совпасть бит в бит.
+ */
+class SummatorBatchTest {
+    private static final int MAX_BATCH = 3 * Summator.BATCH_BLOCK + 17;
+
+    private final SplittableRandom random = new SplittableRandom(20_26_10_17L);
+
+    @Test
+    void smallValues() {
+        checkStream("малые значения", 200_000, 1_000);
+    }
+
+    @Test
+    void fullIntRange() {
+        checkStream("весь диапазон int", 200_000, 0);
+    }
+
+    @Test
+    void fullWindow() {
+        // Больше WINDOW_LIMIT значений: после заполнения окна размер перестает расти
+        checkStream("окно заполнено", Summator.WINDOW_LIMIT + 50_000, 1_000);
+    }
+
+    @Test
+    void zeroDivisor() {
+        int[] values = new int[2 * Summator.BATCH_BLOCK];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = nextValue(random, 1_000);
+        }
+        values[Summator.BATCH_BLOCK + 123] = -1;
+
+        var expected = new Summator();
+        assertThrows(ArithmeticException.class, () -> {
+            for (int value : values) {
+                expected.calc(new Data(value));
+            }
+        }, "calc на -1");
+        var actual = new Summator();
+        assertThrows(ArithmeticException.class, () -> actual.calcBatch(values, 0, values.length), "calcBatch на -1");
+        assertSameState("деление на ноль", expected, actual);
+    }
+
+    /**
+     * @param bound значения из [-bound, bound], 0 - любые int, кроме -1
+     */
+    private void checkStream(String name, int count, int bound) {
+        var expected = new Summator();
+        var actual = new Summator();
+        int[] values = new int[MAX_BATCH];
+        int batches = 0;
+        for (int done = 0; done < count; ) {
+            int len = Math.min(count - done, random.nextInt(MAX_BATCH + 1));
+            int off = random.nextInt(MAX_BATCH - len + 1);
+            for (int i = off; i < off + len; i++) {
+                values[i] = nextValue(random, bound);
+            }
+            for (int i = off; i < off + len; i++) {
+                expected.calc(new Data(values[i]));
+            }
+            if (random.nextInt(4) == 0 && len > 0) {
+                // Часть пакета поштучно: calcBatch должен продолжать с состояния после calc
+                int single = random.nextInt(len);
+                for (int i = off; i < off + single; i++) {
+                    actual.calc(new Data(values[i]));
+                }
+                actual.calcBatch(values, off + single, len - single);
+            } else {
+                actual.calcBatch(values, off, len);
+            }
+            done += len;
+            batches++;
+            assertSameState(name + ", пакет " + batches, expected, actual);
+        }
+    }
+
+    private static int nextValue(SplittableRandom random, int bound) {
+        int value = bound == 0 ? random.nextInt() : random.nextInt(-bound, bound + 1);
+        return value == -1 ? 0 : value;
+    }
+}
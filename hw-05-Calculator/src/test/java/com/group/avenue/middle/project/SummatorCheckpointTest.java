@@ -0,0 +1,125 @@
+package com.group.avenue.middle.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static com.group.avenue.middle.project.SummatorAssertions.assertSameWindow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Контрольная точка Summator: запись и восстановление.
+ * <ul>
+ *     <li>малое окно - восстановленный Summator совпадает с живым и дальше считает так же;</li>
+ *     <li>окно догоняется в тени по блокам (track) и переходит WINDOW_LIMIT: кольцо тени
+ *     и кольцо окна заворачиваются, часть track пропускается, пока пишется прошлая точка;</li>
+ *     <li>restore в уже отслеживаемый Summator - следующая точка берет окно целиком, а не хвост.</li>
+ * </ul>
+ * Восстановленный Summator должен совпасть с живым бит в бит, вместе со значениями окна.
+ */
+class SummatorCheckpointTest {
+    private static final int BLOCK = 700_000; // значений между track
+    private static final int CHECKPOINT_BLOCKS = 3; // точка раз в столько блоков
+
+    private final SplittableRandom random = new SplittableRandom(20_26_10_18L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripSmallWindow() throws IOException {
+        Path file = directory.resolve("small.ckpt");
+        var live = new Summator();
+        int[] values = values(5_000);
+        live.calcBatch(values, 0, values.length);
+        try (var checkpoint = new SummatorCheckpoint(file)) {
+            checkpoint.checkpoint(live, values.length);
+        }
+
+        var restored = new Summator();
+        assertEquals(values.length, SummatorCheckpoint.restore(file, restored), "Следующий индекс");
+        assertSameWindow("после восстановления", live, restored);
+
+        int[] more = values(1_000);
+        live.calcBatch(more, 0, more.length);
+        restored.calcBatch(more, 0, more.length);
+        assertSameWindow("после продолжения", live, restored);
+    }
+
+    @Test
+    void incrementalPastWindowLimit() throws IOException {
+        Path file = directory.resolve("incremental.ckpt");
+        var live = new Summator();
+        long count = 0;
+        try (var checkpoint = new SummatorCheckpoint(file)) {
+            int blocks = 0;
+            while (count < 2L * Summator.WINDOW_LIMIT + BLOCK / 2) {
+                int[] block = values(BLOCK - 1 + blocks % 3); // длины блоков сдвигают стык кольца
+                live.calcBatch(block, 0, block.length);
+                count += block.length;
+                if (++blocks % CHECKPOINT_BLOCKS == 0) {
+                    checkpoint.checkpoint(live, count);
+                } else {
+                    checkpoint.track(live);
+                }
+            }
+            checkpointLast(checkpoint, live, count);
+        }
+
+        var restored = new Summator();
+        assertEquals(count, SummatorCheckpoint.restore(file, restored), "Следующий индекс");
+        assertSameWindow("после " + count + " значений", live, restored);
+    }
+
+    @Test
+    void restoreIntoTrackedSummator() throws IOException {
+        Path small = directory.resolve("small.ckpt");
+        var earlier = new Summator();
+        int[] values = values(1_000);
+        earlier.calcBatch(values, 0, values.length);
+        try (var checkpoint = new SummatorCheckpoint(small)) {
+            checkpoint.checkpoint(earlier, values.length);
+        }
+
+        Path file = directory.resolve("tracked.ckpt");
+        var live = new Summator();
+        try (var checkpoint = new SummatorCheckpoint(file)) {
+            int[] first = values(3_000);
+            live.calcBatch(first, 0, first.length);
+            checkpoint.track(live);
+
+            // Окно заменяется меньшим, затем добавляется меньше значений, чем в нем
+            SummatorCheckpoint.restore(small, live);
+            int[] more = values(500);
+            live.calcBatch(more, 0, more.length);
+            earlier.calcBatch(more, 0, more.length);
+            assertSameWindow("эталон", earlier, live);
+            checkpointLast(checkpoint, live, values.length + more.length);
+        }
+
+        var restored = new Summator();
+        SummatorCheckpoint.restore(file, restored);
+        assertSameWindow("после восстановления", earlier, restored);
+    }
+
+    /**
+     * Точка по текущему состоянию: если прошлая еще пишется, ждем ее
+     */
+    private static void checkpointLast(SummatorCheckpoint checkpoint, Summator summator, long count) {
+        while (!checkpoint.checkpoint(summator, count)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private int[] values(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            int value = random.nextInt();
+            values[i] = value == -1 ? 0 : value; // -1 - деление на ноль в calc
+        }
+        return values;
+    }
+}
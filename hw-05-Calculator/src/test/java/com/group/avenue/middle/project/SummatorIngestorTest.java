@@ -0,0 +1,194 @@
+package com.group.avenue.middle.project;
+
+import com.group.avenue.middle.project.util.MpscIntRing;
+import com.group.avenue.middle.project.util.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.group.avenue.middle.project.SummatorAssertions.assertSameState;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MpscIntRing и SummatorIngestor: много писателей, один читатель.
+ * <ul>
+ *     <li>значение кодирует писателя и его номер по порядку; очередь маленькая, так что
+ *     кольцо заворачивается тысячи раз, а писатели упираются в заполненную очередь;</li>
+ *     <li>у читателя значения каждого писателя идут строго по порядку, без потерь и повторов -
+ *     и из MpscIntRing напрямую, и в окне Summator после SummatorIngestor;</li>
+ *     <li>значение -1 останавливает читателя: Summator в том же состоянии, что после
+ *     поштучного calc до этого значения, а put, flush и close бросают IllegalStateException
+ *     с причиной;</li>
+ *     <li>close досчитывает очередь без flush, после close put не принимает значения.</li>
+ * </ul>
+ */
+class SummatorIngestorTest {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 200_000;
+    private static final int SEQUENCE_BITS = 24; // номер значения писателя, выше - номер писателя
+    private static final int SMALL_CAPACITY = 64;
+
+    @Test
+    void ringKeepsProducerOrder() throws InterruptedException {
+        var ring = new MpscIntRing(SMALL_CAPACITY);
+        List<Thread> producers = startProducers(value -> {
+            for (int attempt = 0; !ring.offer(value); attempt++) {
+                WaitStrategy.PARK.idle(attempt);
+            }
+        });
+
+        int[] next = new int[PRODUCERS];
+        int[] batch = new int[SMALL_CAPACITY / 2 + 3];
+        long received = 0;
+        for (int attempt = 0; received < (long) PRODUCERS * PER_PRODUCER; ) {
+            int count = ring.drain(batch, 1, batch.length - 1);
+            if (count == 0) {
+                WaitStrategy.PARK.idle(attempt++);
+                continue;
+            }
+            attempt = 0;
+            for (int i = 1; i <= count; i++) {
+                checkNext(next, batch[i], received + i);
+            }
+            received += count;
+        }
+        join(producers);
+        assertEquals(0, ring.drain(batch, 0, batch.length), "Лишние значения");
+        assertEquals((long) PRODUCERS * PER_PRODUCER, ring.offered(), "Занято позиций");
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(PER_PRODUCER, next[p], "Значений писателя " + p);
+        }
+    }
+
+    @Test
+    void ringRejectsWhenFull() {
+        var ring = new MpscIntRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i), "Место " + i);
+        }
+        assertFalse(ring.offer(4), "Заполненная очередь");
+        int[] dst = new int[4];
+        assertEquals(1, ring.drain(dst, 0, 1), "Забрано");
+        assertTrue(ring.offer(4), "Место после чтения");
+        assertEquals(4, ring.drain(dst, 0, 4), "Забрано по кругу");
+        assertArrayEquals(new int[]{1, 2, 3, 4}, dst, "Порядок по кругу");
+        assertThrows(IllegalArgumentException.class, () -> new MpscIntRing(6), "Емкость не степень двойки");
+    }
+
+    @Test
+    void ingestorKeepsProducerOrder() throws InterruptedException {
+        var summator = new Summator();
+        long total = (long) PRODUCERS * PER_PRODUCER;
+        try (var ingestor = new SummatorIngestor(summator, SMALL_CAPACITY, 17, WaitStrategy.PARK)) {
+            join(startProducers(ingestor::put));
+            ingestor.flush();
+            assertEquals(total, ingestor.processed(), "Посчитано значений");
+        }
+
+        // Окно Summator - все значения в порядке подсчета
+        IntBuffer window = IntBuffer.allocate(summator.windowSize());
+        summator.copyWindowTo(window);
+        assertEquals(total, window.position(), "Значений в окне");
+        int[] next = new int[PRODUCERS];
+        int sum = 0;
+        for (int i = 0; i < window.position(); i++) {
+            checkNext(next, window.get(i), i);
+            sum += window.get(i);
+        }
+        assertEquals(sum, summator.getSum(), "Сумма");
+    }
+
+    @Test
+    void closeDrainsQueue() throws InterruptedException {
+        var summator = new Summator();
+        var ingestor = new SummatorIngestor(summator, SMALL_CAPACITY, 5, WaitStrategy.PARK);
+        join(startProducers(ingestor::put));
+        ingestor.close();
+        assertEquals((long) PRODUCERS * PER_PRODUCER, ingestor.processed(), "Посчитано после close");
+        assertEquals(PRODUCERS * PER_PRODUCER, summator.windowSize(), "Окно после close");
+        assertThrows(IllegalStateException.class, () -> ingestor.put(1), "put после close");
+        assertThrows(IllegalStateException.class, () -> ingestor.offer(1), "offer после close");
+        ingestor.close(); // повторный close ничего не делает
+    }
+
+    @Test
+    void failureStopsConsumer() {
+        var random = new SplittableRandom(20_26_10_18L);
+        int[] values = new int[10_000];
+        for (int i = 0; i < values.length; i++) {
+            int value = random.nextInt();
+            values[i] = value == -1 ? 0 : value;
+        }
+        int failAt = 6_543;
+        values[failAt] = -1;
+
+        var expected = new Summator();
+        assertThrows(ArithmeticException.class, () -> {
+            for (int value : values) {
+                expected.calc(new Data(value));
+            }
+        }, "calc на -1");
+
+        var summator = new Summator();
+        var ingestor = new SummatorIngestor(summator, SMALL_CAPACITY, 100, WaitStrategy.PARK);
+        var putFailure = assertThrows(IllegalStateException.class, () -> {
+            for (int value : values) {
+                ingestor.put(value);
+            }
+            ingestor.flush();
+        }, "Ошибка подсчета не дошла до писателя");
+        assertInstanceOf(ArithmeticException.class, putFailure.getCause(), "Причина");
+        // processed считает пачки целиком, пачка с -1 в него не входит
+        assertTrue(ingestor.processed() <= failAt && ingestor.processed() > failAt - SMALL_CAPACITY,
+                () -> "Посчитано до -1: " + ingestor.processed());
+        assertSameState("после ошибки", expected, summator);
+
+        assertThrows(IllegalStateException.class, () -> ingestor.put(1), "put после ошибки");
+        assertThrows(IllegalStateException.class, ingestor::flush, "flush после ошибки");
+        var closeFailure = assertThrows(IllegalStateException.class, ingestor::close, "close после ошибки");
+        assertInstanceOf(ArithmeticException.class, closeFailure.getCause(), "Причина при close");
+    }
+
+    /**
+     * Значение - следующее по порядку для своего писателя
+     */
+    private static void checkNext(int[] next, int value, long position) {
+        int producer = value >>> SEQUENCE_BITS;
+        int sequence = value & ((1 << SEQUENCE_BITS) - 1);
+        assertTrue(producer < PRODUCERS, () -> "Чужое значение " + value + " на позиции " + position);
+        assertEquals(next[producer], sequence, () -> "Писатель " + producer + ", позиция " + position);
+        next[producer]++;
+    }
+
+    private static List<Thread> startProducers(ValueSink sink) {
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.add(Thread.ofPlatform().name("producer-" + p).start(() -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    sink.accept(producer << SEQUENCE_BITS | i);
+                }
+            }));
+        }
+        return producers;
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ValueSink {
+        void accept(int value);
+    }
+}
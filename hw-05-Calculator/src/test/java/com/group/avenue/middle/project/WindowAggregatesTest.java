@@ -0,0 +1,176 @@
+package com.group.avenue.middle.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * WindowAggregates против пересчета окна в лоб.
+ * <p>
+ * Значения идут и через calc, и через calcBatch (пакеты короче и длиннее окна), часть окон
+ * включается посреди потока (сборка по окну Summator), в конце состояние восстанавливается
+ * из контрольной точки в Summator с уже включенными окнами. После каждого шага минимум,
+ * максимум, сумма и размер каждого окна должны совпасть с посчитанными по истории значений.
+ * Отдельно поток длиннее WINDOW_LIMIT: окно WINDOW_LIMIT - 1 заполняется, Summator вытесняет
+ * значения, кольцо заворачивается, а крайние значения int из начала потока выходят из окна.
+ */
+class WindowAggregatesTest {
+    private static final int[] LENGTHS = {1, 2, 17, 1_000, 10_000};
+    private static final int LATE_LENGTH = 333; // включается посреди потока
+    private static final int VALUES = 300_000;
+    private static final int MAX_BATCH = 12_000;
+    private static final int FULL_VALUES = Summator.WINDOW_LIMIT + 600_000;
+    private static final int FULL_CHECKS = 12; // пересчетов в лоб на поток длиннее WINDOW_LIMIT
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesNaiveRecompute() throws IOException {
+        var random = new SplittableRandom(10L);
+        int[] history = new int[VALUES];
+        int count = 0;
+
+        var summator = new Summator();
+        List<WindowAggregates> windows = new ArrayList<>();
+        for (int length : LENGTHS) {
+            windows.add(summator.trackWindow(length));
+        }
+
+        int steps = 0;
+        while (count < VALUES) {
+            if (count >= VALUES / 3 && windows.size() == LENGTHS.length) {
+                windows.add(summator.trackWindow(LATE_LENGTH));
+            }
+            if (random.nextBoolean()) {
+                history[count] = nextValue(random);
+                summator.calc(new Data(history[count++]));
+            } else {
+                // Короткие пакеты сдвигают окна частично, длинные вытесняют их целиком
+                int maxLen = random.nextInt(16) == 0 ? MAX_BATCH : 40;
+                int len = Math.min(VALUES - count, random.nextInt(maxLen + 1));
+                for (int i = count; i < count + len; i++) {
+                    history[i] = nextValue(random);
+                }
+                summator.calcBatch(history, count, len);
+                count += len;
+            }
+            steps++;
+            for (WindowAggregates window : windows) {
+                assertWindow("шаг " + steps, window, history, count);
+            }
+        }
+
+        // Контрольная точка: окна пересобираются по восстановленному окну Summator
+        Path file = directory.resolve("window-aggregates.ckpt");
+        try (var checkpoint = new SummatorCheckpoint(file)) {
+            checkpoint.checkpoint(summator, count);
+        }
+        var restored = new Summator();
+        List<WindowAggregates> restoredWindows = new ArrayList<>();
+        for (WindowAggregates window : windows) {
+            restoredWindows.add(restored.trackWindow(window.length()));
+        }
+        SummatorCheckpoint.restore(file, restored);
+        for (WindowAggregates window : restoredWindows) {
+            assertWindow("после восстановления", window, history, count);
+        }
+    }
+
+    @Test
+    void fullWindowPastLimit() throws IOException {
+        var random = new SplittableRandom(11L);
+        int[] history = new int[FULL_VALUES];
+        var summator = new Summator();
+        WindowAggregates full = summator.trackWindow();
+        List<WindowAggregates> windows = List.of(full, summator.trackWindow(Summator.WINDOW_LIMIT - 2),
+                summator.trackWindow(LENGTHS[3]));
+
+        // Крайние значения - в начале: пока они в окне, min и max известны, после вытеснения - нет
+        history[0] = Integer.MAX_VALUE;
+        history[1] = Integer.MIN_VALUE;
+        summator.calc(new Data(history[0]));
+        summator.calcBatch(history, 1, 1);
+        int count = 2;
+        int checkEvery = FULL_VALUES / FULL_CHECKS;
+        int nextCheck = Summator.WINDOW_LIMIT - 2 * MAX_BATCH;
+        while (count < FULL_VALUES) {
+            if (random.nextInt(4) == 0) {
+                history[count] = nextValue(random);
+                summator.calc(new Data(history[count++]));
+            } else {
+                int len = Math.min(FULL_VALUES - count, random.nextInt(MAX_BATCH * 20));
+                for (int i = count; i < count + len; i++) {
+                    history[i] = nextValue(random);
+                }
+                summator.calcBatch(history, count, len);
+                count += len;
+            }
+            if (count >= nextCheck || count == FULL_VALUES) {
+                for (WindowAggregates window : windows) {
+                    assertWindow(count + " значений", window, history, count);
+                }
+                assertSummatorWindow(count + " значений", summator, history, count);
+                nextCheck = count + checkEvery;
+            }
+        }
+        assertEquals(Summator.WINDOW_LIMIT - 1, full.size(), "Полное окно");
+        assertEquals(full.min(), summator.getWindowMin(), "getWindowMin");
+        assertEquals(full.max(), summator.getWindowMax(), "getWindowMax");
+        assertEquals(full.sum(), summator.getWindowSum(), "getWindowSum");
+
+        // Контрольная точка полного окна: агрегаты пересобираются по восстановленному кольцу
+        Path file = directory.resolve("full-window.ckpt");
+        try (var checkpoint = new SummatorCheckpoint(file)) {
+            checkpoint.checkpoint(summator, count);
+        }
+        var restored = new Summator();
+        WindowAggregates restoredFull = restored.trackWindow();
+        SummatorCheckpoint.restore(file, restored);
+        assertWindow("после восстановления", restoredFull, history, count);
+    }
+
+    /**
+     * Окно самого Summator - последние WINDOW_LIMIT - 1 значений истории по порядку
+     */
+    private static void assertSummatorWindow(String step, Summator summator, int[] history, int count) {
+        int from = Math.max(0, count - (Summator.WINDOW_LIMIT - 1));
+        IntBuffer window = IntBuffer.allocate(summator.windowSize());
+        summator.copyWindowTo(window);
+        assertEquals(count - from, window.position(), step + ": размер окна Summator");
+        int mismatch = window.flip().mismatch(IntBuffer.wrap(history, from, count - from));
+        assertEquals(-1, mismatch, () -> step + ": окно Summator расходится с позиции " + mismatch);
+    }
+
+    static void assertWindow(String step, WindowAggregates window, int[] history, int count) {
+        int from = Math.max(0, count - window.length());
+        int size = count - from;
+        String name = step + ", окно " + window.length();
+        assertEquals(size, window.size(), name + ": размер");
+        if (size == 0) {
+            return;
+        }
+        int min = Arrays.stream(history, from, count).min().getAsInt();
+        int max = Arrays.stream(history, from, count).max().getAsInt();
+        long sum = Arrays.stream(history, from, count).asLongStream().sum();
+        assertEquals(min, window.min(), name + ": min");
+        assertEquals(max, window.max(), name + ": max");
+        assertEquals(sum, window.sum(), name + ": sum");
+        assertEquals((double) sum / size, window.average(), name + ": average");
+    }
+
+    private static int nextValue(SplittableRandom random) {
+        // Крайние значения int проверяют сумму в long
+        int value = random.nextInt(8) == 0 ? random.nextInt() : random.nextInt(-1_000, 1_001);
+        return value == -1 ? 0 : value;
+    }
+}
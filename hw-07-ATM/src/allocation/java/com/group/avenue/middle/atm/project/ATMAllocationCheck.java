@@ -0,0 +1,85 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.allocation.AllocationBudget;
+import com.group.avenue.middle.atm.project.model.Banknote;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Бюджеты аллокаций для горячих путей банкомата. Запускается задачей allocationBudget (входит в check).
+ * Банкноты, выданные или принятые в замеряемом вызове, возвращаются обратно в reset,
+ * чтобы состояние банкомата не менялось от вызова к вызову.
+ */
+public class ATMAllocationCheck {
+    private static final int CALLS = 200_000;
+
+    // Бюджеты в байтах на вызов:
+    // withdraw создает только WithdrawalResult (количества упакованы в long) - не больше 48 B,
+    // deposit(Map) создает HashMap принятых банкнот, упаковывает количества в Integer
+    // и лямбду внесения одного номинала (~250 B),
+    // deposit(Banknote, int) не аллоцирует,
+    // вывод сумм, чека и статуса в переиспользуемый буфер не аллоцирует
+    private static final double WITHDRAW_BUDGET = 48;
+    private static final double DEPOSIT_MAP_BUDGET = 256;
+    private static final double DEPOSIT_BUDGET = 0;
+    private static final double RENDER_BUDGET = 0;
+
+    public static void main(String[] args) {
+        var budget = new AllocationBudget();
+
+        var atm = new ATM("ATM-ALLOC", 100_000);
+        atm.deposit(Map.of(
+                Banknote.RUB_50, 20,
+                Banknote.RUB_100, 30,
+                Banknote.RUB_200, 25,
+                Banknote.RUB_500, 40,
+                Banknote.RUB_1000, 25,
+                Banknote.RUB_2000, 15,
+                Banknote.RUB_5000, 8
+        ));
+
+        // 6 850 = 5000 + 1000 + 500 + 200 + 100 + 50: по одной банкноте из шести ячеек
+        Map<Banknote, Integer> dispensed = Map.of(
+                Banknote.RUB_5000, 1,
+                Banknote.RUB_1000, 1,
+                Banknote.RUB_500, 1,
+                Banknote.RUB_200, 1,
+                Banknote.RUB_100, 1,
+                Banknote.RUB_50, 1
+        );
+        budget.check("ATM.withdraw(6 850)", WITHDRAW_BUDGET, CALLS,
+                () -> atm.withdraw(6_850),
+                () -> atm.deposit(dispensed));
+
+        Map<Banknote, Integer> oneNote = Map.of(Banknote.RUB_1000, 1);
+        budget.check("ATM.deposit(1000 x 1)", DEPOSIT_MAP_BUDGET, CALLS,
+                () -> atm.deposit(oneNote),
+                () -> atm.withdraw(1_000));
+
+        budget.check("ATM.deposit(RUB_1000, 1)", DEPOSIT_BUDGET, CALLS,
+                () -> atm.deposit(Banknote.RUB_1000, 1),
+                () -> atm.withdraw(1_000));
+
+        var text = new StringBuilder(1024);
+        budget.check("ATMUtils.appendAmount(1 234 567)", RENDER_BUDGET, CALLS,
+                () -> ATMUtils.appendAmount(text, 1_234_567),
+                () -> text.setLength(0));
+
+        var bytes = ByteBuffer.allocate(64);
+        budget.check("ATMUtils.putAmount(1 234 567)", RENDER_BUDGET, CALLS,
+                () -> ATMUtils.putAmount(bytes, 1_234_567),
+                bytes::clear);
+
+        var receipt = atm.withdraw(6_850);
+        budget.check("WithdrawalResult.appendTo", RENDER_BUDGET, CALLS,
+                () -> receipt.appendTo(text),
+                () -> text.setLength(0));
+
+        budget.check("ATM.appendStatus", RENDER_BUDGET, CALLS,
+                () -> atm.appendStatus(text),
+                () -> text.setLength(0));
+
+        System.exit(budget.finish());
+    }
+}
@@ -0,0 +1,129 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции банкомата при разной заполненности ячеек (fillPercent от вместимости, минимум одна банкнота).
+ * <p>
+ * Состояние ячеек не должно дрейфовать между вызовами, поэтому операции, меняющие ячейки,
+ * измеряются парами, возвращающими банкомат в исходное состояние:
+ * <ul>
+ *     <li>{@code withdrawDispensable} - выдача суммы из популярных и внесение выданных банкнот обратно
+ *     ({@code deposit(Banknote, int)} по номиналам);</li>
+ *     <li>{@code depositSingle}, {@code depositMap} - внесение 100 + 500 руб. и выдача 600 руб.
+ *     (минимальный набор единственный, те же две банкноты);</li>
+ *     <li>{@code withdrawUndispensable} - сумма, которую нельзя набрать: в этом банкомате нет 50 руб.;</li>
+ *     <li>{@code withdrawRejected} - сумма не кратна 50, исключение до подбора банкнот.</li>
+ * </ul>
+ * Запуск с {@code -prof gc} (см. build.gradle) показывает аллокации на операцию.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ATMBenchmark {
+    private static final int MAX_AMOUNT = 100_000;
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    // Выдаются при любой заполненности из fillPercent
+    private static final int[] DISPENSABLE = {150, 600, 1_750, 3_500, 8_200};
+
+    @Param({"100", "50", "10"})
+    public int fillPercent;
+
+    private ATM atm;
+    private ATM without50; // те же ячейки, но 50 руб. нет
+    private Map<Banknote, Integer> depositBanknotes;
+    private int next;
+    private final StringBuilder statusBuffer = new StringBuilder(512);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        atm = new ATM("ATM-BENCH", MAX_AMOUNT);
+        without50 = new ATM("ATM-BENCH-NO-50", MAX_AMOUNT);
+        // Место под внесение 100 и 500 руб. оставляем и при полной загрузке
+        int[] capacities = ATM.defaultCapacities();
+        for (Banknote banknote : BANKNOTES) {
+            int capacity = capacities[banknote.ordinal()];
+            int count = Math.min(capacity - 1, Math.max(1, capacity * fillPercent / 100));
+            atm.deposit(banknote, count);
+            if (banknote != Banknote.RUB_50) {
+                without50.deposit(banknote, count);
+            }
+        }
+        depositBanknotes = new EnumMap<>(Banknote.class);
+        depositBanknotes.put(Banknote.RUB_100, 1);
+        depositBanknotes.put(Banknote.RUB_500, 1);
+    }
+
+    @Benchmark
+    public int withdrawDispensable() {
+        next = next == DISPENSABLE.length - 1 ? 0 : next + 1;
+        WithdrawalResult result = atm.withdraw(DISPENSABLE[next]);
+        for (Banknote banknote : BANKNOTES) {
+            atm.deposit(banknote, result.getCount(banknote));
+        }
+        return result.getActualAmount();
+    }
+
+    @Benchmark
+    public boolean withdrawUndispensable() {
+        return without50.withdraw(350).isSuccess();
+    }
+
+    @Benchmark
+    public String withdrawRejected() {
+        try {
+            atm.withdraw(175);
+            throw new IllegalStateException("Сумма 175 руб. должна быть отклонена");
+        } catch (InvalidAmountException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public int depositSingle() {
+        atm.deposit(Banknote.RUB_100, 1);
+        atm.deposit(Banknote.RUB_500, 1);
+        return atm.withdraw(600).getActualAmount();
+    }
+
+    @Benchmark
+    public int depositMap() {
+        int accepted = atm.deposit(depositBanknotes).size();
+        return accepted + atm.withdraw(600).getActualAmount();
+    }
+
+    @Benchmark
+    public int getBalance() {
+        return atm.getBalance();
+    }
+
+    @Benchmark
+    public String getStatus() {
+        return atm.getStatus();
+    }
+
+    @Benchmark
+    public int appendStatusReused() {
+        statusBuffer.setLength(0);
+        return atm.appendStatus(statusBuffer).length();
+    }
+}
@@ -0,0 +1,113 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение {@link WithdrawalResult} и форматирование {@link ATMUtils}.
+ * <p>
+ * Выдача 8 750 руб. = 5000 + 2000 + 1000 + 500 + 200 + 50: шесть номиналов, как в крупной выдаче.
+ * {@code resultPacked} - результат из упакованных количеств (путь {@link ATM#withdraw(int)}),
+ * {@code resultFromMap} - из мапы, {@code resultFailed} - неуспешный.
+ * Методы {@code *Reused} пишут в один и тот же {@link StringBuilder}, как сервер, собирающий чек в буфер сессии.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormattingBenchmark {
+    private static final int AMOUNT = 8_750;
+
+    private long packed;
+    private Map<Banknote, Integer> banknotes;
+    private WithdrawalResult result;
+    private int amount;
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        banknotes = new LinkedHashMap<>();
+        banknotes.put(Banknote.RUB_5000, 1);
+        banknotes.put(Banknote.RUB_2000, 1);
+        banknotes.put(Banknote.RUB_1000, 1);
+        banknotes.put(Banknote.RUB_500, 1);
+        banknotes.put(Banknote.RUB_200, 1);
+        banknotes.put(Banknote.RUB_50, 1);
+        packed = BanknoteCounts.EMPTY;
+        for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
+            packed = BanknoteCounts.with(packed, entry.getKey(), entry.getValue());
+        }
+        result = new WithdrawalResult(AMOUNT, packed);
+    }
+
+    @Benchmark
+    public WithdrawalResult resultPacked() {
+        return new WithdrawalResult(AMOUNT, packed);
+    }
+
+    @Benchmark
+    public WithdrawalResult resultFromMap() {
+        return new WithdrawalResult(AMOUNT, banknotes);
+    }
+
+    @Benchmark
+    public WithdrawalResult resultFailed() {
+        return new WithdrawalResult(AMOUNT, "Невозможно выдать запрошенную сумму имеющимися банкнотами");
+    }
+
+    @Benchmark
+    public String resultToString() {
+        return result.toString();
+    }
+
+    @Benchmark
+    public String formatAmount() {
+        // Суммы разной разрядности: с разделителем тысяч и без
+        amount = amount >= 1_000_000 ? 50 : amount * 3 + 50;
+        return ATMUtils.formatAmount(amount);
+    }
+
+    @Benchmark
+    public int appendAmountReused() {
+        amount = amount >= 1_000_000 ? 50 : amount * 3 + 50;
+        buffer.setLength(0);
+        return ATMUtils.appendAmount(buffer, amount).length();
+    }
+
+    @Benchmark
+    public int receiptReused() {
+        buffer.setLength(0);
+        return result.appendTo(buffer).length();
+    }
+
+    @Benchmark
+    public String formatBanknotes() {
+        return ATMUtils.formatBanknotes(banknotes);
+    }
+
+    @Benchmark
+    public String formatBanknotesCompact() {
+        return ATMUtils.formatBanknotesCompact(banknotes);
+    }
+
+    @Benchmark
+    public String amountErrorMessage() {
+        return ATMUtils.getAmountErrorMessage(175, Banknote.RUB_50.getValue());
+    }
+}
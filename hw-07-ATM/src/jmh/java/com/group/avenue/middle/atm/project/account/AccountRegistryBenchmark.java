@@ -0,0 +1,88 @@
+package com.group.avenue.middle.atm.project.account;
+
+import com.group.avenue.middle.atm.project.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и изменение счета по случайной карте: {@link AccountRegistry} вне кучи
+ * против HashMap номера карты на User.
+ * <p>
+ * Карты случайные, поэтому при миллионах счетов почти каждое обращение - промах кеша процессора;
+ * разница в основном в том, сколько строк кеша нужно прочитать (колонки таблицы против
+ * узла HashMap, объекта User и строки номера).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccountRegistryBenchmark {
+    @Param({"1000000", "10000000"})
+    public int accounts;
+
+    private AccountRegistry registry;
+    private Map<String, User> users;
+    private long[] cards;
+    private String[] cardNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new AccountRegistry(accounts);
+        cards = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            cards[i] = 4_000_0000_0000_0000L + i * 7_919L;
+            registry.register(cards[i], 1_000_000, Integer.MAX_VALUE);
+        }
+        // Для сравнения на куче - не больше миллиона объектов, иначе не хватит памяти форку
+        int heapAccounts = Math.min(accounts, 1_000_000);
+        users = new HashMap<>(heapAccounts * 2);
+        cardNumbers = new String[heapAccounts];
+        for (int i = 0; i < heapAccounts; i++) {
+            cardNumbers[i] = AccountRegistry.cardNumber(cards[i]);
+            users.put(cardNumbers[i], new User("Клиент " + i, cardNumbers[i], 1_000_000, Integer.MAX_VALUE));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public int getBalance(Cursor cursor) {
+        return registry.getBalance(cards[cursor.random.nextInt(accounts)]);
+    }
+
+    @Benchmark
+    public int depositAndWithdraw(Cursor cursor) {
+        long card = cards[cursor.random.nextInt(accounts)];
+        registry.deposit(card, 100);
+        return registry.withdraw(card, 100);
+    }
+
+    @Benchmark
+    public int cardKeyAndBalance(Cursor cursor) {
+        String cardNumber = cardNumbers[cursor.random.nextInt(cardNumbers.length)];
+        return registry.getBalance(AccountRegistry.cardKey(cardNumber));
+    }
+
+    @Benchmark
+    public int heapMapBalance(Cursor cursor) {
+        return users.get(cardNumbers[cursor.random.nextInt(cardNumbers.length)]).getBalance();
+    }
+}
@@ -0,0 +1,70 @@
+package com.group.avenue.middle.atm.project.dispense;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подбор банкнот: жадный против оптимального.
+ * <p>
+ * {@code plan} - ячейки не меняются между вызовами (у оптимального - только обход готовых слоев),
+ * {@code planAfterChange} - перед каждым вызовом меняется количество в ячейке номинала
+ * changedOrdinal, и оптимальный пересчитывает слои начиная с него
+ * (0 - 50 руб., пересчет всех слоев; 6 - 5000 руб., один слой).
+ * Суммы перебираются от 50 до 100 000 руб.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DispenserBenchmark {
+    private static final int MAX_AMOUNT = 100_000;
+    private static final int AMOUNTS = MAX_AMOUNT / 50;
+
+    @Param({"greedy", "optimal"})
+    public String dispenser;
+
+    @Param({"0", "6"})
+    public int changedOrdinal;
+
+    // Полные ячейки банкомата (вместимости из ATM)
+    private final int[] counts = {100, 100, 50, 50, 30, 20, 10};
+    private Dispenser target;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = switch (dispenser) {
+            case "greedy" -> new GreedyDispenser();
+            case "optimal" -> new OptimalDispenser(MAX_AMOUNT);
+            default -> throw new IllegalArgumentException("Неизвестный алгоритм: " + dispenser);
+        };
+    }
+
+    @Benchmark
+    public long plan() {
+        return target.plan(nextAmount(), counts);
+    }
+
+    @Benchmark
+    public long planAfterChange() {
+        counts[changedOrdinal] ^= 1; // банкнота выдана или внесена
+        return target.plan(nextAmount(), counts);
+    }
+
+    private int nextAmount() {
+        next = next == AMOUNTS ? 1 : next + 1;
+        return next * 50;
+    }
+}
@@ -0,0 +1,70 @@
+package com.group.avenue.middle.atm.project.fleet;
+
+import com.group.avenue.middle.atm.project.ATM;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маршрутизация запроса к ближайшему банкомату, который может выдать сумму.
+ * <p>
+ * atms банкоматов равномерно на квадрате 1 000 x 1 000 км, 10 регионов, ячейки заполнены
+ * случайно от 0 до половины вместимости. {@code route} - одна маршрутизация по случайной
+ * точке и сумме из популярных, {@code totals} - чтение итогов парка для сравнения с обходом
+ * всех банкоматов.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FleetRoutingBenchmark {
+    private static final double EXTENT = 1_000;
+    private static final int[] AMOUNTS = {1_000, 2_000, 5_000, 10_000, 35_000};
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    @Param({"1000", "100000"})
+    public int atms;
+
+    private Fleet fleet;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        // Клетка порядка среднего расстояния между соседями
+        double cellSize = Math.max(1, EXTENT / Math.sqrt(atms));
+        fleet = new Fleet(atms, 10, EXTENT, cellSize, 100_000);
+        int[] capacities = ATM.defaultCapacities();
+        for (int i = 0; i < atms; i++) {
+            int index = fleet.add("ATM-" + i, random.nextInt(10),
+                    random.nextDouble() * EXTENT, random.nextDouble() * EXTENT);
+            for (Banknote banknote : BANKNOTES) {
+                fleet.deposit(index, banknote, random.nextInt(capacities[banknote.ordinal()] / 2 + 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public int route() {
+        return fleet.route(random.nextDouble() * EXTENT, random.nextDouble() * EXTENT,
+                AMOUNTS[random.nextInt(AMOUNTS.length)]);
+    }
+
+    @Benchmark
+    public long totals() {
+        return fleet.getTotalBalance() + fleet.getTotalCount(Banknote.RUB_5000) + fleet.getRegionBalance(3);
+    }
+}
@@ -0,0 +1,90 @@
+package com.group.avenue.middle.atm.project.journal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность журнала при 16 одновременных операциях, операций в секунду.
+ * <p>
+ * {@code groupCommit} - групповая фиксация с окном windowMicros (0 - без ожидания,
+ * партию составляют записи, пришедшие за время предыдущего force).
+ * {@code fsyncPerOperation} - для сравнения: операции по одной, на каждую свой force.
+ * Результат сильно зависит от диска: запускать на том же носителе, где будет журнал.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+public class JournalBenchmark {
+    private static final long SUBJECT = Journal.subject("ATM-001");
+
+    @State(Scope.Benchmark)
+    public static class GroupCommit {
+        @Param({"0", "50", "200", "1000"})
+        public int windowMicros;
+
+        Path path;
+        Journal journal;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            path = Files.createTempFile("journal-bench", ".wal");
+            journal = new Journal(path, Duration.ofNanos(windowMicros * 1_000L));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PerOperation {
+        Path path;
+        Journal journal;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            path = Files.createTempFile("journal-bench", ".wal");
+            journal = new Journal(path);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    public long groupCommit(GroupCommit state) {
+        return state.journal.append(RecordType.USER_WITHDRAW, SUBJECT, 1_000);
+    }
+
+    @Benchmark
+    public long fsyncPerOperation(PerOperation state) {
+        // Одна операция в журнале за раз: партия всегда из одной записи
+        synchronized (state) {
+            return state.journal.append(RecordType.USER_WITHDRAW, SUBJECT, 1_000);
+        }
+    }
+}
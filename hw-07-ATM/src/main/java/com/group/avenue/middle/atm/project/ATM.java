@@ -1,14 +1,21 @@
 package com.group.avenue.middle.atm.project;
 
+import com.group.avenue.middle.atm.project.dispense.Dispenser;
+import com.group.avenue.middle.atm.project.dispense.OptimalDispenser;
+import com.group.avenue.middle.atm.project.dispense.PlanCache;
 import com.group.avenue.middle.atm.project.exception.CassetteException;
 import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
 import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
-import com.group.avenue.middle.atm.project.exception.UnsupportedBanknoteException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.journal.RecordType;
 import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
 import com.group.avenue.middle.atm.project.model.Cassette;
 import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
 
 import java.util.*;
+import java.util.function.ToIntBiFunction;
 
 /**
  * Основной класс банкомата
@@ -17,23 +24,58 @@ import java.util.*;
  * @since 29.12.2025
  */
 public class ATM {
+    static final int DEFAULT_PLAN_CACHE_SIZE = 64;
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    // Порядок выдачи: от крупных номиналов к мелким
+    private static final Banknote[] DISPENSE_ORDER = Arrays.stream(BANKNOTES)
+            .sorted((b1, b2) -> Integer.compare(b2.getValue(), b1.getValue()))
+            .toArray(Banknote[]::new);
+
     private final String id; // уникальный идентификатор
-    private final Map<Banknote, Cassette> cassettes; // мапа: номинал -> ячейка
+    private final int[] counts; // количество банкнот в ячейке, индекс - ordinal номинала
+    private final int[] capacities; // вместимость ячейки, индекс - ordinal номинала
     private final int maxWithdrawalAmount; // максимум за одну операцию
     private final int minBanknoteValue; // минимальный номинал
+    private final Dispenser dispenser; // подбор банкнот для выдачи
+    private final PlanCache planCache; // планы популярных сумм, null - без кеша
+    private int balance; // сумма по всем ячейкам, обновляется при каждом изменении
+    private long version; // версия состояния ячеек, растет при каждом изменении количества
+    private final long journalSubject; // ключ банкомата в журнале
+    private Journal journal; // журнал операций, null - без журнала
 
     public ATM(String id, int maxWithdrawalAmount) {
+        this(id, maxWithdrawalAmount, new OptimalDispenser(maxWithdrawalAmount));
+    }
+
+    /**
+     * @param dispenser алгоритм подбора банкнот, экземпляр только для этого банкомата
+     */
+    public ATM(String id, int maxWithdrawalAmount, Dispenser dispenser) {
+        this(id, maxWithdrawalAmount, dispenser, DEFAULT_PLAN_CACHE_SIZE);
+    }
+
+    /**
+     * @param planCacheSize сколько сумм держать в кеше планов выдачи, 0 - без кеша
+     */
+    public ATM(String id, int maxWithdrawalAmount, Dispenser dispenser, int planCacheSize) {
+        if (planCacheSize < 0) {
+            throw new IllegalArgumentException("Размер кеша планов не может быть отрицательным");
+        }
         this.id = id;
-        this.cassettes = new LinkedHashMap<>(); // сохраняем порядок (от крупных к мелким)
+        this.journalSubject = id != null ? Journal.subject(id) : 0;
+        this.dispenser = Objects.requireNonNull(dispenser);
+        this.planCache = planCacheSize > 0 ? new PlanCache(planCacheSize, maxWithdrawalAmount) : null;
+        this.counts = new int[BANKNOTES.length];
+        this.capacities = defaultCapacities();
         this.maxWithdrawalAmount = maxWithdrawalAmount;
         this.minBanknoteValue = Banknote.RUB_50.getValue();
-
-        // Инициализируем ячейки для всех номиналов (пустые)
-        initializeCassettes();
     }
 
-    private void initializeCassettes() {
-        // Создаем ячейки с разной вместимостью в зависимости от номинала
+    /**
+     * Вместимость ячеек по ordinal номинала (новый массив)
+     */
+    public static int[] defaultCapacities() {
+        // Ячейки с разной вместимостью в зависимости от номинала
         Map<Banknote, Integer> capacities = Map.of(
                 Banknote.RUB_50, 100,
                 Banknote.RUB_100, 100,
@@ -44,13 +86,11 @@ public class ATM {
                 Banknote.RUB_5000, 10
         );
 
-        // Сортируем номиналы по убыванию (для удобства выдачи)
-        List<Banknote> sortedNotes = Arrays.asList(Banknote.values());
-        sortedNotes.sort((b1, b2) -> Integer.compare(b2.getValue(), b1.getValue()));
-
-        for (Banknote banknote : sortedNotes) {
-            cassettes.put(banknote, new Cassette(banknote, capacities.get(banknote)));
+        int[] byOrdinal = new int[BANKNOTES.length];
+        for (Banknote banknote : BANKNOTES) {
+            byOrdinal[banknote.ordinal()] = capacities.get(banknote);
         }
+        return byOrdinal;
     }
 
     // --- Основные методы ---
@@ -61,6 +101,17 @@ public class ATM {
      * @return мапа принятых банкнот (номинал -> количество)
      */
     public Map<Banknote, Integer> deposit(Map<Banknote, Integer> banknotes) {
+        return depositEach(banknotes, (banknote, quantity) -> deposit(banknote, quantity));
+    }
+
+    /**
+     * Внести мапу банкнот по номиналам: общая часть deposit(Map) однопоточного
+     * и конкурентного банкомата. Номинал, не поместившийся в ячейку, пропускается.
+     * @param deposit внесение одного номинала, бросает CassetteException при нехватке места
+     * @return мапа принятых банкнот (номинал -> количество)
+     */
+    static Map<Banknote, Integer> depositEach(Map<Banknote, Integer> banknotes,
+                                              ToIntBiFunction<Banknote, Integer> deposit) {
         if (banknotes == null || banknotes.isEmpty()) {
             throw new IllegalArgumentException("Пустой список банкнот");
         }
@@ -76,15 +127,8 @@ public class ATM {
                         "Количество банкнот " + banknote.getValue() + " руб. должно быть положительным");
             }
 
-            Cassette cassette = cassettes.get(banknote);
-            if (cassette == null) {
-                throw new UnsupportedBanknoteException(
-                        "Банкомат не поддерживает номинал: " + banknote.getValue() + " руб.");
-            }
-
             try {
-                int actuallyAdded = cassette.deposit(quantity);
-                accepted.put(banknote, actuallyAdded);
+                accepted.put(banknote, deposit.applyAsInt(banknote, quantity));
 
             } catch (CassetteException e) {
                 System.err.println("Ошибка при внесении " + banknote.getValue() + " руб.: " + e.getMessage());
@@ -95,12 +139,172 @@ public class ATM {
     }
 
     /**
-     * Снять наличные (простейший алгоритм без оптимизации)
+     * Внести банкноты одного номинала, без промежуточных коллекций
+     * @param quantity количество для добавления
+     * @return фактически добавленное количество
+     * @throws CassetteException если превышена вместимость ячейки
+     */
+    public int deposit(Banknote banknote, int quantity) {
+        if (quantity < 0) {
+            throw new InvalidAmountException("Количество не может быть отрицательным");
+        }
+
+        int index = banknote.ordinal();
+        checkCassetteSpace(quantity, capacities[index] - counts[index]);
+
+        if (quantity > 0) {
+            log(RecordType.ATM_DEPOSIT, BanknoteCounts.with(BanknoteCounts.EMPTY, index, quantity));
+            counts[index] += quantity;
+            balance += quantity * banknote.getValue();
+            version++;
+        }
+        return quantity;
+    }
+
+    /**
+     * Снять наличные минимальным числом банкнот (алгоритм подбора - {@link Dispenser})
      * @param amount запрашиваемая сумма в рублях
      * @return результат операции
      */
     public WithdrawalResult withdraw(int amount) {
-        // Валидация суммы
+        checkWithdrawalAmount(amount, minBanknoteValue, maxWithdrawalAmount);
+
+        if (amount > balance) {
+            throw new InsufficientFundsException("В банкомате недостаточно средств");
+        }
+
+        // Подбираем банкноты: количества по номиналам упакованы в один long
+        long resultBanknotes = planCache != null ? planCache.get(amount, version, counts) : PlanCache.MISSING;
+        if (resultBanknotes == PlanCache.MISSING) {
+            resultBanknotes = dispenser.plan(amount, counts);
+            if (planCache != null) {
+                planCache.put(amount, version, counts, resultBanknotes);
+            }
+        }
+        if (resultBanknotes == Dispenser.NO_PLAN) {
+            return new WithdrawalResult(amount,
+                    "Невозможно выдать запрошенную сумму имеющимися банкнотами");
+        }
+
+        // Сначала запись в журнал, потом списание: без надежной записи банкноты не выдаются
+        log(RecordType.ATM_WITHDRAW, resultBanknotes);
+
+        // Фактически списываем банкноты из ячеек
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= BanknoteCounts.count(resultBanknotes, i);
+        }
+        balance -= amount;
+        version++;
+
+        return new WithdrawalResult(amount, resultBanknotes);
+    }
+
+    /**
+     * Изъять банкноты одного номинала мимо подбора (инкассация), не больше, чем есть в ячейке
+     * @return фактически изъятое количество
+     */
+    public int withdraw(Banknote banknote, int quantity) {
+        if (quantity < 0) {
+            throw new InvalidAmountException("Количество не может быть отрицательным");
+        }
+
+        int index = banknote.ordinal();
+        int actual = Math.min(quantity, counts[index]);
+        if (actual > 0) {
+            log(RecordType.ATM_WITHDRAW, BanknoteCounts.with(BanknoteCounts.EMPTY, index, actual));
+            counts[index] -= actual;
+            balance -= actual * banknote.getValue();
+            version++;
+        }
+        return actual;
+    }
+
+    // --- Журнал ---
+
+    /**
+     * Записывать внесения и выдачи в журнал до изменения ячеек.
+     * Операция возвращает управление, только когда ее запись на диске.
+     * @param journal журнал или null, чтобы больше не писать
+     */
+    public void attachJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Восстановить ячейки по журналу: применить все записи этого банкомата по порядку.
+     * Вызывать на старте, до операций и до {@link #attachJournal}.
+     * @return сколько записей применено
+     */
+    public long recover(Journal journal) {
+        return recover(journal, null);
+    }
+
+    /**
+     * Восстановить ячейки по снимку и хвосту журнала после него
+     * @param snapshot последний снимок или null - весь журнал; если банкомата в снимке нет
+     *                 (например, он появился позже), тоже весь журнал
+     * @return сколько записей журнала применено
+     */
+    public long recover(Journal journal, StateSnapshot snapshot) {
+        long after = 0;
+        if (snapshot != null && restore(snapshot)) {
+            after = snapshot.getSequence();
+        }
+        long[] applied = new long[1];
+        journal.replay(after, (sequence, type, subject, payload) -> {
+            if (subject != journalSubject) {
+                return;
+            }
+            int sign;
+            if (type == RecordType.ATM_DEPOSIT) {
+                sign = 1;
+            } else if (type == RecordType.ATM_WITHDRAW) {
+                sign = -1;
+            } else {
+                return;
+            }
+            for (Banknote banknote : BANKNOTES) {
+                int quantity = sign * BanknoteCounts.count(payload, banknote);
+                counts[banknote.ordinal()] += quantity;
+                balance += quantity * banknote.getValue();
+            }
+            version++;
+            applied[0]++;
+        });
+        return applied[0];
+    }
+
+    /**
+     * Взять количества в ячейках из снимка
+     * @return false, если банкомата в снимке нет (ячейки не меняются)
+     */
+    public boolean restore(StateSnapshot snapshot) {
+        int index = snapshot.findAtm(id);
+        if (index == StateSnapshot.NOT_FOUND) {
+            return false;
+        }
+        balance = 0;
+        for (Banknote banknote : BANKNOTES) {
+            int count = snapshot.getAtmCount(index, banknote);
+            counts[banknote.ordinal()] = count;
+            balance += count * banknote.getValue();
+        }
+        version++;
+        return true;
+    }
+
+    private void log(RecordType type, long payload) {
+        if (journal != null) {
+            journal.append(type, journalSubject, payload);
+        }
+    }
+
+    /**
+     * Валидация суммы выдачи
+     * @throws InvalidAmountException если сумма не положительна, меньше минимального номинала,
+     * не кратна ему или больше лимита за операцию
+     */
+    public static void checkWithdrawalAmount(int amount, int minBanknoteValue, int maxWithdrawalAmount) {
         if (amount <= 0) {
             throw new InvalidAmountException("Сумма должна быть положительной");
         }
@@ -119,59 +323,62 @@ public class ATM {
             throw new InvalidAmountException(
                     "Превышен лимит за одну операцию. Максимум: " + maxWithdrawalAmount + " руб.");
         }
+    }
 
-        if (amount > getBalance()) {
-            throw new InsufficientFundsException("В банкомате недостаточно средств");
+    /**
+     * Проверка места в ячейке перед внесением
+     * @throws CassetteException если quantity банкнот не помещается в availableSpace
+     */
+    public static void checkCassetteSpace(int quantity, int availableSpace) {
+        if (quantity > availableSpace) {
+            throw new CassetteException("""
+                    Невозможно добавить %d банкнот. Доступно места только для %d""".formatted(quantity, availableSpace));
         }
+    }
 
-        // Пытаемся выдать сумму
-        Map<Banknote, Integer> resultBanknotes = new HashMap<>();
-        int remainingAmount = amount;
-
-        // Идем от крупных номиналов к мелким
-        for (Banknote banknote : cassettes.keySet()) {
-            Cassette cassette = cassettes.get(banknote);
-            int noteValue = banknote.getValue();
-
-            if (noteValue <= remainingAmount && !cassette.isEmpty()) {
-                int maxNotesFromCassette = Math.min(
-                        remainingAmount / noteValue,
-                        cassette.getCount()
-                );
-
-                if (maxNotesFromCassette > 0) {
-                    resultBanknotes.put(banknote, maxNotesFromCassette);
-                    remainingAmount -= maxNotesFromCassette * noteValue;
-                }
-            }
+    /**
+     * Получить общий баланс банкомата
+     */
+    public int getBalance() {
+        return balance;
+    }
 
-            if (remainingAmount == 0) {
-                break;
-            }
-        }
+    /**
+     * Версия состояния ячеек: меняется при каждом внесении и выдаче
+     */
+    public long getStateVersion() {
+        return version;
+    }
 
-        // Проверяем, удалось ли набрать сумму
-        if (remainingAmount > 0) {
-            return new WithdrawalResult(amount,
-                    "Невозможно выдать запрошенную сумму имеющимися банкнотами");
-        }
+    /**
+     * Кеш планов выдачи (метрики попаданий) или null, если банкомат создан без кеша
+     */
+    public PlanCache getPlanCache() {
+        return planCache;
+    }
 
-        // Фактически списываем банкноты из ячеек
-        for (Map.Entry<Banknote, Integer> entry : resultBanknotes.entrySet()) {
-            Cassette cassette = cassettes.get(entry.getKey());
-            cassette.withdraw(entry.getValue());
-        }
+    /**
+     * Сколько банкнот номинала в ячейке
+     */
+    public int getCount(Banknote banknote) {
+        return counts[banknote.ordinal()];
+    }
 
-        return new WithdrawalResult(amount, resultBanknotes);
+    /**
+     * Вместимость ячейки номинала
+     */
+    public int getCapacity(Banknote banknote) {
+        return capacities[banknote.ordinal()];
     }
 
     /**
-     * Получить общий баланс банкомата
+     * Ячейка номинала в прежнем API: адаптер над количествами этого банкомата
+     * @deprecated {@link #getCount}, {@link #getCapacity}, {@link #deposit(Banknote, int)}
+     * и {@link #withdraw(Banknote, int)}
      */
-    public int getBalance() {
-        return cassettes.values().stream()
-                .mapToInt(Cassette::getCurrentAmount)
-                .sum();
+    @Deprecated
+    public Cassette getCassette(Banknote banknote) {
+        return new Cassette(this, banknote);
     }
 
     /**
@@ -179,9 +386,10 @@ public class ATM {
      */
     public Map<Banknote, Integer> getAvailableBanknotes() {
         Map<Banknote, Integer> available = new LinkedHashMap<>();
-        for (Map.Entry<Banknote, Cassette> entry : cassettes.entrySet()) {
-            if (!entry.getValue().isEmpty()) {
-                available.put(entry.getKey(), entry.getValue().getCount());
+        for (Banknote banknote : DISPENSE_ORDER) {
+            int count = counts[banknote.ordinal()];
+            if (count > 0) {
+                available.put(banknote, count);
             }
         }
         return available;
@@ -191,42 +399,47 @@ public class ATM {
      * Получить статус банкомата
      */
     public String getStatus() {
-        StringBuilder sb = new StringBuilder();
+        return appendStatus(new StringBuilder(512)).toString();
+    }
+
+    /**
+     * Дописать экран статуса в переданный буфер: без промежуточных строк и коллекций
+     */
+    public StringBuilder appendStatus(StringBuilder sb) {
         sb.append("=== СТАТУС БАНКОМАТА ").append(id).append(" ===\n");
-        sb.append("Общий баланс: ").append(ATMUtils.formatAmount(getBalance())).append("\n");
+        ATMUtils.appendAmount(sb.append("Общий баланс: "), getBalance()).append("\n");
         sb.append("Доступные банкноты:");
 
-        Map<Banknote, Integer> available = getAvailableBanknotes();
-        if (available.isEmpty()) {
+        if (balance == 0) {
             sb.append(" нет доступных банкнот\n");
         } else {
             sb.append("\n");
-            for (Cassette cassette : cassettes.values()) {
-                if (!cassette.isEmpty()) {
+            for (Banknote banknote : DISPENSE_ORDER) {
+                int count = counts[banknote.ordinal()];
+                if (count > 0) {
                     sb.append("  • ")
-                            .append(cassette.getBanknote().getValue())
-                            .append(" руб. — ")
-                            .append(cassette.getCount())
+                            .append(ATMUtils.banknoteLabel(banknote))
+                            .append(" — ")
+                            .append(count)
                             .append("/")
-                            .append(cassette.getCapacity())
-                            .append(" шт. (")
-                            .append(ATMUtils.formatAmount(cassette.getCurrentAmount()))
-                            .append(")\n");
+                            .append(capacities[banknote.ordinal()])
+                            .append(" шт. (");
+                    ATMUtils.appendAmount(sb, count * banknote.getValue()).append(")\n");
                 }
             }
         }
 
-        sb.append("Максимальная сумма выдачи за операцию: ")
-                .append(ATMUtils.formatAmount(maxWithdrawalAmount))
+        ATMUtils.appendAmount(sb.append("Максимальная сумма выдачи за операцию: "), maxWithdrawalAmount)
                 .append("\n");
-        sb.append("Минимальный номинал: ")
-                .append(ATMUtils.formatAmount(minBanknoteValue));
-
-        return sb.toString();
+        return ATMUtils.appendAmount(sb.append("Минимальный номинал: "), minBanknoteValue);
     }
 
     // --- Геттеры ---
 
+    public String getId() {
+        return id;
+    }
+
     public int getMaxWithdrawalAmount() {
         return maxWithdrawalAmount;
     }
@@ -2,30 +2,140 @@ package com.group.avenue.middle.atm.project;
 
 import com.group.avenue.middle.atm.project.model.Banknote;
 
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
- * Утилиты для форматирования вывода
+ * Утилиты для форматирования вывода.
+ * <p>
+ * Суммы форматируются как у {@code NumberFormat} для ru-RU: разряды разделены неразрывным
+ * пробелом (U+00A0), без дробной части. Состояния нет, поэтому методы можно вызывать
+ * из любых потоков. Методы {@code append*} и {@code put*} пишут в переданный
+ * {@link StringBuilder} или {@link ByteBuffer} (UTF-8) и сами ничего не аллоцируют:
+ * чеки и экраны статуса можно собирать в переиспользуемый буфер.
  *
  * @author vladimir_shi
  * @since 29.12.2025
  */
 public class ATMUtils {
-    private static final NumberFormat RUB_FORMAT;
+    private static final char GROUP_SEPARATOR = '\u00A0'; // неразрывный пробел, как у NumberFormat для ru-RU
+    private static final String CURRENCY = " руб.";
+    private static final String TIMES = " × ";
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    private static final byte[] GROUP_SEPARATOR_BYTES = String.valueOf(GROUP_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CURRENCY_BYTES = CURRENCY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TIMES_BYTES = TIMES.getBytes(StandardCharsets.UTF_8);
+
+    // Подписи номиналов по ordinal: "5000 руб." (без разделителя разрядов, как на купюре)
+    private static final String[] LABELS = new String[BANKNOTES.length];
+    private static final byte[][] LABEL_BYTES = new byte[BANKNOTES.length][];
+
+    // Степени десяти для вывода цифр от старшей к младшей
+    private static final long[] POWERS_OF_TEN = new long[19];
 
     static {
-        RUB_FORMAT = NumberFormat.getNumberInstance(new Locale("ru", "RU"));
-        RUB_FORMAT.setMinimumFractionDigits(0);
-        RUB_FORMAT.setMaximumFractionDigits(0);
+        for (Banknote banknote : BANKNOTES) {
+            LABELS[banknote.ordinal()] = banknote.getValue() + CURRENCY;
+            LABEL_BYTES[banknote.ordinal()] = LABELS[banknote.ordinal()].getBytes(StandardCharsets.UTF_8);
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
     }
 
     /**
      * Форматирует сумму в рублях с разделителями тысяч
      */
     public static String formatAmount(int amount) {
-        return RUB_FORMAT.format(amount) + " руб.";
+        return appendAmount(new StringBuilder(16), amount).toString();
+    }
+
+    /**
+     * Подпись номинала, например "5000 руб." (готовая строка, без аллокаций)
+     */
+    public static String banknoteLabel(Banknote banknote) {
+        return LABELS[banknote.ordinal()];
+    }
+
+    /**
+     * Дописать сумму в рублях с разделителями тысяч: "12 500 руб."
+     */
+    public static StringBuilder appendAmount(StringBuilder sb, long amount) {
+        return appendNumber(sb, amount).append(CURRENCY);
+    }
+
+    /**
+     * Дописать число с разделителями тысяч
+     */
+    public static StringBuilder appendNumber(StringBuilder sb, long value) {
+        // Цифры берутся из отрицательного значения: так Long.MIN_VALUE не переполняется
+        long negative = value < 0 ? value : -value;
+        if (value < 0) {
+            sb.append('-');
+        }
+        for (int digit = digitCount(negative) - 1; digit >= 0; digit--) {
+            sb.append((char) ('0' - negative / POWERS_OF_TEN[digit] % 10));
+            if (digit > 0 && digit % 3 == 0) {
+                sb.append(GROUP_SEPARATOR);
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Дописать "5000 руб. × 3"
+     */
+    public static StringBuilder appendBanknoteCount(StringBuilder sb, Banknote banknote, int count) {
+        return sb.append(LABELS[banknote.ordinal()]).append(TIMES).append(count);
+    }
+
+    /**
+     * Записать сумму в рублях с разделителями тысяч в UTF-8
+     * @throws java.nio.BufferOverflowException если в буфере не хватает места
+     */
+    public static ByteBuffer putAmount(ByteBuffer buffer, long amount) {
+        return putNumber(buffer, amount).put(CURRENCY_BYTES);
+    }
+
+    /**
+     * Записать число с разделителями тысяч в UTF-8
+     * @throws java.nio.BufferOverflowException если в буфере не хватает места
+     */
+    public static ByteBuffer putNumber(ByteBuffer buffer, long value) {
+        return putDigits(buffer, value, true);
+    }
+
+    /**
+     * Записать "5000 руб. × 3" в UTF-8. Количество без разделителей, как в {@link #appendBanknoteCount}
+     * @throws java.nio.BufferOverflowException если в буфере не хватает места
+     */
+    public static ByteBuffer putBanknoteCount(ByteBuffer buffer, Banknote banknote, int count) {
+        return putDigits(buffer.put(LABEL_BYTES[banknote.ordinal()]).put(TIMES_BYTES), count, false);
+    }
+
+    private static ByteBuffer putDigits(ByteBuffer buffer, long value, boolean grouped) {
+        long negative = value < 0 ? value : -value;
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        for (int digit = digitCount(negative) - 1; digit >= 0; digit--) {
+            buffer.put((byte) ('0' - negative / POWERS_OF_TEN[digit] % 10));
+            if (grouped && digit > 0 && digit % 3 == 0) {
+                buffer.put(GROUP_SEPARATOR_BYTES);
+            }
+        }
+        return buffer;
+    }
+
+    private static int digitCount(long negative) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && negative <= -POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
     }
 
     /**
@@ -35,36 +145,42 @@ public class ATMUtils {
         if (banknotes == null || banknotes.isEmpty()) {
             return "нет банкнот";
         }
+        return appendBanknotes(new StringBuilder(256), banknotes).toString();
+    }
+
+    /**
+     * Дописать список банкнот построчно с итогом
+     */
+    public static StringBuilder appendBanknotes(StringBuilder sb, Map<Banknote, Integer> banknotes) {
+        if (banknotes == null || banknotes.isEmpty()) {
+            return sb.append("нет банкнот");
+        }
 
-        StringBuilder sb = new StringBuilder();
         int total = 0;
         int count = 0;
 
         for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
-            if (entry.getValue() > 0) {
-                int value = entry.getKey().getValue() * entry.getValue();
+            int quantity = entry.getValue();
+            if (quantity > 0) {
+                int value = entry.getKey().getValue() * quantity;
                 total += value;
-                count += entry.getValue();
-
-                sb.append("\n  ")
-                        .append(entry.getKey().getValue())
-                        .append(" руб. × ")
-                        .append(entry.getValue())
-                        .append(" = ")
-                        .append(formatAmount(value));
+                count += quantity;
+
+                appendBanknoteCount(sb.append("\n  "), entry.getKey(), quantity).append(" = ");
+                appendAmount(sb, value);
             }
         }
 
         if (count > 0) {
             sb.append("\nИтого: ")
                     .append(count)
-                    .append(" банкнот на сумму ")
-                    .append(formatAmount(total));
+                    .append(" банкнот на сумму ");
+            appendAmount(sb, total);
         } else {
             sb.append("\n(все ячейки переполнены)");
         }
 
-        return sb.toString();
+        return sb;
     }
 
     /**
@@ -74,23 +190,31 @@ public class ATMUtils {
         if (banknotes == null || banknotes.isEmpty()) {
             return "нет";
         }
+        return appendBanknotesCompact(new StringBuilder(128), banknotes).toString();
+    }
+
+    /**
+     * Дописать банкноты в одну строку: "5000 руб. × 1, 100 руб. × 2"
+     */
+    public static StringBuilder appendBanknotesCompact(StringBuilder sb, Map<Banknote, Integer> banknotes) {
+        if (banknotes == null || banknotes.isEmpty()) {
+            return sb.append("нет");
+        }
 
-        StringBuilder sb = new StringBuilder();
         boolean first = true;
 
         for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
-            if (entry.getValue() > 0) {
+            int quantity = entry.getValue();
+            if (quantity > 0) {
                 if (!first) {
                     sb.append(", ");
                 }
-                sb.append(entry.getKey().getValue())
-                        .append(" руб. × ")
-                        .append(entry.getValue());
+                appendBanknoteCount(sb, entry.getKey(), quantity);
                 first = false;
             }
         }
 
-        return sb.toString();
+        return sb;
     }
 
     /**
@@ -108,4 +232,4 @@ public class ATMUtils {
         }
         return null; // нет ошибок
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,431 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.dispense.Dispenser;
+import com.group.avenue.middle.atm.project.dispense.OptimalDispenser;
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.journal.RecordType;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import com.group.avenue.middle.atm.project.model.User;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Банкомат для одновременной работы многих сессий, без блокировок.
+ * <p>
+ * Количества во всех ячейках - одно слово {@link BanknoteCounts} в AtomicLong, так что снимок
+ * ячеек - одно чтение, а резервирование плана - один CAS {@code notes -> notes - plan}
+ * (если в какой-то ячейке банкнот меньше, чем в плане, - новый снимок). Банкнот никогда
+ * не выдается больше, чем лежит в ячейке, а каждая банкнота либо в ячейке, либо выдана
+ * ровно одной сессии. Баланс - сумма по этому же слову.
+ * <p>
+ * Отказ (NO_PLAN или нехватка средств) должен быть окончательным: сумму нельзя набрать
+ * и тогда, когда вернутся банкноты, зарезервированные другими сессиями под еще не записанные
+ * в журнал выдачи. Такие резервы лежат во втором слове, reserved; если по снимку сумму
+ * не набрать, а по снимку вместе с резервами можно, выдача ждет их исхода и повторяется.
+ * Счетчик откатов служит версией: если во время чтения слов резерв вернулся в ячейки,
+ * снимок перечитывается.
+ * <p>
+ * План считает {@link Dispenser}; оптимальный подбор хранит таблицы и не потокобезопасен,
+ * поэтому подборщики берутся из небольшого lock-free пула.
+ * <p>
+ * С журналом выдача сначала резервирует банкноты (снимает из ячеек и учитывает в reserved),
+ * затем ждет надежной записи и только потом возвращает результат; если запись не удалась,
+ * резерв возвращается в ячейки. Внесение сначала занимает место в ячейке (слово stored -
+ * банкноты плюс внесения, ждущие журнала; вместимость проверяется по нему), затем ждет
+ * записи и только потом кладет банкноты в notes: до этого их нельзя выдать, а если запись
+ * не удалась, освобождается только место. Выданные банкноты освобождают место после записи,
+ * так что отмененная выдача всегда помещается обратно. Записи одновременных сессий попадают в один fsync (групповая фиксация).
+ * <p>
+ * Операцию со счетом можно провести в той же операции: счет проверяется до резерва,
+ * запись банкомата и запись счета уходят в журнал одной операцией (см. {@link Journal}),
+ * и после сбоя восстанавливаются обе или ни одной. Если запись не удалась, банкноты и место
+ * возвращаются, а счет не меняется.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class ConcurrentATM {
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    private final String id; // уникальный идентификатор
+    private final AtomicLong notes = new AtomicLong(BanknoteCounts.EMPTY); // банкноты в ячейках
+    private final AtomicLong stored = new AtomicLong(BanknoteCounts.EMPTY); // занятое место, не меньше notes
+    private final AtomicLong reserved = new AtomicLong(BanknoteCounts.EMPTY); // выдачи, ждущие журнала
+    private final AtomicLong rollbacks = new AtomicLong(); // сколько резервов вернулось в ячейки
+    private final int[] capacities; // вместимость ячейки, индекс - ordinal номинала
+    private final int maxWithdrawalAmount; // максимум за одну операцию
+    private final int minBanknoteValue; // минимальный номинал
+    private final Supplier<Dispenser> dispensers;
+    private final AtomicReferenceArray<Planner> planners; // пул подборщиков, null - слот свободен
+    private final long journalSubject; // ключ банкомата в журнале
+    private volatile Journal journal; // журнал операций, null - без журнала
+
+    public ConcurrentATM(String id, int maxWithdrawalAmount) {
+        this(id, maxWithdrawalAmount, () -> new OptimalDispenser(maxWithdrawalAmount));
+    }
+
+    /**
+     * @param dispensers создает подборщик; экземпляр используется одним потоком за раз
+     */
+    public ConcurrentATM(String id, int maxWithdrawalAmount, Supplier<Dispenser> dispensers) {
+        this.id = id;
+        this.journalSubject = id != null ? Journal.subject(id) : 0;
+        this.capacities = ATM.defaultCapacities();
+        this.maxWithdrawalAmount = maxWithdrawalAmount;
+        this.minBanknoteValue = Banknote.RUB_50.getValue();
+        this.dispensers = Objects.requireNonNull(dispensers);
+        this.planners = new AtomicReferenceArray<>(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    // --- Основные методы ---
+
+    /**
+     * Внести наличные
+     * @param banknotes мапа: номинал -> количество
+     * @return мапа принятых банкнот (номинал -> количество)
+     */
+    public Map<Banknote, Integer> deposit(Map<Banknote, Integer> banknotes) {
+        return ATM.depositEach(banknotes, (banknote, quantity) -> deposit(banknote, quantity));
+    }
+
+    /**
+     * Внести банкноты одного номинала
+     * @return фактически добавленное количество
+     * @throws CassetteException если превышена вместимость ячейки
+     */
+    public int deposit(Banknote banknote, int quantity) {
+        return deposit(banknote, quantity, null);
+    }
+
+    /**
+     * Внести банкноты одного номинала и в той же операции зачислить их на счет.
+     * Запись счета идет в журнал банкомата - у пользователя должен быть тот же журнал.
+     * Вызывать под блокировкой счета.
+     * @param user чей счет пополнить; null - без операции со счетом
+     * @return фактически добавленное количество
+     * @throws CassetteException если превышена вместимость ячейки
+     */
+    public int deposit(Banknote banknote, int quantity, User user) {
+        if (quantity < 0) {
+            throw new InvalidAmountException("Количество не может быть отрицательным");
+        }
+        long credit = user != null ? user.prepareDeposit(quantity * banknote.getValue()) : 0;
+
+        int index = banknote.ordinal();
+        long delta = BanknoteCounts.with(BanknoteCounts.EMPTY, index, quantity);
+        long current;
+        do {
+            current = stored.get();
+            ATM.checkCassetteSpace(quantity, capacities[index] - BanknoteCounts.count(current, index));
+        } while (!stored.compareAndSet(current, current + delta));
+
+        if (quantity > 0) {
+            try {
+                commit(journal, RecordType.ATM_DEPOSIT, delta, user, RecordType.USER_DEPOSIT, credit);
+            } catch (RuntimeException e) {
+                stored.addAndGet(-delta);
+                throw e;
+            }
+        }
+        // Банкноты можно выдавать только после надежной записи внесения
+        notes.addAndGet(delta);
+        return quantity;
+    }
+
+    /**
+     * Снять наличные минимальным числом банкнот
+     * @param amount запрашиваемая сумма в рублях
+     * @return результат операции
+     */
+    public WithdrawalResult withdraw(int amount) {
+        return withdraw(amount, null);
+    }
+
+    /**
+     * Снять наличные минимальным числом банкнот и в той же операции списать их со счета.
+     * Счет и дневной лимит проверяются до подбора; списание - только при успешной выдаче.
+     * Запись счета идет в журнал банкомата - у пользователя должен быть тот же журнал.
+     * Вызывать под блокировкой счета.
+     * @param user с чьего счета списать; null - без операции со счетом
+     * @return результат операции
+     */
+    public WithdrawalResult withdraw(int amount, User user) {
+        ATM.checkWithdrawalAmount(amount, minBanknoteValue, maxWithdrawalAmount);
+        long debit = user != null ? user.prepareWithdraw(amount) : 0;
+
+        Journal current = journal;
+        Planner planner = acquirePlanner();
+        try {
+            while (true) {
+                // Порядок чтения важен: версия, ячейки, резервы, снова версия (см. failureIsFinal)
+                long version = rollbacks.get();
+                long state = notes.get();
+                long plan = amount <= BanknoteCounts.amount(state) ? plan(planner, amount, state) : Dispenser.NO_PLAN;
+                if (plan == Dispenser.NO_PLAN) {
+                    if (!failureIsFinal(planner, amount, state, version)) {
+                        // Сумма может найтись в резервах других сессий - ждем их исхода
+                        Thread.yield();
+                        continue;
+                    }
+                    if (amount > BanknoteCounts.amount(state)) {
+                        throw new InsufficientFundsException("В банкомате недостаточно средств");
+                    }
+                    return new WithdrawalResult(amount,
+                            "Невозможно выдать запрошенную сумму имеющимися банкнотами");
+                }
+                if (current == null && user == null) {
+                    if (notes.compareAndSet(state, state - plan)) {
+                        stored.addAndGet(-plan);
+                        return new WithdrawalResult(amount, plan);
+                    }
+                } else if (reserve(state, plan)) {
+                    try {
+                        commit(current, RecordType.ATM_WITHDRAW, plan, user, RecordType.USER_WITHDRAW, debit);
+                    } catch (RuntimeException e) {
+                        cancelReserve(plan);
+                        throw e;
+                    }
+                    reserved.addAndGet(-plan);
+                    stored.addAndGet(-plan);
+                    return new WithdrawalResult(amount, plan);
+                }
+                // Другая сессия успела изменить ячейки - пересчитываем по новому снимку
+                Thread.onSpinWait();
+            }
+        } finally {
+            releasePlanner(planner);
+        }
+    }
+
+    /**
+     * Снять банкноты плана из ячеек, если в них ничего не менялось с чтения state.
+     * Резерв учитывается в reserved раньше, чем банкноты уходят из ячеек.
+     */
+    private boolean reserve(long state, long plan) {
+        reserved.addAndGet(plan);
+        if (notes.compareAndSet(state, state - plan)) {
+            return true;
+        }
+        reserved.addAndGet(-plan);
+        return false;
+    }
+
+    /**
+     * Вернуть резерв в ячейки: сначала банкноты, потом версия, потом reserved (см. failureIsFinal)
+     */
+    private void cancelReserve(long plan) {
+        notes.addAndGet(plan);
+        rollbacks.incrementAndGet();
+        reserved.addAndGet(-plan);
+    }
+
+    /**
+     * Записать операцию банкомата и операцию счета, проверенную заранее, и применить операцию счета.
+     * С журналом банкомата обе записи - одна операция журнала; без него операция счета пишется
+     * в журнал пользователя, если он есть. Если запись не удалась, счет не меняется.
+     * @param user null - только операция банкомата
+     */
+    private void commit(Journal current, RecordType type, long counts,
+                        User user, RecordType userType, long userPayload) {
+        if (current == null) {
+            if (user != null) {
+                user.commit(userType, userPayload);
+            }
+        } else if (user == null) {
+            current.append(type, journalSubject, counts);
+        } else {
+            current.append(type, journalSubject, counts, userType, user.getJournalSubject(), userPayload);
+            user.apply(userType, userPayload);
+        }
+    }
+
+    /**
+     * Отказ по снимку state окончателен, если сумму не набрать и с резервами других сессий
+     * и пока читались слова, ни один резерв не вернулся в ячейки.
+     * <p>
+     * Резерв сначала попадает в reserved, потом уходит из ячеек; откат возвращает банкноты
+     * в ячейки, увеличивает rollbacks и только потом снимается с reserved. Поэтому резерв,
+     * взятый до чтения state и потом откатившийся, виден либо в state, либо в reserved,
+     * прочитанном после state, либо по изменению rollbacks.
+     */
+    private boolean failureIsFinal(Planner planner, int amount, long state, long version) {
+        long pending = reserved.get();
+        if (rollbacks.get() != version) {
+            return false;
+        }
+        if (pending == BanknoteCounts.EMPTY) {
+            return true;
+        }
+        // Сумма слов не переполняет 9 бит: резервы еще занимают место, вместе не больше stored
+        long ceiling = state + pending;
+        return amount > BanknoteCounts.amount(ceiling) || plan(planner, amount, ceiling) == Dispenser.NO_PLAN;
+    }
+
+    private long plan(Planner planner, int amount, long state) {
+        for (int i = 0; i < BANKNOTES.length; i++) {
+            planner.snapshot[i] = BanknoteCounts.count(state, i);
+        }
+        return planner.dispenser.plan(amount, planner.snapshot);
+    }
+
+    // --- Журнал ---
+
+    /**
+     * Записывать внесения и выдачи в журнал до подтверждения операции
+     * @param journal журнал или null, чтобы больше не писать
+     */
+    public void attachJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Восстановить ячейки по журналу: применить все записи этого банкомата.
+     * Вызывать на старте, до операций и до {@link #attachJournal}.
+     * @return сколько записей применено
+     */
+    public long recover(Journal journal) {
+        return recover(journal, null);
+    }
+
+    /**
+     * Восстановить ячейки по снимку и хвосту журнала после него
+     * @param snapshot последний снимок или null - весь журнал; если банкомата в снимке нет
+     *                 (например, он появился позже), тоже весь журнал
+     * @return сколько записей журнала применено
+     */
+    public long recover(Journal journal, StateSnapshot snapshot) {
+        long after = 0;
+        if (snapshot != null && restore(snapshot)) {
+            after = snapshot.getSequence();
+        }
+        long[] applied = new long[1];
+        journal.replay(after, (sequence, type, subject, payload) -> {
+            if (subject != journalSubject
+                    || (type != RecordType.ATM_DEPOSIT && type != RecordType.ATM_WITHDRAW)) {
+                return;
+            }
+            long delta = type == RecordType.ATM_DEPOSIT ? payload : -payload;
+            notes.addAndGet(delta);
+            stored.addAndGet(delta);
+            applied[0]++;
+        });
+        return applied[0];
+    }
+
+    /**
+     * Взять количества в ячейках из снимка. Вызывать на старте, без параллельных операций.
+     * @return false, если банкомата в снимке нет (ячейки не меняются)
+     */
+    public boolean restore(StateSnapshot snapshot) {
+        int index = snapshot.findAtm(id);
+        if (index == StateSnapshot.NOT_FOUND) {
+            return false;
+        }
+        long state = BanknoteCounts.EMPTY;
+        for (Banknote banknote : BANKNOTES) {
+            state = BanknoteCounts.with(state, banknote, snapshot.getAtmCount(index, banknote));
+        }
+        notes.set(state);
+        stored.set(state);
+        return true;
+    }
+
+    private Planner acquirePlanner() {
+        for (int i = 0; i < planners.length(); i++) {
+            Planner planner = planners.getPlain(i);
+            if (planner != null && planners.compareAndSet(i, planner, null)) {
+                return planner;
+            }
+        }
+        return new Planner(dispensers.get());
+    }
+
+    private void releasePlanner(Planner planner) {
+        for (int i = 0; i < planners.length(); i++) {
+            if (planners.getPlain(i) == null && planners.compareAndSet(i, null, planner)) {
+                return;
+            }
+        }
+        // Пул полон - лишний подборщик достанется сборщику мусора
+    }
+
+    // --- Геттеры ---
+
+    /**
+     * Общий баланс банкомата, без блокировок
+     */
+    public long getBalance() {
+        return BanknoteCounts.amount(notes.get());
+    }
+
+    /**
+     * Сколько банкнот номинала в ячейке
+     */
+    public int getCount(Banknote banknote) {
+        return BanknoteCounts.count(notes.get(), banknote);
+    }
+
+    /**
+     * Количества во всех ячейках одним согласованным снимком, упакованные {@link BanknoteCounts}
+     */
+    public long getCounts() {
+        return notes.get();
+    }
+
+    /**
+     * Вместимость ячейки номинала
+     */
+    public int getCapacity(Banknote banknote) {
+        return capacities[banknote.ordinal()];
+    }
+
+    /**
+     * Получить доступные банкноты (номинал -> количество), от крупных к мелким.
+     */
+    public Map<Banknote, Integer> getAvailableBanknotes() {
+        long state = notes.get();
+        Map<Banknote, Integer> available = new LinkedHashMap<>();
+        for (int i = BANKNOTES.length - 1; i >= 0; i--) {
+            int count = BanknoteCounts.count(state, i);
+            if (count > 0) {
+                available.put(BANKNOTES[i], count);
+            }
+        }
+        return available;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getMaxWithdrawalAmount() {
+        return maxWithdrawalAmount;
+    }
+
+    public int getMinBanknoteValue() {
+        return minBanknoteValue;
+    }
+
+    /**
+     * Подборщик и его буфер для снимка количеств
+     */
+    private static final class Planner {
+        final Dispenser dispenser;
+        final int[] snapshot = new int[BANKNOTES.length];
+
+        Planner(Dispenser dispenser) {
+            this.dispenser = Objects.requireNonNull(dispenser);
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.group.avenue.middle.atm.project;
 
 import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.journal.Journal;
 import com.group.avenue.middle.atm.project.model.Banknote;
 import com.group.avenue.middle.atm.project.model.User;
 import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import com.group.avenue.middle.atm.project.server.AccountTable;
+import com.group.avenue.middle.atm.project.server.SessionServer;
+import com.group.avenue.middle.atm.project.server.UserRegistry;
+import com.group.avenue.middle.atm.project.snapshot.SnapshotStore;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -18,9 +26,24 @@ import java.util.*;
  * Класс для запуска программы
  */
 public class Main {
+    private static final int DEFAULT_SERVER_PORT = 7070;
+    private static final int DEFAULT_SERVER_USERS = 1_000;
+    private static final long SERVER_REPORT_MILLIS = 10_000;
+    // Журналы операций; путь можно переопределить: -Datm.journal=... / -Datm.server.journal=...
+    private static final String CONSOLE_JOURNAL = "atm.journal";
+    private static final String SERVER_JOURNAL = "atm-server.journal";
+    // Каталоги снимков: -Datm.snapshots=... / -Datm.server.snapshots=...
+    private static final String CONSOLE_SNAPSHOTS = "atm-snapshots";
+    private static final String SERVER_SNAPSHOTS = "atm-server-snapshots";
+    // Новый снимок консоли, когда журнал ушел вперед на столько записей, и при выходе
+    private static final long SNAPSHOT_RECORDS = 100;
+
     private static final Scanner scanner;
     private static ATM atm;
     private static User currentUser;
+    private static Journal journal;
+    private static SnapshotStore snapshots;
+    private static long snapshotSequence;
     private static volatile boolean running = true;
 
     // Статический блок инициализации для правильной кодировки
@@ -41,6 +64,18 @@ public class Main {
     }
 
     public static void main(String[] args) {
+        // Режим сервера сессий: java -jar app.jar --server [порт] [число демо-карт]
+        if (args.length > 0 && "--server".equals(args[0])) {
+            try {
+                runServer(args);
+            } catch (IOException e) {
+                System.out.println("Не удалось запустить сервер: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
         try {
             System.out.println("=== Инициализация банкомата ===");
             System.out.println("Кодировка системы: " + Charset.defaultCharset().displayName());
@@ -49,12 +84,23 @@ public class Main {
             // Создаем банкомат
             atm = new ATM("ATM-001", 100_000); // лимит 100,000 руб за операцию
 
-            // Загружаем начальные деньги в банкомат
-            initializeATMWithMoney();
-
             // Создаем тестового пользователя
             currentUser = new User("Иван Иванов", "1234-5678-9012-3456", 50_000, 50_000);
 
+            // Восстанавливаем состояние по снимку и хвосту журнала, дальше все операции пишутся в журнал
+            journal = new Journal(journalPath("atm.journal", CONSOLE_JOURNAL));
+            snapshots = new SnapshotStore(journalPath("atm.snapshots", CONSOLE_SNAPSHOTS));
+            boolean fresh = Recovery.isFresh(journal);
+            long applied = Recovery.recover(journal, snapshots, atm, currentUser);
+            snapshotSequence = journal.getDurableSequence();
+            if (fresh) {
+                // Загружаем начальные деньги в банкомат
+                initializeATMWithMoney();
+            } else {
+                System.out.println("Состояние восстановлено по снимку и журналу " + journal.getPath()
+                        + ", записей после снимка: " + applied);
+            }
+
             System.out.println("Банкомат инициализирован. Общий баланс: " + atm.getBalance() + " руб.");
             System.out.println("Текущий пользователь: " + currentUser.getName());
             System.out.println("Баланс пользователя: " + currentUser.getBalance() + " руб.");
@@ -79,6 +125,9 @@ public class Main {
                     case 0 -> exit();
                     default -> System.out.println("Неверный выбор. Попробуйте снова.");
                 }
+                if (journal.getDurableSequence() - snapshotSequence >= SNAPSHOT_RECORDS) {
+                    checkpoint();
+                }
 
                 System.out.println();
             }
@@ -101,14 +150,113 @@ public class Main {
                     // Игнорируем ошибки при закрытии
                 }
             }
+            if (journal != null) {
+                if (journal.getDurableSequence() != snapshotSequence) {
+                    checkpoint();
+                }
+                try {
+                    journal.close();
+                } catch (Exception e) {
+                    System.out.println("Ошибка при закрытии журнала: " + e.getMessage());
+                }
+            }
             System.out.println("\n=== Банкомат выключен ===");
             System.out.println("Спасибо за использование!");
         }
     }
 
-    private static void initializeATMWithMoney() {
-        // Инициализируем банкомат начальными деньгами
-        Map<Banknote, Integer> initialMoney = Map.of(
+    /**
+     * Сервер сессий: один банкомат на все терминалы, задержки раз в 10 секунд и при остановке.
+     * Состояние банкомата и карт восстанавливается по журналу до приема соединений.
+     */
+    private static void runServer(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SERVER_PORT;
+        int demoUsers = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SERVER_USERS;
+
+        var sharedAtm = new ConcurrentATM("ATM-001", 100_000);
+        var users = new UserRegistry();
+        users.register(new User("Иван Иванов", "1234-5678-9012-3456", 50_000, 50_000));
+        users.registerDemoUsers(demoUsers, 1_000_000, 100_000);
+
+        var serverJournal = new Journal(journalPath("atm.server.journal", SERVER_JOURNAL));
+        var serverSnapshots = new SnapshotStore(journalPath("atm.server.snapshots", SERVER_SNAPSHOTS));
+        boolean fresh = Recovery.isFresh(serverJournal);
+        long applied = Recovery.recover(serverJournal, serverSnapshots, sharedAtm, users);
+        long[] snapshotAt = {serverJournal.getDurableSequence()};
+        var snapshotAccounts = new AccountTable();
+        if (fresh) {
+            sharedAtm.deposit(initialMoney());
+        }
+
+        var server = new SessionServer(sharedAtm, users);
+        int actualPort = server.start(new InetSocketAddress(port));
+        System.out.println("=== Сервер сессий банкомата ===");
+        System.out.println("Порт: " + actualPort + ", карт: " + users.size()
+                + " (демо: " + UserRegistry.demoCardNumber(1) + " ... " + UserRegistry.demoCardNumber(demoUsers) + ")");
+        System.out.println("Баланс банкомата: " + sharedAtm.getBalance() + " руб.");
+        System.out.println("Журнал: " + serverJournal.getPath()
+                + (fresh ? " (новый)" : ", восстановлено записей: " + applied)
+                + ", снимки: " + serverSnapshots.getDirectory());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // сервер уже закрыт
+            }
+            serverCheckpoint(serverJournal, serverSnapshots, sharedAtm, users, snapshotAt, snapshotAccounts);
+            serverJournal.close();
+            System.out.println("Сервер остановлен. Запросов: " + server.getRequests()
+                    + ", задержки: " + server.getLatency());
+        }));
+
+        while (true) {
+            Thread.sleep(SERVER_REPORT_MILLIS);
+            System.out.println("Сессий: " + server.getActiveSessions()
+                    + ", запросов: " + server.getRequests()
+                    + ", задержки: " + server.getLatency());
+            serverCheckpoint(serverJournal, serverSnapshots, sharedAtm, users, snapshotAt, snapshotAccounts);
+        }
+    }
+
+    /**
+     * Снимок сервера, если журнал ушел вперед с прошлого; ошибка снимка не останавливает сервер.
+     * Цикл и хук остановки делают снимки по очереди: копия счетов у них общая.
+     */
+    private static synchronized void serverCheckpoint(Journal serverJournal, SnapshotStore serverSnapshots,
+                                                      ConcurrentATM sharedAtm, UserRegistry users, long[] snapshotAt,
+                                                      AccountTable accounts) {
+        long sequence = serverJournal.getDurableSequence();
+        if (sequence == snapshotAt[0]) {
+            return;
+        }
+        try {
+            Recovery.checkpoint(serverJournal, serverSnapshots, sharedAtm, users, accounts);
+            snapshotAt[0] = sequence;
+        } catch (RuntimeException e) {
+            System.out.println("Не удалось записать снимок: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Снимок консоли между операциями: дальше старт применит только записи после него.
+     * Ошибка снимка не мешает работе, состояние по-прежнему восстановится по журналу.
+     */
+    private static void checkpoint() {
+        try {
+            Recovery.checkpoint(journal, snapshots, atm, currentUser);
+            snapshotSequence = journal.getDurableSequence();
+        } catch (RuntimeException e) {
+            System.out.println("Не удалось записать снимок: " + e.getMessage());
+        }
+    }
+
+    private static Path journalPath(String property, String defaultFile) {
+        return Path.of(System.getProperty(property, defaultFile));
+    }
+
+    private static Map<Banknote, Integer> initialMoney() {
+        return Map.of(
                 Banknote.RUB_50, 20,
                 Banknote.RUB_100, 30,
                 Banknote.RUB_200, 25,
@@ -117,7 +265,11 @@ public class Main {
                 Banknote.RUB_2000, 15,
                 Banknote.RUB_5000, 8
         );
+    }
 
+    private static void initializeATMWithMoney() {
+        // Инициализируем банкомат начальными деньгами
+        Map<Banknote, Integer> initialMoney = initialMoney();
         atm.deposit(initialMoney);
         System.out.println("Загружены начальные средства:");
         for (Map.Entry<Banknote, Integer> entry : initialMoney.entrySet()) {
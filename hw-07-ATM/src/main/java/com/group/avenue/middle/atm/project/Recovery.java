@@ -0,0 +1,126 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.User;
+import com.group.avenue.middle.atm.project.server.AccountTable;
+import com.group.avenue.middle.atm.project.server.UserRegistry;
+import com.group.avenue.middle.atm.project.snapshot.SnapshotStore;
+import com.group.avenue.middle.atm.project.snapshot.SnapshotWriter;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
+
+import java.nio.file.Path;
+
+/**
+ * Старт с журналом: состояние восстанавливается по журналу, и только потом журнал
+ * подключается к банкомату и пользователям, чтобы новые операции писались в него же.
+ * Объекты должны быть созданы с теми же параметрами, что и в прошлый запуск:
+ * журнал хранит изменения, а не начальные балансы.
+ * <p>
+ * Со снимками старт читает последний целый снимок и применяет только хвост журнала после него;
+ * {@link #checkpoint} периодически пишет новый снимок по последней записи журнала.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public final class Recovery {
+
+    private Recovery() {
+    }
+
+    /**
+     * Консольный режим: один банкомат и один пользователь
+     * @return сколько записей журнала применено
+     */
+    public static long recover(Journal journal, ATM atm, User user) {
+        return recover(journal, null, atm, user);
+    }
+
+    /**
+     * Консольный режим со снимками: последний снимок из snapshots и хвост журнала после него
+     * @param snapshots каталог снимков или null - весь журнал
+     * @return сколько записей журнала применено
+     */
+    public static long recover(Journal journal, SnapshotStore snapshots, ATM atm, User user) {
+        long applied;
+        try (StateSnapshot snapshot = snapshots != null ? snapshots.latest() : null) {
+            applied = atm.recover(journal, snapshot) + user.recover(journal, snapshot);
+        }
+        atm.attachJournal(journal);
+        user.attachJournal(journal);
+        return applied;
+    }
+
+    /**
+     * Режим сервера: общий банкомат и все зарегистрированные карты
+     * @return сколько записей журнала применено
+     */
+    public static long recover(Journal journal, ConcurrentATM atm, UserRegistry users) {
+        return recover(journal, null, atm, users);
+    }
+
+    /**
+     * Режим сервера со снимками: последний снимок из snapshots и хвост журнала после него
+     * @param snapshots каталог снимков или null - весь журнал
+     * @return сколько записей журнала применено
+     */
+    public static long recover(Journal journal, SnapshotStore snapshots, ConcurrentATM atm, UserRegistry users) {
+        long applied;
+        try (StateSnapshot snapshot = snapshots != null ? snapshots.latest() : null) {
+            applied = atm.recover(journal, snapshot) + users.recover(journal, snapshot);
+        }
+        atm.attachJournal(journal);
+        users.forEachUser(user -> user.attachJournal(journal));
+        return applied;
+    }
+
+    /**
+     * Снимок консольного режима. Вызывать между операциями: консоль однопоточная,
+     * поэтому состояние ровно соответствует последней записи журнала.
+     * @return путь к снимку
+     */
+    public static Path checkpoint(Journal journal, SnapshotStore snapshots, ATM atm, User user) {
+        try (SnapshotWriter writer = snapshots.begin(journal.getDurableSequence(), 1, 1)) {
+            return writer.addAtm(atm).addUser(user).commit();
+        }
+    }
+
+    /**
+     * Снимок режима сервера под нагрузкой, см. {@link #checkpoint(Journal, SnapshotStore, ConcurrentATM, UserRegistry, AccountTable)}
+     * @return путь к снимку
+     */
+    public static Path checkpoint(Journal journal, SnapshotStore snapshots, ConcurrentATM atm, UserRegistry users) {
+        return checkpoint(journal, snapshots, atm, users, new AccountTable());
+    }
+
+    /**
+     * Снимок режима сервера под нагрузкой. Каждая операция Teller идет под блокировкой карты,
+     * поэтому в паузе {@link UserRegistry#copyTo} ни одна операция не начата и не дописана
+     * наполовину: последняя запись журнала, ячейки и счета согласованы. В паузе они только
+     * копируются; файл, контрольные суммы, force и переименование - уже без блокировок.
+     * @param table копия счетов, переиспользуется между снимками; один снимок за раз
+     * @return путь к снимку
+     */
+    public static Path checkpoint(Journal journal, SnapshotStore snapshots, ConcurrentATM atm,
+                                  UserRegistry users, AccountTable table) {
+        long[] copied = new long[2]; // последняя запись журнала и ячейки банкомата
+        users.copyTo(table, () -> {
+            copied[0] = journal.getDurableSequence();
+            copied[1] = atm.getCounts();
+        });
+        try (SnapshotWriter writer = snapshots.begin(copied[0], 1, table.size())) {
+            writer.addAtm(atm.getId(), copied[1]);
+            for (int i = 0; i < table.size(); i++) {
+                writer.addUser(table.getSubject(i), table.getBalance(i),
+                        table.getDailyLimit(i), table.getWithdrawnToday(i));
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * Журнал новый: ни одной записи, начальную загрузку банкомата нужно сделать (и записать)
+     */
+    public static boolean isFresh(Journal journal) {
+        return journal.getDurableSequence() == 0;
+    }
+}
@@ -0,0 +1,538 @@
+package com.group.avenue.middle.atm.project.account;
+
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.exception.UnknownCardException;
+import com.group.avenue.middle.atm.project.limit.DayClock;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Счета по номеру карты для десятков миллионов карт: без объекта на счет.
+ * <p>
+ * Номер карты хранится числом ({@link #cardKey(CharSequence)}), баланс, дневной лимит и снятое
+ * за день - колонками int, день снятого - колонкой short. Все это лежит вне кучи, в одном
+ * {@link MemorySegment} на шард: хеш-таблица с открытой адресацией и линейным пробированием,
+ * где номер слота - это и номер строки в колонках. 22 байта на слот при заполнении от 0,57
+ * до 0,8 - от 28 до 39 байт на счет ({@link #getFootprintBytes()}), и сборщик мусора эту память
+ * не обходит. Емкость таблицы - не степень двойки (слот - старшие биты произведения хеша
+ * на емкость), поэтому таблица растет в 1,4 раза, а не вдвое.
+ * <p>
+ * Дневной лимит сбрасывается лениво: рядом со снятым хранится номер дня ({@link DayClock}),
+ * и если он не сегодняшний, снятое считается нулем, а первое снятие в новый день
+ * перезаписывает и сумму, и день. Обхода всех счетов в полночь нет. В колонке - младшие
+ * 16 бит номера дня: совпасть со старым они могут, только если счет не трогали 179 лет.
+ * <p>
+ * Карты распределены по шардам по хешу, у каждого шарда своя {@link StampedLock}:
+ * чтение идет без блокировки (оптимистично, с проверкой штампа), изменения разных шардов
+ * не мешают друг другу. Старая таблица после роста освобождается сборщиком мусора
+ * ({@link Arena#ofAuto()}), поэтому оптимистичное чтение никогда не читает освобожденную память.
+ * Удаления счетов нет. Потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class AccountRegistry {
+    private static final int MAX_CARD_DIGITS = 18; // 10^18 - 1 помещается в long с запасом под флаг
+    private static final long OCCUPIED = Long.MIN_VALUE; // флаг занятого слота в колонке ключей
+    private static final double MAX_LOAD = 0.8;
+    private static final double GROWTH = 1.4;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_SHARDS = 1 << 10;
+    private static final int SHARD_SHIFT = 40; // биты хеша для шарда, младшие 32 - для слота
+
+    // Колонки int после колонки ключей
+    private static final int BALANCE = 0;
+    private static final int DAILY_LIMIT = 1;
+    private static final int WITHDRAWN_TODAY = 2;
+
+    /**
+     * Байт на слот: ключ long, три колонки int и день снятого short
+     */
+    public static final int SLOT_BYTES = Long.BYTES + 3 * Integer.BYTES + Short.BYTES;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final DayClock days;
+
+    /**
+     * @param expectedAccounts сколько счетов ожидается: таблицы сразу создаются под них
+     */
+    public AccountRegistry(long expectedAccounts) {
+        this(expectedAccounts, defaultShards());
+    }
+
+    /**
+     * @param shardCount число шардов, степень двойки
+     */
+    public AccountRegistry(long expectedAccounts, int shardCount) {
+        this(expectedAccounts, shardCount, DayClock.system());
+    }
+
+    /**
+     * @param days часы, по которым сменяется день дневного лимита
+     */
+    public AccountRegistry(long expectedAccounts, int shardCount, DayClock days) {
+        if (expectedAccounts < 0) {
+            throw new IllegalArgumentException("Ожидаемое число счетов не может быть отрицательным");
+        }
+        if (shardCount <= 0 || shardCount > MAX_SHARDS || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Число шардов - степень двойки от 1 до " + MAX_SHARDS);
+        }
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        this.days = days;
+        // С запасом на неравномерное распределение карт по шардам
+        long perShard = (long) Math.ceil(expectedAccounts * 1.05 / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(capacityFor(perShard));
+        }
+    }
+
+    private static int defaultShards() {
+        int wanted = Runtime.getRuntime().availableProcessors() * 4;
+        return Math.min(MAX_SHARDS, Integer.highestOneBit(wanted - 1) << 1);
+    }
+
+    private static int capacityFor(long accounts) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(accounts / MAX_LOAD) + 1);
+        if (capacity > Integer.MAX_VALUE / SLOT_BYTES) {
+            throw new IllegalArgumentException("Слишком много счетов на шард: " + accounts);
+        }
+        return (int) capacity;
+    }
+
+    // --- Номер карты ---
+
+    /**
+     * Номер карты как число: цифры без разделителей ('-' и пробелов),
+     * "0000-0000-0000-0001" - 1
+     * @throws IllegalArgumentException если в номере не цифры или цифр больше 18
+     */
+    public static long cardKey(CharSequence cardNumber) {
+        long key = 0;
+        int digits = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_CARD_DIGITS) {
+                    throw new IllegalArgumentException("Слишком длинный номер карты: " + cardNumber);
+                }
+                key = key * 10 + (c - '0');
+            } else if (c != '-' && c != ' ') {
+                throw new IllegalArgumentException("Недопустимый символ в номере карты: " + cardNumber);
+            }
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Пустой номер карты");
+        }
+        return key;
+    }
+
+    /**
+     * Номер карты по числу: 16 цифр группами по четыре, длиннее - без разделителей
+     */
+    public static String cardNumber(long cardKey) {
+        if (cardKey < 10_000_000_000_000_000L) {
+            return String.format("%04d-%04d-%04d-%04d", cardKey / 1_000_000_000_000L,
+                    cardKey / 100_000_000 % 10_000, cardKey / 10_000 % 10_000, cardKey % 10_000);
+        }
+        return Long.toString(cardKey);
+    }
+
+    // --- Изменение счетов ---
+
+    /**
+     * Открыть счет
+     * @throws IllegalArgumentException если карта уже зарегистрирована или баланс и лимит некорректны
+     */
+    public void register(long cardKey, int initialBalance, int dailyLimit) {
+        if (initialBalance < 0) {
+            throw new IllegalArgumentException("Баланс не может быть отрицательным");
+        }
+        if (dailyLimit <= 0) {
+            throw new IllegalArgumentException("Лимит должен быть положительным");
+        }
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        long stamp = shard.lock.writeLock();
+        try {
+            short today = (short) days.today();
+            int slot = shard.table.find(cardKey | OCCUPIED, hash);
+            if (slot >= 0) {
+                throw new IllegalArgumentException("Карта " + cardNumber(cardKey) + " уже зарегистрирована");
+            }
+            if (shard.size >= shard.growAt) {
+                shard.grow();
+                slot = shard.table.find(cardKey | OCCUPIED, hash);
+            }
+            Table table = shard.table;
+            slot = -1 - slot;
+            table.setInt(BALANCE, slot, initialBalance);
+            table.setInt(DAILY_LIMIT, slot, dailyLimit);
+            table.setInt(WITHDRAWN_TODAY, slot, 0);
+            table.setDay(slot, today);
+            table.setKey(slot, cardKey | OCCUPIED);
+            shard.size++;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Пополнить счет
+     * @return новый баланс
+     */
+    public int deposit(long cardKey, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Сумма пополнения должна быть положительной");
+        }
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        long stamp = shard.lock.writeLock();
+        try {
+            Table table = shard.table;
+            int slot = existing(table, cardKey, hash);
+            int balance = table.getInt(BALANCE, slot) + amount;
+            table.setInt(BALANCE, slot, balance);
+            return balance;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Снять со счета с учетом баланса и дневного лимита; проверка и списание - одна операция.
+     * Первое снятие в новый день начинает лимит заново.
+     * @return новый баланс
+     */
+    public int withdraw(long cardKey, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Сумма снятия должна быть положительной");
+        }
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        long stamp = shard.lock.writeLock();
+        try {
+            // День - под блокировкой: иначе снятие, прочитавшее день до полуночи и ждавшее
+            // блокировку, записало бы вчерашний день поверх сегодняшнего снятия и обнулило его
+            short today = (short) days.today();
+            Table table = shard.table;
+            int slot = existing(table, cardKey, hash);
+            int balance = table.getInt(BALANCE, slot);
+            int withdrawnToday = withdrawnToday(table, slot, today);
+            if (amount > balance) {
+                throw new InsufficientFundsException("Недостаточно средств на счете");
+            }
+            if (withdrawnToday + amount > table.getInt(DAILY_LIMIT, slot)) {
+                throw new InvalidAmountException("Превышен дневной лимит снятия");
+            }
+            table.setInt(BALANCE, slot, balance - amount);
+            table.setInt(WITHDRAWN_TODAY, slot, withdrawnToday + amount);
+            table.setDay(slot, today);
+            return balance - amount;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Обнулить снятое за день вручную; в новый день лимит сбрасывается сам
+     */
+    public void resetDailyLimit(long cardKey) {
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        long stamp = shard.lock.writeLock();
+        try {
+            Table table = shard.table;
+            table.setInt(WITHDRAWN_TODAY, existing(table, cardKey, hash), 0);
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- Чтение ---
+
+    public boolean contains(long cardKey) {
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        long stamp = shard.lock.tryOptimisticRead();
+        boolean found = shard.table.find(cardKey | OCCUPIED, hash) >= 0;
+        if (!shard.lock.validate(stamp)) {
+            stamp = shard.lock.readLock();
+            try {
+                found = shard.table.find(cardKey | OCCUPIED, hash) >= 0;
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    public int getBalance(long cardKey) {
+        return read(cardKey, BALANCE);
+    }
+
+    public int getDailyLimit(long cardKey) {
+        return read(cardKey, DAILY_LIMIT);
+    }
+
+    /**
+     * Снято сегодня: 0, если последнее снятие было в другой день
+     */
+    public int getWithdrawnToday(long cardKey) {
+        return read(cardKey, WITHDRAWN_TODAY);
+    }
+
+    /**
+     * Сколько еще можно снять сегодня. Лимит и снятое читаются согласованно.
+     */
+    public int getAvailableToday(long cardKey) {
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        long stamp = shard.lock.tryOptimisticRead();
+        short today = (short) days.today();
+        Table table = shard.table;
+        int slot = table.find(cardKey | OCCUPIED, hash);
+        int available = slot >= 0 ? table.getInt(DAILY_LIMIT, slot) - withdrawnToday(table, slot, today) : 0;
+        if (!shard.lock.validate(stamp)) {
+            stamp = shard.lock.readLock();
+            try {
+                today = (short) days.today();
+                table = shard.table;
+                slot = table.find(cardKey | OCCUPIED, hash);
+                available = slot >= 0 ? table.getInt(DAILY_LIMIT, slot) - withdrawnToday(table, slot, today) : 0;
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        if (slot < 0) {
+            throw unknownCard(cardKey);
+        }
+        return available;
+    }
+
+    private int read(long cardKey, int column) {
+        long hash = hash(cardKey);
+        Shard shard = shard(hash);
+        // Без блокировки: если за время чтения шард менялся, штамп не пройдет проверку.
+        // День - после штампа, как в withdraw: снятие в новый день после него штамп сбросит
+        long stamp = shard.lock.tryOptimisticRead();
+        short today = column == WITHDRAWN_TODAY ? (short) days.today() : 0;
+        Table table = shard.table;
+        int slot = table.find(cardKey | OCCUPIED, hash);
+        int value = slot >= 0 ? value(table, column, slot, today) : 0;
+        if (!shard.lock.validate(stamp)) {
+            stamp = shard.lock.readLock();
+            try {
+                today = column == WITHDRAWN_TODAY ? (short) days.today() : 0;
+                table = shard.table;
+                slot = table.find(cardKey | OCCUPIED, hash);
+                value = slot >= 0 ? value(table, column, slot, today) : 0;
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        if (slot < 0) {
+            throw unknownCard(cardKey);
+        }
+        return value;
+    }
+
+    private static int value(Table table, int column, int slot, short today) {
+        return column == WITHDRAWN_TODAY ? withdrawnToday(table, slot, today) : table.getInt(column, slot);
+    }
+
+    // Снятое относится к другому дню - значит, сегодня еще ничего не снято
+    private static int withdrawnToday(Table table, int slot, short today) {
+        return table.getDay(slot) == today ? table.getInt(WITHDRAWN_TODAY, slot) : 0;
+    }
+
+    /**
+     * Обойти все счета (шард за шардом, каждый под блокировкой чтения),
+     * например чтобы записать снимок; снятое - на сегодня
+     */
+    public void forEach(AccountVisitor visitor) {
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                short today = (short) days.today();
+                Table table = shard.table;
+                for (int slot = 0; slot < table.capacity; slot++) {
+                    long key = table.getKey(slot);
+                    if (key != 0) {
+                        visitor.visit(key & ~OCCUPIED, table.getInt(BALANCE, slot),
+                                table.getInt(DAILY_LIMIT, slot), withdrawnToday(table, slot, today));
+                    }
+                }
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private static int existing(Table table, long cardKey, long hash) {
+        int slot = table.find(cardKey | OCCUPIED, hash);
+        if (slot < 0) {
+            throw unknownCard(cardKey);
+        }
+        return slot;
+    }
+
+    private static UnknownCardException unknownCard(long cardKey) {
+        return new UnknownCardException("Карта " + cardNumber(cardKey) + " не найдена");
+    }
+
+    private Shard shard(long hash) {
+        return shards[(int) (hash >>> SHARD_SHIFT) & shardMask];
+    }
+
+    // Финализатор MurmurHash3: номера карт идут подряд, их биты нужно перемешать
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    // --- Метрики ---
+
+    /**
+     * Число счетов
+     */
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                size += shard.size;
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Память вне кучи под таблицы всех шардов, байт
+     */
+    public long getFootprintBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                bytes += shard.table.data.byteSize();
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return bytes;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Шард: текущая таблица и ее заполнение; меняются только под блокировкой записи
+     */
+    private static final class Shard {
+        private final StampedLock lock = new StampedLock();
+        private Table table;
+        private int size;
+        private int growAt;
+
+        Shard(int capacity) {
+            this.table = new Table(capacity);
+            this.growAt = (int) (capacity * MAX_LOAD);
+        }
+
+        void grow() {
+            Table old = table;
+            Table grown = new Table((int) Math.min(Integer.MAX_VALUE / SLOT_BYTES, (long) (old.capacity * GROWTH)));
+            for (int slot = 0; slot < old.capacity; slot++) {
+                long key = old.getKey(slot);
+                if (key != 0) {
+                    int target = -1 - grown.find(key, hash(key & ~OCCUPIED));
+                    grown.setInt(BALANCE, target, old.getInt(BALANCE, slot));
+                    grown.setInt(DAILY_LIMIT, target, old.getInt(DAILY_LIMIT, slot));
+                    grown.setInt(WITHDRAWN_TODAY, target, old.getInt(WITHDRAWN_TODAY, slot));
+                    grown.setDay(target, old.getDay(slot));
+                    grown.setKey(target, key);
+                }
+            }
+            table = grown;
+            growAt = (int) (grown.capacity * MAX_LOAD);
+        }
+    }
+
+    /**
+     * Таблица шарда в одном сегменте: колонка ключей long, затем колонки int и колонка дней short
+     * по capacity значений. Не меняет размер: при росте создается новая.
+     */
+    private static final class Table {
+        private final MemorySegment data;
+        private final int capacity;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            this.data = Arena.ofAuto().allocate((long) capacity * SLOT_BYTES, Long.BYTES); // заполнен нулями
+        }
+
+        /**
+         * Слот ключа или, если ключа нет, -1 - слот, куда его вставить
+         */
+        int find(long storedKey, long hash) {
+            int slot = (int) (((hash & 0xFFFF_FFFFL) * capacity) >>> 32);
+            while (true) {
+                long key = getKey(slot);
+                if (key == storedKey) {
+                    return slot;
+                }
+                if (key == 0) {
+                    return -1 - slot;
+                }
+                if (++slot == capacity) {
+                    slot = 0;
+                }
+            }
+        }
+
+        long getKey(int slot) {
+            return data.getAtIndex(ValueLayout.JAVA_LONG, slot);
+        }
+
+        void setKey(int slot, long storedKey) {
+            data.setAtIndex(ValueLayout.JAVA_LONG, slot, storedKey);
+        }
+
+        int getInt(int column, int slot) {
+            return data.get(ValueLayout.JAVA_INT, offset(column, slot));
+        }
+
+        void setInt(int column, int slot, int value) {
+            data.set(ValueLayout.JAVA_INT, offset(column, slot), value);
+        }
+
+        short getDay(int slot) {
+            return data.get(ValueLayout.JAVA_SHORT, dayOffset(slot));
+        }
+
+        void setDay(int slot, short day) {
+            data.set(ValueLayout.JAVA_SHORT, dayOffset(slot), day);
+        }
+
+        private long offset(int column, int slot) {
+            return (long) capacity * Long.BYTES + ((long) column * capacity + slot) * Integer.BYTES;
+        }
+
+        private long dayOffset(int slot) {
+            return (long) capacity * (Long.BYTES + 3 * Integer.BYTES) + (long) slot * Short.BYTES;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.group.avenue.middle.atm.project.account;
+
+/**
+ * Получатель счетов при обходе {@link AccountRegistry}
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+@FunctionalInterface
+public interface AccountVisitor {
+    /**
+     * @param cardKey номер карты как число, см. {@link AccountRegistry#cardKey(CharSequence)}
+     */
+    void visit(long cardKey, int balance, int dailyLimit, int withdrawnToday);
+}
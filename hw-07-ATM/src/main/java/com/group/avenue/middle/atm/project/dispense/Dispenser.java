@@ -0,0 +1,24 @@
+package com.group.avenue.middle.atm.project.dispense;
+
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+
+/**
+ * Алгоритм подбора банкнот для выдачи суммы
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public interface Dispenser {
+    /**
+     * Суммой выдать нельзя
+     */
+    long NO_PLAN = -1L;
+
+    /**
+     * Подобрать банкноты на сумму. Массив counts не меняется.
+     * @param amount сумма в рублях, кратная минимальному номиналу
+     * @param counts количество банкнот в ячейках, индекс - ordinal номинала
+     * @return количества по номиналам, упакованные {@link BanknoteCounts}, или {@link #NO_PLAN}
+     */
+    long plan(int amount, int[] counts);
+}
@@ -0,0 +1,42 @@
+package com.group.avenue.middle.atm.project.dispense;
+
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+
+import java.util.Arrays;
+
+/**
+ * Жадный подбор: от крупных номиналов к мелким, сколько влезет.
+ * Быстрый, но может не найти выдачу, которая есть (600 при банкнотах 500 и 200).
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class GreedyDispenser implements Dispenser {
+    // Порядок выдачи: от крупных номиналов к мелким
+    private static final Banknote[] DISPENSE_ORDER = Arrays.stream(Banknote.values())
+            .sorted((b1, b2) -> Integer.compare(b2.getValue(), b1.getValue()))
+            .toArray(Banknote[]::new);
+
+    @Override
+    public long plan(int amount, int[] counts) {
+        long plan = BanknoteCounts.EMPTY;
+        int remainingAmount = amount;
+
+        for (Banknote banknote : DISPENSE_ORDER) {
+            int noteValue = banknote.getValue();
+            int available = counts[banknote.ordinal()];
+
+            if (noteValue <= remainingAmount && available > 0) {
+                int notes = Math.min(remainingAmount / noteValue, available);
+                plan = BanknoteCounts.with(plan, banknote, notes);
+                remainingAmount -= notes * noteValue;
+            }
+
+            if (remainingAmount == 0) {
+                return plan;
+            }
+        }
+        return NO_PLAN;
+    }
+}
@@ -0,0 +1,193 @@
+package com.group.avenue.middle.atm.project.dispense;
+
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+
+/**
+ * Выдача минимальным числом банкнот с учетом их количества в ячейках
+ * (размен с ограниченным числом монет), суммы до maxAmount.
+ * <p>
+ * Суммы считаются в единицах минимального номинала (50 руб.), номиналы идут слоями
+ * по возрастанию ordinal: best[k][s] - минимум банкнот на s единиц номиналами 0..k,
+ * used[k][s] - сколько из них номинала k. Слой строится из предыдущего за O(maxAmount / 50):
+ * для каждого остатка по модулю номинала минимум по окну из count + 1 предыдущих значений
+ * держит монотонная очередь. Весь расчет - 7 слоев по 2 001 ячейке при лимите 100 000 руб.
+ * <p>
+ * Таблица не перестраивается целиком: plan сравнивает количества с теми, по которым построены
+ * слои, и пересчитывает только слои от первого изменившегося номинала. Выдача крупными
+ * купюрами меняет верхние слои, поэтому обычно пересчитывается один-два слоя. Ответ для
+ * неизменных ячеек - проход по 7 слоям. После создания не аллоцирует.
+ * <p>
+ * Хранит состояние: один экземпляр на банкомат, не потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class OptimalDispenser implements Dispenser {
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    private static final int UNIT = minValue();
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    private final int maxAmount;
+    private final int maxUnits;
+    private final int[] units = new int[BANKNOTES.length]; // номинал в единицах UNIT
+    private final int[] layerCounts = new int[BANKNOTES.length]; // количества, по которым построены слои
+    private final int[][] best;
+    private final short[][] used;
+    private int validLayers; // слои [0, validLayers) соответствуют layerCounts
+
+    // Монотонная очередь для минимума по окну: позиции и ключи
+    private final int[] queuePositions;
+    private final int[] queueKeys;
+    private final long[] reachable; // битовое множество сумм для canPay
+
+    /**
+     * @param maxAmount наибольшая сумма выдачи в рублях
+     */
+    public OptimalDispenser(int maxAmount) {
+        if (maxAmount < 0) {
+            throw new IllegalArgumentException("Лимит выдачи не может быть отрицательным");
+        }
+        this.maxAmount = maxAmount;
+        this.maxUnits = maxAmount / UNIT;
+        for (Banknote banknote : BANKNOTES) {
+            units[banknote.ordinal()] = banknote.getValue() / UNIT;
+        }
+        this.best = new int[BANKNOTES.length][maxUnits + 1];
+        this.used = new short[BANKNOTES.length][maxUnits + 1];
+        this.queuePositions = new int[maxUnits + 1];
+        this.queueKeys = new int[maxUnits + 1];
+        this.reachable = new long[(maxUnits >>> 6) + 1];
+    }
+
+    @Override
+    public long plan(int amount, int[] counts) {
+        if (amount < 0 || amount > maxAmount || amount % UNIT != 0) {
+            throw new IllegalArgumentException("Сумма должна быть от 0 до " + maxAmount + " и кратна " + UNIT);
+        }
+
+        for (int k = 0; k < validLayers; k++) {
+            if (counts[k] != layerCounts[k]) {
+                validLayers = k;
+                break;
+            }
+        }
+        for (int k = validLayers; k < BANKNOTES.length; k++) {
+            layerCounts[k] = counts[k];
+            buildLayer(k);
+        }
+        validLayers = BANKNOTES.length;
+
+        int rest = amount / UNIT;
+        if (best[BANKNOTES.length - 1][rest] >= INF) {
+            return NO_PLAN;
+        }
+        long plan = BanknoteCounts.EMPTY;
+        for (int k = BANKNOTES.length - 1; k >= 0; k--) {
+            int notes = used[k][rest];
+            if (notes > 0) {
+                plan = BanknoteCounts.with(plan, k, notes);
+                rest -= notes * units[k];
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Можно ли вообще набрать сумму, без подсчета минимума и без перестройки слоев.
+     * Набираемые суммы - битовое множество до amount / 50: номинал с count банкнотами
+     * добавляется сдвигами на 1, 2, 4, ... его банкнот, всего O(log count) сдвигов на номинал.
+     * Для суммы до 3 200 руб. множество - одно long-слово.
+     */
+    public boolean canPay(int amount, int[] counts) {
+        if (amount < 0 || amount > maxAmount || amount % UNIT != 0) {
+            throw new IllegalArgumentException("Сумма должна быть от 0 до " + maxAmount + " и кратна " + UNIT);
+        }
+        int target = amount / UNIT;
+        int words = (target >>> 6) + 1;
+        reachable[0] = 1L;
+        for (int w = 1; w < words; w++) {
+            reachable[w] = 0L;
+        }
+        for (int k = BANKNOTES.length - 1; k >= 0; k--) {
+            int remaining = Math.min(counts[k], target / units[k]);
+            for (int piece = 1; remaining > 0; piece <<= 1) {
+                int take = Math.min(piece, remaining);
+                shiftOr(words, take * units[k]);
+                remaining -= take;
+            }
+        }
+        return (reachable[target >>> 6] & (1L << target)) != 0;
+    }
+
+    /**
+     * reachable |= reachable << shift в первых words словах
+     */
+    private void shiftOr(int words, int shift) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int w = words - 1; w >= wordShift; w--) {
+            int from = w - wordShift;
+            long shifted = reachable[from] << bitShift;
+            if (bitShift != 0 && from > 0) {
+                shifted |= reachable[from - 1] >>> (64 - bitShift);
+            }
+            reachable[w] |= shifted;
+        }
+    }
+
+    /**
+     * Минимальное число банкнот на сумму по текущим слоям или -1, если выдать нельзя.
+     * Вызывать после plan с теми же количествами.
+     */
+    public int minNotes(int amount) {
+        int notes = best[BANKNOTES.length - 1][amount / UNIT];
+        return notes >= INF ? -1 : notes;
+    }
+
+    /**
+     * best[k][s] = min по j от 0 до count, j * d <= s: best[k - 1][s - j * d] + j.
+     * Для s = r + m * d это минимум (best[k - 1] - m') по окну m' из [m - count, m], плюс m.
+     */
+    private void buildLayer(int k) {
+        int d = units[k];
+        int count = Math.min(layerCounts[k], maxUnits / d);
+        int[] out = best[k];
+        short[] choice = used[k];
+
+        for (int r = 0; r < d && r <= maxUnits; r++) {
+            int head = 0;
+            int tail = 0;
+            for (int m = 0, s = r; s <= maxUnits; m++, s += d) {
+                int previous = k == 0 ? (s == 0 ? 0 : INF) : best[k - 1][s];
+                if (previous < INF) {
+                    int key = previous - m;
+                    while (tail > head && queueKeys[tail - 1] >= key) {
+                        tail--;
+                    }
+                    queuePositions[tail] = m;
+                    queueKeys[tail] = key;
+                    tail++;
+                }
+                while (tail > head && queuePositions[head] < m - count) {
+                    head++;
+                }
+                if (tail > head) {
+                    out[s] = queueKeys[head] + m;
+                    choice[s] = (short) (m - queuePositions[head]);
+                } else {
+                    out[s] = INF;
+                    choice[s] = 0;
+                }
+            }
+        }
+    }
+
+    private static int minValue() {
+        int min = Integer.MAX_VALUE;
+        for (Banknote banknote : BANKNOTES) {
+            min = Math.min(min, banknote.getValue());
+        }
+        return min;
+    }
+}
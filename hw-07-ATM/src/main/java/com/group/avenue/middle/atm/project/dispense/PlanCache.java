@@ -0,0 +1,215 @@
+package com.group.avenue.middle.atm.project.dispense;
+
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+
+import java.util.Arrays;
+
+/**
+ * Кеш планов выдачи по (сумма, версия состояния ячеек) с вытеснением давно не использованных.
+ * <p>
+ * На сумму хранится один план вместе с версией и количествами в ячейках, для которых он
+ * посчитан. Версия совпала - план отдается сразу. Версия другая - план перепроверяется за
+ * 7 сравнений: если ни в одной ячейке банкнот не прибавилось, а план по-прежнему помещается
+ * в ячейки, он остается ответом (для оптимального подбора допустимых выдач стало только
+ * меньше, а прежний минимум среди них остался; жадный при таких условиях дает тот же план).
+ * Иначе - промах, план считается заново. Отказы ({@link Dispenser#NO_PLAN}) не кешируются.
+ * <p>
+ * Поиск по сумме - прямой индекс по числу единиц 50 руб., порядок использования -
+ * двусвязный список на int-массивах. После создания не аллоцирует. Не потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class PlanCache {
+    /**
+     * Плана в кеше нет или он устарел
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int UNIT = Banknote.RUB_50.getValue();
+    private static final int BANKNOTES = Banknote.values().length;
+    private static final int NONE = -1;
+
+    private final int[] slotByUnits; // сумма / 50 -> слот или NONE
+    private final int[] amounts;
+    private final long[] plans;
+    private final long[] versions;
+    private final long[] snapshots; // количества в ячейках на момент расчета, упакованы BanknoteCounts
+    private final int[] newer; // список от самого свежего (head) к самому старому (tail)
+    private final int[] older;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    private long hits;
+    private long revalidations;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity сколько сумм хранить
+     * @param maxAmount наибольшая сумма выдачи в рублях
+     */
+    public PlanCache(int capacity, int maxAmount) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер кеша должен быть положительным");
+        }
+        this.slotByUnits = new int[maxAmount / UNIT + 1];
+        Arrays.fill(slotByUnits, NONE);
+        this.amounts = new int[capacity];
+        this.plans = new long[capacity];
+        this.versions = new long[capacity];
+        this.snapshots = new long[capacity];
+        this.newer = new int[capacity];
+        this.older = new int[capacity];
+    }
+
+    /**
+     * План для суммы при текущих ячейках
+     * @param version версия состояния ячеек
+     * @param counts количества в ячейках, индекс - ordinal номинала
+     * @return план или {@link #MISSING}
+     */
+    public long get(int amount, long version, int[] counts) {
+        int slot = slotByUnits[amount / UNIT];
+        if (slot == NONE) {
+            misses++;
+            return MISSING;
+        }
+        if (versions[slot] != version) {
+            if (!stillValid(plans[slot], snapshots[slot], counts)) {
+                misses++;
+                return MISSING;
+            }
+            versions[slot] = version;
+            snapshots[slot] = snapshot(counts);
+            revalidations++;
+        }
+        hits++;
+        moveToHead(slot);
+        return plans[slot];
+    }
+
+    /**
+     * Запомнить план, посчитанный при данных ячейках
+     */
+    public void put(int amount, long version, int[] counts, long plan) {
+        if (plan < 0 || !fitsSnapshot(counts)) {
+            return;
+        }
+        int units = amount / UNIT;
+        int slot = slotByUnits[units];
+        if (slot == NONE) {
+            if (size < amounts.length) {
+                slot = size++;
+            } else {
+                slot = tail;
+                unlink(slot);
+                slotByUnits[amounts[slot] / UNIT] = NONE;
+                evictions++;
+            }
+            amounts[slot] = amount;
+            slotByUnits[units] = slot;
+            linkHead(slot);
+        } else {
+            moveToHead(slot);
+        }
+        plans[slot] = plan;
+        versions[slot] = version;
+        snapshots[slot] = snapshot(counts);
+    }
+
+    // --- Метрики ---
+
+    /**
+     * Попадания, включая перепроверенные планы
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Попадания, где версия изменилась, но план остался в силе
+     */
+    public long getRevalidations() {
+        return revalidations;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean stillValid(long plan, long snapshot, int[] counts) {
+        for (int i = 0; i < BANKNOTES; i++) {
+            if (counts[i] > BanknoteCounts.count(snapshot, i) || BanknoteCounts.count(plan, i) > counts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean fitsSnapshot(int[] counts) {
+        for (int i = 0; i < BANKNOTES; i++) {
+            if (counts[i] > BanknoteCounts.MAX_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long snapshot(int[] counts) {
+        long packed = BanknoteCounts.EMPTY;
+        for (int i = 0; i < BANKNOTES; i++) {
+            packed = BanknoteCounts.with(packed, i, counts[i]);
+        }
+        return packed;
+    }
+
+    private void moveToHead(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkHead(slot);
+        }
+    }
+
+    private void linkHead(int slot) {
+        newer[slot] = NONE;
+        older[slot] = head;
+        if (head != NONE) {
+            newer[head] = slot;
+        }
+        head = slot;
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        int previous = newer[slot];
+        int next = older[slot];
+        if (previous != NONE) {
+            older[previous] = next;
+        } else {
+            head = next;
+        }
+        if (next != NONE) {
+            newer[next] = previous;
+        } else {
+            tail = previous;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.group.avenue.middle.atm.project.exception;
+
+/**
+ * Ошибка журнала операций: запись не стала надежной или файл журнала не читается
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class JournalException extends ATMException {
+    public JournalException(String message) {
+        super(message);
+    }
+
+    public JournalException(String message, Throwable cause) {
+        super(message);
+        initCause(cause);
+    }
+}
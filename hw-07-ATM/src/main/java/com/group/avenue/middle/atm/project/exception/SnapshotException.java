@@ -0,0 +1,18 @@
+package com.group.avenue.middle.atm.project.exception;
+
+/**
+ * Ошибка записи или чтения снимка состояния
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class SnapshotException extends ATMException {
+    public SnapshotException(String message) {
+        super(message);
+    }
+
+    public SnapshotException(String message, Throwable cause) {
+        super(message);
+        initCause(cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.group.avenue.middle.atm.project.exception;
+
+/**
+ * Карта не зарегистрирована
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class UnknownCardException extends ATMException {
+    public UnknownCardException(String message) {
+        super(message);
+    }
+}
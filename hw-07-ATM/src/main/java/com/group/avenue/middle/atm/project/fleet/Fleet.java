@@ -0,0 +1,354 @@
+package com.group.avenue.middle.atm.project.fleet;
+
+import com.group.avenue.middle.atm.project.ATM;
+import com.group.avenue.middle.atm.project.dispense.Dispenser;
+import com.group.avenue.middle.atm.project.dispense.GreedyDispenser;
+import com.group.avenue.middle.atm.project.dispense.OptimalDispenser;
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Парк банкоматов: состояние тысяч машин в колонках и итоги, которые не нужно пересчитывать.
+ * <p>
+ * Банкомат - номер от 0 до size() - 1. Количества банкнот всех машин лежат в одном int[]
+ * (номер * 7 + ordinal номинала), координаты, регион и баланс - в своих массивах.
+ * Итоги по номиналам, регионам и парку целиком обновляются при каждом внесении и выдаче,
+ * поэтому чтение любого итога - O(1).
+ * <p>
+ * Для маршрутизации банкоматы разложены по равномерной сетке на квадрате
+ * [0, extent) x [0, extent) км. Поиск ближайшего банкомата, способного выдать сумму, обходит
+ * кольца клеток вокруг точки и останавливается, как только следующее кольцо не может быть
+ * ближе найденного. Клетки, где ни у одного банкомата не может хватить денег, пропускаются
+ * по верхней оценке баланса клетки. Проверка "может выдать": баланс, затем жадный подбор (7 операций),
+ * и только если жадный не справился - битовое множество набираемых сумм
+ * ({@link OptimalDispenser#canPay}), без перестройки таблиц оптимального подбора.
+ * <p>
+ * Не потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class Fleet {
+    public static final int NOT_FOUND = -1;
+
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    private static final int DENOMINATIONS = BANKNOTES.length;
+
+    private final int maxWithdrawalAmount; // максимум за одну операцию, общий для парка
+    private final int minBanknoteValue;
+    private final int[] capacities = ATM.defaultCapacities(); // вместимость ячеек по ordinal
+    private final int regionCount;
+
+    // Колонки по номеру банкомата
+    private final String[] ids;
+    private final int[] regions;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] balances;
+    private final int[] counts; // номер * 7 + ordinal
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private int size;
+
+    // Итоги, обновляются при каждом изменении
+    private long totalBalance;
+    private final long[] denominationTotals = new long[DENOMINATIONS];
+    private final long[] regionBalances;
+    private final long[] regionCounts; // регион * 7 + ordinal
+
+    // Сетка: цепочки банкоматов по клеткам
+    private final double extent;
+    private final double cellSize;
+    private final int gridSize;
+    private final int[] cellHead; // первый банкомат клетки или NOT_FOUND
+    private final int[] nextInCell;
+    private final int[] cellOf; // клетка банкомата
+    // Верхние оценки баланса банкоматов клетки и всего парка: растут при внесении,
+    // при выдаче не уменьшаются. Клетки, где сумму не набрать, пропускаются целиком.
+    private final int[] cellMaxBalance;
+    private int maxBalance;
+
+    private final Dispenser greedy = new GreedyDispenser();
+    private final OptimalDispenser optimal;
+    private final int[] scratch = new int[DENOMINATIONS];
+
+    /**
+     * @param capacity наибольшее число банкоматов
+     * @param regionCount регионы нумеруются от 0 до regionCount - 1
+     * @param extent сторона квадрата, в котором стоят банкоматы, км
+     * @param cellSize сторона клетки сетки, км; порядка среднего расстояния между соседними банкоматами
+     */
+    public Fleet(int capacity, int regionCount, double extent, double cellSize, int maxWithdrawalAmount) {
+        if (capacity <= 0 || regionCount <= 0) {
+            throw new IllegalArgumentException("Число банкоматов и регионов должно быть положительным");
+        }
+        if (!(cellSize > 0) || !(extent >= cellSize)) {
+            throw new IllegalArgumentException("Размер клетки должен быть положительным и не больше области");
+        }
+        this.maxWithdrawalAmount = maxWithdrawalAmount;
+        this.minBanknoteValue = Banknote.RUB_50.getValue();
+        this.regionCount = regionCount;
+        this.ids = new String[capacity];
+        this.regions = new int[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.balances = new int[capacity];
+        this.counts = new int[capacity * DENOMINATIONS];
+        this.regionBalances = new long[regionCount];
+        this.regionCounts = new long[regionCount * DENOMINATIONS];
+        this.extent = extent;
+        this.cellSize = cellSize;
+        this.gridSize = (int) Math.ceil(extent / cellSize);
+        this.cellHead = new int[gridSize * gridSize];
+        this.nextInCell = new int[capacity];
+        this.cellOf = new int[capacity];
+        this.cellMaxBalance = new int[gridSize * gridSize];
+        Arrays.fill(cellHead, NOT_FOUND);
+        this.optimal = new OptimalDispenser(maxWithdrawalAmount);
+    }
+
+    /**
+     * Добавить пустой банкомат
+     * @return номер банкомата в парке
+     */
+    public int add(String id, int region, double x, double y) {
+        if (size == ids.length) {
+            throw new IllegalStateException("Парк заполнен: " + size + " банкоматов");
+        }
+        if (region < 0 || region >= regionCount) {
+            throw new IllegalArgumentException("Нет региона " + region);
+        }
+        checkPoint(x, y);
+        if (indexById.putIfAbsent(id, size) != null) {
+            throw new IllegalArgumentException("Банкомат " + id + " уже в парке");
+        }
+
+        int index = size++;
+        ids[index] = id;
+        regions[index] = region;
+        xs[index] = x;
+        ys[index] = y;
+        int cell = cell(y) * gridSize + cell(x);
+        nextInCell[index] = cellHead[cell];
+        cellHead[cell] = index;
+        cellOf[index] = cell;
+        return index;
+    }
+
+    /**
+     * Добавить банкомат вместе с текущим содержимым его ячеек
+     */
+    public int add(ATM atm, int region, double x, double y) {
+        int index = add(atm.getId(), region, x, y);
+        for (Banknote banknote : BANKNOTES) {
+            int count = atm.getCount(banknote);
+            if (count > 0) {
+                deposit(index, banknote, count);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Внести банкноты в банкомат
+     * @throws CassetteException если превышена вместимость ячейки
+     */
+    public void deposit(int index, Banknote banknote, int quantity) {
+        checkIndex(index);
+        if (quantity < 0) {
+            throw new InvalidAmountException("Количество не может быть отрицательным");
+        }
+        int slot = index * DENOMINATIONS + banknote.ordinal();
+        ATM.checkCassetteSpace(quantity, capacities[banknote.ordinal()] - counts[slot]);
+        change(index, banknote.ordinal(), quantity);
+    }
+
+    /**
+     * Снять наличные в банкомате минимальным числом банкнот
+     */
+    public WithdrawalResult withdraw(int index, int amount) {
+        checkIndex(index);
+        ATM.checkWithdrawalAmount(amount, minBanknoteValue, maxWithdrawalAmount);
+        if (amount > balances[index]) {
+            throw new InsufficientFundsException("В банкомате недостаточно средств");
+        }
+
+        long plan = optimal.plan(amount, countsOf(index));
+        if (plan == Dispenser.NO_PLAN) {
+            return new WithdrawalResult(amount,
+                    "Невозможно выдать запрошенную сумму имеющимися банкнотами");
+        }
+        for (int d = 0; d < DENOMINATIONS; d++) {
+            int notes = BanknoteCounts.count(plan, d);
+            if (notes > 0) {
+                change(index, d, -notes);
+            }
+        }
+        return new WithdrawalResult(amount, plan);
+    }
+
+    /**
+     * Может ли банкомат выдать сумму имеющимися банкнотами
+     */
+    public boolean canDispense(int index, int amount) {
+        checkIndex(index);
+        if (amount > balances[index]) {
+            return false;
+        }
+        int[] available = countsOf(index);
+        return greedy.plan(amount, available) != Dispenser.NO_PLAN || optimal.canPay(amount, available);
+    }
+
+    /**
+     * Ближайший к точке банкомат, который может выдать сумму
+     * @return номер банкомата или {@link #NOT_FOUND}
+     */
+    public int route(double x, double y, int amount) {
+        checkPoint(x, y);
+        ATM.checkWithdrawalAmount(amount, minBanknoteValue, maxWithdrawalAmount);
+        if (amount > maxBalance) {
+            return NOT_FOUND;
+        }
+
+        int cx = cell(x);
+        int cy = cell(y);
+        int best = NOT_FOUND;
+        double bestDistance2 = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ring < gridSize; ring++) {
+            // Банкоматы кольца ring не ближе (ring - 1) * cellSize
+            double ringDistance = Math.max(0, ring - 1) * cellSize;
+            if (ringDistance * ringDistance >= bestDistance2) {
+                break;
+            }
+            for (int gy = Math.max(0, cy - ring), maxY = Math.min(gridSize - 1, cy + ring); gy <= maxY; gy++) {
+                boolean edgeRow = gy == cy - ring || gy == cy + ring;
+                int step = edgeRow ? 1 : 2 * ring; // во внутренних строках кольца - только крайние клетки
+                for (int gx = cx - ring; gx <= cx + ring; gx += step) {
+                    int cell = gy * gridSize + gx;
+                    if (gx >= 0 && gx < gridSize && cellMaxBalance[cell] >= amount) {
+                        for (int i = cellHead[cell]; i != NOT_FOUND; i = nextInCell[i]) {
+                            double dx = xs[i] - x;
+                            double dy = ys[i] - y;
+                            double distance2 = dx * dx + dy * dy;
+                            if (distance2 < bestDistance2 && canDispense(i, amount)) {
+                                best = i;
+                                bestDistance2 = distance2;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // --- Итоги, O(1) ---
+
+    public long getTotalBalance() {
+        return totalBalance;
+    }
+
+    public long getTotalCount(Banknote banknote) {
+        return denominationTotals[banknote.ordinal()];
+    }
+
+    public long getRegionBalance(int region) {
+        return regionBalances[region];
+    }
+
+    public long getRegionCount(int region, Banknote banknote) {
+        return regionCounts[region * DENOMINATIONS + banknote.ordinal()];
+    }
+
+    // --- Банкомат по номеру ---
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return номер банкомата или {@link #NOT_FOUND}
+     */
+    public int indexOf(String id) {
+        Integer index = indexById.get(id);
+        return index != null ? index : NOT_FOUND;
+    }
+
+    public String getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public int getRegion(int index) {
+        checkIndex(index);
+        return regions[index];
+    }
+
+    public double getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public double getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public int getBalance(int index) {
+        checkIndex(index);
+        return balances[index];
+    }
+
+    public int getCount(int index, Banknote banknote) {
+        checkIndex(index);
+        return counts[index * DENOMINATIONS + banknote.ordinal()];
+    }
+
+    private void change(int index, int ordinal, int delta) {
+        int value = delta * BANKNOTES[ordinal].getValue();
+        int region = regions[index];
+        counts[index * DENOMINATIONS + ordinal] += delta;
+        balances[index] += value;
+        denominationTotals[ordinal] += delta;
+        regionCounts[region * DENOMINATIONS + ordinal] += delta;
+        regionBalances[region] += value;
+        totalBalance += value;
+        if (delta > 0) {
+            int balance = balances[index];
+            int cell = cellOf[index];
+            cellMaxBalance[cell] = Math.max(cellMaxBalance[cell], balance);
+            maxBalance = Math.max(maxBalance, balance);
+        }
+    }
+
+    /**
+     * Количества банкомата в общем буфере (для подборщиков, которые принимают int[])
+     */
+    private int[] countsOf(int index) {
+        System.arraycopy(counts, index * DENOMINATIONS, scratch, 0, DENOMINATIONS);
+        return scratch;
+    }
+
+    private int cell(double coordinate) {
+        return Math.min(gridSize - 1, (int) (coordinate / cellSize));
+    }
+
+    private void checkPoint(double x, double y) {
+        if (!(x >= 0 && x < extent && y >= 0 && y < extent)) {
+            throw new IllegalArgumentException("Точка (" + x + ", " + y + ") вне области парка");
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Нет банкомата с номером " + index);
+        }
+    }
+}
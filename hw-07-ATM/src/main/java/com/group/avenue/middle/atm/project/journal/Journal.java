@@ -0,0 +1,501 @@
+package com.group.avenue.middle.atm.project.journal;
+
+import com.group.avenue.middle.atm.project.exception.JournalException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал упреждающей записи (write-ahead log) операций банкомата и пользователей.
+ * <p>
+ * Файл - только дозапись, записи фиксированного размера {@value #RECORD_SIZE} байт, little-endian:
+ * <pre>
+ * 0  long sequence  номер записи, с 1 без пропусков
+ * 8  long subject   ключ банкомата или пользователя
+ * 16 long payload   упакованные количества банкнот или сумма
+ * 24 int  type      MAGIC | LINKED | код типа
+ * 28 int  crc       CRC32C байтов 0..27
+ * </pre>
+ * {@link #append} возвращает управление, только когда запись на диске (после force).
+ * Групповая фиксация: записи конкурентных операций копятся в общем буфере, первый
+ * ожидающий поток становится ведущим, ждет окно группировки (или заполнения буфера),
+ * пишет весь буфер одним write и делает один force на всех. Пока идет force, следующие
+ * записи копятся во втором буфере, так что даже при нулевом окне один fsync приходится
+ * на все операции, пришедшие за время предыдущего.
+ * <p>
+ * Операция из двух записей (банкомат и счет) пишется одним вызовом: записи идут подряд
+ * в одной партии, у первой выставлен флаг LINKED - "следующая запись той же операции".
+ * Запись с флагом без следующей за ней целой записи считается недописанной, так что
+ * после сбоя восстанавливается либо вся операция, либо ничего.
+ * <p>
+ * При открытии файл проверяется: хвост после последней целой записи (оборванная запись,
+ * неверная CRC или разрыв нумерации) считается недописанным при сбое и обрезается,
+ * вместе с последней записью, если она с флагом LINKED.
+ * Если партию не удалось записать или сделать надежной, файл сразу обрезается до ее начала,
+ * а журнал больше не принимает записи: операции, которым ответили ошибкой, не восстановятся.
+ * Потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class Journal implements AutoCloseable {
+    public static final int RECORD_SIZE = 32;
+    public static final int DEFAULT_BATCH_RECORDS = 4096;
+
+    private static final int MAGIC = 0x4A524E00; // "JRN\0", младший байт - флаг и код типа
+    private static final int LINKED = 0x80; // следующая запись - часть той же операции
+    private static final int CODE_MASK = 0x7F;
+    private static final int CRC_OFFSET = 28;
+    private static final int READ_RECORDS = 2048;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition(); // партия записана или журнал закрыт
+    private final Condition batchFull = lock.newCondition(); // буфер заполнен, окно можно не дожидаться
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer active; // сюда пишут операции
+    private ByteBuffer spare; // его пишет на диск ведущий
+    private boolean flushInProgress;
+    private boolean closed;
+    private JournalException failure; // после ошибки ввода-вывода журнал больше не принимает записи
+
+    private long lastSequence; // последний выданный номер
+    private long durableSequence; // все записи до этого номера на диске
+    private long size; // байт на диске
+    private long syncs;
+
+    private final long recoveredRecords;
+    private final long truncatedBytes;
+
+    public Journal(Path path) {
+        this(path, Duration.ZERO, DEFAULT_BATCH_RECORDS);
+    }
+
+    /**
+     * @param groupCommitWindow сколько ведущий ждет попутные записи перед force, 0 - не ждет
+     */
+    public Journal(Path path, Duration groupCommitWindow) {
+        this(path, groupCommitWindow, DEFAULT_BATCH_RECORDS);
+    }
+
+    /**
+     * @param batchRecords наибольшее число записей в одной партии
+     */
+    public Journal(Path path, Duration groupCommitWindow, int batchRecords) {
+        if (groupCommitWindow.isNegative()) {
+            throw new IllegalArgumentException("Окно группировки не может быть отрицательным");
+        }
+        if (batchRecords <= 0) {
+            throw new IllegalArgumentException("Размер партии должен быть положительным");
+        }
+        this.path = path;
+        this.windowNanos = groupCommitWindow.toNanos();
+        this.active = ByteBuffer.allocate(batchRecords * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.spare = ByteBuffer.allocate(batchRecords * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = channel.size();
+            recover();
+            this.recoveredRecords = lastSequence;
+            this.truncatedBytes = fileSize - size;
+            if (truncatedBytes > 0) {
+                channel.truncate(size);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new JournalException("Не удалось открыть журнал " + path, e);
+        }
+    }
+
+    /**
+     * Ключ банкомата или пользователя для записей: 64-битный FNV-1a от строки
+     */
+    public static long subject(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // --- Запись ---
+
+    /**
+     * Добавить запись и дождаться, пока она окажется на диске
+     * @return номер записи
+     * @throws JournalException если журнал закрыт или запись не удалось сделать надежной
+     */
+    public long append(RecordType type, long subject, long payload) {
+        return appendRecords(type, subject, payload, null, 0, 0);
+    }
+
+    /**
+     * Добавить две записи одной операции (например, банкомата и счета) и дождаться,
+     * пока обе окажутся на диске. При восстановлении видны либо обе, либо ни одной.
+     * @return номер второй записи
+     * @throws JournalException если журнал закрыт или записи не удалось сделать надежными
+     * @throws IllegalStateException если в партию не помещаются две записи
+     */
+    public long append(RecordType type, long subject, long payload,
+                       RecordType nextType, long nextSubject, long nextPayload) {
+        if (active.capacity() < 2 * RECORD_SIZE) {
+            throw new IllegalStateException("В партию журнала " + path + " не помещаются две записи");
+        }
+        return appendRecords(type, subject, payload, Objects.requireNonNull(nextType), nextSubject, nextPayload);
+    }
+
+    /**
+     * @param nextType тип второй записи той же операции или null - запись одна
+     */
+    private long appendRecords(RecordType type, long subject, long payload,
+                               RecordType nextType, long nextSubject, long nextPayload) {
+        int bytes = nextType != null ? 2 * RECORD_SIZE : RECORD_SIZE;
+        lock.lock();
+        try {
+            checkWritable();
+            while (active.remaining() < bytes) {
+                // Буфер заполнен, пока предыдущая партия пишется на диск
+                awaitFlush();
+                checkWritable();
+            }
+            // Обе записи операции попадают в одну партию: ее пишет на диск один ведущий
+            long sequence = ++lastSequence;
+            if (nextType != null) {
+                putRecord(active, sequence, type.getCode() | LINKED, subject, payload);
+                sequence = ++lastSequence;
+                putRecord(active, sequence, nextType.getCode(), nextSubject, nextPayload);
+            } else {
+                putRecord(active, sequence, type.getCode(), subject, payload);
+            }
+            if (!active.hasRemaining()) {
+                batchFull.signal();
+            }
+            while (durableSequence < sequence) {
+                awaitFlush();
+                if (durableSequence < sequence) {
+                    checkWritable();
+                }
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Записать накопленную партию самому или дождаться ведущего. Вызывается под блокировкой.
+     */
+    private void awaitFlush() {
+        if (flushInProgress) {
+            flushed.awaitUninterruptibly();
+        } else {
+            flush();
+        }
+    }
+
+    /**
+     * Ведущий: окно группировки, затем запись буфера и force без блокировки
+     */
+    private void flush() {
+        flushInProgress = true;
+        try {
+            long remaining = windowNanos;
+            while (remaining > 0 && active.hasRemaining() && !closed) {
+                try {
+                    remaining = batchFull.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (active.position() == 0) {
+                return;
+            }
+
+            ByteBuffer batch = active;
+            active = spare;
+            spare = batch;
+            long batchEnd = lastSequence;
+            long writeAt = size;
+
+            IOException error = null;
+            lock.unlock();
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    writeAt += channel.write(batch, writeAt);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                lock.lock();
+                batch.clear();
+            }
+
+            if (error != null) {
+                failure = new JournalException("Запись журнала " + path + " не удалась", error);
+                discardBatch(failure);
+            } else {
+                size = writeAt;
+                durableSequence = batchEnd;
+                syncs++;
+            }
+        } finally {
+            flushInProgress = false;
+            flushed.signalAll();
+        }
+    }
+
+    /**
+     * Обрезать файл до начала несостоявшейся партии. Операциям партии ответили ошибкой,
+     * и их записи не должны всплыть при восстановлении, даже если write успел дойти до диска,
+     * а сорвался только force. Вызывается под блокировкой после ошибки ввода-вывода.
+     */
+    private void discardBatch(JournalException failure) {
+        // Прерывание закрывает канал и сорвет и обрезку - снимаем флаг на время и возвращаем
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (channel.isOpen()) {
+                channel.truncate(size);
+                channel.force(true);
+            } else {
+                try (FileChannel reopened = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    reopened.truncate(size);
+                    reopened.force(true);
+                }
+            }
+        } catch (IOException e) {
+            // Хвост остался: при следующем открытии записи партии могут быть восстановлены
+            failure.addSuppressed(e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new JournalException("Журнал " + path + " закрыт");
+        }
+    }
+
+    private void putRecord(ByteBuffer buffer, long sequence, int code, long subject, long payload) {
+        int offset = buffer.position();
+        buffer.putLong(sequence)
+                .putLong(subject)
+                .putLong(payload)
+                .putInt(MAGIC | code);
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + offset, CRC_OFFSET);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    // --- Восстановление ---
+
+    /**
+     * Найти конец последней целой операции, выставить size и номера
+     */
+    private void recover() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        long expected = 1;
+        boolean linked = false; // последняя целая запись ждет вторую запись операции
+        while (true) {
+            buffer.clear();
+            int read = readFully(buffer, position);
+            int records = read / RECORD_SIZE;
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_SIZE;
+                if (!isValid(buffer, offset, expected)) {
+                    finishRecovery(position + offset, expected - 1, linked);
+                    return;
+                }
+                linked = (buffer.getInt(offset + 24) & LINKED) != 0;
+                expected++;
+            }
+            position += (long) records * RECORD_SIZE;
+            if (records < READ_RECORDS) {
+                finishRecovery(position, expected - 1, linked);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param linked последняя целая запись - первая половина операции без второй, ее тоже отбросить
+     */
+    private void finishRecovery(long validSize, long sequence, boolean linked) {
+        if (linked) {
+            validSize -= RECORD_SIZE;
+            sequence--;
+        }
+        size = validSize;
+        lastSequence = sequence;
+        durableSequence = sequence;
+    }
+
+    private boolean isValid(ByteBuffer buffer, int offset, long expectedSequence) {
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + offset, CRC_OFFSET);
+        return buffer.getInt(offset + CRC_OFFSET) == (int) crc.getValue()
+                && buffer.getLong(offset) == expectedSequence
+                && (buffer.getInt(offset + 24) & ~0xFF) == MAGIC
+                && RecordType.of(buffer.getInt(offset + 24) & CODE_MASK) != null;
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Передать слушателю все надежные записи по порядку
+     * @return сколько записей прочитано
+     */
+    public long replay(JournalListener listener) {
+        return replay(0, listener);
+    }
+
+    /**
+     * Передать слушателю надежные записи с номерами после afterSequence (хвост после снимка).
+     * Номера идут с 1 без пропусков, поэтому начало хвоста находится без чтения файла.
+     * Операции из двух записей приходят целиком: половина операции отброшена еще при открытии,
+     * а надежный номер растет только на целые партии.
+     * @return сколько записей прочитано
+     * @throws JournalException если в журнале нет записи afterSequence
+     */
+    public long replay(long afterSequence, JournalListener listener) {
+        long end;
+        lock.lock();
+        try {
+            checkWritable();
+            if (afterSequence < 0 || afterSequence > durableSequence) {
+                throw new JournalException("В журнале " + path + " нет записи " + afterSequence
+                        + ", последняя - " + durableSequence);
+            }
+            end = size;
+        } finally {
+            lock.unlock();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long records = 0;
+        try {
+            for (long position = afterSequence * RECORD_SIZE; position < end; ) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = readFully(buffer, position);
+                for (int offset = 0; offset + RECORD_SIZE <= read; offset += RECORD_SIZE) {
+                    listener.onRecord(buffer.getLong(offset),
+                            RecordType.of(buffer.getInt(offset + 24) & CODE_MASK),
+                            buffer.getLong(offset + 8),
+                            buffer.getLong(offset + 16));
+                    records++;
+                }
+                if (read < RECORD_SIZE) {
+                    break;
+                }
+                position += read - read % RECORD_SIZE;
+            }
+        } catch (IOException e) {
+            throw new JournalException("Не удалось прочитать журнал " + path, e);
+        }
+        return records;
+    }
+
+    // --- Геттеры ---
+
+    /**
+     * Номер последней записи на диске
+     */
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сколько раз делался force: при групповой фиксации меньше числа записей
+     */
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сколько целых записей нашлось в файле при открытии
+     */
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Сколько байт недописанного хвоста обрезано при открытии
+     */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Дописать накопленное и закрыть файл
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            while (flushInProgress) {
+                flushed.awaitUninterruptibly();
+            }
+            if (failure == null && durableSequence < lastSequence) {
+                flush();
+            }
+            closed = true;
+            flushed.signalAll();
+            channel.close();
+        } catch (IOException e) {
+            throw new JournalException("Не удалось закрыть журнал " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.group.avenue.middle.atm.project.journal;
+
+/**
+ * Получатель записей журнала при восстановлении
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+@FunctionalInterface
+public interface JournalListener {
+    /**
+     * @param sequence номер записи, с 1 без пропусков
+     * @param subject ключ банкомата или пользователя, см. {@link Journal#subject(String)}
+     */
+    void onRecord(long sequence, RecordType type, long subject, long payload);
+}
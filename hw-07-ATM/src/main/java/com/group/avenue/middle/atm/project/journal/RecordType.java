@@ -0,0 +1,43 @@
+package com.group.avenue.middle.atm.project.journal;
+
+/**
+ * Тип записи журнала. Полезная нагрузка записи (payload) зависит от типа:
+ * для операций банкомата - количества банкнот, упакованные BanknoteCounts,
+ * для операций пользователя - сумма в рублях (у USER_WITHDRAW в младших 32 битах,
+ * в старших - минута операции от эпохи, чтобы снятие попало в свой период дневного лимита).
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public enum RecordType {
+    ATM_DEPOSIT(1),
+    ATM_WITHDRAW(2),
+    USER_DEPOSIT(3),
+    USER_WITHDRAW(4),
+    USER_RESET_DAILY_LIMIT(5);
+
+    private static final RecordType[] BY_CODE = new RecordType[8];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    RecordType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Тип по коду из файла или null, если такого типа нет
+     */
+    public static RecordType of(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.group.avenue.middle.atm.project.limit;
+
+/**
+ * Лимит на календарный день: снятое хранится вместе с номером дня и считается нулем,
+ * как только операция или запрос приходят в другой день. Сброс - O(1) при первом
+ * обращении к счету в новый день, без обхода всех счетов.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class CalendarDayWindow implements WithdrawalWindow {
+    private final DayClock days;
+    private long day = Long.MIN_VALUE; // день, к которому относится withdrawn
+    private int withdrawn;
+
+    public CalendarDayWindow(DayClock days) {
+        this.days = days;
+    }
+
+    @Override
+    public int getWithdrawn(long nowMillis) {
+        return days.dayOf(nowMillis) == day ? withdrawn : 0;
+    }
+
+    @Override
+    public void add(long millis, int amount) {
+        long operationDay = days.dayOf(millis);
+        if (operationDay > day) {
+            day = operationDay;
+            withdrawn = 0;
+        }
+        if (operationDay == day) {
+            withdrawn += amount;
+        }
+    }
+
+    @Override
+    public void reset() {
+        withdrawn = 0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.group.avenue.middle.atm.project.limit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Часы с номером текущего дня (эпохальный день, 1970-01-01 - 0) в часовом поясе часов.
+ * <p>
+ * Номер дня - метка для ленивого сброса дневных лимитов: счет хранит день, к которому
+ * относится снятое, и при первом обращении в другой день считает снятое нулем.
+ * Границы текущего дня вычисляются через java.time раз в сутки, а в остальное время
+ * {@link #today()} - одно чтение часов и два сравнения без аллокаций.
+ * Один экземпляр можно делить между всеми счетами и потоками.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class DayClock {
+    private final Clock clock;
+    private final ZoneId zone;
+    private volatile Day current = new Day(Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE);
+
+    public DayClock(Clock clock) {
+        this.clock = clock;
+        this.zone = clock.getZone();
+    }
+
+    /**
+     * Системные часы в поясе по умолчанию
+     */
+    public static DayClock system() {
+        return new DayClock(Clock.systemDefaultZone());
+    }
+
+    public long millis() {
+        return clock.millis();
+    }
+
+    /**
+     * Номер текущего дня
+     */
+    public long today() {
+        return dayOf(clock.millis());
+    }
+
+    /**
+     * Номер дня, к которому относится момент времени
+     */
+    public long dayOf(long millis) {
+        Day day = current;
+        if (millis >= day.startMillis && millis < day.endMillis) {
+            return day.epochDay;
+        }
+        Day computed = compute(millis);
+        // Кешируется только самый поздний день: восстановление по журналу спрашивает и прошлые
+        if (computed.epochDay >= day.epochDay) {
+            current = computed;
+        }
+        return computed.epochDay;
+    }
+
+    private Day compute(long millis) {
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+        long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new Day(date.toEpochDay(), start, end);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * День и его границы [startMillis, endMillis)
+     */
+    private static final class Day {
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        Day(long epochDay, long startMillis, long endMillis) {
+            this.epochDay = epochDay;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
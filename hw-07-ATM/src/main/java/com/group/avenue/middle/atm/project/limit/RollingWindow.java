@@ -0,0 +1,82 @@
+package com.group.avenue.middle.atm.project.limit;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Скользящий лимит, например за последние 24 часа, на нескольких корзинах времени.
+ * <p>
+ * Период делится на buckets корзин одинаковой длины, снятия суммируются в корзине своего
+ * времени, корзины хранятся по кругу (buckets + 1 значений int). В лимит идут корзины
+ * с текущей по buckets назад, поэтому снятие учитывается не меньше всего периода и не
+ * больше периода плюс одна корзина: окно скорее строже точного, чем мягче.
+ * 6 корзин по 4 часа - 7 int на счет, сдвиг окна - очистка устаревших корзин при снятии.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class RollingWindow implements WithdrawalWindow {
+    public static final Duration DEFAULT_PERIOD = Duration.ofHours(24);
+    public static final int DEFAULT_BUCKETS = 6;
+
+    private final long bucketMillis;
+    private final int[] amounts; // по кругу: корзина b лежит в floorMod(b, length)
+    private long newestBucket = Long.MIN_VALUE; // последняя корзина, в которую было снятие
+
+    public RollingWindow() {
+        this(DEFAULT_PERIOD, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param period длина окна, делится на buckets без остатка до миллисекунды
+     */
+    public RollingWindow(Duration period, int buckets) {
+        if (buckets <= 0 || period.toMillis() <= 0 || period.toMillis() % buckets != 0) {
+            throw new IllegalArgumentException("Период должен делиться на положительное число корзин: "
+                    + period + " / " + buckets);
+        }
+        this.bucketMillis = period.toMillis() / buckets;
+        this.amounts = new int[buckets + 1];
+    }
+
+    @Override
+    public int getWithdrawn(long nowMillis) {
+        if (newestBucket == Long.MIN_VALUE) {
+            return 0;
+        }
+        long now = Math.floorDiv(nowMillis, bucketMillis);
+        long from = Math.max(now - (amounts.length - 1), newestBucket - (amounts.length - 1));
+        long to = Math.min(now, newestBucket);
+        int withdrawn = 0;
+        for (long bucket = from; bucket <= to; bucket++) {
+            withdrawn += amounts[(int) Math.floorMod(bucket, (long) amounts.length)];
+        }
+        return withdrawn;
+    }
+
+    @Override
+    public void add(long millis, int amount) {
+        long bucket = Math.floorDiv(millis, bucketMillis);
+        if (newestBucket == Long.MIN_VALUE || bucket - newestBucket >= amounts.length) {
+            Arrays.fill(amounts, 0);
+            newestBucket = bucket;
+        } else if (bucket > newestBucket) {
+            for (long cleared = newestBucket + 1; cleared <= bucket; cleared++) {
+                amounts[(int) Math.floorMod(cleared, (long) amounts.length)] = 0;
+            }
+            newestBucket = bucket;
+        } else if (newestBucket - bucket >= amounts.length) {
+            return; // старше окна
+        }
+        amounts[(int) Math.floorMod(bucket, (long) amounts.length)] += amount;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(amounts, 0);
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+}
@@ -0,0 +1,27 @@
+package com.group.avenue.middle.atm.project.limit;
+
+/**
+ * Сколько снято за период дневного лимита. Период сдвигается сам, по времени операций:
+ * сбрасывать снятое по всем счетам в полночь не нужно. Реализации не потокобезопасны -
+ * их защищает владелец (счет).
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public interface WithdrawalWindow {
+    /**
+     * Снято за период, в который попадает момент nowMillis
+     */
+    int getWithdrawn(long nowMillis);
+
+    /**
+     * Учесть снятие в момент millis. Снятия старше текущего периода не учитываются
+     * (так бывает при восстановлении по журналу).
+     */
+    void add(long millis, int amount);
+
+    /**
+     * Обнулить снятое (сброс лимита администратором)
+     */
+    void reset();
+}
@@ -0,0 +1,149 @@
+package com.group.avenue.middle.atm.project.loadgen;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры генератора нагрузки из аргументов вида {@code --имя=значение}.
+ * <pre>
+ * --engine=local|tcp         local - банкомат и счета в этом процессе, tcp - сервер сессий
+ * --host=127.0.0.1 --port=7070   адрес сервера для tcp
+ * --threads=8                терминалов (для tcp - сессий на виртуальных потоках)
+ * --users=1000               карт (для tcp - столько демо-карт должно быть на сервере)
+ * --duration=10 --warmup=2   секунды измерения и прогрева
+ * --rate=0                   операций в секунду на все терминалы, 0 - закрытый цикл
+ * --mix=withdraw=50,deposit=30,balance=15,status=5   доли операций
+ * --amounts=100,500,1000,5000                        суммы снятия, выбираются равновероятно
+ * --journal=путь --window-us=0  только local: журнал операций и окно групповой фиксации
+ * --csv=путь --label=имя     дописать итог в CSV, метка - например, версия сборки
+ * </pre>
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class LoadConfig {
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    String engine = "local";
+    String host = "127.0.0.1";
+    int port = 7070;
+    int threads = 8;
+    int users = 1_000;
+    int durationSeconds = 10;
+    int warmupSeconds = 2;
+    double rate;
+    int[] mixWeights = {50, 30, 15, 5}; // по ordinal операции
+    int[] amounts = {100, 500, 1_000, 5_000};
+    Path journal;
+    long windowMicros;
+    Path csv;
+    String label = "local";
+
+    /**
+     * @throws IllegalArgumentException если аргумент не распознан или значение некорректно
+     */
+    public static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --имя=значение: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "engine" -> {
+                    if (!value.equals("local") && !value.equals("tcp")) {
+                        throw new IllegalArgumentException("engine - local или tcp: " + value);
+                    }
+                    config.engine = value;
+                }
+                case "host" -> config.host = value;
+                case "port" -> config.port = Integer.parseInt(value);
+                case "threads" -> config.threads = positive(name, Integer.parseInt(value));
+                case "users" -> config.users = positive(name, Integer.parseInt(value));
+                case "duration" -> config.durationSeconds = positive(name, Integer.parseInt(value));
+                case "warmup" -> config.warmupSeconds = Math.max(0, Integer.parseInt(value));
+                case "rate" -> config.rate = Math.max(0, Double.parseDouble(value));
+                case "mix" -> config.mixWeights = parseMix(value);
+                case "amounts" -> config.amounts = Arrays.stream(value.split(","))
+                        .mapToInt(amount -> positive("amounts", Integer.parseInt(amount.trim())))
+                        .toArray();
+                case "journal" -> config.journal = Path.of(value);
+                case "window-us" -> config.windowMicros = Math.max(0, Long.parseLong(value));
+                case "csv" -> config.csv = Path.of(value);
+                case "label" -> config.label = value;
+                default -> throw new IllegalArgumentException("Неизвестный параметр: --" + name);
+            }
+        }
+        if (config.journal != null && !config.engine.equals("local")) {
+            throw new IllegalArgumentException("Журнал подключается только при --engine=local");
+        }
+        return config;
+    }
+
+    private static int[] parseMix(String value) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Доля операции задается как имя=вес: " + part);
+            }
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        int[] mix = new int[OPERATIONS.length];
+        int total = 0;
+        for (Operation operation : OPERATIONS) {
+            Integer weight = weights.remove(operation.label());
+            mix[operation.ordinal()] = weight != null ? Math.max(0, weight) : 0;
+            total += mix[operation.ordinal()];
+        }
+        if (!weights.isEmpty()) {
+            throw new IllegalArgumentException("Неизвестные операции в mix: " + weights.keySet());
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Сумма долей операций должна быть положительной");
+        }
+        return mix;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " должно быть положительным: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Кумулятивные веса для выбора операции одним случайным числом
+     */
+    int[] cumulativeMix() {
+        int[] cumulative = new int[mixWeights.length];
+        int sum = 0;
+        for (int i = 0; i < mixWeights.length; i++) {
+            sum += mixWeights[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Описание для заголовка отчета
+     */
+    public String describe() {
+        StringBuilder mix = new StringBuilder();
+        for (Operation operation : OPERATIONS) {
+            if (mixWeights[operation.ordinal()] > 0) {
+                mix.append(mix.isEmpty() ? "" : ",").append(operation.label()).append('=')
+                        .append(mixWeights[operation.ordinal()]);
+            }
+        }
+        return "engine=" + engine + (engine.equals("tcp") ? " " + host + ":" + port : "")
+                + " threads=" + threads + " users=" + users
+                + " rate=" + (rate > 0 ? String.valueOf(rate) : "closed")
+                + " duration=" + durationSeconds + "s warmup=" + warmupSeconds + "s"
+                + " mix=" + mix + " amounts=" + Arrays.toString(amounts)
+                + (journal != null ? " journal=" + journal + " window=" + windowMicros + "us" : "");
+    }
+}
@@ -0,0 +1,296 @@
+package com.group.avenue.middle.atm.project.loadgen;
+
+import com.group.avenue.middle.atm.project.ConcurrentATM;
+import com.group.avenue.middle.atm.project.exception.ATMException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.server.SessionClient;
+import com.group.avenue.middle.atm.project.server.Teller;
+import com.group.avenue.middle.atm.project.server.UserRegistry;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки на банкомат: смесь операций, суммы, число карт и терминалов,
+ * закрытый цикл или открытый с заданной частотой. Параметры - {@link LoadConfig}.
+ * <p>
+ * local - терминалы вызывают {@link Teller} над {@link ConcurrentATM} и счетами в этом процессе,
+ * каждая операция - по случайной карте. tcp - каждый терминал держит сессию с сервером
+ * ({@code Main --server}) по своей карте.
+ * <p>
+ * В открытом цикле терминал подает операции по расписанию (частота / терминалы в секунду),
+ * а задержка считается от запланированного момента, а не от фактического отправления:
+ * если система не успевает, ожидание в очереди попадает в задержку
+ * (без этого отстающий генератор сам снижает нагрузку и занижает хвосты).
+ * Итог - {@link LoadReport} по типам операций, печать и CSV.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class LoadGenerator {
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    private static final int MAX_WITHDRAWAL_AMOUNT = 100_000;
+
+    private final LoadConfig config;
+    private final int[] cumulativeMix;
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.cumulativeMix = config.cumulativeMix();
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setOut(new PrintStream(System.out, true, StandardCharsets.UTF_8));
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ошибка параметров: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        System.out.println("=== Нагрузка на банкомат ===");
+        System.out.println(config.describe());
+        LoadReport report = new LoadGenerator(config).run();
+        report.print(System.out);
+        if (config.csv != null) {
+            report.appendCsv(config.csv, config);
+            System.out.println("Итог дописан в " + config.csv);
+        }
+    }
+
+    /**
+     * Прогнать прогрев и измерение
+     */
+    public LoadReport run() throws Exception {
+        Journal journal = null;
+        List<Terminal> terminals = new ArrayList<>();
+        try {
+            if (config.engine.equals("local")) {
+                var atm = new ConcurrentATM("ATM-LOAD", MAX_WITHDRAWAL_AMOUNT);
+                for (Banknote banknote : BANKNOTES) {
+                    atm.deposit(banknote, atm.getCapacity(banknote) / 2);
+                }
+                var users = new UserRegistry();
+                users.registerDemoUsers(config.users, Integer.MAX_VALUE / 2, Integer.MAX_VALUE);
+                if (config.journal != null) {
+                    journal = new Journal(config.journal, Duration.ofNanos(config.windowMicros * 1_000));
+                    atm.attachJournal(journal);
+                    Journal attached = journal;
+                    users.forEachUser(user -> user.attachJournal(attached));
+                }
+                var teller = new Teller(atm, users);
+                var accounts = new UserRegistry.Account[config.users];
+                for (int n = 1; n <= config.users; n++) {
+                    accounts[n - 1] = users.find(UserRegistry.demoCardNumber(n));
+                }
+                for (int t = 0; t < config.threads; t++) {
+                    terminals.add(new LocalTerminal(teller, accounts));
+                }
+            } else {
+                var address = new InetSocketAddress(config.host, config.port);
+                for (int t = 0; t < config.threads; t++) {
+                    terminals.add(new TcpTerminal(address, UserRegistry.demoCardNumber(t % config.users + 1)));
+                }
+            }
+            return drive(terminals);
+        } finally {
+            for (Terminal terminal : terminals) {
+                terminal.close();
+            }
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    private LoadReport drive(List<Terminal> terminals) throws InterruptedException {
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmupSeconds * 1_000_000_000L;
+        long measureTo = measureFrom + config.durationSeconds * 1_000_000_000L;
+        // Интервал между операциями одного терминала в открытом цикле
+        long interval = config.rate > 0 ? (long) (config.threads * 1e9 / config.rate) : 0;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < terminals.size(); t++) {
+            Terminal terminal = terminals.get(t);
+            long seed = t;
+            Runnable worker = () -> runTerminal(terminal, new SplittableRandom(seed), report,
+                    start, measureFrom, measureTo, interval);
+            workers.add(config.engine.equals("tcp")
+                    ? Thread.ofVirtual().name("load-" + t).start(worker)
+                    : Thread.ofPlatform().name("load-" + t).start(worker));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report.finish(config.durationSeconds);
+        return report;
+    }
+
+    private void runTerminal(Terminal terminal, SplittableRandom random, LoadReport report,
+                             long start, long measureFrom, long measureTo, long interval) {
+        // Терминалы начинают со сдвигом, чтобы открытый цикл не подавал операции залпами
+        long intended = start + (interval > 0 ? random.nextLong(interval) : 0);
+        while (true) {
+            if (interval > 0) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= measureTo) {
+                return;
+            }
+
+            Operation operation = pickOperation(random);
+            boolean accepted = true;
+            boolean failed = false;
+            try {
+                accepted = switch (operation) {
+                    case WITHDRAW -> terminal.withdraw(random, config.amounts[random.nextInt(config.amounts.length)]);
+                    case DEPOSIT -> terminal.deposit(random, BANKNOTES[random.nextInt(BANKNOTES.length)],
+                            1 + random.nextInt(3));
+                    case BALANCE -> terminal.balance(random);
+                    case STATUS -> terminal.status();
+                };
+            } catch (ATMException e) {
+                accepted = false;
+            } catch (Exception e) {
+                failed = true;
+            }
+            long finished = System.nanoTime();
+
+            if (intended >= measureFrom) {
+                report.record(operation, finished - intended);
+                if (failed) {
+                    report.error(operation);
+                } else if (!accepted) {
+                    report.reject(operation);
+                }
+            }
+            intended = interval > 0 ? intended + interval : finished;
+        }
+    }
+
+    private Operation pickOperation(SplittableRandom random) {
+        int pick = random.nextInt(cumulativeMix[cumulativeMix.length - 1]);
+        for (int i = 0; i < cumulativeMix.length; i++) {
+            if (pick < cumulativeMix[i]) {
+                return OPERATIONS[i];
+            }
+        }
+        return OPERATIONS[OPERATIONS.length - 1];
+    }
+
+    /**
+     * Терминал: выполняет операции и сообщает, приняты ли они
+     */
+    private interface Terminal {
+        boolean withdraw(SplittableRandom random, int amount) throws IOException;
+
+        boolean deposit(SplittableRandom random, Banknote banknote, int quantity) throws IOException;
+
+        boolean balance(SplittableRandom random) throws IOException;
+
+        boolean status() throws IOException;
+
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * Банкомат и счета в этом процессе, карта - случайная на каждую операцию
+     */
+    private static final class LocalTerminal implements Terminal {
+        private final Teller teller;
+        private final UserRegistry.Account[] accounts;
+
+        LocalTerminal(Teller teller, UserRegistry.Account[] accounts) {
+            this.teller = teller;
+            this.accounts = accounts;
+        }
+
+        @Override
+        public boolean withdraw(SplittableRandom random, int amount) {
+            return teller.withdraw(accounts[random.nextInt(accounts.length)], amount).isSuccess();
+        }
+
+        @Override
+        public boolean deposit(SplittableRandom random, Banknote banknote, int quantity) {
+            teller.deposit(accounts[random.nextInt(accounts.length)], banknote, quantity);
+            return true;
+        }
+
+        @Override
+        public boolean balance(SplittableRandom random) {
+            teller.balance(accounts[random.nextInt(accounts.length)]);
+            return true;
+        }
+
+        @Override
+        public boolean status() {
+            teller.getAtm().getBalance();
+            return true;
+        }
+    }
+
+    /**
+     * Сессия с сервером по одной карте
+     */
+    private static final class TcpTerminal implements Terminal {
+        private final SessionClient client;
+        private final int[] counts = new int[BANKNOTES.length];
+
+        TcpTerminal(InetSocketAddress address, String cardNumber) throws IOException {
+            this.client = new SessionClient(address);
+            try {
+                client.login(cardNumber);
+            } catch (IOException | RuntimeException e) {
+                client.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean withdraw(SplittableRandom random, int amount) throws IOException {
+            return client.withdraw(amount).isSuccess();
+        }
+
+        @Override
+        public boolean deposit(SplittableRandom random, Banknote banknote, int quantity) throws IOException {
+            client.deposit(banknote, quantity);
+            return true;
+        }
+
+        @Override
+        public boolean balance(SplittableRandom random) throws IOException {
+            client.balance();
+            return true;
+        }
+
+        @Override
+        public boolean status() throws IOException {
+            client.status(counts);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            client.close();
+        }
+    }
+}
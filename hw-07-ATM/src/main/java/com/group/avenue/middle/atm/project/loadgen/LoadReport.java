@@ -0,0 +1,143 @@
+package com.group.avenue.middle.atm.project.loadgen;
+
+import com.group.avenue.middle.atm.project.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Итоги прогона по типам операций: задержки, отказы и ошибки.
+ * <p>
+ * Отказ - штатный ответ «нельзя» (нет средств, ячейка полна, сумму не набрать),
+ * ошибка - исключение не из логики банкомата (обрыв соединения и т. п.).
+ * Задержка отказов тоже учитывается: клиент ждал ответа.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class LoadReport {
+    static final String CSV_HEADER = "label,engine,threads,rate,operation,count,rejected,errors,"
+            + "throughput_ops,mean_us,p50_us,p90_us,p99_us,p999_us,max_us";
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] rejected = new LongAdder[OPERATIONS.length];
+    private final LongAdder[] errors = new LongAdder[OPERATIONS.length];
+    private double seconds;
+
+    public LoadReport() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            rejected[i] = new LongAdder();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    void record(Operation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    void reject(Operation operation) {
+        rejected[operation.ordinal()].increment();
+    }
+
+    void error(Operation operation) {
+        errors[operation.ordinal()].increment();
+    }
+
+    void finish(double measuredSeconds) {
+        this.seconds = measuredSeconds;
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public long getRejected(Operation operation) {
+        return rejected[operation.ordinal()].sum();
+    }
+
+    public long getErrors(Operation operation) {
+        return errors[operation.ordinal()].sum();
+    }
+
+    /**
+     * Все операции вместе
+     */
+    public LatencyHistogram getTotalLatency() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram latency : latencies) {
+            total.add(latency);
+        }
+        return total;
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%-10s %10s %9s %7s %12s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "rejected", "errors", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Operation operation : OPERATIONS) {
+            if (latencies[operation.ordinal()].getCount() > 0) {
+                printRow(out, operation.label(), latencies[operation.ordinal()],
+                        getRejected(operation), getErrors(operation));
+            }
+        }
+        long totalRejected = 0;
+        long totalErrors = 0;
+        for (Operation operation : OPERATIONS) {
+            totalRejected += getRejected(operation);
+            totalErrors += getErrors(operation);
+        }
+        printRow(out, "all", getTotalLatency(), totalRejected, totalErrors);
+    }
+
+    private void printRow(PrintStream out, String name, LatencyHistogram latency, long rejectedCount, long errorCount) {
+        out.printf(Locale.ROOT, "%-10s %10d %9d %7d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                name, latency.getCount(), rejectedCount, errorCount, latency.getCount() / seconds,
+                micros(latency.getPercentile(50)), micros(latency.getPercentile(90)),
+                micros(latency.getPercentile(99)), micros(latency.getPercentile(99.9)), micros(latency.getMax()));
+    }
+
+    /**
+     * Дописать строки итога в CSV; заголовок пишется, только если файла еще нет.
+     * Строки разных прогонов с разными метками складываются в один файл для сравнения сборок.
+     */
+    public void appendCsv(Path path, LoadConfig config) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            csv.append(CSV_HEADER).append('\n');
+        }
+        for (Operation operation : OPERATIONS) {
+            if (latencies[operation.ordinal()].getCount() > 0) {
+                appendCsvRow(csv, config, operation.label(), latencies[operation.ordinal()],
+                        getRejected(operation), getErrors(operation));
+            }
+        }
+        long totalRejected = 0;
+        long totalErrors = 0;
+        for (Operation operation : OPERATIONS) {
+            totalRejected += getRejected(operation);
+            totalErrors += getErrors(operation);
+        }
+        appendCsvRow(csv, config, "all", getTotalLatency(), totalRejected, totalErrors);
+        Files.writeString(path, csv, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void appendCsvRow(StringBuilder csv, LoadConfig config, String name, LatencyHistogram latency,
+                              long rejectedCount, long errorCount) {
+        csv.append(String.format(Locale.ROOT, "%s,%s,%d,%.0f,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                config.label.replace(',', ';'), config.engine, config.threads, config.rate, name,
+                latency.getCount(), rejectedCount, errorCount, latency.getCount() / seconds,
+                latency.getMean() / 1_000, micros(latency.getPercentile(50)), micros(latency.getPercentile(90)),
+                micros(latency.getPercentile(99)), micros(latency.getPercentile(99.9)), micros(latency.getMax())));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
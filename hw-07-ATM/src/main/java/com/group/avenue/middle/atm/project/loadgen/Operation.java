@@ -0,0 +1,21 @@
+package com.group.avenue.middle.atm.project.loadgen;
+
+/**
+ * Операции, которые подает генератор нагрузки
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public enum Operation {
+    WITHDRAW,
+    DEPOSIT,
+    BALANCE,
+    STATUS;
+
+    /**
+     * Имя в параметрах и отчете: withdraw, deposit, ...
+     */
+    public String label() {
+        return name().toLowerCase();
+    }
+}
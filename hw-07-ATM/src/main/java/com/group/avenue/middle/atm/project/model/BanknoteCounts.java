@@ -0,0 +1,69 @@
+package com.group.avenue.middle.atm.project.model;
+
+/**
+ * Количества банкнот по номиналам, упакованные в один long.
+ * На каждый номинал 9 бит (до 511 банкнот), номинал с ordinal i занимает биты [9 * i, 9 * i + 9).
+ * Семь номиналов занимают 63 бита. Нужен, чтобы выдача не создавала Map и Integer.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public final class BanknoteCounts {
+    public static final int BITS = 9;
+    public static final int MAX_COUNT = (1 << BITS) - 1;
+    public static final long EMPTY = 0L;
+
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    private BanknoteCounts() {
+    }
+
+    /**
+     * Количество банкнот номинала
+     */
+    public static int count(long packed, Banknote banknote) {
+        return count(packed, banknote.ordinal());
+    }
+
+    public static int count(long packed, int ordinal) {
+        return (int) (packed >>> (ordinal * BITS)) & MAX_COUNT;
+    }
+
+    /**
+     * Те же количества, но у номинала count банкнот
+     * @throws IllegalArgumentException если count не помещается в 9 бит
+     */
+    public static long with(long packed, Banknote banknote, int count) {
+        return with(packed, banknote.ordinal(), count);
+    }
+
+    public static long with(long packed, int ordinal, int count) {
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("Количество банкнот должно быть от 0 до " + MAX_COUNT + ": " + count);
+        }
+        int shift = ordinal * BITS;
+        return (packed & ~((long) MAX_COUNT << shift)) | ((long) count << shift);
+    }
+
+    /**
+     * Сумма в рублях
+     */
+    public static int amount(long packed) {
+        int amount = 0;
+        for (Banknote banknote : BANKNOTES) {
+            amount += count(packed, banknote.ordinal()) * banknote.getValue();
+        }
+        return amount;
+    }
+
+    /**
+     * Общее количество банкнот
+     */
+    public static int total(long packed) {
+        int total = 0;
+        for (int i = 0; i < BANKNOTES.length; i++) {
+            total += count(packed, i);
+        }
+        return total;
+    }
+}
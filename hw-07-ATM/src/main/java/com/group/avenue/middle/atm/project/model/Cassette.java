@@ -1,18 +1,28 @@
 package com.group.avenue.middle.atm.project.model;
 
+import com.group.avenue.middle.atm.project.ATM;
 import com.group.avenue.middle.atm.project.exception.CassetteException;
 import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
 
 /**
  * Ячейка банкомата для хранения банкнот одного номинала.
+ * <p>
+ * Банкомат хранит количества и вместимости в массивах по ordinal номинала, а Cassette
+ * осталась тонким адаптером прежнего API: ячейка из {@link ATM#getCassette} читает и меняет
+ * эти массивы через банкомат (баланс, версия состояния и журнал остаются согласованными),
+ * отдельная ячейка из конструктора хранит количество сама.
  *
  * @author vladimir_shi
  * @since 29.12.2025
+ * @deprecated количества по номиналу - {@link ATM#getCount}, {@link ATM#getCapacity},
+ * {@link ATM#deposit(Banknote, int)} и {@link ATM#withdraw(Banknote, int)}
  */
+@Deprecated
 public class Cassette {
     private final Banknote banknote; // номинал банкнот в ячейке
-    private final int capacity; // максимальное количество банкнот
-    private int count; // текущее количество банкнот
+    private final ATM atm; // банкомат, чью ячейку показывает адаптер, null - отдельная ячейка
+    private final int capacity; // максимальное количество банкнот (отдельная ячейка)
+    private int count; // текущее количество банкнот (отдельная ячейка)
 
     public Cassette(Banknote banknote, int capacity) {
         this(banknote, capacity, 0);
@@ -27,10 +37,20 @@ public class Cassette {
         }
 
         this.banknote = banknote;
+        this.atm = null;
         this.capacity = capacity;
         this.count = initialCount;
     }
 
+    /**
+     * Ячейка номинала banknote в банкомате atm, см. {@link ATM#getCassette}
+     */
+    public Cassette(ATM atm, Banknote banknote) {
+        this.banknote = banknote;
+        this.atm = atm;
+        this.capacity = 0;
+    }
+
     // --- Основные операции ---
 
     /**
@@ -40,15 +60,14 @@ public class Cassette {
      * @throws CassetteException если превышена вместимость
      */
     public int deposit(int quantity) throws CassetteException {
+        if (atm != null) {
+            return atm.deposit(banknote, quantity);
+        }
         if (quantity < 0) {
             throw new InvalidAmountException("Количество не может быть отрицательным");
         }
 
-        int availableSpace = capacity - count;
-        if (quantity > availableSpace)
-            throw new CassetteException("""
-                    Невозможно добавить %d банкнот. Доступно места только для %d""".formatted(quantity, availableSpace));
-
+        ATM.checkCassetteSpace(quantity, capacity - count);
         count += quantity;
         return quantity;
     }
@@ -62,6 +81,10 @@ public class Cassette {
         if (quantity < 0) {
             throw new IllegalArgumentException("Количество не может быть отрицательным");
         }
+        if (atm != null) {
+            atm.withdraw(banknote, quantity);
+            return;
+        }
 
         int actualWithdrawn = Math.min(quantity, count);
         count -= actualWithdrawn;
@@ -74,27 +97,27 @@ public class Cassette {
     }
 
     public int getCapacity() {
-        return capacity;
+        return atm != null ? atm.getCapacity(banknote) : capacity;
     }
 
     public int getCount() {
-        return count;
+        return atm != null ? atm.getCount(banknote) : count;
     }
 
     /**
      * Получить текущую сумму в ячейке (в рублях)
      */
     public int getCurrentAmount() {
-        return count * banknote.getValue();
+        return getCount() * banknote.getValue();
     }
 
     public boolean isEmpty() {
-        return count == 0;
+        return getCount() == 0;
     }
 
     @Override
     public String toString() {
         return String.format("Ячейка: %d руб. (текущее: %d, макс: %d, сумма: %d руб.)",
-                banknote.getValue(), count, capacity, getCurrentAmount());
+                banknote.getValue(), getCount(), getCapacity(), getCurrentAmount());
     }
 }
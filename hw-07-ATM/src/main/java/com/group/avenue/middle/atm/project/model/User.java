@@ -2,21 +2,54 @@ package com.group.avenue.middle.atm.project.model;
 
 import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
 import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.journal.RecordType;
+import com.group.avenue.middle.atm.project.limit.CalendarDayWindow;
+import com.group.avenue.middle.atm.project.limit.DayClock;
+import com.group.avenue.middle.atm.project.limit.RollingWindow;
+import com.group.avenue.middle.atm.project.limit.WithdrawalWindow;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
 
 /**
- * Пользователь банкомата с лимитом средств
+ * Пользователь банкомата с лимитом средств.
+ * <p>
+ * Дневной лимит сбрасывается сам: снятое хранится в {@link WithdrawalWindow} с отметкой
+ * времени и перестает учитываться, когда период прошел - календарный день ({@link CalendarDayWindow},
+ * по умолчанию) или скользящие 24 часа ({@link RollingWindow}). {@link #resetDailyLimit()} нужен
+ * только для ручного сброса.
  *
  * @author vladimir_shi
  * @since 29.12.2025
  */
 public class User {
+    private static final DayClock SYSTEM_DAYS = DayClock.system();
+    private static final long MINUTE_MILLIS = 60_000;
+
     private final String name; // имя пользователя карты
     private final String cardNumber; // номер карты
     private int balance; // баланс в рублях
     private final int dailyLimit; // дневной лимит снятия
-    private int withdrawnToday; // уже снято сегодня
+    private final DayClock clock; // время операций
+    private final WithdrawalWindow withdrawn; // снятое за текущий период лимита
+    private final long journalSubject; // ключ пользователя в журнале
+    private Journal journal; // журнал операций, null - без журнала
 
     public User(String name, String cardNumber, int initialBalance, int dailyLimit) {
+        this(name, cardNumber, initialBalance, dailyLimit, SYSTEM_DAYS);
+    }
+
+    /**
+     * Лимит на календарный день по часам clock
+     */
+    public User(String name, String cardNumber, int initialBalance, int dailyLimit, DayClock clock) {
+        this(name, cardNumber, initialBalance, dailyLimit, clock, new CalendarDayWindow(clock));
+    }
+
+    /**
+     * @param withdrawn период лимита, например {@code new RollingWindow()} для скользящих 24 часов
+     */
+    public User(String name, String cardNumber, int initialBalance, int dailyLimit,
+                DayClock clock, WithdrawalWindow withdrawn) {
         if (initialBalance < 0) {
             throw new IllegalArgumentException("Баланс не может быть отрицательным");
         }
@@ -28,16 +61,27 @@ public class User {
         this.cardNumber = cardNumber;
         this.balance = initialBalance;
         this.dailyLimit = dailyLimit;
-        this.withdrawnToday = 0;
+        this.clock = clock;
+        this.withdrawn = withdrawn;
+        this.journalSubject = cardNumber != null ? Journal.subject(cardNumber) : 0;
     }
 
     public boolean canWithdraw(int amount) {
         return amount > 0 &&
                 amount <= balance &&
-                (withdrawnToday + amount) <= dailyLimit;
+                (getWithdrawnToday() + amount) <= dailyLimit;
     }
 
     public void withdraw(int amount) {
+        commit(RecordType.USER_WITHDRAW, prepareWithdraw(amount));
+    }
+
+    /**
+     * Проверить снятие, ничего не меняя. Затем {@link #commit}, или, если снятие пишется
+     * в журнал одной операцией вместе с выдачей банкомата, запись и {@link #apply}.
+     * @return полезная нагрузка записи USER_WITHDRAW
+     */
+    public long prepareWithdraw(int amount) {
         if (amount <= 0) {
             throw new InvalidAmountException("Сумма снятия должна быть положительной");
         }
@@ -46,22 +90,133 @@ public class User {
             throw new InsufficientFundsException("Недостаточно средств на счете");
         }
 
-        if ((withdrawnToday + amount) > dailyLimit) {
+        long now = clock.millis();
+        if ((withdrawn.getWithdrawn(now) + amount) > dailyLimit) {
             throw new InvalidAmountException("Превышен дневной лимит снятия");
         }
-        balance -= amount;
-        withdrawnToday += amount;
+        return withdrawalPayload(amount, now);
+    }
+
+    // Сумма в младших 32 битах, минута операции от эпохи - в старших: восстановление
+    // по журналу должно отнести снятие к тому же периоду лимита
+    private static long withdrawalPayload(int amount, long millis) {
+        return (millis / MINUTE_MILLIS) << 32 | (amount & 0xFFFF_FFFFL);
     }
 
     public void deposit(int amount) {
+        commit(RecordType.USER_DEPOSIT, prepareDeposit(amount));
+    }
+
+    /**
+     * Проверить пополнение, ничего не меняя, см. {@link #prepareWithdraw}
+     * @return полезная нагрузка записи USER_DEPOSIT
+     */
+    public long prepareDeposit(int amount) {
         if (amount <= 0) {
             throw new InvalidAmountException("Сумма пополнения должна быть положительной");
         }
-        balance += amount;
+        return amount;
+    }
+
+    /**
+     * Записать в журнал и применить операцию, проверенную {@link #prepareWithdraw} или {@link #prepareDeposit}
+     */
+    public void commit(RecordType type, long payload) {
+        if (type == RecordType.ATM_DEPOSIT || type == RecordType.ATM_WITHDRAW) {
+            throw new IllegalArgumentException("Запись банкомата, а не пользователя: " + type);
+        }
+        log(type, payload);
+        apply(type, payload);
     }
 
+    /**
+     * Обнулить снятое за текущий период вручную; в новый период лимит сбрасывается сам
+     */
     public void resetDailyLimit() {
-        withdrawnToday = 0;
+        log(RecordType.USER_RESET_DAILY_LIMIT, 0);
+        withdrawn.reset();
+    }
+
+    // --- Журнал ---
+
+    /**
+     * Записывать снятия, пополнения и сброс лимита в журнал до изменения баланса
+     * @param journal журнал или null, чтобы больше не писать
+     */
+    public void attachJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Восстановить баланс и снятое за день по журналу: применить все записи этой карты.
+     * Вызывать на старте, до операций и до {@link #attachJournal}.
+     * @return сколько записей применено
+     */
+    public long recover(Journal journal) {
+        return recover(journal, null);
+    }
+
+    /**
+     * Восстановить баланс и снятое за день по снимку и хвосту журнала после него
+     * @param snapshot последний снимок или null - весь журнал; если карты в снимке нет
+     *                 (например, она выпущена позже), тоже весь журнал
+     * @return сколько записей журнала применено
+     */
+    public long recover(Journal journal, StateSnapshot snapshot) {
+        long after = 0;
+        if (snapshot != null && restore(snapshot)) {
+            after = snapshot.getSequence();
+        }
+        long[] applied = new long[1];
+        journal.replay(after, (sequence, type, subject, payload) -> {
+            if (subject == journalSubject && apply(type, payload)) {
+                applied[0]++;
+            }
+        });
+        return applied[0];
+    }
+
+    /**
+     * Применить одну запись журнала этой карты, без записи в журнал.
+     * Нужен, когда журнал читается один раз на многих пользователей.
+     * @return false, если запись не о пользователе (например, о банкомате)
+     */
+    public boolean apply(RecordType type, long payload) {
+        switch (type) {
+            case USER_WITHDRAW -> {
+                long minute = payload >>> 32; // 0 - запись без времени, считаем ее текущей
+                balance -= (int) payload;
+                withdrawn.add(minute != 0 ? minute * MINUTE_MILLIS : clock.millis(), (int) payload);
+            }
+            case USER_DEPOSIT -> balance += (int) payload;
+            case USER_RESET_DAILY_LIMIT -> withdrawn.reset();
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Взять баланс и снятое за день из снимка. Лимит задается конструктором и не меняется.
+     * Время отдельных снятий в снимке не хранится: снятое относится к моменту создания снимка.
+     * @return false, если пользователя в снимке нет
+     */
+    public boolean restore(StateSnapshot snapshot) {
+        long record = snapshot.findUser(journalSubject);
+        if (record == StateSnapshot.NOT_FOUND) {
+            return false;
+        }
+        balance = snapshot.getUserBalance(record);
+        withdrawn.reset();
+        withdrawn.add(snapshot.getCreatedMillis(), snapshot.getUserWithdrawnToday(record));
+        return true;
+    }
+
+    private void log(RecordType type, long payload) {
+        if (journal != null) {
+            journal.append(type, journalSubject, payload);
+        }
     }
 
     // --- Геттеры ---
@@ -70,25 +225,39 @@ public class User {
         return name;
     }
 
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
     public int getBalance() {
         return balance;
     }
 
+    /**
+     * Ключ пользователя в журнале, см. {@link Journal#subject(String)}
+     */
+    public long getJournalSubject() {
+        return journalSubject;
+    }
+
     public int getDailyLimit() {
         return dailyLimit;
     }
 
+    /**
+     * Снято за текущий период лимита
+     */
     public int getWithdrawnToday() {
-        return withdrawnToday;
+        return withdrawn.getWithdrawn(clock.millis());
     }
 
     public int getAvailableToday() {
-        return dailyLimit - withdrawnToday;
+        return dailyLimit - getWithdrawnToday();
     }
 
     @Override
     public String toString() {
         return String.format("Пользователь: %s [%s], баланс: %d руб., лимит: %d/%d руб.",
-                name, cardNumber, balance, withdrawnToday, dailyLimit);
+                name, cardNumber, balance, getWithdrawnToday(), dailyLimit);
     }
 }
@@ -2,8 +2,7 @@ package com.group.avenue.middle.atm.project.model;
 
 import com.group.avenue.middle.atm.project.ATMUtils;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -13,30 +12,59 @@ import java.util.Map;
  * @since 29.12.2025
  */
 public class WithdrawalResult {
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
     private final boolean success;
-    private final Map<Banknote, Integer> banknotes;
+    private final long packedCounts; // количества по номиналам, см. BanknoteCounts
+    private final int[] counts; // по ordinal, только если количество не влезло в packedCounts
     private final String errorMessage;
     private final int requestedAmount;
     private final int actualAmount;
 
+    /**
+     * Успешный результат без промежуточных коллекций: единственная аллокация - сам объект
+     * @param packedCounts количества по номиналам, упакованные {@link BanknoteCounts}
+     */
+    public WithdrawalResult(int requestedAmount, long packedCounts) {
+        this.success = true;
+        this.requestedAmount = requestedAmount;
+        this.packedCounts = packedCounts;
+        this.counts = null;
+        this.errorMessage = null;
+        this.actualAmount = BanknoteCounts.amount(packedCounts);
+    }
+
     // Успешный результат
     public WithdrawalResult(int requestedAmount, Map<Banknote, Integer> banknotes) {
         this.success = true;
         this.requestedAmount = requestedAmount;
-        this.banknotes = new HashMap<>(banknotes);
         this.errorMessage = null;
 
-        // Вычисляем фактически выданную сумму
-        this.actualAmount = banknotes.entrySet().stream()
-                .mapToInt(entry -> entry.getKey().getValue() * entry.getValue())
-                .sum();
+        long packed = BanknoteCounts.EMPTY;
+        int[] byOrdinal = new int[BANKNOTES.length];
+        boolean fits = true;
+        int amount = 0;
+        for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
+            int count = entry.getValue();
+            byOrdinal[entry.getKey().ordinal()] = count;
+            amount += entry.getKey().getValue() * count;
+            if (count < 0 || count > BanknoteCounts.MAX_COUNT) {
+                fits = false;
+            } else {
+                packed = BanknoteCounts.with(packed, entry.getKey(), count);
+            }
+        }
+        this.packedCounts = fits ? packed : BanknoteCounts.EMPTY;
+        this.counts = fits ? null : byOrdinal;
+        this.actualAmount = amount;
     }
 
     // Неуспешный результат
     public WithdrawalResult(int requestedAmount, String errorMessage) {
         this.success = false;
         this.requestedAmount = requestedAmount;
-        this.banknotes = Collections.emptyMap();
+        this.packedCounts = BanknoteCounts.EMPTY;
+        this.counts = null;
         this.errorMessage = errorMessage;
         this.actualAmount = 0;
     }
@@ -55,23 +83,66 @@ public class WithdrawalResult {
         return actualAmount;
     }
 
+    /**
+     * Сколько выдано банкнот номинала
+     */
+    public int getCount(Banknote banknote) {
+        return counts != null ? counts[banknote.ordinal()] : BanknoteCounts.count(packedCounts, banknote);
+    }
+
+    /**
+     * Выданные банкноты (номинал -> количество) от крупных к мелким, без нулевых
+     */
+    public Map<Banknote, Integer> getBanknotes() {
+        Map<Banknote, Integer> banknotes = new LinkedHashMap<>();
+        for (int i = BANKNOTES.length - 1; i >= 0; i--) {
+            int count = getCount(BANKNOTES[i]);
+            if (count != 0) {
+                banknotes.put(BANKNOTES[i], count);
+            }
+        }
+        return banknotes;
+    }
+
     /**
      * Красивое форматирование выданных банкнот
      */
     public String formatBanknotes() {
-        return ATMUtils.formatBanknotesCompact(banknotes);
+        return appendBanknotes(new StringBuilder(128)).toString();
     }
 
-    @Override
-    public String toString() {
+    /**
+     * Дописать выданные банкноты от крупных к мелким ("нет", если ничего не выдано), без промежуточной мапы
+     */
+    public StringBuilder appendBanknotes(StringBuilder sb) {
+        int start = sb.length();
+        for (int i = BANKNOTES.length - 1; i >= 0; i--) {
+            int count = getCount(BANKNOTES[i]);
+            if (count > 0) {
+                if (sb.length() > start) {
+                    sb.append(", ");
+                }
+                ATMUtils.appendBanknoteCount(sb, BANKNOTES[i], count);
+            }
+        }
+        return sb.length() > start ? sb : sb.append("нет");
+    }
+
+    /**
+     * Дописать строку чека: "Выдано 6 850 руб.: ..." или "Ошибка выдачи ...: причина"
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
         if (success) {
-            return String.format("Выдано %s: %s",
-                    ATMUtils.formatAmount(actualAmount),
-                    formatBanknotes());
+            ATMUtils.appendAmount(sb.append("Выдано "), actualAmount).append(": ");
+            return appendBanknotes(sb);
         } else {
-            return String.format("Ошибка выдачи %s: %s",
-                    ATMUtils.formatAmount(requestedAmount),
-                    errorMessage);
+            ATMUtils.appendAmount(sb.append("Ошибка выдачи "), requestedAmount).append(": ");
+            return sb.append(errorMessage);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(128)).toString();
+    }
+}
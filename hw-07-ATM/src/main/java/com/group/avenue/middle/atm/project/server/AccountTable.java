@@ -0,0 +1,76 @@
+package com.group.avenue.middle.atm.project.server;
+
+import java.util.Arrays;
+
+/**
+ * Копия счетов в примитивных массивах: ключ карты, баланс, лимит и снятое за день.
+ * Заполняется {@link UserRegistry#copyTo} за короткую паузу операций, а снимок пишется
+ * из копии уже без блокировок. Массивы переиспользуются между снимками и только растут.
+ * Не потокобезопасна: один снимок за раз.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public final class AccountTable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] subjects = new long[INITIAL_CAPACITY];
+    private int[] balances = new int[INITIAL_CAPACITY];
+    private int[] dailyLimits = new int[INITIAL_CAPACITY];
+    private int[] withdrawn = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Очистить перед копированием, с местом хотя бы под expected счетов
+     */
+    void clear(int expected) {
+        size = 0;
+        if (subjects.length < expected) {
+            resize(expected);
+        }
+    }
+
+    void add(long subject, int balance, int dailyLimit, int withdrawnToday) {
+        if (size == subjects.length) {
+            // Карты, зарегистрированные во время копирования
+            resize(size + (size >> 1));
+        }
+        subjects[size] = subject;
+        balances[size] = balance;
+        dailyLimits[size] = dailyLimit;
+        withdrawn[size] = withdrawnToday;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        subjects = Arrays.copyOf(subjects, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+        dailyLimits = Arrays.copyOf(dailyLimits, capacity);
+        withdrawn = Arrays.copyOf(withdrawn, capacity);
+    }
+
+    // --- Геттеры ---
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ключ карты в журнале, см. {@link com.group.avenue.middle.atm.project.journal.Journal#subject(String)}
+     */
+    public long getSubject(int index) {
+        return subjects[index];
+    }
+
+    public int getBalance(int index) {
+        return balances[index];
+    }
+
+    public int getDailyLimit(int index) {
+        return dailyLimits[index];
+    }
+
+    public int getWithdrawnToday(int index) {
+        return withdrawn[index];
+    }
+}
@@ -0,0 +1,61 @@
+package com.group.avenue.middle.atm.project.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Двоичный протокол сессий банкомата поверх TCP, big-endian.
+ * <p>
+ * Каждое сообщение - кадр: int длина тела, затем тело не длиннее {@value #MAX_FRAME} байт.
+ * Запрос: byte операция, затем поля операции. Ответ: byte статус, при {@link #OK} -
+ * поля ответа, иначе строка с текстом ошибки. Строка - u16 длина и байты UTF-8.
+ * <pre>
+ * LOGIN    string cardNumber              -> int balance
+ * BALANCE                                 -> int balance, int withdrawnToday, int dailyLimit
+ * DEPOSIT  byte ordinal, int quantity     -> int balance
+ * WITHDRAW int amount                     -> long banknotes (BanknoteCounts), int balance
+ * STATUS                                  -> long atmBalance, int[7] counts по ordinal
+ * </pre>
+ * Все операции, кроме LOGIN и STATUS, требуют входа в сессии.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public final class Protocol {
+    public static final int MAX_FRAME = 1024;
+
+    // --- Операции ---
+    public static final byte LOGIN = 1;
+    public static final byte BALANCE = 2;
+    public static final byte DEPOSIT = 3;
+    public static final byte WITHDRAW = 4;
+    public static final byte STATUS = 5;
+
+    // --- Статусы ответа ---
+    public static final byte OK = 0;
+    public static final byte NOT_LOGGED_IN = 1;
+    public static final byte UNKNOWN_CARD = 2;
+    public static final byte INVALID_AMOUNT = 3;
+    public static final byte INSUFFICIENT_FUNDS = 4;
+    public static final byte CASSETTE = 5;
+    public static final byte CANNOT_DISPENSE = 6;
+    public static final byte BAD_REQUEST = 7;
+    public static final byte ERROR = 8;
+
+    private Protocol() {
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, Math.min(0xFFFF, buffer.remaining() - 2));
+        buffer.putShort((short) length).put(bytes, 0, length);
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,164 @@
+package com.group.avenue.middle.atm.project.server;
+
+import com.group.avenue.middle.atm.project.exception.ATMException;
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Терминал: клиент одной сессии {@link SessionServer}, блокирующий, один запрос за раз.
+ * <p>
+ * Ошибки сервера приходят теми же исключениями, что бросает банкомат
+ * ({@link InvalidAmountException}, {@link InsufficientFundsException}, {@link CassetteException},
+ * остальные - {@link ATMException}); невозможность набрать сумму - неуспешный
+ * {@link WithdrawalResult}, как у {@code ATM.withdraw}. Не потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class SessionClient implements AutoCloseable {
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ByteBuffer request = ByteBuffer.allocate(Protocol.MAX_FRAME);
+    private final ByteBuffer response = ByteBuffer.allocate(Protocol.MAX_FRAME);
+    private int withdrawnToday;
+    private int dailyLimit;
+
+    public SessionClient(InetSocketAddress address) throws IOException {
+        this.socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Вставить карту
+     * @return баланс счета
+     */
+    public int login(String cardNumber) throws IOException {
+        Protocol.putString(request.clear().put(Protocol.LOGIN), cardNumber);
+        call();
+        return response.getInt();
+    }
+
+    /**
+     * Баланс счета; снятое за день и лимит - в {@link #getWithdrawnToday()} и {@link #getDailyLimit()}
+     */
+    public int balance() throws IOException {
+        request.clear().put(Protocol.BALANCE);
+        call();
+        int balance = response.getInt();
+        withdrawnToday = response.getInt();
+        dailyLimit = response.getInt();
+        return balance;
+    }
+
+    /**
+     * Внести банкноты одного номинала
+     * @return новый баланс счета
+     */
+    public int deposit(Banknote banknote, int quantity) throws IOException {
+        request.clear().put(Protocol.DEPOSIT).put((byte) banknote.ordinal()).putInt(quantity);
+        call();
+        return response.getInt();
+    }
+
+    /**
+     * Снять наличные
+     * @return выданные банкноты или неуспешный результат, если сумму не набрать
+     */
+    public WithdrawalResult withdraw(int amount) throws IOException {
+        request.clear().put(Protocol.WITHDRAW).putInt(amount);
+        byte status = exchange();
+        if (status == Protocol.CANNOT_DISPENSE) {
+            return new WithdrawalResult(amount, Protocol.getString(response));
+        }
+        check(status);
+        long banknotes = response.getLong();
+        response.getInt(); // баланс после снятия
+        return new WithdrawalResult(amount, banknotes);
+    }
+
+    /**
+     * Состояние банкомата
+     * @param counts сюда записываются количества по ordinal номинала (длина не меньше 7)
+     * @return общий баланс банкомата
+     */
+    public long status(int[] counts) throws IOException {
+        request.clear().put(Protocol.STATUS);
+        call();
+        long balance = response.getLong();
+        for (int i = 0; i < BANKNOTES.length; i++) {
+            counts[i] = response.getInt();
+        }
+        return balance;
+    }
+
+    public int getWithdrawnToday() {
+        return withdrawnToday;
+    }
+
+    public int getDailyLimit() {
+        return dailyLimit;
+    }
+
+    private void call() throws IOException {
+        check(exchange());
+    }
+
+    /**
+     * Отправить запрос и прочитать ответ
+     * @return статус ответа, response стоит на первом поле после него
+     */
+    private byte exchange() throws IOException {
+        out.writeInt(request.position());
+        out.write(request.array(), 0, request.position());
+        out.flush();
+
+        int length = in.readInt();
+        if (length < 1 || length > Protocol.MAX_FRAME) {
+            throw new IOException("Недопустимая длина ответа: " + length);
+        }
+        response.clear().limit(length);
+        in.readFully(response.array(), 0, length);
+        return response.get();
+    }
+
+    private void check(byte status) {
+        if (status == Protocol.OK) {
+            return;
+        }
+        String message = Protocol.getString(response);
+        throw switch (status) {
+            case Protocol.INVALID_AMOUNT -> new InvalidAmountException(message);
+            case Protocol.INSUFFICIENT_FUNDS -> new InsufficientFundsException(message);
+            case Protocol.CASSETTE -> new CassetteException(message);
+            default -> new ATMException(message);
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
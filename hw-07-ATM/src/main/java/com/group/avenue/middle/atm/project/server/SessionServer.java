@@ -0,0 +1,291 @@
+package com.group.avenue.middle.atm.project.server;
+
+import com.group.avenue.middle.atm.project.ConcurrentATM;
+import com.group.avenue.middle.atm.project.exception.ATMException;
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.metrics.LatencyHistogram;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import com.group.avenue.middle.atm.project.model.User;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервер сессий банкомата: много терминалов одновременно по TCP, протокол {@link Protocol}.
+ * <p>
+ * Одно соединение - одна сессия на своем виртуальном потоке с обычным блокирующим вводом-выводом,
+ * так что тысячи сессий не требуют тысяч потоков ОС. Все сессии работают с одним
+ * {@link ConcurrentATM} и общим {@link UserRegistry} через {@link Teller}. Время обработки
+ * каждого запроса (от прочитанного кадра до отправленного ответа) пишется в {@link #getLatency()}.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class SessionServer implements AutoCloseable {
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    private static final int BACKLOG = 4096;
+
+    private final ConcurrentATM atm;
+    private final UserRegistry users;
+    private final Teller teller;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Set<Socket> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessionIds = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private volatile boolean closed;
+
+    public SessionServer(ConcurrentATM atm, UserRegistry users) {
+        this.atm = atm;
+        this.users = users;
+        this.teller = new Teller(atm, users);
+    }
+
+    /**
+     * Открыть порт и начать принимать соединения
+     * @param address адрес, порт 0 - любой свободный
+     * @return фактический порт
+     */
+    public synchronized int start(InetSocketAddress address) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Сервер уже запущен");
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(address, BACKLOG);
+        acceptor = Thread.ofPlatform().name("atm-session-acceptor").daemon().start(this::acceptLoop);
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sessions.add(socket);
+                Thread.ofVirtual()
+                        .name("atm-session-" + sessionIds.incrementAndGet())
+                        .start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Ошибка приема соединения: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            var session = new Session();
+            ByteBuffer request = ByteBuffer.allocate(Protocol.MAX_FRAME);
+            ByteBuffer response = ByteBuffer.allocate(Protocol.MAX_FRAME);
+
+            while (!closed) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return; // клиент закрыл соединение
+                }
+                if (length < 1 || length > Protocol.MAX_FRAME) {
+                    response.clear();
+                    error(response, Protocol.BAD_REQUEST, "Недопустимая длина кадра: " + length);
+                    send(out, response);
+                    return;
+                }
+                request.clear().limit(length);
+                in.readFully(request.array(), 0, length);
+
+                long start = System.nanoTime();
+                response.clear();
+                session.handle(request, response);
+                send(out, response);
+                latency.record(System.nanoTime() - start);
+                requests.incrementAndGet();
+            }
+        } catch (SocketException | EOFException e) {
+            // соединение оборвано
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Ошибка сессии: " + e.getMessage());
+            }
+        } finally {
+            sessions.remove(socket);
+        }
+    }
+
+    private static void send(DataOutputStream out, ByteBuffer response) throws IOException {
+        out.writeInt(response.position());
+        out.write(response.array(), 0, response.position());
+        out.flush();
+    }
+
+    private static void error(ByteBuffer response, byte status, String message) {
+        response.put(status);
+        Protocol.putString(response, message != null ? message : "Ошибка");
+    }
+
+    /**
+     * Состояние одного соединения: вошедший пользователь
+     */
+    private final class Session {
+        private UserRegistry.Account account;
+
+        void handle(ByteBuffer request, ByteBuffer response) {
+            try {
+                byte operation = request.get();
+                if (operation != Protocol.LOGIN && operation != Protocol.STATUS && account == null) {
+                    error(response, Protocol.NOT_LOGGED_IN, "Сначала вставьте карту");
+                    return;
+                }
+                switch (operation) {
+                    case Protocol.LOGIN -> login(Protocol.getString(request), response);
+                    case Protocol.BALANCE -> balance(response);
+                    case Protocol.DEPOSIT -> deposit(request.get(), request.getInt(), response);
+                    case Protocol.WITHDRAW -> withdraw(request.getInt(), response);
+                    case Protocol.STATUS -> status(response);
+                    default -> error(response, Protocol.BAD_REQUEST, "Неизвестная операция: " + operation);
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                response.clear();
+                error(response, Protocol.BAD_REQUEST, "Запрос короче, чем требует операция");
+            } catch (InvalidAmountException e) {
+                response.clear();
+                error(response, Protocol.INVALID_AMOUNT, e.getMessage());
+            } catch (InsufficientFundsException e) {
+                response.clear();
+                error(response, Protocol.INSUFFICIENT_FUNDS, e.getMessage());
+            } catch (CassetteException e) {
+                response.clear();
+                error(response, Protocol.CASSETTE, e.getMessage());
+            } catch (ATMException | IllegalArgumentException e) {
+                response.clear();
+                error(response, Protocol.ERROR, e.getMessage());
+            }
+        }
+
+        private void login(String cardNumber, ByteBuffer response) {
+            UserRegistry.Account found = users.find(cardNumber);
+            if (found == null) {
+                error(response, Protocol.UNKNOWN_CARD, "Карта не найдена");
+                return;
+            }
+            account = found;
+            found.lock();
+            try {
+                response.put(Protocol.OK).putInt(found.getUser().getBalance());
+            } finally {
+                found.unlock();
+            }
+        }
+
+        private void balance(ByteBuffer response) {
+            account.lock();
+            try {
+                User user = account.getUser();
+                response.put(Protocol.OK)
+                        .putInt(user.getBalance())
+                        .putInt(user.getWithdrawnToday())
+                        .putInt(user.getDailyLimit());
+            } finally {
+                account.unlock();
+            }
+        }
+
+        private void deposit(int ordinal, int quantity, ByteBuffer response) {
+            if (ordinal < 0 || ordinal >= BANKNOTES.length) {
+                error(response, Protocol.BAD_REQUEST, "Неизвестный номинал: " + ordinal);
+                return;
+            }
+            int balance = teller.deposit(account, BANKNOTES[ordinal], quantity);
+            response.put(Protocol.OK).putInt(balance);
+        }
+
+        private void withdraw(int amount, ByteBuffer response) {
+            WithdrawalResult result = teller.withdraw(account, amount);
+            if (!result.isSuccess()) {
+                error(response, Protocol.CANNOT_DISPENSE, result.getErrorMessage());
+                return;
+            }
+            long banknotes = BanknoteCounts.EMPTY;
+            for (Banknote banknote : BANKNOTES) {
+                banknotes = BanknoteCounts.with(banknotes, banknote, result.getCount(banknote));
+            }
+            response.put(Protocol.OK).putLong(banknotes).putInt(teller.balance(account));
+        }
+
+        private void status(ByteBuffer response) {
+            response.put(Protocol.OK).putLong(atm.getBalance());
+            for (Banknote banknote : BANKNOTES) {
+                response.putInt(atm.getCount(banknote));
+            }
+        }
+    }
+
+    // --- Геттеры ---
+
+    /**
+     * Время обработки запросов в наносекундах
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Перестать принимать соединения и закрыть все сессии
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket socket : sessions) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // сессия уже закрыта
+            }
+        }
+        if (acceptor != null) {
+            try {
+                acceptor.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
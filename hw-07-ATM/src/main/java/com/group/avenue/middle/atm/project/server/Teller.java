@@ -0,0 +1,83 @@
+package com.group.avenue.middle.atm.project.server;
+
+import com.group.avenue.middle.atm.project.ATM;
+import com.group.avenue.middle.atm.project.ConcurrentATM;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.User;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+
+/**
+ * Операции со счетом и банкоматом вместе: внесение зачисляет на счет, снятие списывает.
+ * Общий для всех сессий, потокобезопасен: операции одной карты идут под ее блокировкой,
+ * банкомат сам lock-free. Операция со счетом идет внутри операции банкомата и пишется
+ * в журнал вместе с ней одной операцией: банкноты не остаются в банкомате без зачисления
+ * и не уходят без списания ни в памяти, ни после восстановления по журналу.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class Teller {
+    private final ConcurrentATM atm;
+    private final UserRegistry users;
+
+    public Teller(ConcurrentATM atm, UserRegistry users) {
+        this.atm = atm;
+        this.users = users;
+    }
+
+    /**
+     * Внести банкноты одного номинала и зачислить их на счет.
+     * Если зачисление не удалось, банкноты в банкомат не принимаются.
+     * @return новый баланс счета
+     */
+    public int deposit(UserRegistry.Account account, Banknote banknote, int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidAmountException("Количество банкнот должно быть положительным");
+        }
+        account.lock();
+        try {
+            User user = account.getUser();
+            atm.deposit(banknote, quantity, user);
+            return user.getBalance();
+        } finally {
+            account.unlock();
+        }
+    }
+
+    /**
+     * Снять наличные со счета. Счет и дневной лимит проверяются до выдачи:
+     * выданные банкноты уже не вернуть. Списание пишется в журнал вместе с выдачей,
+     * пока банкноты в резерве банкомата; если запись не удалась, они возвращаются в ячейки.
+     * @return результат выдачи; неуспешный, если банкомат не может набрать сумму
+     */
+    public WithdrawalResult withdraw(UserRegistry.Account account, int amount) {
+        ATM.checkWithdrawalAmount(amount, atm.getMinBanknoteValue(), atm.getMaxWithdrawalAmount());
+        account.lock();
+        try {
+            return atm.withdraw(amount, account.getUser());
+        } finally {
+            account.unlock();
+        }
+    }
+
+    /**
+     * Баланс счета
+     */
+    public int balance(UserRegistry.Account account) {
+        account.lock();
+        try {
+            return account.getUser().getBalance();
+        } finally {
+            account.unlock();
+        }
+    }
+
+    public ConcurrentATM getAtm() {
+        return atm;
+    }
+
+    public UserRegistry getUsers() {
+        return users;
+    }
+}
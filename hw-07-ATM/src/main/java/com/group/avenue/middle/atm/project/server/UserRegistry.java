@@ -0,0 +1,170 @@
+package com.group.avenue.middle.atm.project.server;
+
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.User;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Пользователи по номеру карты, общие для всех сессий сервера.
+ * <p>
+ * User не потокобезопасен, поэтому к каждому пользователю приложена своя блокировка:
+ * операции одной карты из разных сессий идут по очереди, разных карт - параллельно.
+ * ReentrantLock, а не synchronized: сессии работают на виртуальных потоках, и ожидание
+ * записи журнала под synchronized держало бы поток-носитель.
+ * <p>
+ * Блокировка карты берется вместе с общим чтением {@code operations}; снимку нужна копия
+ * счетов, согласованная с журналом, и {@link #copyTo} берет его запись - одну блокировку
+ * вместо блокировок всех карт. Пауза длится только копирование полей в массивы.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class UserRegistry {
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    // Чтение - операция одной карты, запись - согласованная копия всех счетов
+    private final ReentrantReadWriteLock operations = new ReentrantReadWriteLock();
+
+    /**
+     * @throws IllegalArgumentException если карта уже зарегистрирована
+     */
+    public void register(User user) {
+        if (accounts.putIfAbsent(user.getCardNumber(), new Account(user, operations.readLock())) != null) {
+            throw new IllegalArgumentException("Карта " + user.getCardNumber() + " уже зарегистрирована");
+        }
+    }
+
+    /**
+     * Зарегистрировать count демонстрационных карт {@link #demoCardNumber} с 1 по count
+     */
+    public void registerDemoUsers(int count, int balance, int dailyLimit) {
+        for (int n = 1; n <= count; n++) {
+            register(new User("Клиент " + n, demoCardNumber(n), balance, dailyLimit));
+        }
+    }
+
+    /**
+     * Номер n-й демонстрационной карты: 0000-0000-0000-0001, 0000-0000-0000-0002, ...
+     */
+    public static String demoCardNumber(int n) {
+        return String.format("0000-0000-%04d-%04d", n / 10_000 % 10_000, n % 10_000);
+    }
+
+    /**
+     * Счет по номеру карты или null
+     */
+    public Account find(String cardNumber) {
+        return accounts.get(cardNumber);
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Обойти всех пользователей, например чтобы подключить журнал до начала работы
+     */
+    public void forEachUser(Consumer<User> action) {
+        for (Account account : accounts.values()) {
+            action.accept(account.user);
+        }
+    }
+
+    /**
+     * Восстановить всех пользователей по журналу за один проход: записи раздаются по ключу карты.
+     * Вызывать на старте, до операций и до подключения журнала к пользователям.
+     * @return сколько записей применено
+     */
+    public long recover(Journal journal) {
+        return recover(journal, null);
+    }
+
+    /**
+     * Восстановить пользователей по снимку и журналу за один проход. Карты из снимка получают
+     * хвост журнала после него, карты, которых в снимке нет, - весь журнал.
+     * @param snapshot последний снимок или null - весь журнал
+     * @return сколько записей применено
+     */
+    public long recover(Journal journal, StateSnapshot snapshot) {
+        long after = snapshot != null ? snapshot.getSequence() : 0;
+        Map<Long, User> restored = new HashMap<>(); // применять записи после снимка
+        Map<Long, User> missing = new HashMap<>(); // применять все записи
+        for (Account account : accounts.values()) {
+            long subject = Journal.subject(account.user.getCardNumber());
+            if (snapshot != null && account.user.restore(snapshot)) {
+                restored.put(subject, account.user);
+            } else {
+                missing.put(subject, account.user);
+            }
+        }
+        long[] applied = new long[1];
+        journal.replay(missing.isEmpty() ? after : 0, (sequence, type, subject, payload) -> {
+            User user = sequence > after ? restored.get(subject) : null;
+            if (user == null) {
+                user = missing.get(subject);
+            }
+            if (user != null && user.apply(type, payload)) {
+                applied[0]++;
+            }
+        });
+        return applied[0];
+    }
+
+    /**
+     * Скопировать все счета в table, пока ни одна операция карты не идет: счета и банкомат
+     * согласованы с журналом (например, для снимка). Новые операции ждут конца копирования,
+     * поэтому в паузе только чтение полей - запись снимка идет после нее.
+     * @param during выполняется в той же паузе, например чтение банкомата и номера записи журнала
+     */
+    public void copyTo(AccountTable table, Runnable during) {
+        operations.writeLock().lock();
+        try {
+            table.clear(accounts.size());
+            for (Account account : accounts.values()) {
+                User user = account.user;
+                table.add(user.getJournalSubject(), user.getBalance(), user.getDailyLimit(), user.getWithdrawnToday());
+            }
+            during.run();
+        } finally {
+            operations.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пользователь и его блокировка
+     */
+    public static final class Account {
+        private final User user;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Lock operations; // общее чтение реестра, см. copyTo
+
+        Account(User user, Lock operations) {
+            this.user = user;
+            this.operations = operations;
+        }
+
+        /**
+         * Пользователь; читать и менять только под {@link #lock()}
+         */
+        public User getUser() {
+            return user;
+        }
+
+        public void lock() {
+            operations.lock();
+            lock.lock();
+        }
+
+        public void unlock() {
+            lock.unlock();
+            operations.unlock();
+        }
+    }
+}
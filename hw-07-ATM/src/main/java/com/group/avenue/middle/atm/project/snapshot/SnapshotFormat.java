@@ -0,0 +1,108 @@
+package com.group.avenue.middle.atm.project.snapshot;
+
+import com.group.avenue.middle.atm.project.model.Banknote;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный формат файла снимка, little-endian.
+ * <pre>
+ * Заголовок, 64 байта:
+ * 0  long MAGIC          8  int FORMAT         12 int atmSlots
+ * 16 long sequence       24 int atmCount       28 int userSlots
+ * 32 int userCount       40 long createdMillis
+ * 48 int bodyCrc         CRC32C байтов [64, конец файла)
+ * 52 int headerCrc       CRC32C байтов [0, 52)
+ *
+ * Банкоматы, atmSlots записей по 40 байт:
+ * 0 long subject, 8 int[7] количества по ordinal номинала
+ *
+ * Пользователи, хеш-таблица на userSlots (степень двойки) записей по 24 байта:
+ * 0 long subject, 8 int balance, 12 int dailyLimit, 16 int withdrawnToday, 20 int flags (1 - занято)
+ * </pre>
+ * Пользователь ищется линейным пробированием от {@link #slot}, поэтому чтение одной записи
+ * не требует разбора остального файла.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+final class SnapshotFormat {
+    static final long MAGIC = 0x3150414E534D5441L; // "ATMSNAP1"
+    static final int FORMAT = 1;
+    static final int HEADER_SIZE = 64;
+    static final int ATM_SIZE = 40;
+    static final int USER_SIZE = 24;
+    static final int OCCUPIED = 1;
+    static final int BANKNOTES = Banknote.values().length;
+
+    static final long MAGIC_OFFSET = 0;
+    static final long FORMAT_OFFSET = 8;
+    static final long ATM_SLOTS_OFFSET = 12;
+    static final long SEQUENCE_OFFSET = 16;
+    static final long ATM_COUNT_OFFSET = 24;
+    static final long USER_SLOTS_OFFSET = 28;
+    static final long USER_COUNT_OFFSET = 32;
+    static final long CREATED_OFFSET = 40;
+    static final long BODY_CRC_OFFSET = 48;
+    static final long HEADER_CRC_OFFSET = 52;
+
+    static final long USER_BALANCE = 8;
+    static final long USER_DAILY_LIMIT = 12;
+    static final long USER_WITHDRAWN = 16;
+    static final long USER_FLAGS = 20;
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    static final String PREFIX = "snapshot-";
+    static final String SUFFIX = ".snap";
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * Число слотов таблицы пользователей: степень двойки, заполнение не выше 3/4
+     */
+    static int userSlots(int expectedUsers) {
+        long needed = Math.max(16, (long) expectedUsers * 4 / 3 + 1);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Слишком много пользователей: " + expectedUsers);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    static long usersOffset(int atmSlots) {
+        return HEADER_SIZE + (long) atmSlots * ATM_SIZE;
+    }
+
+    static long fileSize(int atmSlots, int userSlots) {
+        return usersOffset(atmSlots) + (long) userSlots * USER_SIZE;
+    }
+
+    /**
+     * Начальный слот ключа: ключи - FNV-хеши, перемешиваем старшие биты в младшие
+     */
+    static int slot(long subject, int mask) {
+        long h = subject * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * CRC32C участка. Буферы общих (shared) отображений CRC32C не принимает,
+     * поэтому данные идут через небольшой массив в куче.
+     */
+    static int crc(MemorySegment segment, long offset, long length) {
+        CRC32C crc = new CRC32C();
+        byte[] chunk = new byte[64 * 1024];
+        for (long position = offset; position < offset + length; ) {
+            int n = (int) Math.min(chunk.length, offset + length - position);
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, chunk, 0, n);
+            crc.update(chunk, 0, n);
+            position += n;
+        }
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,140 @@
+package com.group.avenue.middle.atm.project.snapshot;
+
+import com.group.avenue.middle.atm.project.ATM;
+import com.group.avenue.middle.atm.project.exception.SnapshotException;
+import com.group.avenue.middle.atm.project.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.group.avenue.middle.atm.project.snapshot.SnapshotFormat.PREFIX;
+import static com.group.avenue.middle.atm.project.snapshot.SnapshotFormat.SUFFIX;
+
+/**
+ * Каталог снимков состояния: snapshot-&lt;номер записи журнала&gt;.snap.
+ * <p>
+ * Снимок делается периодически, между операциями: он должен соответствовать журналу ровно
+ * по переданный номер записи. После публикации нового снимка старые сверх retain удаляются.
+ * На старте {@link #latest()} отдает самый свежий целый снимок, поврежденные пропускаются,
+ * затем банкоматы и пользователи восстанавливаются снимком и хвостом журнала после него.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class SnapshotStore {
+    public static final int DEFAULT_RETAIN = 2;
+
+    private final Path directory;
+    private final int retain;
+
+    public SnapshotStore(Path directory) {
+        this(directory, DEFAULT_RETAIN);
+    }
+
+    /**
+     * @param retain сколько последних снимков хранить, не меньше 1
+     */
+    public SnapshotStore(Path directory, int retain) {
+        if (retain < 1) {
+            throw new IllegalArgumentException("Нужно хранить хотя бы один снимок");
+        }
+        this.directory = directory;
+        this.retain = retain;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new SnapshotException("Не удалось создать каталог снимков " + directory, e);
+        }
+    }
+
+    /**
+     * Начать снимок
+     * @param sequence номер последней записи журнала, учтенной в состоянии
+     * @param atms сколько банкоматов будет добавлено (не больше)
+     * @param expectedUsers сколько пользователей ожидается, по нему выбирается размер таблицы
+     */
+    public SnapshotWriter begin(long sequence, int atms, int expectedUsers) {
+        return new SnapshotWriter(this, sequence, atms, expectedUsers);
+    }
+
+    /**
+     * Снимок банкоматов и пользователей одним вызовом
+     * @return путь к снимку
+     */
+    public Path write(long sequence, Collection<ATM> atms, Collection<User> users) {
+        try (SnapshotWriter writer = begin(sequence, atms.size(), users.size())) {
+            for (ATM atm : atms) {
+                writer.addAtm(atm);
+            }
+            for (User user : users) {
+                writer.addUser(user);
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * Самый свежий целый снимок или null, если целых снимков нет
+     */
+    public StateSnapshot latest() {
+        for (Path path : snapshots()) {
+            try {
+                return StateSnapshot.open(path);
+            } catch (SnapshotException e) {
+                System.err.println("Снимок пропущен: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    Path pathFor(long sequence) {
+        return directory.resolve(PREFIX + String.format("%019d", sequence) + SUFFIX);
+    }
+
+    /**
+     * Удалить снимки старше опубликованного, оставив вместе с ним retain штук
+     */
+    void published(Path path) {
+        int kept = 0;
+        for (Path snapshot : snapshots()) {
+            if (snapshot.getFileName().toString().compareTo(path.getFileName().toString()) > 0) {
+                continue;
+            }
+            if (++kept > retain) {
+                try {
+                    Files.deleteIfExists(snapshot);
+                } catch (IOException e) {
+                    System.err.println("Не удалось удалить старый снимок " + snapshot + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Снимки каталога от нового к старому
+     */
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> snapshots = new ArrayList<>();
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).forEach(snapshots::add);
+            // Номер дополнен нулями до 19 цифр, поэтому порядок имен - порядок номеров
+            snapshots.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+            return snapshots;
+        } catch (IOException e) {
+            throw new SnapshotException("Не удалось прочитать каталог снимков " + directory, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,190 @@
+package com.group.avenue.middle.atm.project.snapshot;
+
+import com.group.avenue.middle.atm.project.ATM;
+import com.group.avenue.middle.atm.project.ConcurrentATM;
+import com.group.avenue.middle.atm.project.exception.SnapshotException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import com.group.avenue.middle.atm.project.model.User;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.group.avenue.middle.atm.project.snapshot.SnapshotFormat.*;
+
+/**
+ * Запись одного снимка прямо в отображенный в память файл.
+ * <p>
+ * Пишется во временный файл; {@link #commit} считает контрольные суммы, сбрасывает страницы
+ * на диск и атомарно переименовывает файл, так что снимок либо целый, либо его нет.
+ * Закрытие без commit удаляет временный файл. Не потокобезопасен.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class SnapshotWriter implements AutoCloseable {
+    private static final Banknote[] BANKNOTES_BY_ORDINAL = Banknote.values();
+
+    private final SnapshotStore store;
+    private final long sequence;
+    private final Path temporary;
+    private final Path target;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int atmSlots;
+    private final int userMask;
+    private final long usersOffset;
+    private int atmCount;
+    private int userCount;
+    private boolean finished;
+
+    SnapshotWriter(SnapshotStore store, long sequence, int atmSlots, int expectedUsers) {
+        if (sequence < 0) {
+            throw new IllegalArgumentException("Номер записи журнала не может быть отрицательным");
+        }
+        if (atmSlots < 0) {
+            throw new IllegalArgumentException("Число банкоматов не может быть отрицательным");
+        }
+        this.store = store;
+        this.sequence = sequence;
+        this.atmSlots = atmSlots;
+        int userSlots = userSlots(expectedUsers);
+        this.userMask = userSlots - 1;
+        this.usersOffset = usersOffset(atmSlots);
+        this.target = store.pathFor(sequence);
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+        this.arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(atmSlots, userSlots), arena);
+        } catch (IOException e) {
+            arena.close();
+            throw new SnapshotException("Не удалось создать снимок " + temporary, e);
+        }
+        segment.set(INT, ATM_SLOTS_OFFSET, atmSlots);
+        segment.set(INT, USER_SLOTS_OFFSET, userSlots);
+    }
+
+    // --- Банкоматы ---
+
+    public SnapshotWriter addAtm(ATM atm) {
+        long offset = nextAtm(atm.getId());
+        for (Banknote banknote : BANKNOTES_BY_ORDINAL) {
+            segment.set(INT, offset + 8 + 4L * banknote.ordinal(), atm.getCount(banknote));
+        }
+        return this;
+    }
+
+    public SnapshotWriter addAtm(ConcurrentATM atm) {
+        return addAtm(atm.getId(), atm.getCounts());
+    }
+
+    /**
+     * Банкомат по количествам, упакованным {@link BanknoteCounts} (например, прочитанным в паузе операций)
+     */
+    public SnapshotWriter addAtm(String id, long counts) {
+        long offset = nextAtm(id);
+        for (Banknote banknote : BANKNOTES_BY_ORDINAL) {
+            segment.set(INT, offset + 8 + 4L * banknote.ordinal(), BanknoteCounts.count(counts, banknote));
+        }
+        return this;
+    }
+
+    private long nextAtm(String id) {
+        if (atmCount == atmSlots) {
+            throw new IllegalStateException("В снимке место только для " + atmSlots + " банкоматов");
+        }
+        long offset = HEADER_SIZE + (long) atmCount++ * ATM_SIZE;
+        segment.set(LONG, offset, Journal.subject(id));
+        return offset;
+    }
+
+    // --- Пользователи ---
+
+    public SnapshotWriter addUser(User user) {
+        return addUser(Journal.subject(user.getCardNumber()),
+                user.getBalance(), user.getDailyLimit(), user.getWithdrawnToday());
+    }
+
+    /**
+     * Пользователь по ключу карты, без объекта User (для реестров счетов)
+     */
+    public SnapshotWriter addUser(long subject, int balance, int dailyLimit, int withdrawnToday) {
+        int slot = slot(subject, userMask);
+        while (true) {
+            long offset = usersOffset + (long) slot * USER_SIZE;
+            if (segment.get(INT, offset + USER_FLAGS) != OCCUPIED) {
+                // Заполнение не выше 3/4, как у userSlots: пробы остаются короткими,
+                // а в таблице всегда есть пустой слот, на котором поиск останавливается
+                if ((userCount + 1L) * 4 > (userMask + 1L) * 3) {
+                    throw new IllegalStateException("Таблица пользователей снимка заполнена на 3/4: "
+                            + userCount + " из " + (userMask + 1) + " слотов, нужно больше expectedUsers");
+                }
+                segment.set(LONG, offset, subject);
+                segment.set(INT, offset + USER_FLAGS, OCCUPIED);
+                userCount++;
+            } else if (segment.get(LONG, offset) != subject) {
+                slot = (slot + 1) & userMask;
+                continue;
+            }
+            segment.set(INT, offset + USER_BALANCE, balance);
+            segment.set(INT, offset + USER_DAILY_LIMIT, dailyLimit);
+            segment.set(INT, offset + USER_WITHDRAWN, withdrawnToday);
+            return this;
+        }
+    }
+
+    /**
+     * Дописать заголовок, сбросить на диск и опубликовать снимок
+     * @return путь к готовому снимку
+     */
+    public Path commit() {
+        if (finished) {
+            throw new IllegalStateException("Снимок уже записан или отменен");
+        }
+        segment.set(LONG, MAGIC_OFFSET, MAGIC);
+        segment.set(INT, FORMAT_OFFSET, FORMAT);
+        segment.set(LONG, SEQUENCE_OFFSET, sequence);
+        segment.set(INT, ATM_COUNT_OFFSET, atmCount);
+        segment.set(INT, USER_COUNT_OFFSET, userCount);
+        segment.set(LONG, CREATED_OFFSET, System.currentTimeMillis());
+        segment.set(INT, BODY_CRC_OFFSET, crc(segment, HEADER_SIZE, segment.byteSize() - HEADER_SIZE));
+        segment.set(INT, HEADER_CRC_OFFSET, crc(segment, 0, HEADER_CRC_OFFSET));
+        segment.force();
+        finished = true;
+        arena.close();
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new SnapshotException("Не удалось опубликовать снимок " + target, e);
+        }
+        store.published(target);
+        return target;
+    }
+
+    /**
+     * Без commit - отменить снимок и удалить временный файл
+     */
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        arena.close();
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            System.err.println("Не удалось удалить " + temporary + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.group.avenue.middle.atm.project.snapshot;
+
+import com.group.avenue.middle.atm.project.exception.SnapshotException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.group.avenue.middle.atm.project.snapshot.SnapshotFormat.*;
+
+/**
+ * Снимок состояния, отображенный в память только для чтения.
+ * <p>
+ * Открытие проверяет заголовок и контрольную сумму файла, но ничего не разбирает:
+ * записи читаются прямо из отображения по запросу, пользователь - через хеш-таблицу
+ * за O(1). Поэтому старт с миллионом счетов - это отображение файла и один проход CRC.
+ * Состояние снимка соответствует журналу по запись {@link #getSequence()} включительно,
+ * остальное восстанавливается хвостом журнала.
+ * <p>
+ * Закрытие освобождает отображение; после него читать нельзя. Чтение потокобезопасно.
+ *
+ * @author vladimir_shi
+ * @since 17.10.2026
+ */
+public class StateSnapshot implements AutoCloseable {
+    /**
+     * Записи в снимке нет
+     */
+    public static final int NOT_FOUND = -1;
+
+    private final Path path;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long sequence;
+    private final long createdMillis;
+    private final int atmCount;
+    private final int userCount;
+    private final int userMask;
+    private final long usersOffset;
+
+    /**
+     * Отобразить и проверить снимок
+     * @throws SnapshotException если файл не читается, поврежден или другого формата
+     */
+    public static StateSnapshot open(Path path) {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new SnapshotException("Снимок " + path + " короче заголовка");
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            StateSnapshot snapshot = new StateSnapshot(path, arena, segment);
+            arena = null; // теперь закрывает снимок
+            return snapshot;
+        } catch (IOException e) {
+            throw new SnapshotException("Не удалось открыть снимок " + path, e);
+        } finally {
+            if (arena != null) {
+                arena.close();
+            }
+        }
+    }
+
+    private StateSnapshot(Path path, Arena arena, MemorySegment segment) {
+        if (segment.get(LONG, MAGIC_OFFSET) != MAGIC || segment.get(INT, FORMAT_OFFSET) != FORMAT) {
+            throw new SnapshotException("Файл " + path + " не снимок банкомата или другой версии");
+        }
+        if (segment.get(INT, HEADER_CRC_OFFSET) != crc(segment, 0, HEADER_CRC_OFFSET)) {
+            throw new SnapshotException("Заголовок снимка " + path + " поврежден");
+        }
+        int atmSlots = segment.get(INT, ATM_SLOTS_OFFSET);
+        int userSlots = segment.get(INT, USER_SLOTS_OFFSET);
+        if (atmSlots < 0 || Integer.bitCount(userSlots) != 1
+                || segment.byteSize() != fileSize(atmSlots, userSlots)) {
+            throw new SnapshotException("Размер снимка " + path + " не совпадает с заголовком");
+        }
+        int users = segment.get(INT, USER_COUNT_OFFSET);
+        if (users < 0 || users * 4L > userSlots * 3L) {
+            throw new SnapshotException("Таблица пользователей снимка " + path + " заполнена больше чем на 3/4");
+        }
+        if (segment.get(INT, BODY_CRC_OFFSET) != crc(segment, HEADER_SIZE, segment.byteSize() - HEADER_SIZE)) {
+            throw new SnapshotException("Контрольная сумма снимка " + path + " не совпадает");
+        }
+
+        this.path = path;
+        this.arena = arena;
+        this.segment = segment;
+        this.sequence = segment.get(LONG, SEQUENCE_OFFSET);
+        this.createdMillis = segment.get(LONG, CREATED_OFFSET);
+        this.atmCount = segment.get(INT, ATM_COUNT_OFFSET);
+        this.userCount = users;
+        this.userMask = userSlots - 1;
+        this.usersOffset = usersOffset(atmSlots);
+    }
+
+    // --- Банкоматы ---
+
+    /**
+     * Индекс банкомата в снимке или {@link #NOT_FOUND}
+     */
+    public int findAtm(String id) {
+        long subject = Journal.subject(id);
+        for (int i = 0; i < atmCount; i++) {
+            if (segment.get(LONG, atmOffset(i)) == subject) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Количество банкнот номинала в банкомате с индексом atm
+     */
+    public int getAtmCount(int atm, Banknote banknote) {
+        return segment.get(INT, atmOffset(atm) + 8 + 4L * banknote.ordinal());
+    }
+
+    private long atmOffset(int atm) {
+        if (atm < 0 || atm >= atmCount) {
+            throw new IndexOutOfBoundsException("Нет банкомата с индексом " + atm);
+        }
+        return HEADER_SIZE + (long) atm * ATM_SIZE;
+    }
+
+    // --- Пользователи ---
+
+    /**
+     * Запись пользователя по номеру карты (ее смещение в файле) или {@link #NOT_FOUND}
+     */
+    public long findUser(String cardNumber) {
+        return findUser(Journal.subject(cardNumber));
+    }
+
+    /**
+     * Запись пользователя по ключу карты или {@link #NOT_FOUND}.
+     * Проб не больше числа слотов: даже в целиком занятой таблице поиск заканчивается.
+     */
+    public long findUser(long subject) {
+        int slot = slot(subject, userMask);
+        for (int probe = 0; probe <= userMask; probe++) {
+            long offset = usersOffset + (long) slot * USER_SIZE;
+            if (segment.get(INT, offset + USER_FLAGS) != OCCUPIED) {
+                return NOT_FOUND;
+            }
+            if (segment.get(LONG, offset) == subject) {
+                return offset;
+            }
+            slot = (slot + 1) & userMask;
+        }
+        return NOT_FOUND;
+    }
+
+    public int getUserBalance(long user) {
+        return segment.get(INT, user + USER_BALANCE);
+    }
+
+    public int getUserDailyLimit(long user) {
+        return segment.get(INT, user + USER_DAILY_LIMIT);
+    }
+
+    public int getUserWithdrawnToday(long user) {
+        return segment.get(INT, user + USER_WITHDRAWN);
+    }
+
+    // --- Геттеры ---
+
+    /**
+     * Номер последней записи журнала, учтенной в снимке
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public int getAtmCount() {
+        return atmCount;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,209 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.account.AccountRegistry;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Проверка AccountRegistry на миллионах счетов. Запускается задачей accountRegistryCheck (входит в check).
+ * <ul>
+ *     <li>память вне кучи на счет - не больше 40 байт, и при заранее заданном числе счетов,
+ *     и после роста таблиц с нуля;</li>
+ *     <li>чтение баланса по случайной карте - в среднем быстрее микросекунды;</li>
+ *     <li>деньги сохраняются, когда потоки снимают и пополняют одни и те же счета, а другие
+ *     в это же время регистрируют новые карты и таблицы шардов растут под читателями.</li>
+ * </ul>
+ * Аргумент - число счетов, по умолчанию 10 000 000.
+ */
+public class AccountRegistryCheck {
+    private static final double BYTES_PER_ACCOUNT_BUDGET = 40;
+    private static final double LOOKUP_NANOS_BUDGET = 1_000;
+    private static final int LOOKUPS = 5_000_000;
+    private static final int BALANCE = 1_000_000;
+    private static final int DAILY_LIMIT = 300_000;
+
+    private static final int HOT_ACCOUNTS = 64;
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int REGISTRARS = 2;
+    private static final int OPERATIONS = 100_000; // на поток
+    private static final int NEW_CARDS = 300_000; // на регистрирующий поток
+
+    public static void main(String[] args) throws InterruptedException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        List<String> failures = new ArrayList<>();
+
+        // Карты вразброс по 16-значному диапазону, как у настоящих номеров
+        long[] cards = new long[accounts];
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < accounts; i++) {
+            cards[i] = 4_000_0000_0000_0000L + i * 7_919L + random.nextInt(7_919);
+        }
+
+        var presized = new AccountRegistry(accounts);
+        long startNanos = System.nanoTime();
+        for (long card : cards) {
+            presized.register(card, BALANCE, DAILY_LIMIT);
+        }
+        long registerMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.printf(Locale.ROOT, "Регистрация %,d счетов: %d мс, шардов: %d%n",
+                accounts, registerMillis, presized.getShardCount());
+        checkFootprint("заданный размер", presized, accounts, failures);
+
+        long checksum = 0;
+        startNanos = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            checksum += presized.getBalance(cards[random.nextInt(accounts)]);
+        }
+        double lookupNanos = (double) (System.nanoTime() - startNanos) / LOOKUPS;
+        System.out.printf(Locale.ROOT, "Баланс по случайной карте: %.0f нс (контроль %d)%n", lookupNanos, checksum);
+        if (lookupNanos > LOOKUP_NANOS_BUDGET) {
+            failures.add(String.format(Locale.ROOT, "Чтение баланса %.0f нс, бюджет %.0f нс",
+                    lookupNanos, LOOKUP_NANOS_BUDGET));
+        }
+        if (checksum != (long) LOOKUPS * BALANCE) {
+            failures.add("Прочитаны не те балансы: " + checksum);
+        }
+        presized = null; // таблицы освобождает сборщик мусора
+
+        var grown = new AccountRegistry(0);
+        int grownAccounts = Math.min(accounts, 2_000_000);
+        for (int i = 0; i < grownAccounts; i++) {
+            grown.register(cards[i], BALANCE, DAILY_LIMIT);
+        }
+        checkFootprint("рост с нуля", grown, grownAccounts, failures);
+
+        checkConcurrent(failures);
+
+        if (failures.isEmpty()) {
+            System.out.println("Реестр счетов в бюджете памяти и времени, деньги сохраняются");
+            System.exit(0);
+        }
+        failures.stream().limit(20).forEach(System.out::println);
+        System.out.println("Нарушений: " + failures.size());
+        System.exit(1);
+    }
+
+    private static void checkFootprint(String name, AccountRegistry registry, long accounts, List<String> failures) {
+        if (registry.size() != accounts) {
+            failures.add(name + ": счетов " + registry.size() + ", ожидалось " + accounts);
+        }
+        double perAccount = (double) registry.getFootprintBytes() / accounts;
+        System.out.printf(Locale.ROOT, "%s: %,d счетов, %,d байт вне кучи, %.1f байт на счет%n",
+                name, accounts, registry.getFootprintBytes(), perAccount);
+        if (perAccount > BYTES_PER_ACCOUNT_BUDGET) {
+            failures.add(String.format(Locale.ROOT, "%s: %.1f байт на счет, бюджет %.0f",
+                    name, perAccount, BYTES_PER_ACCOUNT_BUDGET));
+        }
+    }
+
+    private static void checkConcurrent(List<String> failures) throws InterruptedException {
+        // Маленький начальный размер: регистрация новых карт заставляет шарды расти во время работы
+        var registry = new AccountRegistry(HOT_ACCOUNTS, 4);
+        for (int card = 1; card <= HOT_ACCOUNTS; card++) {
+            registry.register(card, BALANCE, Integer.MAX_VALUE);
+        }
+
+        var deposited = new AtomicLong();
+        var withdrawn = new AtomicLong();
+        var problems = new ConcurrentLinkedQueue<String>();
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(WRITERS + READERS + REGISTRARS);
+        List<Runnable> workers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            workers.add(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int op = 0; op < OPERATIONS; op++) {
+                    long card = 1 + random.nextInt(HOT_ACCOUNTS);
+                    int amount = 50 * (1 + random.nextInt(200));
+                    if (random.nextBoolean()) {
+                        registry.deposit(card, amount);
+                        deposited.addAndGet(amount);
+                    } else {
+                        try {
+                            registry.withdraw(card, amount);
+                            withdrawn.addAndGet(amount);
+                        } catch (InsufficientFundsException | InvalidAmountException e) {
+                            // отказ - деньги не списаны
+                        }
+                    }
+                }
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            workers.add(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int op = 0; op < OPERATIONS; op++) {
+                    long card = 1 + random.nextInt(HOT_ACCOUNTS);
+                    int balance = registry.getBalance(card);
+                    if (balance < 0) {
+                        problems.add("Отрицательный баланс карты " + card + ": " + balance);
+                    }
+                }
+            });
+        }
+        for (int g = 0; g < REGISTRARS; g++) {
+            long first = 1_000_000L * (g + 1);
+            workers.add(() -> {
+                for (int n = 0; n < NEW_CARDS; n++) {
+                    registry.register(first + n, BALANCE, DAILY_LIMIT);
+                    if (registry.getBalance(first + n) != BALANCE) {
+                        problems.add("Новая карта " + (first + n) + " прочитана неверно");
+                    }
+                }
+            });
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable worker : workers) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    worker.run();
+                } catch (Throwable e) {
+                    problems.add(Thread.currentThread().getName() + ": " + e);
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        long total = 0;
+        long withdrawnToday = 0;
+        for (int card = 1; card <= HOT_ACCOUNTS; card++) {
+            total += registry.getBalance(card);
+            withdrawnToday += registry.getWithdrawnToday(card);
+        }
+        long expected = (long) HOT_ACCOUNTS * BALANCE + deposited.get() - withdrawn.get();
+        if (total != expected) {
+            problems.add("Сумма балансов " + total + ", ожидалось " + expected);
+        }
+        if (withdrawnToday != withdrawn.get()) {
+            problems.add("Снято за день " + withdrawnToday + ", ожидалось " + withdrawn.get());
+        }
+        long expectedSize = HOT_ACCOUNTS + (long) REGISTRARS * NEW_CARDS;
+        if (registry.size() != expectedSize) {
+            problems.add("Счетов " + registry.size() + ", ожидалось " + expectedSize);
+        }
+        System.out.printf(Locale.ROOT, "Параллельно: %d пишущих, %d читающих, %d регистрирующих потоков, %d мс%n",
+                WRITERS, READERS, REGISTRARS, elapsedMillis);
+        failures.addAll(problems);
+    }
+}
@@ -0,0 +1,303 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.JournalException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Нагрузочная проверка ConcurrentATM: сотни потоков одновременно снимают и вносят наличные.
+ * Запускается задачей stressTest (входит в check).
+ * <p>
+ * Проверяется сохранение банкнот: в каждой ячейке всегда от 0 до вместимости, каждая успешная
+ * выдача состоит ровно из запрошенной суммы, а в конце в ячейке лежит начальное количество
+ * плюс внесенное минус выданное, и баланс равен сумме по ячейкам.
+ * <p>
+ * Вторая часть проверяет, что отказ не бывает ложным. Запас банкомата - ровно по 200 руб.
+ * купюрами 100 и 200 на поток; каждый поток снимает 200 и вносит ту же сумму обратно,
+ * разменяв: купюру 200 - двумя по 100, две по 100 - одной купюрой 200, так что номиналы
+ * в ячейках все время меняются. Пока один поток снимает, остальные держат не больше 200 руб.
+ * каждый, так что в ячейках всегда есть 200 одной или двумя банкнотами - любой NO_PLAN или
+ * нехватка средств здесь ошибка.
+ * Прогоняется без журнала и с журналом, где выдачи ждут групповой фиксации.
+ * <p>
+ * Отдельно - резерв, который откатывается: выдача забирает единственную купюру и ждет журнала,
+ * вторая выдача той же суммы в это время не должна отвечать NO_PLAN, ведь запись первой
+ * срывается (поток прерывают во время записи) и купюра возвращается в ячейку.
+ */
+public class ConcurrentATMStressCheck {
+    private static final int THREADS = 256;
+    private static final int OPERATIONS = 500; // на поток
+    private static final int[] AMOUNTS = {50, 100, 600, 1_000, 2_000, 3_500, 5_000, 6_850, 10_000, 25_000};
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    private static final int RESERVE_THREADS = 48; // сотен до 96, купюр 200 до 48 - в пределах вместимости
+    private static final int RESERVE_ROUNDS = 5_000; // на поток, без журнала
+    private static final int JOURNAL_ROUNDS = 200; // на поток, с журналом
+    private static final int RESERVE_AMOUNT = 200;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        var atm = new ConcurrentATM("ATM-STRESS", 100_000);
+        int[] initial = new int[BANKNOTES.length];
+        for (Banknote banknote : BANKNOTES) {
+            initial[banknote.ordinal()] = atm.getCapacity(banknote) / 2;
+            atm.deposit(banknote, initial[banknote.ordinal()]);
+        }
+
+        var deposited = new AtomicLongArray(BANKNOTES.length);
+        var withdrawn = new AtomicLongArray(BANKNOTES.length);
+        var refusals = new AtomicLong();
+        var failures = new ConcurrentLinkedQueue<String>();
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(THREADS);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(Thread.ofPlatform().name("stress-" + t).start(() -> {
+                try {
+                    start.await();
+                    runWorker(atm, deposited, withdrawn, refusals, failures);
+                } catch (Throwable e) {
+                    failures.add(Thread.currentThread().getName() + ": " + e);
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+
+        // Наблюдатель: ячейки никогда не уходят за 0 и вместимость
+        Thread watcher = Thread.ofPlatform().daemon().start(() -> {
+            while (done.getCount() > 0) {
+                for (Banknote banknote : BANKNOTES) {
+                    int count = atm.getCount(banknote);
+                    if (count < 0 || count > atm.getCapacity(banknote)) {
+                        failures.add("Ячейка " + banknote.getValue() + " руб.: " + count + " банкнот");
+                    }
+                }
+                Thread.yield();
+            }
+        });
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        watcher.join();
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        long expectedBalance = 0;
+        for (Banknote banknote : BANKNOTES) {
+            int i = banknote.ordinal();
+            long expected = initial[i] + deposited.get(i) - withdrawn.get(i);
+            if (atm.getCount(banknote) != expected) {
+                failures.add("Ячейка " + banknote.getValue() + " руб.: " + atm.getCount(banknote)
+                        + " банкнот, ожидалось " + expected);
+            }
+            expectedBalance += (long) atm.getCount(banknote) * banknote.getValue();
+        }
+        if (atm.getBalance() != expectedBalance) {
+            failures.add("Баланс " + atm.getBalance() + ", сумма по ячейкам " + expectedBalance);
+        }
+
+        System.out.printf(Locale.ROOT, "%d потоков x %d операций за %d мс, отказов в выдаче: %d%n",
+                THREADS, OPERATIONS, elapsedMillis, refusals.get());
+
+        checkFixedReserve("без журнала", null, RESERVE_ROUNDS, failures);
+        Path directory = Files.createTempDirectory("atm-stress");
+        Path file = directory.resolve("atm.journal");
+        Path brokenFile = directory.resolve("broken.journal");
+        try {
+            try (var journal = new Journal(file, Duration.ZERO)) {
+                checkFixedReserve("с журналом", journal, JOURNAL_ROUNDS, failures);
+            }
+            try (var journal = new Journal(brokenFile, Duration.ofSeconds(30))) {
+                checkRolledBackReserve(journal, failures);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(brokenFile);
+            Files.deleteIfExists(directory);
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("Банкноты сохраняются при параллельной работе");
+            System.exit(0);
+        }
+        failures.stream().limit(20).forEach(System.out::println);
+        System.out.println("Нарушений: " + failures.size());
+        System.exit(1);
+    }
+
+    /**
+     * Потоки снимают по 200 и вносят полученное обратно; запаса ровно на всех - отказов быть не должно
+     */
+    private static void checkFixedReserve(String name, Journal journal, int rounds,
+                                          ConcurrentLinkedQueue<String> failures) throws InterruptedException {
+        var atm = new ConcurrentATM("ATM-RESERVE", 100_000);
+        // Половина запаса сотнями, половина купюрами по 200: на поток по 200 руб.
+        atm.deposit(Banknote.RUB_100, RESERVE_THREADS);
+        atm.deposit(Banknote.RUB_200, RESERVE_THREADS / 2);
+        long reserve = atm.getBalance();
+        atm.attachJournal(journal);
+
+        var falseRefusals = new AtomicLong();
+        var start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < RESERVE_THREADS; t++) {
+            workers.add(Thread.ofPlatform().name("reserve-" + t).start(() -> {
+                try {
+                    start.await();
+                    for (int round = 0; round < rounds; round++) {
+                        WithdrawalResult result;
+                        try {
+                            result = atm.withdraw(RESERVE_AMOUNT);
+                        } catch (InsufficientFundsException e) {
+                            falseRefusals.incrementAndGet();
+                            continue;
+                        }
+                        if (!result.isSuccess()) {
+                            falseRefusals.incrementAndGet();
+                            continue;
+                        }
+                        // Держим банкноты, пока работают другие: запас в ячейках доходит до нуля
+                        Thread.yield();
+                        if (result.getCount(Banknote.RUB_200) == 1) {
+                            atm.deposit(Banknote.RUB_100, 2);
+                        } else if (result.getCount(Banknote.RUB_100) == 2) {
+                            atm.deposit(Banknote.RUB_200, 1);
+                        } else {
+                            failures.add("Выдача " + RESERVE_AMOUNT + " не сотнями и не купюрой 200: "
+                                    + result.getBanknotes());
+                            return;
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(Thread.currentThread().getName() + ": " + e);
+                }
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        System.out.printf(Locale.ROOT, "Фиксированный запас %s: %d потоков x %d выдач за %d мс, ложных отказов: %d%n",
+                name, RESERVE_THREADS, rounds, elapsedMillis, falseRefusals.get());
+        if (falseRefusals.get() > 0) {
+            failures.add("Фиксированный запас " + name + ": " + falseRefusals.get()
+                    + " отказов при сумме, которая всегда есть в ячейках");
+        }
+        if (atm.getBalance() != reserve) {
+            failures.add("Фиксированный запас " + name + ": в ячейках " + atm.getAvailableBanknotes()
+                    + ", должно было вернуться " + reserve + " руб.");
+        }
+    }
+
+    /**
+     * Первая выдача резервирует единственную купюру и ждет окна групповой фиксации; вторая
+     * выдача той же суммы должна дождаться исхода, а не отказать. Первую прерывают - запись
+     * срывается, резерв откатывается, вторая получает купюру (или ошибку уже сломанного журнала).
+     */
+    private static void checkRolledBackReserve(Journal journal, ConcurrentLinkedQueue<String> failures)
+            throws InterruptedException {
+        var atm = new ConcurrentATM("ATM-ROLLBACK", 100_000);
+        atm.deposit(Banknote.RUB_200, 1);
+        atm.attachJournal(journal);
+
+        var first = new AtomicReference<String>("не завершилась");
+        var second = new AtomicReference<String>("не завершилась");
+        Thread firstSession = Thread.ofPlatform().name("rollback-first").start(() -> first.set(outcome(atm)));
+        while (atm.getCount(Banknote.RUB_200) != 0 && firstSession.isAlive()) {
+            Thread.onSpinWait(); // ждем, пока купюра уйдет в резерв первой выдачи
+        }
+        Thread secondSession = Thread.ofPlatform().name("rollback-second").start(() -> second.set(outcome(atm)));
+        secondSession.join(200);
+        String early = second.get();
+        firstSession.interrupt();
+        firstSession.join();
+        secondSession.join();
+
+        System.out.println("Откат резерва: первая выдача - " + first.get() + ", вторая - " + second.get());
+        if (!early.equals("не завершилась")) {
+            failures.add("Откат резерва: вторая выдача ответила \"" + early + "\", не дождавшись журнала первой");
+        }
+        if (!first.get().equals("ошибка журнала")) {
+            failures.add("Откат резерва: первая выдача - " + first.get() + ", ожидалась ошибка журнала");
+        }
+        if (second.get().equals("NO_PLAN") || second.get().equals("нехватка средств")) {
+            failures.add("Откат резерва: вторая выдача - " + second.get() + ", хотя купюра вернулась в ячейку");
+        }
+        long expected = second.get().equals("выдано") ? 0 : Banknote.RUB_200.getValue();
+        if (atm.getBalance() != expected) {
+            failures.add("Откат резерва: баланс " + atm.getBalance() + ", ожидалось " + expected);
+        }
+    }
+
+    private static String outcome(ConcurrentATM atm) {
+        try {
+            return atm.withdraw(RESERVE_AMOUNT).isSuccess() ? "выдано" : "NO_PLAN";
+        } catch (InsufficientFundsException e) {
+            return "нехватка средств";
+        } catch (JournalException e) {
+            return "ошибка журнала";
+        }
+    }
+
+    private static void runWorker(ConcurrentATM atm, AtomicLongArray deposited, AtomicLongArray withdrawn,
+                                  AtomicLong refusals, ConcurrentLinkedQueue<String> failures) {
+        var random = ThreadLocalRandom.current();
+        for (int op = 0; op < OPERATIONS; op++) {
+            if (random.nextInt(3) == 0) {
+                Banknote banknote = BANKNOTES[random.nextInt(BANKNOTES.length)];
+                int quantity = 1 + random.nextInt(3);
+                try {
+                    atm.deposit(banknote, quantity);
+                    deposited.addAndGet(banknote.ordinal(), quantity);
+                } catch (CassetteException e) {
+                    // ячейка заполнена - банкноты не приняты
+                }
+                continue;
+            }
+
+            int amount = AMOUNTS[random.nextInt(AMOUNTS.length)];
+            WithdrawalResult result;
+            try {
+                result = atm.withdraw(amount);
+            } catch (InsufficientFundsException e) {
+                refusals.incrementAndGet();
+                continue;
+            }
+            if (!result.isSuccess()) {
+                // случайная сумма может быть невыдаваемой; ложные отказы ловит checkFixedReserve
+                refusals.incrementAndGet();
+                continue;
+            }
+            int paid = 0;
+            for (Banknote banknote : BANKNOTES) {
+                int notes = result.getCount(banknote);
+                paid += notes * banknote.getValue();
+                withdrawn.addAndGet(banknote.ordinal(), notes);
+            }
+            if (paid != amount || result.getActualAmount() != amount) {
+                failures.add("Запрошено " + amount + ", выдано " + paid);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.exception.ATMException;
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import com.group.avenue.middle.atm.project.exception.InsufficientFundsException;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.metrics.LatencyHistogram;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import com.group.avenue.middle.atm.project.server.SessionClient;
+import com.group.avenue.middle.atm.project.server.SessionServer;
+import com.group.avenue.middle.atm.project.server.UserRegistry;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Проверка сервера сессий по loopback: тысячи терминалов одновременно, у каждого своя карта.
+ * Запускается задачей sessionLoopbackTest (входит в check).
+ * <p>
+ * Каждый терминал ведет свой счет по ответам сервера; в конце баланс каждой карты на сервере
+ * должен совпасть с ожидаемым, банкноты банкомата - сохраниться, как в
+ * {@link ConcurrentATMStressCheck}. Печатает задержки сервера и круговые задержки клиентов.
+ */
+public class SessionServerLoopbackCheck {
+    private static final int SESSIONS = 2_000;
+    private static final int OPERATIONS = 20; // на сессию
+    private static final int INITIAL_BALANCE = 1_000_000;
+    private static final int[] AMOUNTS = {100, 600, 1_000, 2_000, 3_500, 5_000};
+    private static final Banknote[] BANKNOTES = Banknote.values();
+
+    public static void main(String[] args) throws Exception {
+        var atm = new ConcurrentATM("ATM-LOOPBACK", 100_000);
+        int[] initial = new int[BANKNOTES.length];
+        for (Banknote banknote : BANKNOTES) {
+            initial[banknote.ordinal()] = atm.getCapacity(banknote) / 2;
+            atm.deposit(banknote, initial[banknote.ordinal()]);
+        }
+        var users = new UserRegistry();
+        users.registerDemoUsers(SESSIONS, INITIAL_BALANCE, Integer.MAX_VALUE);
+
+        var deposited = new AtomicLongArray(BANKNOTES.length);
+        var withdrawn = new AtomicLongArray(BANKNOTES.length);
+        var expectedBalances = new int[SESSIONS + 1];
+        var roundTrips = new LatencyHistogram();
+        var failures = new ConcurrentLinkedQueue<String>();
+
+        try (var server = new SessionServer(atm, users)) {
+            int port = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            var connected = new CountDownLatch(SESSIONS);
+            var start = new CountDownLatch(1);
+            var done = new CountDownLatch(SESSIONS);
+
+            for (int n = 1; n <= SESSIONS; n++) {
+                int card = n;
+                Thread.ofVirtual().start(() -> {
+                    boolean loggedIn = false;
+                    try (var client = new SessionClient(address)) {
+                        client.login(UserRegistry.demoCardNumber(card));
+                        loggedIn = true;
+                        connected.countDown();
+                        start.await();
+                        expectedBalances[card] = runSession(client, deposited, withdrawn, roundTrips);
+                        if (client.balance() != expectedBalances[card]) {
+                            failures.add("Карта " + card + ": баланс " + client.balance()
+                                    + ", ожидалось " + expectedBalances[card]);
+                        }
+                    } catch (Throwable e) {
+                        failures.add("Сессия " + card + ": " + e);
+                        if (!loggedIn) {
+                            connected.countDown();
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            connected.await();
+            int open = server.getActiveSessions();
+            long startNanos = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+            long expectedBalance = 0;
+            for (Banknote banknote : BANKNOTES) {
+                int i = banknote.ordinal();
+                long expected = initial[i] + deposited.get(i) - withdrawn.get(i);
+                if (atm.getCount(banknote) != expected) {
+                    failures.add("Ячейка " + banknote.getValue() + " руб.: " + atm.getCount(banknote)
+                            + " банкнот, ожидалось " + expected);
+                }
+                expectedBalance += (long) atm.getCount(banknote) * banknote.getValue();
+            }
+            if (atm.getBalance() != expectedBalance) {
+                failures.add("Баланс " + atm.getBalance() + ", сумма по ячейкам " + expectedBalance);
+            }
+
+            System.out.printf(Locale.ROOT, "%d сессий одновременно (%d открыто на сервере) x %d операций за %d мс%n",
+                    SESSIONS, open, OPERATIONS, elapsedMillis);
+            System.out.println("Сервер:  " + server.getLatency());
+            System.out.println("Клиенты: " + roundTrips);
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("Сессии обслужены, счета и банкноты сходятся");
+            System.exit(0);
+        }
+        failures.stream().limit(20).forEach(System.out::println);
+        System.out.println("Нарушений: " + failures.size());
+        System.exit(1);
+    }
+
+    /**
+     * @return баланс счета, который должен получиться по ответам сервера
+     */
+    private static int runSession(SessionClient client, AtomicLongArray deposited, AtomicLongArray withdrawn,
+                                  LatencyHistogram roundTrips) throws IOException {
+        var random = ThreadLocalRandom.current();
+        int[] counts = new int[BANKNOTES.length];
+        int balance = INITIAL_BALANCE;
+        for (int op = 0; op < OPERATIONS; op++) {
+            long start = System.nanoTime();
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    Banknote banknote = BANKNOTES[random.nextInt(BANKNOTES.length)];
+                    try {
+                        client.deposit(banknote, 1);
+                        deposited.incrementAndGet(banknote.ordinal());
+                        balance += banknote.getValue();
+                    } catch (CassetteException e) {
+                        // ячейка заполнена
+                    }
+                }
+                case 1 -> {
+                    int amount = AMOUNTS[random.nextInt(AMOUNTS.length)];
+                    try {
+                        WithdrawalResult result = client.withdraw(amount);
+                        if (result.isSuccess()) {
+                            for (Banknote banknote : BANKNOTES) {
+                                withdrawn.addAndGet(banknote.ordinal(), result.getCount(banknote));
+                            }
+                            balance -= amount;
+                        }
+                    } catch (InsufficientFundsException e) {
+                        // в банкомате недостаточно средств
+                    }
+                }
+                case 2 -> client.balance();
+                default -> client.status(counts);
+            }
+            roundTrips.record(System.nanoTime() - start);
+        }
+        try {
+            client.withdraw(33);
+            throw new ATMException("Сумма 33 руб. должна быть отклонена");
+        } catch (InvalidAmountException e) {
+            // ожидаемо
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,160 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.model.Banknote;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Форматирование ATMUtils без NumberFormat против прежнего вывода через NumberFormat для ru-RU.
+ * <ul>
+ *     <li>appendAmount, putAmount и formatAmount - на краях диапазона, у границ разрядов
+ *     и на случайных int и long, в том числе отрицательных;</li>
+ *     <li>formatBanknotes и formatBanknotesCompact - на случайных наборах банкнот,
+ *     с нулевыми количествами и пустым набором;</li>
+ *     <li>putBanknoteCount - то же, что appendBanknoteCount, в UTF-8.</li>
+ * </ul>
+ */
+class ATMUtilsTest {
+    private static final Banknote[] BANKNOTES = Banknote.values();
+    private static final int RANDOM_VALUES = 100_000;
+    private static final int RANDOM_SETS = 10_000;
+
+    private final SplittableRandom random = new SplittableRandom(20_26_10_18L);
+    private final NumberFormat rubFormat = rubFormat();
+
+    @Test
+    void amountsMatchNumberFormat() {
+        long[] edges = {0, 1, -1, 9, 10, 999, 1_000, -1_000, 9_999, 10_000, 999_999, 1_000_000,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        for (long value : edges) {
+            assertAmount(value);
+        }
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            assertAmount(random.nextInt());
+            assertAmount(random.nextLong() >> random.nextInt(64));
+        }
+    }
+
+    @Test
+    void banknotesMatchOldFormat() {
+        Map<Banknote, Integer> empty = Map.of();
+        assertEquals(oldFormatBanknotes(empty), ATMUtils.formatBanknotes(empty), "Пустой набор");
+        assertEquals(oldFormatBanknotesCompact(empty), ATMUtils.formatBanknotesCompact(empty), "Пустой набор");
+
+        for (int i = 0; i < RANDOM_SETS; i++) {
+            Map<Banknote, Integer> banknotes = new LinkedHashMap<>();
+            for (int n = random.nextInt(BANKNOTES.length + 1); n > 0; n--) {
+                // Нули - номинал, не поместившийся в ячейку; изредка - больше тысячи банкнот
+                int count = random.nextInt(4) == 0 ? 0 : random.nextInt(random.nextInt(10) == 0 ? 5_000 : 100);
+                banknotes.put(BANKNOTES[random.nextInt(BANKNOTES.length)], count);
+            }
+            assertEquals(oldFormatBanknotes(banknotes), ATMUtils.formatBanknotes(banknotes),
+                    () -> "formatBanknotes " + banknotes);
+            assertEquals(oldFormatBanknotesCompact(banknotes), ATMUtils.formatBanknotesCompact(banknotes),
+                    () -> "formatBanknotesCompact " + banknotes);
+
+            for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
+                String expected = ATMUtils.appendBanknoteCount(new StringBuilder(), entry.getKey(), entry.getValue())
+                        .toString();
+                ByteBuffer buffer = ATMUtils.putBanknoteCount(ByteBuffer.allocate(64), entry.getKey(), entry.getValue());
+                assertEquals(expected, utf8(buffer), () -> "putBanknoteCount " + entry);
+            }
+        }
+    }
+
+    private void assertAmount(long value) {
+        String expected = rubFormat.format(value) + " руб.";
+        assertEquals(expected, ATMUtils.appendAmount(new StringBuilder(), value).toString(),
+                () -> "appendAmount " + value);
+        assertEquals(expected, utf8(ATMUtils.putAmount(ByteBuffer.allocate(64), value)),
+                () -> "putAmount " + value);
+        if (value == (int) value) {
+            assertEquals(expected, ATMUtils.formatAmount((int) value), () -> "formatAmount " + value);
+        }
+    }
+
+    private static String utf8(ByteBuffer buffer) {
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    // --- Прежняя реализация ATMUtils на NumberFormat ---
+
+    private static NumberFormat rubFormat() {
+        NumberFormat format = NumberFormat.getNumberInstance(Locale.of("ru", "RU"));
+        format.setMinimumFractionDigits(0);
+        format.setMaximumFractionDigits(0);
+        return format;
+    }
+
+    private String oldFormatAmount(int amount) {
+        return rubFormat.format(amount) + " руб.";
+    }
+
+    private String oldFormatBanknotes(Map<Banknote, Integer> banknotes) {
+        if (banknotes == null || banknotes.isEmpty()) {
+            return "нет банкнот";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int total = 0;
+        int count = 0;
+
+        for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
+            if (entry.getValue() > 0) {
+                int value = entry.getKey().getValue() * entry.getValue();
+                total += value;
+                count += entry.getValue();
+
+                sb.append("\n  ")
+                        .append(entry.getKey().getValue())
+                        .append(" руб. × ")
+                        .append(entry.getValue())
+                        .append(" = ")
+                        .append(oldFormatAmount(value));
+            }
+        }
+
+        if (count > 0) {
+            sb.append("\nИтого: ")
+                    .append(count)
+                    .append(" банкнот на сумму ")
+                    .append(oldFormatAmount(total));
+        } else {
+            sb.append("\n(все ячейки переполнены)");
+        }
+
+        return sb.toString();
+    }
+
+    private static String oldFormatBanknotesCompact(Map<Banknote, Integer> banknotes) {
+        if (banknotes == null || banknotes.isEmpty()) {
+            return "нет";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+
+        for (Map.Entry<Banknote, Integer> entry : banknotes.entrySet()) {
+            if (entry.getValue() > 0) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(entry.getKey().getValue())
+                        .append(" руб. × ")
+                        .append(entry.getValue());
+                first = false;
+            }
+        }
+
+        return sb.toString();
+    }
+}
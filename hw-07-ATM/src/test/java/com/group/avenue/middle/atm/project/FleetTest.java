@@ -0,0 +1,175 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.fleet.Fleet;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.WithdrawalResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static com.group.avenue.middle.atm.project.OptimalDispenserTest.BANKNOTES;
+import static com.group.avenue.middle.atm.project.OptimalDispenserTest.MAX_AMOUNT;
+import static com.group.avenue.middle.atm.project.OptimalDispenserTest.MAX_NOTES;
+import static com.group.avenue.middle.atm.project.OptimalDispenserTest.NONE;
+import static com.group.avenue.middle.atm.project.OptimalDispenserTest.UNIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fleet против прямого обхода всех банкоматов.
+ * <ul>
+ *     <li>случайные парки: банкоматы равномерно и кучками, клетки сетки от доли километра
+ *     до всей области, сторона области не кратна клетке;</li>
+ *     <li>внесения и выдачи вперемешку с запросами маршрута: route должен найти банкомат
+ *     на том же расстоянии, что и обход всех банкоматов, которые могут выдать сумму,
+ *     или не найти никакого, когда таких нет;</li>
+ *     <li>"может выдать" и выдача сверяются с полным перебором наборов банкнот, итоги по
+ *     номиналам, регионам и парку - с суммой по банкоматам;</li>
+ *     <li>выдачи уменьшают баланс ниже верхней оценки клетки, а следующие внесения
+ *     снова поднимают его: оценка не должна отсекать клетку с подходящим банкоматом.</li>
+ * </ul>
+ */
+class FleetTest {
+    private static final int ATMS = 300;
+    private static final int REGIONS = 5;
+    private static final double EXTENT = 50;
+    private static final double[] CELL_SIZES = {0.7, 2.5, 7, EXTENT};
+    private static final int OPERATIONS = 6_000;
+
+    @Test
+    void uniformFleets() {
+        for (double cellSize : CELL_SIZES) {
+            checkFleet(new SplittableRandom(Double.doubleToLongBits(cellSize)), cellSize, false);
+        }
+    }
+
+    @Test
+    void clusteredFleets() {
+        for (double cellSize : CELL_SIZES) {
+            checkFleet(new SplittableRandom(~Double.doubleToLongBits(cellSize)), cellSize, true);
+        }
+    }
+
+    private void checkFleet(SplittableRandom random, double cellSize, boolean clustered) {
+        String name = (clustered ? "кучки" : "равномерно") + ", клетка " + cellSize;
+        var fleet = new Fleet(ATMS, REGIONS, EXTENT, cellSize, MAX_AMOUNT);
+        int[][] counts = new int[ATMS][BANKNOTES.length];
+        int[][] minNotes = new int[ATMS][MAX_AMOUNT / UNIT + 1];
+        double centerX = random.nextDouble(EXTENT);
+        double centerY = random.nextDouble(EXTENT);
+        for (int i = 0; i < ATMS; i++) {
+            double x = clustered ? near(random, centerX) : random.nextDouble(EXTENT);
+            double y = clustered ? near(random, centerY) : random.nextDouble(EXTENT);
+            assertEquals(i, fleet.add("ATM-" + i, random.nextInt(REGIONS), x, y), name + ": номер банкомата");
+            OptimalDispenserTest.bruteForce(counts[i], minNotes[i]);
+        }
+
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            String where = name + ", операция " + operation;
+            int index = random.nextInt(ATMS);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    int d = random.nextInt(BANKNOTES.length);
+                    int quantity = random.nextInt(MAX_NOTES - counts[index][d] + 1);
+                    fleet.deposit(index, BANKNOTES[d], quantity);
+                    counts[index][d] += quantity;
+                    OptimalDispenserTest.bruteForce(counts[index], minNotes[index]);
+                }
+                case 1 -> {
+                    int amount = amount(random);
+                    if (amount > fleet.getBalance(index)) {
+                        break;
+                    }
+                    WithdrawalResult result = fleet.withdraw(index, amount);
+                    int expected = minNotes[index][amount / UNIT];
+                    assertEquals(expected != NONE, result.isSuccess(), where + ": выдача " + amount);
+                    if (result.isSuccess()) {
+                        int notes = 0;
+                        for (Banknote banknote : BANKNOTES) {
+                            notes += result.getCount(banknote);
+                            counts[index][banknote.ordinal()] -= result.getCount(banknote);
+                        }
+                        assertEquals(expected, notes, where + ": банкнот в выдаче " + amount);
+                        OptimalDispenserTest.bruteForce(counts[index], minNotes[index]);
+                    }
+                }
+                default -> {
+                    double x = clustered && random.nextBoolean() ? near(random, centerX) : random.nextDouble(EXTENT);
+                    double y = clustered && random.nextBoolean() ? near(random, centerY) : random.nextDouble(EXTENT);
+                    int amount = amount(random);
+                    assertRoute(where, fleet, minNotes, x, y, amount);
+                    assertEquals(minNotes[index][amount / UNIT] != NONE, fleet.canDispense(index, amount),
+                            where + ": canDispense " + amount + " в " + index);
+                }
+            }
+            if (operation % 500 == 0) {
+                assertTotals(where, fleet, counts);
+            }
+        }
+        assertTotals(name, fleet, counts);
+    }
+
+    /**
+     * Банкомат route на том же расстоянии, что и ближайший при обходе всех банкоматов
+     */
+    private static void assertRoute(String where, Fleet fleet, int[][] minNotes, double x, double y, int amount) {
+        int expected = Fleet.NOT_FOUND;
+        double expectedDistance2 = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < fleet.size(); i++) {
+            double distance2 = distance2(fleet, i, x, y);
+            if (minNotes[i][amount / UNIT] != NONE && distance2 < expectedDistance2) {
+                expected = i;
+                expectedDistance2 = distance2;
+            }
+        }
+
+        int actual = fleet.route(x, y, amount);
+        String query = where + ": маршрут " + amount + " из (" + x + ", " + y + ")";
+        if (expected == Fleet.NOT_FOUND || actual == Fleet.NOT_FOUND) {
+            assertEquals(expected, actual, query);
+            return;
+        }
+        assertEquals(expectedDistance2, distance2(fleet, actual, x, y),
+                query + ": найден " + actual + " вместо " + expected);
+    }
+
+    private static void assertTotals(String where, Fleet fleet, int[][] counts) {
+        long total = 0;
+        long[] byBanknote = new long[BANKNOTES.length];
+        long[] byRegion = new long[REGIONS];
+        for (int i = 0; i < fleet.size(); i++) {
+            int balance = 0;
+            for (int d = 0; d < BANKNOTES.length; d++) {
+                assertEquals(counts[i][d], fleet.getCount(i, BANKNOTES[d]), where + ": банкнот в " + i);
+                balance += counts[i][d] * BANKNOTES[d].getValue();
+                byBanknote[d] += counts[i][d];
+            }
+            assertEquals(balance, fleet.getBalance(i), where + ": баланс " + i);
+            byRegion[fleet.getRegion(i)] += balance;
+            total += balance;
+        }
+        assertEquals(total, fleet.getTotalBalance(), where + ": баланс парка");
+        for (int d = 0; d < BANKNOTES.length; d++) {
+            assertEquals(byBanknote[d], fleet.getTotalCount(BANKNOTES[d]), where + ": итог " + BANKNOTES[d]);
+        }
+        for (int region = 0; region < REGIONS; region++) {
+            assertEquals(byRegion[region], fleet.getRegionBalance(region), where + ": баланс региона " + region);
+        }
+    }
+
+    private static double distance2(Fleet fleet, int index, double x, double y) {
+        double dx = fleet.getX(index) - x;
+        double dy = fleet.getY(index) - y;
+        return dx * dx + dy * dy;
+    }
+
+    // Чаще малые суммы, которые набираются у многих банкоматов, иногда - до предела
+    private static int amount(SplittableRandom random) {
+        int units = random.nextInt(8) == 0 ? MAX_AMOUNT / UNIT : 3_000 / UNIT;
+        return UNIT * random.nextInt(1, units + 1);
+    }
+
+    // Точка в паре километров от центра кучки, внутри области
+    private static double near(SplittableRandom random, double center) {
+        return Math.min(Math.nextDown(EXTENT), Math.max(0, center + random.nextGaussian() * 2));
+    }
+}
@@ -0,0 +1,183 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.exception.JournalException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Старт с журналом ({@link Recovery}).
+ * <ul>
+ *     <li>потоки вносят и снимают через Teller с подключенным журналом; процесс "падает":
+ *     журнал не закрывается, а в конец файла дописан оборванный кусок записи;</li>
+ *     <li>журнал открывается заново, хвост обрезается, банкомат и карты, созданные как при старте,
+ *     восстанавливаются - ячейки и счета должны совпасть с живым состоянием до падения;</li>
+ *     <li>после восстановления операции пишутся в тот же журнал и переживают следующий перезапуск;</li>
+ *     <li>выдача, запись которой сорвалась, при восстановлении не появляется;</li>
+ *     <li>падение между записью банкомата и записью счета одной операции Teller: после
+ *     перезапуска нет ни выдачи, ни списания;</li>
+ *     <li>если журнал не принимает записи, Teller не меняет ни ячейки, ни счет -
+ *     и в памяти, и после перезапуска.</li>
+ * </ul>
+ */
+class JournalRecoveryTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 1_000; // на поток
+    private static final int TORN_BYTES = 13; // кусок записи, оборванной при падении
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresAfterCrashAndRestart() throws IOException, InterruptedException {
+        Path file = directory.resolve("atm.journal");
+        // Первый запуск: новый журнал, начальная загрузка, работа, падение без close
+        var live = new RecoveryNode(new Journal(file, Duration.ZERO));
+        assertTrue(Recovery.isFresh(live.journal), "Новый журнал не пуст");
+        live.atm.deposit(RecoveryNode.initialMoney());
+        live.runLoad(THREADS, OPERATIONS);
+        var beforeCrash = RecoveryNode.State.of(live);
+        long records = live.journal.getDurableSequence();
+        tearTail(file);
+
+        // Второй запуск: восстановление после падения
+        var restarted = new RecoveryNode(new Journal(file, Duration.ZERO));
+        assertEquals(TORN_BYTES, restarted.journal.getTruncatedBytes(), "Обрезано байт хвоста");
+        assertEquals(records, restarted.applied, "Применено записей");
+        beforeCrash.assertSame("после падения", RecoveryNode.State.of(restarted));
+
+        // Операции после восстановления пишутся в журнал и переживают обычный перезапуск
+        var account = restarted.account(1);
+        restarted.teller.deposit(account, Banknote.RUB_1000, 2);
+        restarted.teller.withdraw(account, 1_500);
+        var beforeRestart = RecoveryNode.State.of(restarted);
+        restarted.journal.close();
+        var reopened = new RecoveryNode(new Journal(file, Duration.ZERO));
+        beforeRestart.assertSame("после перезапуска", RecoveryNode.State.of(reopened));
+        reopened.journal.close();
+    }
+
+    /**
+     * Выдача ждет окна групповой фиксации, поток прерывают - запись срывается, резерв откатывается.
+     * После перезапуска в ячейках должно быть то же, что до выдачи.
+     */
+    @Test
+    void failedAppendIsNotRecovered() throws InterruptedException {
+        Path file = directory.resolve("atm.journal");
+        var loaded = new RecoveryNode(new Journal(file, Duration.ZERO));
+        loaded.atm.deposit(RecoveryNode.initialMoney());
+        loaded.journal.close();
+
+        var node = new RecoveryNode(new Journal(file, Duration.ofSeconds(30)));
+        var before = RecoveryNode.State.of(node);
+        int amount = node.availableNote();
+        var outcome = new AtomicReference<String>("не завершилась");
+        Thread session = Thread.ofPlatform().name("recovery-failed").start(() -> {
+            try {
+                outcome.set(node.atm.withdraw(amount).isSuccess() ? "выдано" : "NO_PLAN");
+            } catch (JournalException e) {
+                outcome.set("ошибка журнала");
+            }
+        });
+        while (node.atm.getCounts() == before.counts && session.isAlive()) {
+            Thread.onSpinWait(); // ждем резерва: выдача уже ждет журнала
+        }
+        session.interrupt();
+        session.join();
+        node.journal.close();
+        assertEquals("ошибка журнала", outcome.get(), "Сорванная запись: выдача");
+        before.assertSame("после сорванной записи", RecoveryNode.State.of(node));
+        var reopened = new RecoveryNode(new Journal(file, Duration.ZERO));
+        before.assertSame("после сорванной записи и перезапуска", RecoveryNode.State.of(reopened));
+        reopened.journal.close();
+    }
+
+    /**
+     * Выдача Teller - две записи, банкомата и счета. Процесс падает, когда на диске первая
+     * и начало второй: после перезапуска операции нет целиком - ни в ячейках, ни на счете
+     */
+    @Test
+    void crashBetweenRecordsLosesWholeOperation() throws IOException {
+        Path file = directory.resolve("atm.journal");
+        var live = new RecoveryNode(new Journal(file, Duration.ZERO));
+        live.atm.deposit(RecoveryNode.initialMoney());
+        var account = live.account(3);
+        live.teller.deposit(account, Banknote.RUB_500, 2);
+        var beforeWithdraw = RecoveryNode.State.of(live);
+        long records = live.journal.getDurableSequence();
+        assertTrue(live.teller.withdraw(account, live.availableNote()).isSuccess(), "Выдача не прошла");
+        assertEquals(records + 2, live.journal.getDurableSequence(), "Записей у выдачи Teller");
+
+        // Падение: запись счета дописана только до TORN_BYTES
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - Journal.RECORD_SIZE + TORN_BYTES);
+        }
+        var restarted = new RecoveryNode(new Journal(file, Duration.ZERO));
+        assertEquals(Journal.RECORD_SIZE + TORN_BYTES, restarted.journal.getTruncatedBytes(),
+                "Обрезано вместе с записью банкомата");
+        assertEquals(records, restarted.journal.getDurableSequence(), "Записей после падения");
+        beforeWithdraw.assertSame("после падения между записями", RecoveryNode.State.of(restarted));
+
+        // Номера продолжаются с отброшенной операции, новые операции переживают перезапуск
+        restarted.teller.withdraw(restarted.account(3), restarted.availableNote());
+        var beforeRestart = RecoveryNode.State.of(restarted);
+        restarted.journal.close();
+        var reopened = new RecoveryNode(new Journal(file, Duration.ZERO));
+        assertEquals(records + 2, reopened.journal.getDurableSequence(), "Записей после перезапуска");
+        beforeRestart.assertSame("после перезапуска", RecoveryNode.State.of(reopened));
+        reopened.journal.close();
+    }
+
+    /**
+     * Журнал закрыт: внесение и выдача через Teller отвечают ошибкой, а ячейки и счет
+     * остаются как до операций - и в памяти, и после перезапуска
+     */
+    @Test
+    void closedJournalChangesNothing() {
+        Path file = directory.resolve("atm.journal");
+        var node = new RecoveryNode(new Journal(file, Duration.ZERO));
+        node.atm.deposit(RecoveryNode.initialMoney());
+        var before = RecoveryNode.State.of(node);
+        long records = node.journal.getDurableSequence();
+        var account = node.account(2);
+        int amount = node.availableNote();
+        node.journal.close();
+
+        assertThrows(JournalException.class, () -> node.teller.deposit(account, Banknote.RUB_100, 1),
+                "Внесение прошло без журнала");
+        assertThrows(JournalException.class, () -> node.teller.withdraw(account, amount),
+                "Выдача прошла без журнала");
+        before.assertSame("после несостоявшихся операций", RecoveryNode.State.of(node));
+        var reopened = new RecoveryNode(new Journal(file, Duration.ZERO));
+        assertEquals(records, reopened.journal.getDurableSequence(), "Записей после перезапуска");
+        before.assertSame("после перезапуска", RecoveryNode.State.of(reopened));
+        reopened.journal.close();
+    }
+
+    /**
+     * Падение посреди записи: в конце файла оказывается начало следующей записи
+     */
+    private static void tearTail(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(TORN_BYTES);
+            ThreadLocalRandom.current().nextBytes(torn.array());
+            while (torn.hasRemaining()) {
+                channel.write(torn);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.dispense.Dispenser;
+import com.group.avenue.middle.atm.project.dispense.GreedyDispenser;
+import com.group.avenue.middle.atm.project.dispense.OptimalDispenser;
+import com.group.avenue.middle.atm.project.dispense.PlanCache;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OptimalDispenser против полного перебора.
+ * <ul>
+ *     <li>суммы, на которых жадный подбор не находит выдачу, а она есть: 600 при банкнотах
+ *     500 и 200 - три по 200;</li>
+ *     <li>на случайных малых наполнениях ячеек план сверяется с полным перебором: сумма плана
+ *     равна запрошенной, банкнот каждого номинала не больше, чем в ячейке, число банкнот
+ *     минимально, а NO_PLAN - только когда сумму не набрать; с перебором сверяются и canPay,
+ *     и minNotes;</li>
+ *     <li>один экземпляр подборщика проходит все наполнения подряд, так что проверяется
+ *     и частичная перестройка слоев после изменения одной ячейки;</li>
+ *     <li>планы из PlanCache при внесениях и выдачах вперемешку - те же по числу банкнот, что
+ *     и без кеша, и выдаваемы из текущих ячеек; кеш меньше числа сумм, так что планы
+ *     вытесняются, а после выдач перепроверяются по снимку ячеек.</li>
+ * </ul>
+ */
+class OptimalDispenserTest {
+    static final Banknote[] BANKNOTES = Banknote.values();
+    static final int UNIT = 50;
+    static final int MAX_AMOUNT = 30_000;
+    static final int MAX_NOTES = 3; // банкнот номинала при переборе: 4^7 наборов
+    private static final int FILLINGS = 1_500;
+    private static final int CACHE_SIZE = 8;
+    private static final int CACHED_AMOUNTS = 20; // популярных сумм, больше размера кеша
+    private static final int CACHE_STEPS = 20_000;
+    static final int NONE = Integer.MAX_VALUE;
+
+    @Test
+    void greedyTraps() {
+        var optimal = new OptimalDispenser(MAX_AMOUNT);
+        var greedy = new GreedyDispenser();
+        checkGreedyTrap(optimal, greedy, 600, counts(Banknote.RUB_500, 1, Banknote.RUB_200, 3),
+                BanknoteCounts.with(BanknoteCounts.EMPTY, Banknote.RUB_200, 3));
+        checkGreedyTrap(optimal, greedy, 600, counts(Banknote.RUB_500, 5, Banknote.RUB_200, 10),
+                BanknoteCounts.with(BanknoteCounts.EMPTY, Banknote.RUB_200, 3));
+        checkGreedyTrap(optimal, greedy, 8_000, counts(Banknote.RUB_5000, 1, Banknote.RUB_2000, 4),
+                BanknoteCounts.with(BanknoteCounts.EMPTY, Banknote.RUB_2000, 4));
+        checkGreedyTrap(optimal, greedy, 1_100, counts(Banknote.RUB_1000, 1, Banknote.RUB_500, 1, Banknote.RUB_200, 3),
+                BanknoteCounts.with(BanknoteCounts.with(BanknoteCounts.EMPTY, Banknote.RUB_500, 1),
+                        Banknote.RUB_200, 3));
+    }
+
+    @Test
+    void matchesBruteForce() {
+        var optimal = new OptimalDispenser(MAX_AMOUNT);
+        var random = new SplittableRandom(17);
+        int[] counts = new int[BANKNOTES.length];
+        int[] minNotes = new int[MAX_AMOUNT / UNIT + 1];
+        for (int filling = 0; filling < FILLINGS; filling++) {
+            if (filling % 3 == 0) {
+                for (int k = 0; k < counts.length; k++) {
+                    counts[k] = random.nextInt(MAX_NOTES + 1);
+                }
+            } else {
+                // Меняется одна ячейка, как после выдачи или внесения
+                counts[random.nextInt(counts.length)] = random.nextInt(MAX_NOTES + 1);
+            }
+            bruteForce(counts, minNotes);
+
+            for (int amount = 0; amount <= MAX_AMOUNT; amount += UNIT) {
+                int expected = minNotes[amount / UNIT];
+                long plan = optimal.plan(amount, counts);
+                String where = amount + " при " + Arrays.toString(counts);
+                assertPlan(where, plan, amount, counts, expected);
+                assertEquals(expected == NONE ? -1 : expected, optimal.minNotes(amount), where + ": minNotes");
+                assertEquals(expected != NONE, optimal.canPay(amount, counts), where + ": canPay");
+            }
+        }
+    }
+
+    /**
+     * Выдача как в ATM: план из кеша, при промахе - подбор и запись в кеш. Уже после внесения
+     * или выдачи план должен совпасть с подбором без кеша по числу банкнот и помещаться в ячейки.
+     */
+    @Test
+    void cachedPlansMatchUncached() {
+        var random = new SplittableRandom(15);
+        var cache = new PlanCache(CACHE_SIZE, MAX_AMOUNT);
+        var cached = new OptimalDispenser(MAX_AMOUNT);
+        var uncached = new OptimalDispenser(MAX_AMOUNT);
+        int[] amounts = new int[CACHED_AMOUNTS];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = UNIT * random.nextInt(1, 10_000 / UNIT + 1);
+        }
+        int[] counts = new int[BANKNOTES.length];
+        int[] minNotes = new int[MAX_AMOUNT / UNIT + 1];
+        long version = 0;
+        bruteForce(counts, minNotes);
+
+        for (int step = 0; step < CACHE_STEPS; step++) {
+            String where = "шаг " + step + " при " + Arrays.toString(counts);
+            if (random.nextInt(3) == 0) {
+                int k = random.nextInt(counts.length);
+                if (counts[k] < MAX_NOTES) {
+                    counts[k] += random.nextInt(1, MAX_NOTES - counts[k] + 1);
+                    version++;
+                    bruteForce(counts, minNotes);
+                }
+                continue;
+            }
+
+            // Первые суммы популярнее: одни живут в кеше, другие вытесняются
+            int amount = amounts[Math.min(random.nextInt(amounts.length), random.nextInt(amounts.length))];
+            long plan = cache.get(amount, version, counts);
+            if (plan == PlanCache.MISSING) {
+                plan = cached.plan(amount, counts);
+                cache.put(amount, version, counts, plan);
+            }
+            assertPlan(where + ", сумма " + amount, plan, amount, counts, minNotes[amount / UNIT]);
+            long expected = uncached.plan(amount, counts);
+            assertEquals(expected == Dispenser.NO_PLAN ? -1 : BanknoteCounts.total(expected),
+                    plan == Dispenser.NO_PLAN ? -1 : BanknoteCounts.total(plan), where + ": банкнот без кеша");
+
+            if (plan != Dispenser.NO_PLAN && random.nextBoolean()) {
+                for (int k = 0; k < counts.length; k++) {
+                    counts[k] -= BanknoteCounts.count(plan, k);
+                }
+                version++;
+                bruteForce(counts, minNotes);
+            }
+        }
+        assertTrue(cache.getEvictions() > 0, "Планы не вытеснялись");
+        assertTrue(cache.getRevalidations() > 0, "Планы не перепроверялись");
+        assertTrue(cache.getHits() > cache.getRevalidations(), "Не было попаданий без перепроверки");
+    }
+
+    /**
+     * Порядок вытеснения и перепроверка на известных ячейках
+     */
+    @Test
+    void planCacheEvictsLeastRecentlyUsed() {
+        var cache = new PlanCache(2, MAX_AMOUNT);
+        var optimal = new OptimalDispenser(MAX_AMOUNT);
+        int[] counts = counts(Banknote.RUB_1000, 3, Banknote.RUB_500, 2, Banknote.RUB_100, 5);
+        for (int amount : new int[]{1_000, 1_500}) {
+            cache.put(amount, 0, counts, optimal.plan(amount, counts));
+        }
+        assertTrue(cache.get(1_000, 0, counts) != PlanCache.MISSING, "1000 в кеше");
+        cache.put(600, 0, counts, optimal.plan(600, counts)); // вытесняет 1500: к 1000 обращались позже
+        assertEquals(PlanCache.MISSING, cache.get(1_500, 0, counts), "1500 вытеснена");
+        assertTrue(cache.get(600, 0, counts) != PlanCache.MISSING, "600 в кеше");
+        assertEquals(1, cache.getEvictions(), "Вытеснений");
+        assertEquals(2, cache.size(), "Размер кеша");
+
+        // Выдали сотни: план 1000 (одна тысяча) остается, план 600 (500 + 100) - нет
+        counts[Banknote.RUB_100.ordinal()] = 0;
+        assertEquals(describe(BanknoteCounts.with(BanknoteCounts.EMPTY, Banknote.RUB_1000, 1)),
+                describe(cache.get(1_000, 1, counts)), "Перепроверенный план 1000");
+        assertEquals(1, cache.getRevalidations(), "Перепроверок");
+        assertEquals(PlanCache.MISSING, cache.get(600, 1, counts), "План 600 без сотен");
+
+        // Внесли двухтысячную: план 3000 из трех тысяч больше не минимальный
+        cache.put(3_000, 1, counts, optimal.plan(3_000, counts));
+        assertTrue(cache.get(3_000, 1, counts) != PlanCache.MISSING, "3000 в кеше");
+        counts[Banknote.RUB_2000.ordinal()] = 1;
+        assertEquals(PlanCache.MISSING, cache.get(3_000, 2, counts), "План 3000 после внесения");
+    }
+
+    /**
+     * Жадный подбор на этих ячейках не выдает сумму, оптимальный обязан выдать ровно expected
+     */
+    private static void checkGreedyTrap(OptimalDispenser optimal, GreedyDispenser greedy, int amount,
+                                        int[] counts, long expected) {
+        String where = amount + " при " + Arrays.toString(counts);
+        assertEquals(Dispenser.NO_PLAN, greedy.plan(amount, counts), where + ": жадный подбор нашел выдачу, пример не показателен");
+        assertEquals(describe(expected), describe(optimal.plan(amount, counts)), where);
+    }
+
+    /**
+     * План выдаваем из ячеек, на запрошенную сумму и из expected банкнот; NONE - плана нет
+     */
+    static void assertPlan(String where, long plan, int amount, int[] counts, int expected) {
+        if (expected == NONE) {
+            assertEquals(Dispenser.NO_PLAN, plan, () -> where + ": сумму не набрать, а план " + describe(plan));
+            return;
+        }
+        assertTrue(plan != Dispenser.NO_PLAN, () -> where + ": NO_PLAN, а перебор нашел " + expected + " банкнот");
+        for (int k = 0; k < counts.length; k++) {
+            int notes = BanknoteCounts.count(plan, k);
+            assertTrue(notes <= counts[k], () -> where + ": план " + describe(plan) + " берет больше банкнот, чем в ячейке");
+        }
+        assertEquals(amount, BanknoteCounts.amount(plan), () -> where + ": план " + describe(plan));
+        assertEquals(expected, BanknoteCounts.total(plan), () -> where + ": банкнот в плане " + describe(plan));
+    }
+
+    /**
+     * Минимум банкнот на каждую сумму до MAX_AMOUNT перебором всех наборов из ячеек
+     */
+    static void bruteForce(int[] counts, int[] minNotes) {
+        Arrays.fill(minNotes, NONE);
+        int[] taken = new int[counts.length];
+        while (true) {
+            int amount = 0;
+            int notes = 0;
+            for (int k = 0; k < taken.length; k++) {
+                amount += taken[k] * BANKNOTES[k].getValue();
+                notes += taken[k];
+            }
+            if (amount <= MAX_AMOUNT) {
+                minNotes[amount / UNIT] = Math.min(minNotes[amount / UNIT], notes);
+            }
+            // Следующий набор: счетчик со смешанным основанием counts[k] + 1
+            int k = 0;
+            while (k < taken.length && taken[k] == counts[k]) {
+                taken[k++] = 0;
+            }
+            if (k == taken.length) {
+                return;
+            }
+            taken[k]++;
+        }
+    }
+
+    private static int[] counts(Object... pairs) {
+        int[] counts = new int[BANKNOTES.length];
+        for (int i = 0; i < pairs.length; i += 2) {
+            counts[((Banknote) pairs[i]).ordinal()] = (Integer) pairs[i + 1];
+        }
+        return counts;
+    }
+
+    static String describe(long plan) {
+        if (plan == Dispenser.NO_PLAN) {
+            return "NO_PLAN";
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (Banknote banknote : BANKNOTES) {
+            int notes = BanknoteCounts.count(plan, banknote);
+            if (notes > 0) {
+                text.append(text.length() > 1 ? ", " : "").append(banknote.getValue()).append(" x ").append(notes);
+            }
+        }
+        return text.append('}').toString();
+    }
+}
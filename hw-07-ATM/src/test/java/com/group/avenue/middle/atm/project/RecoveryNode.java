@@ -0,0 +1,180 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.exception.ATMException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.BanknoteCounts;
+import com.group.avenue.middle.atm.project.server.Teller;
+import com.group.avenue.middle.atm.project.server.UserRegistry;
+import com.group.avenue.middle.atm.project.snapshot.SnapshotStore;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Банкомат, карты и журнал, созданные как при старте сервера, и уже восстановленные
+ * (по журналу или по снимку и хвосту журнала)
+ */
+final class RecoveryNode {
+    static final String ATM_ID = "ATM-RECOVERY";
+    static final int USERS = 100;
+    static final Banknote[] BANKNOTES = Banknote.values();
+
+    final Journal journal;
+    final SnapshotStore snapshots;
+    final ConcurrentATM atm = new ConcurrentATM(ATM_ID, 100_000);
+    final UserRegistry users = new UserRegistry();
+    final Teller teller = new Teller(atm, users);
+    final long applied;
+
+    RecoveryNode(Journal journal) {
+        this(journal, null);
+    }
+
+    /**
+     * @param snapshots каталог снимков или null - только журнал
+     */
+    RecoveryNode(Journal journal, SnapshotStore snapshots) {
+        this.journal = journal;
+        this.snapshots = snapshots;
+        users.registerDemoUsers(USERS, 100_000, 50_000);
+        this.applied = Recovery.recover(journal, snapshots, atm, users);
+    }
+
+    UserRegistry.Account account(int n) {
+        return users.find(UserRegistry.demoCardNumber(n));
+    }
+
+    /**
+     * Запустить threads потоков по operations случайных внесений и снятий через Teller.
+     * Ошибки, кроме отказов банкомата и счета, собираются в problems.
+     */
+    List<Thread> startLoad(int threads, int operations, Queue<Throwable> problems) {
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().name("recovery-" + t).start(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int op = 0; op < operations; op++) {
+                    var account = account(1 + random.nextInt(USERS));
+                    try {
+                        if (random.nextInt(3) == 0) {
+                            teller.deposit(account, BANKNOTES[random.nextInt(BANKNOTES.length)], 1);
+                        } else {
+                            teller.withdraw(account, 50 * (1 + random.nextInt(100)));
+                        }
+                    } catch (ATMException e) {
+                        // ячейка заполнена, не хватает банкнот или лимита - операция не прошла
+                    } catch (RuntimeException e) {
+                        problems.add(e);
+                        return;
+                    }
+                }
+            }));
+        }
+        return workers;
+    }
+
+    void runLoad(int threads, int operations) throws InterruptedException {
+        var problems = new ConcurrentLinkedQueue<Throwable>();
+        awaitLoad(startLoad(threads, operations, problems), problems);
+    }
+
+    static void awaitLoad(List<Thread> workers, Queue<Throwable> problems) throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(problems.isEmpty(), () -> "Ошибки под нагрузкой: " + problems);
+    }
+
+    /**
+     * Самый крупный номинал в ячейках: выдача на эту сумму точно найдет план
+     */
+    int availableNote() {
+        long counts = atm.getCounts();
+        int amount = 0;
+        for (Banknote banknote : BANKNOTES) {
+            if (BanknoteCounts.count(counts, banknote) > 0) {
+                amount = banknote.getValue();
+            }
+        }
+        assertTrue(amount > 0, "В банкомате нет банкнот");
+        return amount;
+    }
+
+    static Map<Banknote, Integer> initialMoney() {
+        Map<Banknote, Integer> money = new TreeMap<>();
+        for (Banknote banknote : BANKNOTES) {
+            money.put(banknote, 10);
+        }
+        return money;
+    }
+
+    /**
+     * Ячейки и счета в один момент, без параллельных операций
+     */
+    static final class State {
+        final long counts;
+        final Map<String, int[]> accounts = new TreeMap<>();
+
+        private State(long counts) {
+            this.counts = counts;
+        }
+
+        static State of(RecoveryNode node) {
+            var state = new State(node.atm.getCounts());
+            node.users.forEachUser(user -> state.accounts.put(user.getCardNumber(),
+                    new int[]{user.getBalance(), user.getWithdrawnToday()}));
+            return state;
+        }
+
+        /**
+         * То же по одному снимку: ячейки банкомата и записи всех демонстрационных карт
+         */
+        static State of(StateSnapshot snapshot) {
+            int atm = snapshot.findAtm(ATM_ID);
+            long counts = BanknoteCounts.EMPTY;
+            for (Banknote banknote : BANKNOTES) {
+                counts = BanknoteCounts.with(counts, banknote, atm == StateSnapshot.NOT_FOUND ? 0 : snapshot.getAtmCount(atm, banknote));
+            }
+            var state = new State(counts);
+            for (int n = 1; n <= USERS; n++) {
+                long record = snapshot.findUser(UserRegistry.demoCardNumber(n));
+                if (record != StateSnapshot.NOT_FOUND) {
+                    state.accounts.put(UserRegistry.demoCardNumber(n),
+                            new int[]{snapshot.getUserBalance(record), snapshot.getUserWithdrawnToday(record)});
+                }
+            }
+            return state;
+        }
+
+        void assertSame(String name, State actual) {
+            assertEquals(describe(counts), describe(actual.counts), name + ": ячейки");
+            for (Map.Entry<String, int[]> entry : accounts.entrySet()) {
+                int[] restored = actual.accounts.get(entry.getKey());
+                int[] live = entry.getValue();
+                assertNotNull(restored, name + ": нет карты " + entry.getKey());
+                assertEquals(live[0] + "/" + live[1], restored[0] + "/" + restored[1],
+                        name + ": карта " + entry.getKey() + " - баланс и снятое за день");
+            }
+        }
+    }
+
+    static String describe(long counts) {
+        StringBuilder text = new StringBuilder("{");
+        for (Banknote banknote : BANKNOTES) {
+            text.append(text.length() > 1 ? ", " : "").append(banknote.getValue())
+                    .append(" x ").append(BanknoteCounts.count(counts, banknote));
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,175 @@
+package com.group.avenue.middle.atm.project;
+
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.model.Banknote;
+import com.group.avenue.middle.atm.project.model.User;
+import com.group.avenue.middle.atm.project.server.UserRegistry;
+import com.group.avenue.middle.atm.project.snapshot.SnapshotStore;
+import com.group.avenue.middle.atm.project.snapshot.SnapshotWriter;
+import com.group.avenue.middle.atm.project.snapshot.StateSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Старт со снимком ({@link Recovery#checkpoint}).
+ * <ul>
+ *     <li>снимки пишутся во время нагрузки через Teller; после падения старт берет последний снимок
+ *     и применяет только хвост журнала после него - ячейки и счета совпадают с живым состоянием;</li>
+ *     <li>снимок без нагрузки сверяется с живым состоянием сам по себе, без журнала;</li>
+ *     <li>банкомат и карты, которых в снимке нет, восстанавливаются по всему журналу;</li>
+ *     <li>консольный режим: банкомат и один пользователь, снимок между операциями;</li>
+ *     <li>таблица пользователей снимка не заполняется больше чем на 3/4, а поиск неизвестной
+ *     карты в заполненной таблице возвращает NOT_FOUND.</li>
+ * </ul>
+ */
+class SnapshotRecoveryTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 1_000; // на поток
+    private static final int CHECKPOINTS = 5; // снимков во время нагрузки
+    private static final int TABLE_SLOTS = 32; // таблица пользователей снимка на 12 карт
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresFromSnapshotAndJournalTail() throws InterruptedException {
+        Path file = directory.resolve("atm.journal");
+        var snapshots = new SnapshotStore(directory.resolve("snapshots"));
+
+        // Первый запуск: снимки во время нагрузки, падение без close
+        var live = new RecoveryNode(new Journal(file, Duration.ZERO), snapshots);
+        live.atm.deposit(RecoveryNode.initialMoney());
+        var problems = new ConcurrentLinkedQueue<Throwable>();
+        List<Thread> workers = live.startLoad(THREADS, OPERATIONS, problems);
+        int taken = 0;
+        for (int i = 0; i < CHECKPOINTS && workers.stream().anyMatch(Thread::isAlive); i++) {
+            Thread.sleep(20);
+            Recovery.checkpoint(live.journal, snapshots, live.atm, live.users);
+            taken++;
+        }
+        RecoveryNode.awaitLoad(workers, problems);
+        assertNotEquals(0, taken, "Во время нагрузки не записано ни одного снимка");
+        var beforeCrash = RecoveryNode.State.of(live);
+        long records = live.journal.getDurableSequence();
+        long snapshotSequence;
+        try (StateSnapshot snapshot = snapshots.latest()) {
+            snapshotSequence = snapshot.getSequence();
+        }
+
+        // Второй запуск: последний снимок и хвост журнала
+        var restarted = new RecoveryNode(new Journal(file, Duration.ZERO), snapshots);
+        assertEquals(records - snapshotSequence, restarted.applied,
+                "После снимка по записи " + snapshotSequence + " применено записей");
+        beforeCrash.assertSame("снимок под нагрузкой и хвост журнала", RecoveryNode.State.of(restarted));
+
+        // Снимок без нагрузки сам по себе совпадает с живым состоянием
+        Recovery.checkpoint(restarted.journal, snapshots, restarted.atm, restarted.users);
+        try (StateSnapshot snapshot = snapshots.latest()) {
+            assertEquals(records, snapshot.getSequence(), "Снимок по записи");
+            beforeCrash.assertSame("снимок без журнала", RecoveryNode.State.of(snapshot));
+        }
+        restarted.journal.close();
+        var fromSnapshot = new RecoveryNode(new Journal(file, Duration.ZERO), snapshots);
+        assertEquals(0, fromSnapshot.applied, "Снимок по последней записи, а из журнала применено");
+        beforeCrash.assertSame("только снимок", RecoveryNode.State.of(fromSnapshot));
+        fromSnapshot.journal.close();
+
+        // Банкомата и половины карт в снимке нет: они восстанавливаются по всему журналу
+        writePartial(file, snapshots, records);
+        var partial = new RecoveryNode(new Journal(file, Duration.ZERO), snapshots);
+        beforeCrash.assertSame("снимок без банкомата и половины карт", RecoveryNode.State.of(partial));
+        partial.journal.close();
+    }
+
+    /**
+     * Консоль: снимок между операциями, затем еще операции, падение и старт со снимком
+     */
+    @Test
+    void consoleRestoresFromSnapshot() {
+        Path file = directory.resolve("console.journal");
+        var snapshots = new SnapshotStore(directory.resolve("console-snapshots"));
+        var journal = new Journal(file, Duration.ZERO);
+        var atm = new ATM(RecoveryNode.ATM_ID, 100_000);
+        var user = new User("Клиент", UserRegistry.demoCardNumber(1), 50_000, 50_000);
+        Recovery.recover(journal, snapshots, atm, user);
+        atm.deposit(RecoveryNode.initialMoney());
+        user.deposit(10_000);
+        Recovery.checkpoint(journal, snapshots, atm, user);
+        long snapshotSequence = journal.getDurableSequence();
+        atm.withdraw(3_500);
+        user.withdraw(3_500);
+        atm.deposit(Map.of(Banknote.RUB_500, 2));
+        user.deposit(1_000);
+        long records = journal.getDurableSequence();
+
+        var restartedJournal = new Journal(file, Duration.ZERO);
+        var restartedAtm = new ATM(RecoveryNode.ATM_ID, 100_000);
+        var restartedUser = new User("Клиент", UserRegistry.demoCardNumber(1), 50_000, 50_000);
+        long applied = Recovery.recover(restartedJournal, snapshots, restartedAtm, restartedUser);
+        assertEquals(records - snapshotSequence, applied, "Консоль: применено записей");
+        assertEquals(atm.getAvailableBanknotes(), restartedAtm.getAvailableBanknotes(), "Консоль: ячейки");
+        assertEquals(user.getBalance(), restartedUser.getBalance(), "Консоль: баланс");
+        assertEquals(user.getWithdrawnToday(), restartedUser.getWithdrawnToday(), "Консоль: снятое за день");
+        journal.close();
+        restartedJournal.close();
+    }
+
+    /**
+     * Сверх 3/4 слотов карту не добавить; в таблице, заполненной до предела, неизвестная карта не найдена
+     */
+    @Test
+    void userTableStopsAtThreeQuarters() {
+        var snapshots = new SnapshotStore(directory.resolve("table-snapshots"));
+        int added = 0;
+        Path path;
+        try (SnapshotWriter writer = snapshots.begin(0, 0, 12)) {
+            for (; added < TABLE_SLOTS * 3 / 4; added++) {
+                writer.addUser(Journal.subject(UserRegistry.demoCardNumber(added + 1)), added + 1, 0, 0);
+            }
+            int next = added + 1;
+            assertThrows(IllegalStateException.class,
+                    () -> writer.addUser(Journal.subject(UserRegistry.demoCardNumber(next)), next, 0, 0),
+                    "Таблица снимка на " + TABLE_SLOTS + " слотов приняла карту сверх 3/4");
+            path = writer.commit();
+        }
+        try (StateSnapshot snapshot = StateSnapshot.open(path)) {
+            assertEquals(added, snapshot.getUserCount());
+            for (int n = 1; n <= added; n++) {
+                long record = snapshot.findUser(UserRegistry.demoCardNumber(n));
+                assertNotEquals(StateSnapshot.NOT_FOUND, record, "Карта " + n + " из заполненной таблицы не найдена");
+                assertEquals(n, snapshot.getUserBalance(record));
+            }
+            for (int n = added + 1; n <= added + 1_000; n++) {
+                assertEquals(StateSnapshot.NOT_FOUND, snapshot.findUser(UserRegistry.demoCardNumber(n)),
+                        "Неизвестная карта " + n + " найдена в снимке");
+            }
+        }
+    }
+
+    /**
+     * Снимок по последней записи, но без банкомата и без карт с четными номерами
+     */
+    private static void writePartial(Path file, SnapshotStore snapshots, long records) {
+        var source = new RecoveryNode(new Journal(file, Duration.ZERO));
+        try (SnapshotWriter writer = snapshots.begin(records, 1, RecoveryNode.USERS)) {
+            for (int n = 1; n <= RecoveryNode.USERS; n += 2) {
+                var account = source.account(n);
+                assertNotNull(account);
+                writer.addUser(account.getUser());
+            }
+            writer.commit();
+        }
+        source.journal.close();
+    }
+}
@@ -0,0 +1,269 @@
+package com.group.avenue.middle.atm.project.limit;
+
+import com.group.avenue.middle.atm.project.account.AccountRegistry;
+import com.group.avenue.middle.atm.project.exception.InvalidAmountException;
+import com.group.avenue.middle.atm.project.journal.Journal;
+import com.group.avenue.middle.atm.project.journal.RecordType;
+import com.group.avenue.middle.atm.project.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ленивый сброс дневного лимита по часам, заданным тестом.
+ * <ul>
+ *     <li>DayClock - граница дня до миллисекунды, день перехода на летнее время, прошлые дни
+ *     при восстановлении не сбивают кеш текущего;</li>
+ *     <li>CalendarDayWindow - снятое до полуночи в новом дне не учитывается, запоздавшее
+ *     вчерашнее снятие сегодняшнее не трогает;</li>
+ *     <li>RollingWindow - корзина учитывается от 24 до 28 часов, снятия не по порядку
+ *     сверяются с прямым подсчетом по списку;</li>
+ *     <li>AccountRegistry - граница дня и 16-битная колонка дня там, где младшие 16 бит
+ *     номера дня меняют знак и переполняются;</li>
+ *     <li>восстановление по журналу - снятие относится к дню минуты из записи USER_WITHDRAW,
+ *     запись без времени - к текущему моменту.</li>
+ * </ul>
+ */
+class DailyLimitTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final String CARD = "1234-5678-9012-3456";
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private final TestClock clock = new TestClock(ZONE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dayClockBoundary() {
+        var berlin = new TestClock(ZoneId.of("Europe/Berlin"));
+        var days = new DayClock(berlin);
+        // 29.03.2026 в Берлине - 23 часа: переход на летнее время
+        LocalDate shortDay = LocalDate.of(2026, 3, 29);
+        long start = millis(shortDay, LocalTime.MIDNIGHT, berlin.getZone());
+        long end = millis(shortDay.plusDays(1), LocalTime.MIDNIGHT, berlin.getZone());
+        assertEquals(23 * HOUR, end - start, "Длина дня перехода");
+
+        berlin.set(start - 1);
+        assertEquals(shortDay.toEpochDay() - 1, days.today(), "Последняя миллисекунда дня до");
+        berlin.set(start);
+        assertEquals(shortDay.toEpochDay(), days.today(), "Полночь");
+        berlin.set(end - 1);
+        assertEquals(shortDay.toEpochDay(), days.today(), "Последняя миллисекунда дня перехода");
+
+        // Прошлый день (восстановление по журналу) не сбивает кеш текущего
+        assertEquals(shortDay.toEpochDay() - 10, days.dayOf(start - 10 * 24 * HOUR + 1), "Прошлый день");
+        assertEquals(shortDay.toEpochDay(), days.today(), "Текущий день после прошлого");
+        berlin.set(end);
+        assertEquals(shortDay.toEpochDay() + 1, days.today(), "Следующая полночь");
+    }
+
+    @Test
+    void calendarDayWindow() {
+        var window = new CalendarDayWindow(new DayClock(clock));
+        long midnight = millis(DAY.plusDays(1), LocalTime.MIDNIGHT, ZONE);
+        window.add(midnight - 60_000, 3_000);
+        window.add(midnight - 1, 1_000);
+        assertEquals(4_000, window.getWithdrawn(midnight - 1), "До полуночи");
+        assertEquals(0, window.getWithdrawn(midnight), "В полночь");
+
+        window.add(midnight + 1, 500);
+        window.add(midnight - 1, 700); // запоздавшее вчерашнее снятие
+        assertEquals(500, window.getWithdrawn(midnight + HOUR), "Новый день");
+        assertEquals(0, window.getWithdrawn(midnight - 1), "Вчера после перехода");
+
+        window.reset();
+        assertEquals(0, window.getWithdrawn(midnight + HOUR), "После сброса");
+    }
+
+    @Test
+    void rollingWindowExpiry() {
+        var window = new RollingWindow();
+        long bucket = window.getBucketMillis();
+        assertEquals(4 * HOUR, bucket, "Корзина по умолчанию");
+
+        long t = millis(DAY, LocalTime.of(10, 0), ZONE);
+        long bucketStart = Math.floorDiv(t, bucket) * bucket;
+        window.add(t, 1_000);
+        assertEquals(1_000, window.getWithdrawn(t + 24 * HOUR), "Через 24 часа");
+        assertEquals(1_000, window.getWithdrawn(bucketStart + 28 * HOUR - 1), "Конец седьмой корзины");
+        assertEquals(0, window.getWithdrawn(bucketStart + 28 * HOUR), "Через 28 часов от корзины");
+
+        // Снятие через две корзины очищает только пройденные корзины
+        window.add(t + 2 * bucket, 200);
+        assertEquals(1_200, window.getWithdrawn(t + 2 * bucket), "Обе корзины в окне");
+        assertEquals(200, window.getWithdrawn(bucketStart + 28 * HOUR), "Первая корзина вышла");
+
+        // После долгого перерыва окно пустое
+        window.add(t + 100 * HOUR, 50);
+        assertEquals(50, window.getWithdrawn(t + 100 * HOUR), "После перерыва");
+    }
+
+    /**
+     * Снятия приходят не по порядку (восстановление, часы разных узлов):
+     * окно сверяется с прямым подсчетом по списку принятых снятий
+     */
+    @Test
+    void rollingWindowOutOfOrder() {
+        var random = new SplittableRandom(20_26_10_18L);
+        var window = new RollingWindow(Duration.ofMinutes(60), 6);
+        long bucket = window.getBucketMillis();
+        int slots = 7; // корзин в кольце: период и еще одна
+        List<long[]> accepted = new ArrayList<>(); // {корзина, сумма}
+        long newest = Long.MIN_VALUE;
+        long time = millis(DAY, LocalTime.NOON, ZONE);
+
+        for (int i = 0; i < 20_000; i++) {
+            time += random.nextLong(-9 * bucket, 4 * bucket);
+            int amount = random.nextInt(1, 1_000);
+            long b = Math.floorDiv(time, bucket);
+            window.add(time, amount);
+            if (newest == Long.MIN_VALUE || b > newest - slots) {
+                accepted.add(new long[]{b, amount});
+                newest = Math.max(newest, b);
+            }
+
+            long now = time + random.nextLong(-2 * bucket, 9 * bucket);
+            long nowBucket = Math.floorDiv(now, bucket);
+            long from = Math.max(nowBucket, newest) - (slots - 1);
+            long to = Math.min(nowBucket, newest);
+            long expected = 0;
+            for (long[] withdrawal : accepted) {
+                if (withdrawal[0] >= from && withdrawal[0] <= to) {
+                    expected += withdrawal[1];
+                }
+            }
+            long at = now;
+            assertEquals((int) expected, window.getWithdrawn(now), () -> "Снято на " + at);
+        }
+    }
+
+    @Test
+    void registryDayBoundary() {
+        var registry = new AccountRegistry(16, 1, new DayClock(clock));
+        long card = AccountRegistry.cardKey(CARD);
+        long midnight = millis(DAY.plusDays(1), LocalTime.MIDNIGHT, ZONE);
+        clock.set(midnight - 2);
+        registry.register(card, 100_000, 5_000);
+        registry.withdraw(card, 4_000);
+        clock.set(midnight - 1);
+        assertThrows(InvalidAmountException.class, () -> registry.withdraw(card, 2_000), "Сверх лимита до полуночи");
+        assertEquals(1_000, registry.getAvailableToday(card), "Доступно до полуночи");
+
+        clock.set(midnight);
+        assertEquals(0, registry.getWithdrawnToday(card), "Снято в полночь");
+        assertEquals(5_000, registry.getAvailableToday(card), "Доступно в полночь");
+        registry.withdraw(card, 5_000);
+        assertEquals(91_000, registry.getBalance(card), "Баланс");
+        int[] visited = new int[1];
+        registry.forEach((cardKey, balance, dailyLimit, withdrawnToday) -> visited[0] = withdrawnToday);
+        assertEquals(5_000, visited[0], "Снято в обходе");
+    }
+
+    /**
+     * В колонке - младшие 16 бит номера дня: смена дня должна сбрасывать лимит и там,
+     * где short меняет знак (32767 - 32768) и переполняется (65535 - 65536)
+     */
+    @Test
+    void registryDayColumnWraps() {
+        var registry = new AccountRegistry(16, 1, new DayClock(clock));
+        long card = AccountRegistry.cardKey(CARD);
+        clock.set(millis(LocalDate.ofEpochDay(32_766), LocalTime.NOON, ZONE));
+        registry.register(card, 1_000_000, 5_000);
+        for (long day : new long[]{32_767, 32_768, 65_535, 65_536, 65_537}) {
+            clock.set(millis(LocalDate.ofEpochDay(day), LocalTime.NOON, ZONE));
+            assertEquals(0, registry.getWithdrawnToday(card), "Снято в начале дня " + day);
+            registry.withdraw(card, 5_000);
+            assertEquals(5_000, registry.getWithdrawnToday(card), "Снято за день " + day);
+            assertThrows(InvalidAmountException.class, () -> registry.withdraw(card, 1), "Сверх лимита " + day);
+        }
+    }
+
+    @Test
+    void replayUsesRecordMinute() {
+        Path file = directory.resolve("limit.journal");
+        long midnight = millis(DAY.plusDays(1), LocalTime.MIDNIGHT, ZONE);
+        try (var journal = new Journal(file, Duration.ZERO)) {
+            var user = new User("Иван", CARD, 100_000, 5_000, new DayClock(clock));
+            user.attachJournal(journal);
+            clock.set(midnight - 30_000); // 23:59:30 - в записи минута 23:59
+            user.withdraw(4_000);
+            clock.set(midnight + 10 * 60_000);
+            user.withdraw(3_000);
+            // Запись без времени, как до отметки минуты
+            journal.append(RecordType.USER_WITHDRAW, user.getJournalSubject(), 500);
+        }
+
+        clock.set(midnight + 20 * 60_000);
+        try (var journal = new Journal(file, Duration.ZERO)) {
+            var calendar = new User("Иван", CARD, 100_000, 5_000, new DayClock(clock));
+            assertEquals(3, calendar.recover(journal), "Применено записей");
+            assertEquals(92_500, calendar.getBalance(), "Баланс");
+            assertEquals(3_500, calendar.getWithdrawnToday(), "Снято в новый день");
+
+            var days = new DayClock(clock);
+            var rolling = new User("Иван", CARD, 100_000, 10_000, days, new RollingWindow());
+            rolling.recover(journal);
+            assertEquals(7_500, rolling.getWithdrawnToday(), "Снято за 24 часа");
+            clock.set(midnight + 29 * HOUR);
+            assertEquals(0, rolling.getWithdrawnToday(), "Снято через 29 часов");
+        }
+    }
+
+    private static long millis(LocalDate date, LocalTime time, ZoneId zone) {
+        return date.atTime(time).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Часы, которые двигает тест
+     */
+    private static final class TestClock extends Clock {
+        private final ZoneId zone;
+        private volatile long millis;
+
+        TestClock(ZoneId zone) {
+            this.zone = zone;
+            this.millis = DailyLimitTest.millis(DAY, LocalTime.NOON, zone);
+        }
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            var clock = new TestClock(zone);
+            clock.set(millis);
+            return clock;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.group.avenue.middle.atm.project.model;
+
+import com.group.avenue.middle.atm.project.ATM;
+import com.group.avenue.middle.atm.project.exception.CassetteException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Устаревший адаптер Cassette: отдельная ячейка ведет себя как прежде, а ячейка банкомата
+ * меняет его количества, баланс и версию состояния (по ней сбрасывается кеш планов выдачи)
+ */
+@SuppressWarnings("deprecation")
+class CassetteTest {
+
+    @Test
+    void standaloneCassette() {
+        var cassette = new Cassette(Banknote.RUB_100, 10, 4);
+        assertEquals(5, cassette.deposit(5), "Внесено");
+        assertThrows(CassetteException.class, () -> cassette.deposit(2), "Внесено сверх вместимости");
+        cassette.withdraw(20);
+        assertTrue(cassette.isEmpty(), "Изъято больше, чем было");
+        assertEquals(10, cassette.getCapacity(), "Вместимость");
+    }
+
+    @Test
+    void atmCassetteChangesAtm() {
+        var atm = new ATM("ATM-CASSETTE", 100_000);
+        var cassette = atm.getCassette(Banknote.RUB_500);
+        assertEquals(atm.getCapacity(Banknote.RUB_500), cassette.getCapacity(), "Вместимость");
+
+        long version = atm.getStateVersion();
+        cassette.deposit(6);
+        assertEquals(6, atm.getCount(Banknote.RUB_500), "Количество в банкомате после внесения");
+        assertEquals(3_000, atm.getBalance(), "Баланс после внесения");
+        assertNotEquals(version, atm.getStateVersion(), "Версия не изменилась после внесения");
+
+        version = atm.getStateVersion();
+        cassette.withdraw(4);
+        assertEquals(2, cassette.getCount(), "Количество после изъятия");
+        assertEquals(1_000, atm.getBalance(), "Баланс после изъятия");
+        assertNotEquals(version, atm.getStateVersion(), "Версия не изменилась после изъятия");
+
+        assertThrows(CassetteException.class,
+                () -> cassette.deposit(atm.getCapacity(Banknote.RUB_500)), "Внесено сверх вместимости");
+        assertEquals(1_000, cassette.getCurrentAmount(), "Сумма в ячейке");
+    }
+}